@@ -0,0 +1,176 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ */
+package me.lemire.integercompression.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import me.lemire.integercompression.CodecRegistry;
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.SkippableIntBufferCODEC;
+import me.lemire.integercompression.SkippableIntegerCODEC;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Speed of the IntBuffer methods (SkippableIntBufferCODEC) against the
+ * array methods of the same codec, on the same data: the buffer is direct
+ * and little endian, as a memory-mapped file.
+ * uncompressCopy is the alternative to decoding from the buffer: copy the
+ * whole buffer to the heap, then decode it with the array methods.
+ *
+ * Each operation is one integer, so the scores are in integers per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BufferCodecBenchmark {
+        /**
+         * Length of the array.
+         */
+        public static final int N = 1 << 18;
+
+        /**
+         * Name of the codec, composed with VariableByte (see CodecRegistry).
+         */
+        @Param({ "BinaryPacking", "NewPFD", "OptPFD", "FastPFOR",
+                "FastPFOR128" })
+        public String codec;
+
+        /**
+         * Data distribution, see DataSets.sorted.
+         */
+        @Param({ "clustered", "uniform" })
+        public String distribution;
+
+        SkippableIntegerCODEC c;
+        SkippableIntBufferCODEC bc;
+        int[] data;
+        int[] compressed;
+        int[] compressBuffer;
+        IntBuffer buffer;
+        int[] decompressBuffer;
+        int[] copyBuffer;
+
+        private static int id(String name) {
+                if (name.equals("BinaryPacking"))
+                        return CodecRegistry.BINARY_PACKING;
+                if (name.equals("NewPFD"))
+                        return CodecRegistry.NEWPFD;
+                if (name.equals("OptPFD"))
+                        return CodecRegistry.OPTPFD;
+                if (name.equals("FastPFOR"))
+                        return CodecRegistry.FASTPFOR;
+                if (name.equals("FastPFOR128"))
+                        return CodecRegistry.FASTPFOR128;
+                throw new IllegalArgumentException("Unknown codec: " + name);
+        }
+
+        /**
+         * Generate the data and compress it once, to an array and to a
+         * direct buffer.
+         */
+        @Setup
+        public void setup() {
+                c = CodecRegistry.newCodec(id(codec));
+                bc = CodecRegistry.newBufferCodec(id(codec));
+                data = DataSets.gaps(DataSets.sorted(distribution, 1, N, 8,
+                        1234))[0];
+                compressBuffer = new int[2 * N + 1024];
+                compressed = Arrays.copyOf(compressBuffer, compressArray());
+                buffer = ByteBuffer.allocateDirect(4 * (2 * N + 1024))
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                compressToBuffer();
+                if (buffer.position() != compressed.length)
+                        throw new RuntimeException("bug " + codec);
+                decompressBuffer = new int[N + 1024];
+                copyBuffer = new int[compressed.length];
+                if (uncompressBuffer() != N)
+                        throw new RuntimeException("bug " + codec);
+                for (int j = 0; j < N; ++j)
+                        if (decompressBuffer[j] != data[j])
+                                throw new RuntimeException("bug " + codec);
+        }
+
+        /**
+         * @return compressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(N)
+        public int compressArray() {
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                c.headlessCompress(data, IntWrapper.IntWrapper1(), N,
+                        compressBuffer, outpos);
+                return outpos.get();
+        }
+
+        /**
+         * @return compressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(N)
+        public int compressToBuffer() {
+                buffer.clear();
+                bc.headlessCompressToBuffer(data, IntWrapper.IntWrapper1(), N,
+                        buffer);
+                return buffer.position();
+        }
+
+        /**
+         * @return decompressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(N)
+        public int uncompressArray() {
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                c.headlessUncompress(compressed, IntWrapper.IntWrapper1(),
+                        compressed.length, decompressBuffer, outpos, N);
+                return outpos.get();
+        }
+
+        /**
+         * @return decompressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(N)
+        public int uncompressBuffer() {
+                buffer.position(0);
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                bc.headlessUncompressFromBuffer(buffer, compressed.length,
+                        decompressBuffer, outpos, N);
+                return outpos.get();
+        }
+
+        /**
+         * @return decompressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(N)
+        public int uncompressCopy() {
+                buffer.position(0);
+                buffer.get(copyBuffer, 0, compressed.length);
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                c.headlessUncompress(copyBuffer, IntWrapper.IntWrapper1(),
+                        compressed.length, decompressBuffer, outpos, N);
+                return outpos.get();
+        }
+}
@@ -0,0 +1,144 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ */
+package me.lemire.integercompression.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.IntegerCODEC;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compression and decompression speed of every codec.
+ *
+ * Each operation is one integer, so the scores are in integers per second.
+ * The compression ratio (bits/int) of the data set is printed during the
+ * setup; run CompressionRatio for a table of all ratios. Run with
+ * "-prof gc" to get the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CodecBenchmark {
+        /**
+         * Length of each array.
+         */
+        public static final int N = 1 << 16;
+        /**
+         * Number of arrays, visited in turn.
+         */
+        public static final int COUNT = 16;
+
+        /**
+         * Name of the codec, see Codecs.
+         */
+        @Param({ "JustCopy", "VariableByte", "BinaryPacking", "NewPFD",
+                "NewPFDS9", "NewPFDS16", "OptPFD", "OptPFDS9", "OptPFDS16",
+                "FastPFOR", "FastPFOR128", "ParallelFastPFOR", "Simple9",
+                "Simple16", "GroupSimple9", "AdaptiveCODEC", "KamikazeBlocks",
+                "IntegratedBinaryPacking",
+                "IntegratedBinaryPackingFastest", "IntegratedVariableByte",
+                "XorBinaryPacking", "DeltaZigzagBinaryPacking",
+                "DeltaZigzagVariableByte" })
+        public String codec;
+
+        /**
+         * Data distribution, see DataSets.sorted. To replay a gap file, pass
+         * "-p distribution=file:PATH".
+         */
+        @Param({ "clustered", "uniform", "zipfian", "powerlaw", "runs",
+                "timestamps" })
+        public String distribution;
+
+        /**
+         * The integers are in [0, N * 2^sparsity).
+         */
+        @Param({ "2", "8", "14" })
+        public int sparsity;
+
+        IntegerCODEC c;
+        int[][] data;
+        int[][] compressed;
+        int[] compressBuffer;
+        int[] decompressBuffer;
+        int index;
+
+        /**
+         * Generate the data and compress it once.
+         */
+        @Setup
+        public void setup() {
+                c = Codecs.create(codec);
+                data = DataSets.sorted(distribution, COUNT, N, sparsity, 1234);
+                if (!Codecs.isIntegrated(codec))
+                        data = DataSets.gaps(data);
+                compressBuffer = new int[2 * N + 1024];
+                decompressBuffer = new int[N + 1024];
+                compressed = new int[COUNT][];
+                long total = 0;
+                for (int k = 0; k < COUNT; ++k) {
+                        compressed[k] = Arrays.copyOf(compressBuffer,
+                                compress(data[k]));
+                        total += compressed[k].length;
+                        if (decompress(compressed[k]) != N)
+                                throw new RuntimeException("bug " + c);
+                        for (int j = 0; j < N; ++j)
+                                if (decompressBuffer[j] != data[k][j])
+                                        throw new RuntimeException("bug " + c);
+                }
+                System.out.println(String.format("\n# %1$s bits/int: %2$.2f",
+                        c, total * 32.0 / ((long) COUNT * N)));
+        }
+
+        private int compress(int[] in) {
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                c.compress0(in, IntWrapper.IntWrapper1(), in.length,
+                        compressBuffer, outpos);
+                return outpos.get();
+        }
+
+        private int decompress(int[] in) {
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                c.uncompress0(in, IntWrapper.IntWrapper1(), in.length,
+                        decompressBuffer, outpos);
+                return outpos.get();
+        }
+
+        /**
+         * @return compressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(N)
+        public int compress() {
+                index = (index + 1) % COUNT;
+                return compress(data[index]);
+        }
+
+        /**
+         * @return decompressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(N)
+        public int uncompress() {
+                index = (index + 1) % COUNT;
+                return decompress(compressed[index]);
+        }
+}
@@ -0,0 +1,143 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ */
+package me.lemire.integercompression.benchmarks;
+
+import me.lemire.integercompression.AdaptiveCODEC;
+import me.lemire.integercompression.BinaryPacking;
+import me.lemire.integercompression.Composition;
+import me.lemire.integercompression.DeltaZigzagBinaryPacking;
+import me.lemire.integercompression.DeltaZigzagVariableByte;
+import me.lemire.integercompression.FastPFOR;
+import me.lemire.integercompression.FastPFOR128;
+import me.lemire.integercompression.GroupSimple9;
+import me.lemire.integercompression.IntegerCODEC;
+import me.lemire.integercompression.JustCopy;
+import me.lemire.integercompression.KamikazeBlocks;
+import me.lemire.integercompression.NewPFD;
+import me.lemire.integercompression.NewPFDS16;
+import me.lemire.integercompression.NewPFDS9;
+import me.lemire.integercompression.OptPFD;
+import me.lemire.integercompression.OptPFDS16;
+import me.lemire.integercompression.OptPFDS9;
+import me.lemire.integercompression.ParallelFastPFOR;
+import me.lemire.integercompression.Simple16;
+import me.lemire.integercompression.Simple9;
+import me.lemire.integercompression.VariableByte;
+import me.lemire.integercompression.differential.IntegratedBinaryPacking;
+import me.lemire.integercompression.differential.IntegratedComposition;
+import me.lemire.integercompression.differential.IntegratedVariableByte;
+import me.lemire.integercompression.differential.XorBinaryPacking;
+
+/**
+ * Names of the benchmarked codecs, as used in the "codec" parameter of
+ * the benchmarks.
+ *
+ * Block-based codecs are composed with VariableByte so that they accept
+ * arrays of any length.
+ */
+public final class Codecs {
+        /**
+         * Codecs expecting the gaps between sorted integers.
+         */
+        public static final String[] REGULAR = { "JustCopy", "VariableByte",
+                "BinaryPacking", "NewPFD", "NewPFDS9", "NewPFDS16", "OptPFD",
+                "OptPFDS9", "OptPFDS16", "FastPFOR", "FastPFOR128",
+                "ParallelFastPFOR", "Simple9", "Simple16", "GroupSimple9",
+                "AdaptiveCODEC", "KamikazeBlocks" };
+
+        /**
+         * Codecs doing their own differential coding: they are given the
+         * sorted integers.
+         */
+        public static final String[] INTEGRATED = { "IntegratedBinaryPacking",
+                "IntegratedBinaryPackingFastest", "IntegratedVariableByte", "XorBinaryPacking",
+                "DeltaZigzagBinaryPacking", "DeltaZigzagVariableByte" };
+
+        private Codecs() {
+        }
+
+        /**
+         * @param name
+         *                name of the codec
+         * @return whether the codec expects sorted integers rather than gaps
+         */
+        public static boolean isIntegrated(String name) {
+                for (String s : INTEGRATED)
+                        if (s.equals(name))
+                                return true;
+                return false;
+        }
+
+        /**
+         * Create a new instance of a codec.
+         *
+         * @param name
+         *                name of the codec
+         * @return a new instance
+         */
+        public static IntegerCODEC create(String name) {
+                if (name.equals("JustCopy"))
+                        return new JustCopy();
+                if (name.equals("VariableByte"))
+                        return new VariableByte();
+                if (name.equals("BinaryPacking"))
+                        return new Composition(new BinaryPacking(),
+                                new VariableByte());
+                if (name.equals("NewPFD"))
+                        return new Composition(new NewPFD(), new VariableByte());
+                if (name.equals("NewPFDS9"))
+                        return new Composition(new NewPFDS9(),
+                                new VariableByte());
+                if (name.equals("NewPFDS16"))
+                        return new Composition(new NewPFDS16(),
+                                new VariableByte());
+                if (name.equals("OptPFD"))
+                        return new Composition(new OptPFD(), new VariableByte());
+                if (name.equals("OptPFDS9"))
+                        return new Composition(new OptPFDS9(),
+                                new VariableByte());
+                if (name.equals("OptPFDS16"))
+                        return new Composition(new OptPFDS16(),
+                                new VariableByte());
+                if (name.equals("FastPFOR"))
+                        return new Composition(FastPFOR.FastPFOR1(),
+                                new VariableByte());
+                if (name.equals("ParallelFastPFOR"))
+                        return new Composition(
+                                ParallelFastPFOR.ParallelFastPFOR1(),
+                                new VariableByte());
+                if (name.equals("FastPFOR128"))
+                        return new Composition(FastPFOR128.FastPFOR1281(),
+                                new VariableByte());
+                if (name.equals("Simple9"))
+                        return new Simple9();
+                if (name.equals("Simple16"))
+                        return new Simple16();
+                if (name.equals("GroupSimple9"))
+                        return new GroupSimple9();
+                if (name.equals("AdaptiveCODEC"))
+                        return new AdaptiveCODEC();
+                if (name.equals("KamikazeBlocks"))
+                        return new Composition(new KamikazeBlocks(),
+                                new VariableByte());
+                if (name.equals("IntegratedBinaryPacking"))
+                        return new IntegratedComposition(
+                                new IntegratedBinaryPacking(),
+                                new IntegratedVariableByte());
+                if (name.equals("IntegratedBinaryPackingFastest"))
+                        return new IntegratedComposition(
+                                IntegratedBinaryPacking.fastest(),
+                                new IntegratedVariableByte());
+                if (name.equals("IntegratedVariableByte"))
+                        return new IntegratedVariableByte();
+                if (name.equals("XorBinaryPacking"))
+                        return new XorBinaryPacking();
+                if (name.equals("DeltaZigzagBinaryPacking"))
+                        return new DeltaZigzagBinaryPacking();
+                if (name.equals("DeltaZigzagVariableByte"))
+                        return new DeltaZigzagVariableByte();
+                throw new IllegalArgumentException("Unknown codec: " + name);
+        }
+}
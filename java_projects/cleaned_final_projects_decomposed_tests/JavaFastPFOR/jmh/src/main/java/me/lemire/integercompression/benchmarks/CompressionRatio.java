@@ -0,0 +1,70 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ */
+package me.lemire.integercompression.benchmarks;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.IntegerCODEC;
+
+/**
+ * Prints the compression ratio (bits/int) of every codec on the data sets
+ * of CodecBenchmark. Unlike speed, the ratio does not need JMH.
+ */
+public class CompressionRatio {
+        /**
+         * Main method.
+         *
+         * @param args
+         *                distributions to use, see DataSets.sorted (default:
+         *                DataSets.DISTRIBUTIONS)
+         */
+        public static void main(String[] args) {
+                String[] distributions = args.length > 0 ? args
+                        : DataSets.DISTRIBUTIONS;
+                int[] sparsities = { 2, 8, 14 };
+                StringBuilder header = new StringBuilder("codec");
+                for (String d : distributions)
+                        for (int s : sparsities)
+                                header.append('\t').append(d).append('/')
+                                        .append(s);
+                System.out.println(header);
+                int[][][][] data = new int[distributions.length][sparsities.length][][];
+                for (int i = 0; i < distributions.length; ++i)
+                        for (int j = 0; j < sparsities.length; ++j)
+                                data[i][j] = DataSets.sorted(distributions[i],
+                                        CodecBenchmark.COUNT, CodecBenchmark.N,
+                                        sparsities[j], 1234);
+                int[] buffer = new int[2 * CodecBenchmark.N + 1024];
+                for (String[] names : new String[][] { Codecs.REGULAR,
+                        Codecs.INTEGRATED })
+                        for (String name : names) {
+                                StringBuilder line = new StringBuilder(name);
+                                for (int i = 0; i < distributions.length; ++i)
+                                        for (int j = 0; j < sparsities.length; ++j) {
+                                                int[][] d = data[i][j];
+                                                if (!Codecs.isIntegrated(name))
+                                                        d = DataSets.gaps(d);
+                                                line.append(String.format(
+                                                        "\t%1$.2f",
+                                                        bitsPerInt(Codecs
+                                                                .create(name),
+                                                                d, buffer)));
+                                        }
+                                System.out.println(line);
+                        }
+        }
+
+        private static double bitsPerInt(IntegerCODEC c, int[][] data,
+                int[] buffer) {
+                long in = 0, out = 0;
+                for (int[] d : data) {
+                        IntWrapper outpos = IntWrapper.IntWrapper1();
+                        c.compress0(d, IntWrapper.IntWrapper1(), d.length,
+                                buffer, outpos);
+                        in += d.length;
+                        out += outpos.get();
+                }
+                return out * 32.0 / in;
+        }
+}
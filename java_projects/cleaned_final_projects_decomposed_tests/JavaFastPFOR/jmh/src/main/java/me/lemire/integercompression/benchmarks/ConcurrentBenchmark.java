@@ -0,0 +1,141 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ */
+package me.lemire.integercompression.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import me.lemire.integercompression.ConcurrentFastPFOR;
+import me.lemire.integercompression.FastPFOR;
+import me.lemire.integercompression.FastPFOR128;
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.IntegerCODEC;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding throughput of a ConcurrentFastPFOR shared by all threads,
+ * compared with one FastPFOR instance per thread.
+ *
+ * The number of threads is set on the command line, e.g.,
+ *
+ * <pre>
+ * for t in 1 2 4 8 16 32 64; do java -jar target/benchmarks.jar ConcurrentBenchmark -t $t; done
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentBenchmark {
+
+        /**
+         * Data and codec shared by all threads.
+         */
+        @State(Scope.Benchmark)
+        public static class Shared {
+                /**
+                 * FastPFOR.BLOCK_SIZE or FastPFOR128.BLOCK_SIZE.
+                 */
+                @Param({ "256", "128" })
+                public int blockSize;
+
+                ConcurrentFastPFOR codec;
+                int[][] compressed;
+
+                /**
+                 * Compress the data.
+                 */
+                @Setup
+                public void setup() {
+                        codec = new ConcurrentFastPFOR(blockSize, Runtime
+                                .getRuntime().availableProcessors());
+                        int[][] data = DataSets.gaps(DataSets.sorted(
+                                "clustered", CodecBenchmark.COUNT,
+                                CodecBenchmark.N, 10, 1234));
+                        compressed = new int[data.length][];
+                        int[] buffer = new int[2 * CodecBenchmark.N + 1024];
+                        for (int k = 0; k < data.length; ++k) {
+                                IntWrapper outpos = IntWrapper.IntWrapper1();
+                                codec.compress0(data[k],
+                                        IntWrapper.IntWrapper1(),
+                                        data[k].length, buffer, outpos);
+                                compressed[k] = Arrays.copyOf(buffer,
+                                        outpos.get());
+                        }
+                }
+        }
+
+        /**
+         * Working area of a thread.
+         */
+        @State(Scope.Thread)
+        public static class Local {
+                IntegerCODEC codec;
+                int[] out = new int[CodecBenchmark.N + 1024];
+                int index;
+
+                /**
+                 * Create the private codec.
+                 *
+                 * @param shared
+                 *                the shared state
+                 */
+                @Setup
+                public void setup(Shared shared) {
+                        if (shared.blockSize == FastPFOR.BLOCK_SIZE)
+                                codec = FastPFOR.FastPFOR1();
+                        else
+                                codec = FastPFOR128.FastPFOR1281();
+                }
+        }
+
+        private static int decode(IntegerCODEC c, Shared shared, Local local) {
+                local.index = (local.index + 1) % shared.compressed.length;
+                int[] in = shared.compressed[local.index];
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                c.uncompress0(in, IntWrapper.IntWrapper1(), in.length,
+                        local.out, outpos);
+                return outpos.get();
+        }
+
+        /**
+         * @param shared
+         *                the shared state
+         * @param local
+         *                the thread state
+         * @return decompressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(CodecBenchmark.N)
+        public int sharedCodec(Shared shared, Local local) {
+                return decode(shared.codec, shared, local);
+        }
+
+        /**
+         * @param shared
+         *                the shared state
+         * @param local
+         *                the thread state
+         * @return decompressed size (to be consumed by JMH)
+         */
+        @Benchmark
+        @OperationsPerInvocation(CodecBenchmark.N)
+        public int codecPerThread(Shared shared, Local local) {
+                return decode(local.codec, shared, local);
+        }
+}
@@ -0,0 +1,138 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ */
+package me.lemire.integercompression.benchmarks;
+
+import java.io.IOException;
+
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+import me.lemire.integercompression.synth.PowerLawDataGenerator;
+import me.lemire.integercompression.synth.ReplayDataGenerator;
+import me.lemire.integercompression.synth.RunDataGenerator;
+import me.lemire.integercompression.synth.TimestampDataGenerator;
+import me.lemire.integercompression.synth.UniformDataGenerator;
+import me.lemire.integercompression.synth.ZipfianDataGenerator;
+
+/**
+ * Generates the input arrays of the benchmarks.
+ */
+public final class DataSets {
+        private DataSets() {
+        }
+
+        /**
+         * Names of the built-in distributions.
+         */
+        public static final String[] DISTRIBUTIONS = { "clustered",
+                "uniform", "zipfian", "powerlaw", "runs", "timestamps" };
+
+        /**
+         * Generate sorted arrays of distinct integers. The distributions are
+         *
+         * <pre>
+         * clustered:  clustered model of Anh and Moffat
+         * uniform:    uniform over [0, N * 2^sparsity)
+         * zipfian:    Zipfian gaps (exponent 1.2) from 1 to 2^sparsity
+         * powerlaw:   posting lists with power-law lengths (exponent 1.5, at
+         *             most N / 16) stored one after the other
+         * runs:       runs of consecutive integers (32 on average) separated
+         *             by jumps of up to 2^sparsity
+         * timestamps: timestamps with a period of 2^sparsity and a jitter of
+         *             a quarter of the period
+         * file:PATH   replay of the gaps stored in PATH (format of
+         *             BenchmarkCSV), sparsity is ignored
+         * </pre>
+         *
+         * In all cases but the last two, the integers are in about
+         * [0, N * 2^sparsity).
+         *
+         * @param distribution
+         *                one of DISTRIBUTIONS, or "file:" followed by the
+         *                path of a gap file
+         * @param count
+         *                number of arrays
+         * @param N
+         *                length of each array
+         * @param sparsity
+         *                controls the size of the gaps, from 1 to 14
+         * @param seed
+         *                random seed (not used by the clustered generator)
+         * @return the arrays
+         */
+        public static int[][] sorted(String distribution, int count, int N,
+                int sparsity, int seed) {
+                final int max = N << sparsity;
+                int[][] data = new int[count][];
+                if (distribution.startsWith("file:")) {
+                        final String path = distribution.substring(5);
+                        ReplayDataGenerator rdg;
+                        try {
+                                rdg = new ReplayDataGenerator(
+                                        ReplayDataGenerator.load(path));
+                        } catch (IOException e) {
+                                throw new RuntimeException("Cannot read "
+                                        + path, e);
+                        }
+                        for (int k = 0; k < count; ++k)
+                                data[k] = rdg.generateReplay(N);
+                } else if (distribution.equals("zipfian")) {
+                        ZipfianDataGenerator zdg = new ZipfianDataGenerator(
+                                seed);
+                        for (int k = 0; k < count; ++k)
+                                data[k] = zdg.generateZipfian(N, 1.2,
+                                        1 << sparsity);
+                } else if (distribution.equals("powerlaw")) {
+                        PowerLawDataGenerator pdg = new PowerLawDataGenerator(
+                                seed);
+                        for (int k = 0; k < count; ++k)
+                                data[k] = pdg.generateConcatenatedPostingLists(
+                                        N, 1.5, Math.max(1, N / 16), max);
+                } else if (distribution.equals("runs")) {
+                        RunDataGenerator rdg = new RunDataGenerator(seed);
+                        for (int k = 0; k < count; ++k)
+                                data[k] = rdg.generateRuns(N, 32,
+                                        Math.max(2, 1 << sparsity));
+                } else if (distribution.equals("timestamps")) {
+                        TimestampDataGenerator tdg = new TimestampDataGenerator(
+                                seed);
+                        for (int k = 0; k < count; ++k)
+                                data[k] = tdg.generateTimestamps(N, 1 << 20,
+                                        1 << sparsity, (1 << sparsity) / 4);
+                } else if (distribution.equals("uniform")) {
+                        UniformDataGenerator udg = new UniformDataGenerator(0,
+                                seed);
+                        for (int k = 0; k < count; ++k)
+                                data[k] = udg.generateUniform(N, max);
+                } else if (distribution.equals("clustered")) {
+                        // the clustered generator cannot be seeded
+                        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+                        for (int k = 0; k < count; ++k)
+                                data[k] = cdg.generateClustered(N, max);
+                } else
+                        throw new IllegalArgumentException(
+                                "Unknown distribution: " + distribution);
+                return data;
+        }
+
+        /**
+         * Replace sorted integers by their successive differences.
+         *
+         * @param data
+         *                arrays of sorted integers
+         * @return arrays of gaps
+         */
+        public static int[][] gaps(int[][] data) {
+                int[][] answer = new int[data.length][];
+                for (int k = 0; k < data.length; ++k) {
+                        int[] d = data[k];
+                        int[] g = answer[k] = new int[d.length];
+                        int prev = 0;
+                        for (int j = 0; j < d.length; ++j) {
+                                g[j] = d[j] - prev;
+                                prev = d[j];
+                        }
+                }
+                return answer;
+        }
+}
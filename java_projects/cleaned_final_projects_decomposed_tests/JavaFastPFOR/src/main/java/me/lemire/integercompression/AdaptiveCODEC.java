@@ -0,0 +1,211 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * Meta-CODEC choosing, for each block of 128 integers, the scheme that
+ * should compress it best among BinaryPacking, NewPFD, VariableByte and
+ * JustCopy.
+ *
+ * The choice is made from the histogram of the bit widths of the block (as
+ * in the analysis done by FastPFOR), without compressing the block several
+ * times: binary packing pays for the largest integer of each group of 32,
+ * NewPFD for its best bit width plus its exceptions, and variable byte for
+ * the number of bytes of each integer. The sizes for NewPFD are estimates.
+ *
+ * The blocks are written in groups of 16, each group being preceded by a
+ * word holding a 2-bit codec tag per block. Integers beyond the last full
+ * block are written as a last, shorter block (VariableByte or JustCopy), so
+ * that arrays of any length are supported.
+ *
+ * <pre>
+ * IntegerCODEC ic = new AdaptiveCODEC();
+ * </pre>
+ *
+ * Note that this does not use differential coding: if you are working on
+ * sorted lists, you must compute the deltas separately.
+ *
+ * For multi-threaded applications, each thread should use its own
+ * AdaptiveCODEC object.
+ *
+ * @author Daniel Lemire
+ */
+public final class AdaptiveCODEC implements IntegerCODEC, SkippableIntegerCODEC {
+        final static int BLOCK_SIZE = 128;
+
+        final static int BLOCKS_PER_GROUP = 16;
+
+        final static int BINARYPACKING = 0;
+
+        final static int NEWPFD = 1;
+
+        final static int VARIABLEBYTE = 2;
+
+        final static int JUSTCOPY = 3;
+
+        private final SkippableIntegerCODEC[] codecs = {
+                new BinaryPacking(), new NewPFD(), new VariableByte(),
+                new JustCopy() };
+
+        // working area: number of integers of each bit width in a block
+        private final int[] freqs = new int[33];
+
+        /**
+         * Constructor for the AdaptiveCODEC.
+         */
+        public AdaptiveCODEC() {
+        }
+
+        /**
+         * Pick the CODEC for a block.
+         *
+         * @param in
+         *                input array
+         * @param pos
+         *                where the block starts
+         * @param length
+         *                number of integers in the block (at most BLOCK_SIZE)
+         * @return the codec tag
+         */
+        int choose(int[] in, int pos, int length) {
+                Arrays.fill(freqs, 0);
+                int bpsize = 0;
+                for (int k = 0; k < length; k += 32) {
+                        int acc = 0;
+                        for (int j = k; j < Math.min(k + 32, length); ++j) {
+                                final int v = in[pos + j];
+                                acc |= v;
+                                freqs[Util.bits(v)]++;
+                        }
+                        bpsize += Util.bits(acc);
+                }
+                int vbbytes = 0;
+                int maxb = 0;
+                for (int b = 0; b <= 32; ++b) {
+                        if (freqs[b] == 0)
+                                continue;
+                        maxb = b;
+                        vbbytes += freqs[b] * (b <= 7 ? 1 : (b + 6) / 7);
+                }
+                int bestsize = length;
+                int best = JUSTCOPY;
+                final int vbsize = (vbbytes + 3) / 4;
+                if (vbsize < bestsize) {
+                        bestsize = vbsize;
+                        best = VARIABLEBYTE;
+                }
+                if (length < BLOCK_SIZE)
+                        return best;
+                bpsize += 1;
+                if (bpsize <= bestsize) {
+                        bestsize = bpsize;
+                        best = BINARYPACKING;
+                }
+                final int pfdsize = newPFDSize(maxb);
+                if (pfdsize < bestsize)
+                        best = NEWPFD;
+                return best;
+        }
+
+        /**
+         * @return estimated size in words of the block with NewPFD, using the
+         *         bit width histogram and the same choice of bit width as
+         *         NewPFD
+         */
+        private int newPFDSize(int maxb) {
+                int mini = 0;
+                if (mini + 28 < NewPFD.bits[NewPFD.invbits[maxb]])
+                        mini = NewPFD.bits[NewPFD.invbits[maxb]] - 28;
+                int besti = NewPFD.bits.length - 1;
+                int exceptcounter = 0;
+                for (int i = mini; i < NewPFD.bits.length - 1; ++i) {
+                        int tmpcounter = 0;
+                        for (int b = NewPFD.bits[i] + 1; b <= maxb; ++b)
+                                tmpcounter += freqs[b];
+                        if (tmpcounter * 10 <= BLOCK_SIZE) {
+                                besti = i;
+                                exceptcounter = tmpcounter;
+                                break;
+                        }
+                }
+                final int b = NewPFD.bits[besti];
+                // exceptions: 7-bit positions and high bits, 28 bits per word
+                final int exceptsize = (exceptcounter * (7 + maxb - b) + 27) / 28;
+                return 1 + exceptsize + 4 * b;
+        }
+
+        @Override
+        public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                int s = inpos.get();
+                final int end = s + inlength;
+                while (s < end) {
+                        final int headerpos = outpos.get();
+                        outpos.increment();
+                        int header = 0;
+                        for (int k = 0; (k < BLOCKS_PER_GROUP) && (s < end); ++k) {
+                                final int length = Math.min(BLOCK_SIZE, end - s);
+                                final int tag = choose(in, s, length);
+                                header |= tag << (2 * k);
+                                inpos.set(s);
+                                codecs[tag].headlessCompress(in, inpos, length,
+                                        out, outpos);
+                                s += length;
+                        }
+                        out[headerpos] = header;
+                }
+                inpos.set(end);
+        }
+
+        @Override
+        public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos, int num) {
+                final int finalinpos = inpos.get() + inlength;
+                final int end = outpos.get() + num;
+                while (outpos.get() < end) {
+                        final int header = in[inpos.get()];
+                        inpos.increment();
+                        for (int k = 0; (k < BLOCKS_PER_GROUP)
+                                && (outpos.get() < end); ++k) {
+                                final int length = Math.min(BLOCK_SIZE, end
+                                        - outpos.get());
+                                final int tag = (header >>> (2 * k)) & 3;
+                                codecs[tag].headlessUncompress(in, inpos,
+                                        finalinpos - inpos.get(), out, outpos,
+                                        length);
+                        }
+                }
+        }
+
+        @Override
+        public void compress0(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void uncompress0(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength - 1, out, outpos,
+                        outlength);
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
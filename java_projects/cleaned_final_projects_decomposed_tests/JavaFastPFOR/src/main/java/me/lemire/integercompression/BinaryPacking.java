@@ -6,6 +6,7 @@
  */
 package me.lemire.integercompression;
 
+import java.nio.IntBuffer;
 
 /**
  * Scheme  based on a commonly used idea: can be extremely fast.
@@ -36,7 +37,8 @@ package me.lemire.integercompression;
  * 
  * @author Daniel Lemire
  */
-public final class BinaryPacking implements IntegerCODEC, SkippableIntegerCODEC {
+public final class BinaryPacking implements IntegerCODEC, SkippableIntegerCODEC,
+        SkippableIntBufferCODEC, SkippableRangeCODEC {
         final static int BLOCK_SIZE = 32;
     
         @Override
@@ -132,6 +134,123 @@ public final class BinaryPacking implements IntegerCODEC, SkippableIntegerCODEC
             inpos.set(tmpinpos);
         }
         
+        @Override
+        public void headlessUncompressRange(int[] in, int inpos, int inlength,
+                int[] out, IntWrapper outpos, int num, int from, int to) {
+            final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+            // blocks are grouped by 4 (one header) but for the last ones
+            final int grouped = Util.greatestMultiple(outlength, 4 * BLOCK_SIZE);
+            to = Math.min(to, outlength);
+            int tmpinpos = inpos;
+            int tmpoutpos = outpos.get();
+            int header = 0;
+            int[] buffer = null;
+            for (int s = 0; s < to; s += BLOCK_SIZE) {
+                final int mbits;
+                if (s < grouped) {
+                    final int k = (s / BLOCK_SIZE) & 3;
+                    if (k == 0)
+                        header = in[tmpinpos++];
+                    mbits = (header >>> (24 - 8 * k)) & 0xFF;
+                } else
+                    mbits = in[tmpinpos++];
+                if (s >= from && s + BLOCK_SIZE <= to) {
+                    BitPacking.fastunpack(in, tmpinpos, out, tmpoutpos, mbits);
+                    tmpoutpos += BLOCK_SIZE;
+                } else if (s + BLOCK_SIZE > from) {
+                    // partial block: through a working area
+                    if (buffer == null)
+                        buffer = new int[BLOCK_SIZE];
+                    BitPacking.fastunpack(in, tmpinpos, buffer, 0, mbits);
+                    final int start = Math.max(from, s);
+                    final int end = Math.min(to, s + BLOCK_SIZE);
+                    System.arraycopy(buffer, start - s, out, tmpoutpos,
+                            end - start);
+                    tmpoutpos += end - start;
+                }
+                tmpinpos += mbits;
+            }
+            outpos.set(tmpoutpos);
+        }
+
+        @Override
+        public void headlessSkip(int[] in, IntWrapper inpos, int inlength,
+                IntWrapper outpos, int num) {
+            final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+            int tmpinpos = inpos.get();
+            int s = 0;
+            for (; s + BLOCK_SIZE * 4 - 1 < outlength; s += BLOCK_SIZE * 4) {
+                final int header = in[tmpinpos++];
+                tmpinpos += (header >>> 24) + ((header >>> 16) & 0xFF)
+                        + ((header >>> 8) & 0xFF) + (header & 0xFF);
+            }
+            for (; s < outlength; s += BLOCK_SIZE)
+                tmpinpos += 1 + in[tmpinpos];
+            outpos.add(outlength);
+            inpos.set(tmpinpos);
+        }
+
+        /**
+         * Compress to a buffer: the integers are compressed as by
+         * headlessCompress, FastPFOR.DEFAULT_PAGE_SIZE at a time, to a working
+         * area which is then copied to the buffer. The working area is local
+         * to the call, so that this class stays stateless.
+         *
+         * @see SkippableIntBufferCODEC#headlessCompressToBuffer(int[], IntWrapper, int, IntBuffer)
+         */
+        @Override
+        public void headlessCompressToBuffer(int[] in, IntWrapper inpos,
+                int inlength, IntBuffer out) {
+            inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+            final int finalinpos = inpos.get() + inlength;
+            int[] pageBuffer = new int[0];
+            while (inpos.get() != finalinpos) {
+                // a multiple of 4 blocks, so that the headers are the same
+                final int thissize = Math.min(FastPFOR.DEFAULT_PAGE_SIZE,
+                        finalinpos - inpos.get());
+                pageBuffer = Util.ensureCapacity(pageBuffer, thissize
+                        + thissize / BLOCK_SIZE);
+                IntWrapper length = IntWrapper.IntWrapper1();
+                headlessCompress(in, inpos, thissize, pageBuffer, length);
+                out.put(pageBuffer, 0, length.get());
+            }
+        }
+
+        /**
+         * Uncompress from a buffer: the blocks are copied,
+         * FastPFOR.DEFAULT_PAGE_SIZE integers at a time, to a working area
+         * and uncompressed as by headlessUncompress.
+         *
+         * @see SkippableIntBufferCODEC#headlessUncompressFromBuffer(IntBuffer, int, int[], IntWrapper, int)
+         */
+        @Override
+        public void headlessUncompressFromBuffer(IntBuffer in, int inlength,
+                int[] out, IntWrapper outpos, int num) {
+            final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+            final int finalout = outpos.get() + outlength;
+            int[] pageBuffer = new int[0];
+            while (outpos.get() != finalout) {
+                final int thissize = Math.min(FastPFOR.DEFAULT_PAGE_SIZE,
+                        finalout - outpos.get());
+                // as headlessSkip
+                final int initpos = in.position();
+                int tmpinpos = initpos;
+                int s = 0;
+                for (; s + BLOCK_SIZE * 4 - 1 < thissize; s += BLOCK_SIZE * 4) {
+                    final int header = in.get(tmpinpos++);
+                    tmpinpos += (header >>> 24) + ((header >>> 16) & 0xFF)
+                            + ((header >>> 8) & 0xFF) + (header & 0xFF);
+                }
+                for (; s < thissize; s += BLOCK_SIZE)
+                    tmpinpos += 1 + in.get(tmpinpos);
+                pageBuffer = Util.ensureCapacity(pageBuffer, tmpinpos
+                        - initpos);
+                in.get(pageBuffer, 0, tmpinpos - initpos);
+                headlessUncompress(pageBuffer, IntWrapper.IntWrapper1(),
+                        tmpinpos - initpos, out, outpos, thissize);
+            }
+        }
+
         @Override
         public String toString() {
                 return this.getClass().getSimpleName();
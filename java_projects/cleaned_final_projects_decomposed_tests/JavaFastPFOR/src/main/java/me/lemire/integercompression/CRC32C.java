@@ -0,0 +1,122 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * CRC-32C (Castagnoli) checksum, as used by iSCSI, ext4 or Kafka. It gives
+ * the same values as java.util.zip.CRC32C, which requires Java 9.
+ *
+ * The computation is table-driven and processes 8 bytes per step
+ * ("slicing-by-8").
+ *
+ * @author Daniel Lemire
+ */
+public final class CRC32C {
+        // reversed Castagnoli polynomial
+        final static int POLYNOMIAL = 0x82F63B78;
+
+        final static int[][] TABLES = new int[8][256];
+
+        static {
+                for (int k = 0; k < 256; ++k) {
+                        int c = k;
+                        for (int j = 0; j < 8; ++j)
+                                c = (c & 1) != 0 ? (c >>> 1) ^ POLYNOMIAL
+                                        : c >>> 1;
+                        TABLES[0][k] = c;
+                }
+                for (int k = 0; k < 256; ++k)
+                        for (int t = 1; t < 8; ++t)
+                                TABLES[t][k] = (TABLES[t - 1][k] >>> 8)
+                                        ^ TABLES[0][TABLES[t - 1][k] & 0xFF];
+        }
+
+        // the register, inverted
+        private int crc = 0xFFFFFFFF;
+
+        /**
+         * Add bytes to the checksum.
+         *
+         * @param b
+         *                the bytes
+         * @param off
+         *                first byte to add
+         * @param len
+         *                number of bytes to add
+         */
+        public void update(byte[] b, int off, int len) {
+                int c = crc;
+                for (int k = off; k < off + len; ++k)
+                        c = (c >>> 8) ^ TABLES[0][(c ^ b[k]) & 0xFF];
+                crc = c;
+        }
+
+        /**
+         * Add the remaining bytes of a buffer to the checksum. The position
+         * of the buffer is moved to its limit.
+         *
+         * @param buffer
+         *                the bytes
+         */
+        public void updateBuffer(ByteBuffer buffer) {
+                final ByteBuffer b = buffer.slice().order(
+                        ByteOrder.LITTLE_ENDIAN);
+                final int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+                final int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+                int c = crc;
+                while (b.remaining() >= 8) {
+                        final long v = b.getLong();
+                        final int lo = (int) v ^ c;
+                        final int hi = (int) (v >>> 32);
+                        c = t7[lo & 0xFF] ^ t6[(lo >>> 8) & 0xFF]
+                                ^ t5[(lo >>> 16) & 0xFF] ^ t4[lo >>> 24]
+                                ^ t3[hi & 0xFF] ^ t2[(hi >>> 8) & 0xFF]
+                                ^ t1[(hi >>> 16) & 0xFF] ^ t0[hi >>> 24];
+                }
+                while (b.hasRemaining())
+                        c = (c >>> 8) ^ t0[(c ^ b.get()) & 0xFF];
+                crc = c;
+                buffer.position(buffer.limit());
+        }
+
+        /**
+         * @return the checksum of the bytes added so far (as an unsigned
+         *         32-bit value)
+         */
+        public long getValue() {
+                return (~crc) & 0xFFFFFFFFL;
+        }
+
+        /**
+         * Forget the bytes added so far.
+         */
+        public void reset() {
+                crc = 0xFFFFFFFF;
+        }
+
+        /**
+         * Checksum of the remaining bytes of a buffer. The position of the
+         * buffer is not modified.
+         *
+         * @param buffer
+         *                the bytes
+         * @return the checksum, as a 32-bit integer
+         */
+        public static int checksum(ByteBuffer buffer) {
+                CRC32C c = new CRC32C();
+                c.updateBuffer(buffer.duplicate());
+                return (int) c.getValue();
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
@@ -0,0 +1,46 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+/**
+ * Receives statistics from a patching codec (FastPFOR, FastPFOR128, NewPFD,
+ * OptPFD) as it works, to watch the compression ratio and the distribution
+ * of the data in production. A listener is attached with setListener on the
+ * codec; codecs without a listener do not collect anything.
+ *
+ * The methods are called by the thread using the codec, once per page: they
+ * should be quick, and thread-safe if the listener is shared by several
+ * codecs (see CodecMetrics).
+ *
+ * @author Daniel Lemire
+ */
+public interface CodecListener {
+    /**
+     * Called after a page is compressed.
+     *
+     * @param page
+     *            statistics of the page (reused by the codec: only valid
+     *            during the call)
+     */
+    public void pageEncoded(PageStatistics page);
+
+    /**
+     * Called after a page is uncompressed.
+     *
+     * @param codec
+     *            name of the codec
+     * @param integers
+     *            number of integers uncompressed
+     * @param compressedInts
+     *            size of the compressed page in 32-bit integers
+     * @param nanos
+     *            time spent uncompressing the page, in nanoseconds
+     */
+    public void pageDecoded(String codec, int integers, int compressedInts,
+            long nanos);
+}
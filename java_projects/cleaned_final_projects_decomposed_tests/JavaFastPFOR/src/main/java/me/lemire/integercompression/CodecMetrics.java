@@ -0,0 +1,178 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A CodecListener accumulating the statistics of all pages: compression
+ * ratio, bit width histogram, exceptions, and time spent compressing and
+ * uncompressing. It is thread-safe, so a single instance can be attached to
+ * the codecs of all threads, and read at any time by a monitoring thread.
+ *
+ * <pre>
+ * CodecMetrics metrics = new CodecMetrics();
+ * FastPFOR codec = FastPFOR.FastPFOR1();
+ * codec.setListener(metrics);
+ * // ... use the codec
+ * System.out.println(metrics);
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class CodecMetrics implements CodecListener {
+        final LongAdder pagesEncoded = new LongAdder();
+        final LongAdder integersEncoded = new LongAdder();
+        final LongAdder compressedInts = new LongAdder();
+        final LongAdder exceptions = new LongAdder();
+        final LongAdder exceptionBytes = new LongAdder();
+        final LongAdder encodeNanos = new LongAdder();
+        final LongAdder pagesDecoded = new LongAdder();
+        final LongAdder integersDecoded = new LongAdder();
+        final LongAdder decodeNanos = new LongAdder();
+        final AtomicLongArray bitWidths = new AtomicLongArray(33);
+
+        @Override
+        public void pageEncoded(PageStatistics page) {
+                pagesEncoded.increment();
+                integersEncoded.add(page.getIntegers());
+                compressedInts.add(page.getCompressedInts());
+                exceptions.add(page.getExceptions());
+                exceptionBytes.add(page.getExceptionBytes());
+                encodeNanos.add(page.getNanos());
+                for (int b = 0; b <= 32; ++b)
+                        if (page.getBlocksWithBitWidth(b) != 0)
+                                bitWidths.addAndGet(b,
+                                        page.getBlocksWithBitWidth(b));
+        }
+
+        @Override
+        public void pageDecoded(String codec, int integers, int compressed,
+                long nanos) {
+                pagesDecoded.increment();
+                integersDecoded.add(integers);
+                decodeNanos.add(nanos);
+        }
+
+        /**
+         * @return number of pages compressed
+         */
+        public long getPagesEncoded() {
+                return pagesEncoded.sum();
+        }
+
+        /**
+         * @return number of integers compressed
+         */
+        public long getIntegersEncoded() {
+                return integersEncoded.sum();
+        }
+
+        /**
+         * @return size of the compressed pages in 32-bit integers
+         */
+        public long getCompressedInts() {
+                return compressedInts.sum();
+        }
+
+        /**
+         * @return average number of bits per compressed integer
+         */
+        public double getBitsPerInt() {
+                final long n = integersEncoded.sum();
+                return n == 0 ? 0 : 32.0 * compressedInts.sum() / n;
+        }
+
+        /**
+         * @return number of exceptions
+         */
+        public long getExceptions() {
+                return exceptions.sum();
+        }
+
+        /**
+         * @return bytes used to store the exceptions
+         */
+        public long getExceptionBytes() {
+                return exceptionBytes.sum();
+        }
+
+        /**
+         * @param bitWidth
+         *                a bit width, from 0 to 32
+         * @return number of blocks packed with this bit width
+         */
+        public long getBlocksWithBitWidth(int bitWidth) {
+                return bitWidths.get(bitWidth);
+        }
+
+        /**
+         * @return time spent compressing, in nanoseconds
+         */
+        public long getEncodeNanos() {
+                return encodeNanos.sum();
+        }
+
+        /**
+         * @return number of pages uncompressed
+         */
+        public long getPagesDecoded() {
+                return pagesDecoded.sum();
+        }
+
+        /**
+         * @return number of integers uncompressed
+         */
+        public long getIntegersDecoded() {
+                return integersDecoded.sum();
+        }
+
+        /**
+         * @return time spent uncompressing, in nanoseconds
+         */
+        public long getDecodeNanos() {
+                return decodeNanos.sum();
+        }
+
+        /**
+         * Start over. Updates concurrent with the reset may be partly lost.
+         */
+        public void reset() {
+                pagesEncoded.reset();
+                integersEncoded.reset();
+                compressedInts.reset();
+                exceptions.reset();
+                exceptionBytes.reset();
+                encodeNanos.reset();
+                pagesDecoded.reset();
+                integersDecoded.reset();
+                decodeNanos.reset();
+                for (int b = 0; b <= 32; ++b)
+                        bitWidths.set(b, 0);
+        }
+
+        @Override
+        public String toString() {
+                StringBuilder sb = new StringBuilder();
+                sb.append(String.format("%.2f bits/int, %d exceptions, ",
+                        getBitsPerInt(), getExceptions()));
+                sb.append(String.format("encode %.2f ns/int, decode %.2f ns/int",
+                        perInt(getEncodeNanos(), getIntegersEncoded()),
+                        perInt(getDecodeNanos(), getIntegersDecoded())));
+                sb.append(", bit widths:");
+                for (int b = 0; b <= 32; ++b)
+                        if (getBlocksWithBitWidth(b) != 0)
+                                sb.append(" " + b + "=" + getBlocksWithBitWidth(b));
+                return sb.toString();
+        }
+
+        private static double perInt(long nanos, long integers) {
+                return integers == 0 ? 0 : (double) nanos / integers;
+        }
+}
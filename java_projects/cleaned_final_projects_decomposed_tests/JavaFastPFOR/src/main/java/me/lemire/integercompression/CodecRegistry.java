@@ -0,0 +1,182 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Numeric identifiers of codecs, as stored in persistent formats (see
+ * ContainerWriter). The identifiers of the built-in codecs never change;
+ * applications can register their own codecs with identifiers starting at
+ * FIRST_CUSTOM_ID.
+ *
+ * All codecs accept arrays of any length: block-based schemes are composed
+ * with VariableByte.
+ *
+ * @author Daniel Lemire
+ */
+public final class CodecRegistry {
+        /** JustCopy */
+        public final static int JUST_COPY = 0;
+        /** VariableByte */
+        public final static int VARIABLE_BYTE = 1;
+        /** BinaryPacking + VariableByte */
+        public final static int BINARY_PACKING = 2;
+        /** FastPFOR + VariableByte */
+        public final static int FASTPFOR = 3;
+        /** FastPFOR128 + VariableByte */
+        public final static int FASTPFOR128 = 4;
+        /** NewPFD + VariableByte */
+        public final static int NEWPFD = 5;
+        /** OptPFD + VariableByte */
+        public final static int OPTPFD = 6;
+        /** Simple9 */
+        public final static int SIMPLE9 = 7;
+        /** Simple16 */
+        public final static int SIMPLE16 = 8;
+        /** AdaptiveCODEC */
+        public final static int ADAPTIVE = 9;
+        /** KamikazeBlocks + VariableByte */
+        public final static int KAMIKAZE_BLOCKS = 10;
+        /** KamikazeLC + VariableByte */
+        public final static int KAMIKAZE_LC = 11;
+
+        /**
+         * Smallest identifier available to applications.
+         */
+        public final static int FIRST_CUSTOM_ID = 256;
+
+        final static ConcurrentHashMap<Integer, Supplier<SkippableIntegerCODEC>> custom = new ConcurrentHashMap<Integer, Supplier<SkippableIntegerCODEC>>();
+
+        private CodecRegistry() {
+        }
+
+        /**
+         * Register an application-defined codec.
+         *
+         * @param id
+         *                identifier (at least FIRST_CUSTOM_ID)
+         * @param factory
+         *                creates a new instance of the codec at each call
+         */
+        public static void register(int id,
+                Supplier<SkippableIntegerCODEC> factory) {
+                if (id < FIRST_CUSTOM_ID)
+                        throw new IllegalArgumentException(
+                                "Identifiers below " + FIRST_CUSTOM_ID
+                                        + " are reserved: " + id);
+                if (custom.putIfAbsent(id, factory) != null)
+                        throw new IllegalArgumentException(
+                                "Identifier already registered: " + id);
+        }
+
+        /**
+         * @param id
+         *                identifier of the codec
+         * @return whether the identifier is known
+         */
+        public static boolean isRegistered(int id) {
+                return ((id >= 0) && (id <= KAMIKAZE_LC))
+                        || custom.containsKey(id);
+        }
+
+        /**
+         * Create a codec.
+         *
+         * @param id
+         *                identifier of the codec
+         * @return a new instance of the codec
+         */
+        public static SkippableIntegerCODEC newCodec(int id) {
+                switch (id) {
+                case JUST_COPY:
+                        return new JustCopy();
+                case VARIABLE_BYTE:
+                        return new VariableByte();
+                case BINARY_PACKING:
+                        return new SkippableComposition(new BinaryPacking(),
+                                new VariableByte());
+                case FASTPFOR:
+                        return new SkippableComposition(FastPFOR.FastPFOR1(),
+                                new VariableByte());
+                case FASTPFOR128:
+                        return new SkippableComposition(
+                                FastPFOR128.FastPFOR1281(), new VariableByte());
+                case NEWPFD:
+                        return new SkippableComposition(new NewPFD(),
+                                new VariableByte());
+                case OPTPFD:
+                        return new SkippableComposition(new OptPFD(),
+                                new VariableByte());
+                case SIMPLE9:
+                        return new Simple9();
+                case SIMPLE16:
+                        return new Simple16();
+                case ADAPTIVE:
+                        return new AdaptiveCODEC();
+                case KAMIKAZE_BLOCKS:
+                        return new SkippableComposition(new KamikazeBlocks(),
+                                new VariableByte());
+                case KAMIKAZE_LC:
+                        return new SkippableComposition(new KamikazeLC(),
+                                new VariableByte());
+                default:
+                        Supplier<SkippableIntegerCODEC> f = custom.get(id);
+                        if (f == null)
+                                throw new IllegalArgumentException(
+                                        "Unknown codec identifier: " + id);
+                        return f.get();
+                }
+        }
+
+        /**
+         * Create a codec reading its input from an IntBuffer (see
+         * SkippableIntBufferCODEC), when there is one: the data is the same
+         * as with newCodec(id), but it can be decoded from a memory-mapped
+         * file without copying it all first.
+         *
+         * @param id
+         *                identifier of the codec
+         * @return a new instance of the codec, or null if this codec cannot
+         *         read from an IntBuffer (Simple9, Simple16, AdaptiveCODEC,
+         *         KamikazeBlocks, KamikazeLC)
+         */
+        public static SkippableIntBufferCODEC newBufferCodec(int id) {
+                switch (id) {
+                case JUST_COPY:
+                        return new JustCopy();
+                case VARIABLE_BYTE:
+                        return new VariableByte();
+                case BINARY_PACKING:
+                        return new SkippableIntBufferComposition(
+                                new BinaryPacking(), new VariableByte());
+                case FASTPFOR:
+                        return new SkippableIntBufferComposition(
+                                FastPFOR.FastPFOR1(), new VariableByte());
+                case FASTPFOR128:
+                        return new SkippableIntBufferComposition(
+                                FastPFOR128.FastPFOR1281(), new VariableByte());
+                case NEWPFD:
+                        return new SkippableIntBufferComposition(new NewPFD(),
+                                new VariableByte());
+                case OPTPFD:
+                        return new SkippableIntBufferComposition(new OptPFD(),
+                                new VariableByte());
+                case SIMPLE9:
+                case SIMPLE16:
+                case ADAPTIVE:
+                case KAMIKAZE_BLOCKS:
+                case KAMIKAZE_LC:
+                        return null;
+                default:
+                        SkippableIntegerCODEC c = newCodec(id);
+                        return c instanceof SkippableIntBufferCODEC ? (SkippableIntBufferCODEC) c
+                                : null;
+                }
+        }
+}
@@ -0,0 +1,457 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads a column written by ColumnWriter. The segment files are
+ * memory-mapped when the column is opened, and only their headers are
+ * read. When a segment is scanned, each of its streams is copied to the
+ * heap with one bulk transfer and decoded with the array methods of its
+ * codec: this is as fast as decoding from the mapped buffer with
+ * SkippableIntBufferCODEC, or faster (see BufferCodecBenchmark). Each
+ * segment is checked against its CRC32C the first time it is decoded. The
+ * files are closed as soon as they are mapped: a reader holds no file
+ * descriptor.
+ *
+ * The heap used by a scan is bounded by the size of the largest segment,
+ * whatever the size of the column.
+ *
+ * <pre>
+ * try (ColumnReader r = ColumnReader.open(dir)) {
+ *         int[] buffer = new int[r.getMaxSegmentLength()];
+ *         for (int s = 0; s &lt; r.getSegmentCount(); ++s) {
+ *                 int n = r.decodeSegment(s, buffer, 0);
+ *                 // process buffer[0, n)
+ *         }
+ * }
+ * </pre>
+ *
+ * The reader sees the segments present when it was opened. Validation
+ * failures raise a CorruptedDataException.
+ *
+ * This class is not thread-safe: use one reader per thread.
+ *
+ * @author Daniel Lemire
+ */
+public class ColumnReader implements Closeable {
+        final MappedByteBuffer[] segments;
+        final int type;
+        final int[] codecIds;
+        final int[] lengths;
+        final int[] stream0;
+        final int[] stream1;
+        // index of the first value of each segment, plus the size
+        final long[] starts;
+        final BitSet verified;
+        final HashMap<Integer, SkippableIntegerCODEC> codecs = new HashMap<Integer, SkippableIntegerCODEC>();
+        int[] compressed = new int[0];
+        int[] low = new int[0];
+        int[] high = new int[0];
+        boolean closed = false;
+
+        private ColumnReader(MappedByteBuffer[] segments) {
+                this.segments = segments;
+                final int n = segments.length;
+                this.codecIds = new int[n];
+                this.lengths = new int[n];
+                this.stream0 = new int[n];
+                this.stream1 = new int[n];
+                this.starts = new long[n + 1];
+                this.verified = new BitSet(n);
+                int t = ColumnWriter.INT_COLUMN;
+                for (int s = 0; s < n; ++s) {
+                        final ByteBuffer header = segments[s];
+                        if (s == 0)
+                                t = header.getInt(12);
+                        else if (header.getInt(12) != t)
+                                throw new CorruptedDataException(
+                                        "Segments of different types");
+                        codecIds[s] = header.getInt(8);
+                        lengths[s] = header.getInt(16);
+                        stream0[s] = header.getInt(20);
+                        stream1[s] = header.getInt(24);
+                        starts[s + 1] = starts[s] + lengths[s];
+                }
+                this.type = t;
+        }
+
+        /**
+         * Open and map a column. The headers of the segments are validated;
+         * the segments are validated when they are first decoded.
+         *
+         * @param directory
+         *                directory of the column
+         * @return the reader
+         * @throws IOException
+         *                 if the files cannot be read
+         * @throws CorruptedDataException
+         *                 if a segment file is not valid
+         */
+        public static ColumnReader open(Path directory) throws IOException {
+                final Path[] files = ColumnWriter.listSegments(directory);
+                final MappedByteBuffer[] segments = new MappedByteBuffer[files.length];
+                for (int s = 0; s < files.length; ++s) {
+                        // a mapping stays valid once its channel is closed
+                        try (FileChannel fc = FileChannel.open(files[s],
+                                StandardOpenOption.READ)) {
+                                segments[s] = map(fc, files[s]);
+                        }
+                }
+                return new ColumnReader(segments);
+        }
+
+        private static MappedByteBuffer map(FileChannel fc, Path file)
+                throws IOException {
+                final long size = fc.size();
+                if ((size < ColumnWriter.HEADER_SIZE)
+                        || (size > Integer.MAX_VALUE))
+                        throw new CorruptedDataException("Bad segment size: "
+                                + file);
+                MappedByteBuffer bytes = fc.map(FileChannel.MapMode.READ_ONLY,
+                        0, size);
+                bytes.order(ByteOrder.LITTLE_ENDIAN);
+                checkHeader(bytes, file);
+                final long expected = ColumnWriter.HEADER_SIZE + 4L
+                        * (bytes.getInt(20) + (long) bytes.getInt(24));
+                if ((bytes.getInt(20) < 0) || (bytes.getInt(24) < 0)
+                        || (bytes.getInt(16) < 0) || (expected != size))
+                        throw new CorruptedDataException("Bad segment header: "
+                                + file);
+                return bytes;
+        }
+
+        private static void checkHeader(ByteBuffer header, Path file) {
+                if (header.getInt(0) != ColumnWriter.MAGIC)
+                        throw new CorruptedDataException(
+                                "Not a segment (bad magic number): " + file);
+                if (header.getInt(4) != ColumnWriter.VERSION)
+                        throw new CorruptedDataException(
+                                "Unsupported version: " + header.getInt(4));
+                if (!CodecRegistry.isRegistered(header.getInt(8)))
+                        throw new CorruptedDataException("Unknown codec: "
+                                + header.getInt(8));
+                final int t = header.getInt(12);
+                if ((t != ColumnWriter.INT_COLUMN)
+                        && (t != ColumnWriter.LONG_COLUMN))
+                        throw new CorruptedDataException("Bad value type: "
+                                + file);
+        }
+
+        /**
+         * @return the value type recorded in a segment file
+         */
+        static int readType(Path file) throws IOException {
+                try (FileChannel fc = FileChannel.open(file,
+                        StandardOpenOption.READ)) {
+                        ByteBuffer header = ByteBuffer.allocate(
+                                ColumnWriter.HEADER_SIZE).order(
+                                ByteOrder.LITTLE_ENDIAN);
+                        while (header.hasRemaining())
+                                if (fc.read(header, header.position()) < 0)
+                                        throw new EOFException();
+                        checkHeader(header, file);
+                        return header.getInt(12);
+                }
+        }
+
+        /**
+         * CRC32C of a segment file, skipping the checksum itself.
+         *
+         * @param bytes
+         *                the file, from 0 to its limit
+         * @return the checksum
+         */
+        static int checksum(ByteBuffer bytes) {
+                CRC32C c = new CRC32C();
+                ByteBuffer b = bytes.duplicate();
+                b.position(0).limit(ColumnWriter.CHECKSUM_OFFSET);
+                c.updateBuffer(b);
+                b.limit(bytes.limit()).position(ColumnWriter.HEADER_SIZE);
+                c.updateBuffer(b);
+                return (int) c.getValue();
+        }
+
+        /**
+         * @return number of values
+         */
+        public long size() {
+                return starts[segments.length];
+        }
+
+        /**
+         * @return whether this is a column of longs
+         */
+        public boolean isLongColumn() {
+                return type == ColumnWriter.LONG_COLUMN;
+        }
+
+        /**
+         * @return number of segments
+         */
+        public int getSegmentCount() {
+                return segments.length;
+        }
+
+        /**
+         * @param segment
+         *                index of the segment
+         * @return number of values in this segment
+         */
+        public int getSegmentLength(int segment) {
+                return lengths[segment];
+        }
+
+        /**
+         * @param segment
+         *                index of the segment
+         * @return index of the first value of this segment in the column
+         */
+        public long getSegmentStart(int segment) {
+                return starts[segment];
+        }
+
+        /**
+         * @return number of values in the largest segment (the size of a
+         *         buffer able to hold any segment)
+         */
+        public int getMaxSegmentLength() {
+                int answer = 0;
+                for (int length : lengths)
+                        answer = Math.max(answer, length);
+                return answer;
+        }
+
+        /**
+         * @return size of the compressed data in bytes
+         */
+        public long getCompressedSizeInBytes() {
+                long answer = 0;
+                for (MappedByteBuffer b : segments)
+                        answer += b.capacity();
+                return answer;
+        }
+
+        /**
+         * Decode one segment of a column of integers.
+         *
+         * @param segment
+         *                index of the segment
+         * @param out
+         *                where to write the integers
+         * @param outpos
+         *                where to start writing in out
+         * @return number of integers decoded
+         * @throws CorruptedDataException
+         *                 if the segment is damaged
+         * @throws IllegalStateException
+         *                 if this is a column of longs
+         */
+        public int decodeSegment(int segment, int[] out, int outpos) {
+                if (type != ColumnWriter.INT_COLUMN)
+                        throw new IllegalStateException(
+                                "Column of longs: use decodeLongSegment");
+                IntBuffer in = payload(segment);
+                decodeStream(segment, in, stream0[segment], out, outpos);
+                return lengths[segment];
+        }
+
+        /**
+         * Decode one segment of a column of longs.
+         *
+         * @param segment
+         *                index of the segment
+         * @param out
+         *                where to write the longs
+         * @param outpos
+         *                where to start writing in out
+         * @return number of longs decoded
+         * @throws CorruptedDataException
+         *                 if the segment is damaged
+         * @throws IllegalStateException
+         *                 if this is a column of integers
+         */
+        public int decodeLongSegment(int segment, long[] out, int outpos) {
+                if (type != ColumnWriter.LONG_COLUMN)
+                        throw new IllegalStateException(
+                                "Column of integers: use decodeSegment");
+                final int length = lengths[segment];
+                if (low.length < length) {
+                        low = new int[length];
+                        high = new int[length];
+                }
+                IntBuffer in = payload(segment);
+                decodeStream(segment, in, stream0[segment], low, 0);
+                decodeStream(segment, in, stream1[segment], high, 0);
+                for (int k = 0; k < length; ++k) {
+                        final long z = ((long) high[k] << 32)
+                                | (low[k] & 0xFFFFFFFFL);
+                        out[outpos + k] = (z >>> 1) ^ -(z & 1);
+                }
+                return length;
+        }
+
+        /**
+         * Pass all the integers of the column, in order, to a consumer. The
+         * column is decoded one segment at a time.
+         *
+         * @param consumer
+         *                receives the integers
+         * @throws CorruptedDataException
+         *                 if a segment is damaged
+         */
+        public void scan(IntConsumer consumer) {
+                int[] buffer = new int[getMaxSegmentLength()];
+                for (int s = 0; s < segments.length; ++s) {
+                        final int n = decodeSegment(s, buffer, 0);
+                        for (int k = 0; k < n; ++k)
+                                consumer.accept(buffer[k]);
+                }
+        }
+
+        /**
+         * Pass all the longs of the column, in order, to a consumer. The
+         * column is decoded one segment at a time.
+         *
+         * @param consumer
+         *                receives the longs
+         * @throws CorruptedDataException
+         *                 if a segment is damaged
+         */
+        public void scanLongs(LongConsumer consumer) {
+                long[] buffer = new long[getMaxSegmentLength()];
+                for (int s = 0; s < segments.length; ++s) {
+                        final int n = decodeLongSegment(s, buffer, 0);
+                        for (int k = 0; k < n; ++k)
+                                consumer.accept(buffer[k]);
+                }
+        }
+
+        /**
+         * Uncompress all the integers.
+         *
+         * @return the integers
+         */
+        public int[] toArray() {
+                int[] answer = new int[arrayLength()];
+                for (int s = 0; s < segments.length; ++s)
+                        decodeSegment(s, answer, (int) starts[s]);
+                return answer;
+        }
+
+        /**
+         * Uncompress all the longs.
+         *
+         * @return the longs
+         */
+        public long[] toLongArray() {
+                long[] answer = new long[arrayLength()];
+                for (int s = 0; s < segments.length; ++s)
+                        decodeLongSegment(s, answer, (int) starts[s]);
+                return answer;
+        }
+
+        /**
+         * Check the checksums of all segments.
+         *
+         * @throws CorruptedDataException
+         *                 if a segment is damaged
+         */
+        public void verify() {
+                ensureOpen();
+                for (int s = 0; s < segments.length; ++s)
+                        if (!verified.get(s))
+                                verifySegment(s);
+        }
+
+        private int arrayLength() {
+                if (size() > Integer.MAX_VALUE - 8)
+                        throw new UnsupportedOperationException(
+                                "Too many values for an array: " + size());
+                return (int) size();
+        }
+
+        private void ensureOpen() {
+                if (closed)
+                        throw new IllegalStateException("Reader closed");
+        }
+
+        private IntBuffer payload(int segment) {
+                ensureOpen();
+                if (!verified.get(segment))
+                        verifySegment(segment);
+                ByteBuffer bytes = segments[segment].duplicate().order(
+                        ByteOrder.LITTLE_ENDIAN);
+                bytes.position(ColumnWriter.HEADER_SIZE);
+                return bytes.asIntBuffer();
+        }
+
+        private void verifySegment(int segment) {
+                if (checksum(segments[segment]) != segments[segment]
+                        .getInt(ColumnWriter.CHECKSUM_OFFSET))
+                        throw new CorruptedDataException(
+                                "Checksum mismatch in segment " + segment);
+                verified.set(segment);
+        }
+
+        // decodes lengths[segment] integers from the next inlength ints of in
+        private void decodeStream(int segment, IntBuffer in, int inlength,
+                int[] out, int outpos) {
+                final int id = codecIds[segment];
+                final int consumed;
+                try {
+                        SkippableIntegerCODEC c = codecs.get(id);
+                        if (c == null) {
+                                c = CodecRegistry.newCodec(id);
+                                codecs.put(id, c);
+                        }
+                        if (compressed.length < inlength)
+                                compressed = new int[inlength];
+                        in.get(compressed, 0, inlength);
+                        IntWrapper inpos = new IntWrapper(0);
+                        c.headlessUncompress(compressed, inpos, inlength, out,
+                                new IntWrapper(outpos), lengths[segment]);
+                        consumed = inpos.get();
+                } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+                        throw new CorruptedDataException(
+                                "Cannot decode segment " + segment);
+                }
+                if (consumed != inlength)
+                        throw new CorruptedDataException(
+                                "Cannot decode segment " + segment);
+        }
+
+        /**
+         * Stop reading: the segments can no longer be decoded. The files are
+         * already closed, and the mapped buffers are released by the garbage
+         * collector.
+         */
+        @Override
+        public void close() {
+                closed = true;
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
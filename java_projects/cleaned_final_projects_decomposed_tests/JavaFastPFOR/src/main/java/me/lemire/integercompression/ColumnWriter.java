@@ -0,0 +1,395 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Appends integers (or longs) to a compressed column, to be scanned with
+ * ColumnReader. A column is a directory of segment files: the values are
+ * compressed in segments of segmentSize values, and each full segment is
+ * written to its own file. Readers map the segment files and copy one
+ * segment at a time when they scan it, so that opening a column costs
+ * neither a full read nor a heap copy.
+ *
+ * A segment file is written under a temporary name and renamed once it is
+ * complete: a reader never sees a partial segment. All values are
+ * little-endian. The layout of a segment file is:
+ *
+ * <pre>
+ * header:  magic, version, codec id, value type, number of values,
+ *          length of the first stream, length of the second stream (in ints),
+ *          CRC32C of the file (8 ints, the checksum skipping itself)
+ * streams: the values compressed with headlessCompress
+ * </pre>
+ *
+ * In an int column, the second stream is empty. In a long column, the
+ * values are zigzag encoded ((v &lt;&lt; 1) ^ (v &gt;&gt; 63)) so that small
+ * negative values stay small, and the low and high 32 bits of the result
+ * are compressed as two streams.
+ *
+ * <pre>
+ * try (ColumnWriter w = ColumnWriter.intColumn(dir, CodecRegistry.FASTPFOR,
+ *         ColumnWriter.DEFAULT_SEGMENT_SIZE)) {
+ *         w.appendInts(data, 0, data.length);
+ * }
+ * try (ColumnReader r = ColumnReader.open(dir)) {
+ *         r.scan(consumer);
+ * }
+ * </pre>
+ *
+ * Opening a writer on an existing column appends new segments after the
+ * existing ones. There should be a single writer per column at a time.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class ColumnWriter implements Closeable {
+        /**
+         * First 4 bytes of a segment file ("JFPS").
+         */
+        public final static int MAGIC = 0x4A465053;
+
+        /**
+         * Version of the format written by this class.
+         */
+        public final static int VERSION = 1;
+
+        /**
+         * Default number of values per segment.
+         */
+        public final static int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+        /**
+         * Largest number of values per segment (a compressed segment must
+         * fit in one mapping).
+         */
+        public final static int MAX_SEGMENT_SIZE = 1 << 24;
+
+        /**
+         * Extension of the segment files.
+         */
+        public final static String SUFFIX = ".seg";
+
+        final static int INT_COLUMN = 0;
+
+        final static int LONG_COLUMN = 1;
+
+        final static int HEADER_SIZE = 32;
+
+        final static int CHECKSUM_OFFSET = 28;
+
+        final Path directory;
+        final int codecId;
+        final int type;
+        final SkippableIntegerCODEC codec;
+        final int[] values;
+        final long[] longValues;
+        final int[] compressed;
+        ByteBuffer bytes;
+        int length = 0;
+        int nextSegment;
+        long count = 0;
+        boolean closed = false;
+
+        private ColumnWriter(Path directory, int codecId, int segmentSize,
+                int type) throws IOException {
+                if ((segmentSize < 1) || (segmentSize > MAX_SEGMENT_SIZE))
+                        throw new IllegalArgumentException(
+                                "Segment size must be in [1, "
+                                        + MAX_SEGMENT_SIZE + "]: "
+                                        + segmentSize);
+                Files.createDirectories(directory);
+                final Path[] existing = listSegments(directory);
+                if ((existing.length > 0)
+                        && (ColumnReader.readType(existing[0]) != type))
+                        throw new IllegalArgumentException(
+                                "Existing column of another type: "
+                                        + directory);
+                this.directory = directory;
+                this.codecId = codecId;
+                this.type = type;
+                this.codec = CodecRegistry.newCodec(codecId);
+                this.nextSegment = existing.length;
+                final int streams = type == LONG_COLUMN ? 2 : 1;
+                this.compressed = new int[streams * (2 * segmentSize + 1024)];
+                if (type == LONG_COLUMN) {
+                        this.values = new int[2 * segmentSize];
+                        this.longValues = new long[segmentSize];
+                } else {
+                        this.values = new int[segmentSize];
+                        this.longValues = null;
+                }
+        }
+
+        /**
+         * Create (or append to) a column of integers.
+         *
+         * @param directory
+         *                directory of the column (created if needed)
+         * @param codecId
+         *                identifier of the codec (see CodecRegistry)
+         * @param segmentSize
+         *                number of values per segment
+         * @return the writer
+         * @throws IOException
+         *                 if the directory cannot be read or created
+         */
+        public static ColumnWriter intColumn(Path directory, int codecId,
+                int segmentSize) throws IOException {
+                return new ColumnWriter(directory, codecId, segmentSize,
+                        INT_COLUMN);
+        }
+
+        /**
+         * Create (or append to) a column of longs.
+         *
+         * @param directory
+         *                directory of the column (created if needed)
+         * @param codecId
+         *                identifier of the codec (see CodecRegistry)
+         * @param segmentSize
+         *                number of values per segment
+         * @return the writer
+         * @throws IOException
+         *                 if the directory cannot be read or created
+         */
+        public static ColumnWriter longColumn(Path directory, int codecId,
+                int segmentSize) throws IOException {
+                return new ColumnWriter(directory, codecId, segmentSize,
+                        LONG_COLUMN);
+        }
+
+        /**
+         * Add one integer (widened to a long in a long column).
+         *
+         * @param value
+         *                the integer
+         * @throws IOException
+         *                 if a full segment cannot be written
+         */
+        public void appendInt(int value) throws IOException {
+                if (type == LONG_COLUMN)
+                        longValues[length++] = value;
+                else
+                        values[length++] = value;
+                if (length == getSegmentSize())
+                        writeSegment();
+        }
+
+        /**
+         * Add a range of integers (widened to longs in a long column).
+         *
+         * @param in
+         *                source array
+         * @param off
+         *                first integer to add
+         * @param len
+         *                number of integers to add
+         * @throws IOException
+         *                 if a segment cannot be written
+         */
+        public void appendInts(int[] in, int off, int len) throws IOException {
+                if (type == LONG_COLUMN) {
+                        for (int k = off; k < off + len; ++k)
+                                appendInt(in[k]);
+                        return;
+                }
+                while (len > 0) {
+                        final int n = Math.min(len, values.length - length);
+                        System.arraycopy(in, off, values, length, n);
+                        length += n;
+                        off += n;
+                        len -= n;
+                        if (length == values.length)
+                                writeSegment();
+                }
+        }
+
+        /**
+         * Add one long.
+         *
+         * @param value
+         *                the long
+         * @throws IOException
+         *                 if a full segment cannot be written
+         * @throws IllegalStateException
+         *                 if this is a column of integers
+         */
+        public void appendLong(long value) throws IOException {
+                checkLongColumn();
+                longValues[length++] = value;
+                if (length == longValues.length)
+                        writeSegment();
+        }
+
+        /**
+         * Add a range of longs.
+         *
+         * @param in
+         *                source array
+         * @param off
+         *                first long to add
+         * @param len
+         *                number of longs to add
+         * @throws IOException
+         *                 if a segment cannot be written
+         * @throws IllegalStateException
+         *                 if this is a column of integers
+         */
+        public void appendLongs(long[] in, int off, int len) throws IOException {
+                checkLongColumn();
+                while (len > 0) {
+                        final int n = Math.min(len, longValues.length - length);
+                        System.arraycopy(in, off, longValues, length, n);
+                        length += n;
+                        off += n;
+                        len -= n;
+                        if (length == longValues.length)
+                                writeSegment();
+                }
+        }
+
+        /**
+         * @return number of values per segment
+         */
+        public int getSegmentSize() {
+                return type == LONG_COLUMN ? longValues.length : values.length;
+        }
+
+        /**
+         * @return number of values added by this writer so far
+         */
+        public long getCount() {
+                return count + length;
+        }
+
+        /**
+         * Write the pending values as a (short) segment, so that readers
+         * opened from now on see them.
+         *
+         * @throws IOException
+         *                 if the segment cannot be written
+         */
+        public void flush() throws IOException {
+                if (length > 0)
+                        writeSegment();
+        }
+
+        /**
+         * Write the pending values.
+         */
+        @Override
+        public void close() throws IOException {
+                if (closed)
+                        return;
+                flush();
+                closed = true;
+        }
+
+        private void checkLongColumn() {
+                if (type != LONG_COLUMN)
+                        throw new IllegalStateException(
+                                "Cannot append longs to a column of integers");
+        }
+
+        private void writeSegment() throws IOException {
+                if (closed)
+                        throw new IOException("Column writer closed");
+                final int stream0, stream1;
+                final IntWrapper outpos = new IntWrapper(0);
+                try {
+                        if (type == LONG_COLUMN) {
+                                for (int k = 0; k < length; ++k) {
+                                        final long z = (longValues[k] << 1)
+                                                ^ (longValues[k] >> 63);
+                                        values[k] = (int) z;
+                                        values[length + k] = (int) (z >>> 32);
+                                }
+                                codec.headlessCompress(values,
+                                        new IntWrapper(0), length, compressed,
+                                        outpos);
+                                stream0 = outpos.get();
+                                codec.headlessCompress(values, new IntWrapper(
+                                        length), length, compressed, outpos);
+                                stream1 = outpos.get() - stream0;
+                        } else {
+                                codec.headlessCompress(values,
+                                        new IntWrapper(0), length, compressed,
+                                        outpos);
+                                stream0 = outpos.get();
+                                stream1 = 0;
+                        }
+                } catch (IndexOutOfBoundsException ioebe) {
+                        throw new UncompressibleInputException(
+                                "Your input is too poorly compressible "
+                                        + "with the current codec : " + codec);
+                }
+                final int size = HEADER_SIZE + 4 * outpos.get();
+                if ((bytes == null) || (bytes.capacity() < size))
+                        bytes = ByteBuffer.allocate(
+                                HEADER_SIZE + 4 * compressed.length).order(
+                                ByteOrder.LITTLE_ENDIAN);
+                bytes.clear();
+                bytes.putInt(MAGIC).putInt(VERSION).putInt(codecId)
+                        .putInt(type).putInt(length).putInt(stream0)
+                        .putInt(stream1).putInt(0);
+                bytes.asIntBuffer().put(compressed, 0, outpos.get());
+                bytes.limit(size);
+                bytes.position(0);
+                bytes.putInt(CHECKSUM_OFFSET, ColumnReader.checksum(bytes));
+                final Path target = directory.resolve(segmentName(nextSegment));
+                final Path tmp = directory.resolve(segmentName(nextSegment)
+                        + ".tmp");
+                try (FileChannel fc = FileChannel.open(tmp,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                        while (bytes.hasRemaining())
+                                fc.write(bytes);
+                        fc.force(false);
+                }
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                ++nextSegment;
+                count += length;
+                length = 0;
+        }
+
+        static String segmentName(int segment) {
+                return String.format("%010d", segment) + SUFFIX;
+        }
+
+        /**
+         * @return the segment files of a column, in order
+         */
+        static Path[] listSegments(Path directory) throws IOException {
+                ArrayList<Path> answer = new ArrayList<Path>();
+                try (DirectoryStream<Path> ds = Files.newDirectoryStream(
+                        directory, "*" + SUFFIX)) {
+                        for (Path p : ds)
+                                answer.add(p);
+                }
+                Collections.sort(answer);
+                return answer.toArray(new Path[answer.size()]);
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
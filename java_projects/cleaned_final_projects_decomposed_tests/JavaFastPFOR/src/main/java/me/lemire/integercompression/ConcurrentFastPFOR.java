@@ -0,0 +1,225 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Thread-safe version of FastPFOR (or FastPFOR128).
+ *
+ * FastPFOR keeps a working area (including a direct ByteBuffer of about one
+ * page) in each instance, so an instance cannot be shared between threads.
+ * This class keeps a bounded pool of such instances: each call borrows one,
+ * uses it and gives it back. At most capacity instances are ever created,
+ * lazily, so the memory used is bounded no matter how many threads share the
+ * object. When all instances are in use, callers wait for one to be returned.
+ *
+ * The compressed format is the one of the underlying codec.
+ *
+ * <pre>
+ * // shared by all worker threads
+ * SkippableIntegerCODEC c = new SkippableComposition(
+ *         ConcurrentFastPFOR.ConcurrentFastPFOR1(), new VariableByte());
+ * </pre>
+ *
+ * Note that the composition itself is stateless, so it can be shared as long
+ * as its components can.
+ *
+ * @author Daniel Lemire
+ */
+public class ConcurrentFastPFOR implements IntegerCODEC, SkippableIntegerCODEC,
+        SkippableIntBufferCODEC, SkippableRangeCODEC {
+        final int blockSize;
+        final int capacity;
+        final Semaphore permits;
+        final ConcurrentLinkedQueue<IntegerCODEC> idle = new ConcurrentLinkedQueue<IntegerCODEC>();
+        volatile CodecListener listener = null;
+
+        /**
+         * Construct a thread-safe CODEC.
+         *
+         * @param blockSize
+         *                FastPFOR.BLOCK_SIZE (256) to use FastPFOR or
+         *                FastPFOR128.BLOCK_SIZE (128) to use FastPFOR128
+         * @param capacity
+         *                maximal number of FastPFOR instances (i.e., of threads
+         *                that can compress or uncompress concurrently)
+         */
+        public ConcurrentFastPFOR(int blockSize, int capacity) {
+                if ((blockSize != FastPFOR.BLOCK_SIZE)
+                        && (blockSize != FastPFOR128.BLOCK_SIZE))
+                        throw new IllegalArgumentException(
+                                "Unsupported block size: " + blockSize);
+                if (capacity < 1)
+                        throw new IllegalArgumentException(
+                                "Capacity must be positive: " + capacity);
+                this.blockSize = blockSize;
+                this.capacity = capacity;
+                this.permits = new Semaphore(capacity);
+        }
+
+        /**
+         * Construct a thread-safe FastPFOR CODEC with one instance per
+         * available processor.
+         *
+         * @return the new CODEC
+         */
+        public static ConcurrentFastPFOR ConcurrentFastPFOR1() {
+                return new ConcurrentFastPFOR(FastPFOR.BLOCK_SIZE, Runtime
+                        .getRuntime().availableProcessors());
+        }
+
+        /**
+         * Report the statistics of each page to a listener, which must be
+         * thread-safe (see CodecMetrics). Without a listener (the default),
+         * no statistics are collected.
+         *
+         * @param listener
+         *                the listener, or null to stop reporting
+         */
+        public void setListener(CodecListener listener) {
+                this.listener = listener;
+        }
+
+        /**
+         * @return maximal number of instances
+         */
+        public int getCapacity() {
+                return capacity;
+        }
+
+        private IntegerCODEC borrow() {
+                permits.acquireUninterruptibly();
+                IntegerCODEC c = idle.poll();
+                try {
+                        if (c == null)
+                                c = blockSize == FastPFOR.BLOCK_SIZE ? FastPFOR
+                                        .FastPFOR1() : FastPFOR128.FastPFOR1281();
+                        // the listener may have changed since c was used
+                        if (c instanceof FastPFOR)
+                                ((FastPFOR) c).setListener(listener);
+                        else
+                                ((FastPFOR128) c).setListener(listener);
+                        return c;
+                } catch (RuntimeException e) {
+                        permits.release();
+                        throw e;
+                } catch (Error e) {
+                        permits.release();
+                        throw e;
+                }
+        }
+
+        private void giveBack(IntegerCODEC c) {
+                idle.offer(c);
+                permits.release();
+        }
+
+        @Override
+        public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                IntegerCODEC c = borrow();
+                try {
+                        ((SkippableIntegerCODEC) c).headlessCompress(in, inpos,
+                                inlength, out, outpos);
+                } finally {
+                        giveBack(c);
+                }
+        }
+
+        @Override
+        public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos, int num) {
+                IntegerCODEC c = borrow();
+                try {
+                        ((SkippableIntegerCODEC) c).headlessUncompress(in,
+                                inpos, inlength, out, outpos, num);
+                } finally {
+                        giveBack(c);
+                }
+        }
+
+        @Override
+        public void headlessCompressToBuffer(int[] in, IntWrapper inpos,
+                int inlength, IntBuffer out) {
+                IntegerCODEC c = borrow();
+                try {
+                        ((SkippableIntBufferCODEC) c).headlessCompressToBuffer(
+                                in, inpos, inlength, out);
+                } finally {
+                        giveBack(c);
+                }
+        }
+
+        @Override
+        public void headlessUncompressFromBuffer(IntBuffer in, int inlength,
+                int[] out, IntWrapper outpos, int num) {
+                IntegerCODEC c = borrow();
+                try {
+                        ((SkippableIntBufferCODEC) c)
+                                .headlessUncompressFromBuffer(in, inlength,
+                                        out, outpos, num);
+                } finally {
+                        giveBack(c);
+                }
+        }
+
+        @Override
+        public void headlessUncompressRange(int[] in, int inpos, int inlength,
+                int[] out, IntWrapper outpos, int num, int from, int to) {
+                IntegerCODEC c = borrow();
+                try {
+                        ((SkippableRangeCODEC) c).headlessUncompressRange(in,
+                                inpos, inlength, out, outpos, num, from, to);
+                } finally {
+                        giveBack(c);
+                }
+        }
+
+        @Override
+        public void headlessSkip(int[] in, IntWrapper inpos, int inlength,
+                IntWrapper outpos, int num) {
+                IntegerCODEC c = borrow();
+                try {
+                        ((SkippableRangeCODEC) c).headlessSkip(in, inpos,
+                                inlength, outpos, num);
+                } finally {
+                        giveBack(c);
+                }
+        }
+
+        @Override
+        public void compress0(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                IntegerCODEC c = borrow();
+                try {
+                        c.compress0(in, inpos, inlength, out, outpos);
+                } finally {
+                        giveBack(c);
+                }
+        }
+
+        @Override
+        public void uncompress0(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                IntegerCODEC c = borrow();
+                try {
+                        c.uncompress0(in, inpos, inlength, out, outpos);
+                } finally {
+                        giveBack(c);
+                }
+        }
+
+        @Override
+        public String toString() {
+                if (blockSize == FastPFOR.BLOCK_SIZE)
+                        return getClass().getSimpleName();
+                return getClass().getSimpleName() + "128";
+        }
+}
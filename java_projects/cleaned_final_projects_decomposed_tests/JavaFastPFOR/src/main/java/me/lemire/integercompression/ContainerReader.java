@@ -0,0 +1,347 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Reads a container written by ContainerWriter. The file is memory-mapped
+ * and validated lazily: the header, footer and trailer are checked when
+ * the file is opened, and each block is checked against its CRC32C the
+ * first time it is decoded. Use verify() to check all blocks at once.
+ *
+ * Validation failures raise a CorruptedDataException: a damaged block is
+ * never decoded into wrong values.
+ *
+ * Large files are mapped in several segments of at most 1 GB, each
+ * holding whole blocks.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class ContainerReader implements Closeable {
+        final static int MAX_SEGMENT_SIZE = 1 << 30;
+
+        final FileChannel channel;
+        final int version;
+        final int codecId;
+        final int blockSize;
+        final long count;
+        // byte offset of each block, plus the end of the last block
+        final long[] offsets;
+        final int[] checksums;
+        final MappedByteBuffer[] segments;
+        final long[] segmentStart;
+        // segment holding each block
+        final int[] blockSegment;
+        final BitSet verified;
+        final SkippableIntegerCODEC codec;
+        int[] compressed = new int[0];
+
+        private ContainerReader(FileChannel channel, int version, int codecId,
+                int blockSize, long count, long[] offsets, int[] checksums,
+                int maxSegmentSize) throws IOException {
+                this.channel = channel;
+                this.version = version;
+                this.codecId = codecId;
+                this.blockSize = blockSize;
+                this.count = count;
+                this.offsets = offsets;
+                this.checksums = checksums;
+                this.verified = new BitSet(checksums.length);
+                this.codec = CodecRegistry.newCodec(codecId);
+                final int blocks = checksums.length;
+                this.blockSegment = new int[blocks];
+                long[] starts = new long[1];
+                long[] ends = new long[1];
+                int nsegments = 0;
+                for (int b = 0; b < blocks; ++b) {
+                        if ((nsegments == 0)
+                                || (offsets[b + 1] - starts[nsegments - 1] > maxSegmentSize)) {
+                                if (nsegments == starts.length) {
+                                        starts = Arrays.copyOf(starts,
+                                                2 * nsegments);
+                                        ends = Arrays.copyOf(ends, 2 * nsegments);
+                                }
+                                starts[nsegments++] = offsets[b];
+                        }
+                        ends[nsegments - 1] = offsets[b + 1];
+                        blockSegment[b] = nsegments - 1;
+                }
+                this.segmentStart = Arrays.copyOf(starts, nsegments);
+                this.segments = new MappedByteBuffer[nsegments];
+                for (int s = 0; s < nsegments; ++s) {
+                        segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                starts[s], ends[s] - starts[s]);
+                        segments[s].order(ByteOrder.LITTLE_ENDIAN);
+                }
+        }
+
+        /**
+         * Open and map a container. The header, footer and trailer are
+         * validated; the blocks are validated when they are first decoded.
+         *
+         * @param path
+         *                the file
+         * @return the reader
+         * @throws IOException
+         *                 if the file cannot be read
+         * @throws CorruptedDataException
+         *                 if the file is not a valid container
+         */
+        public static ContainerReader open(Path path) throws IOException {
+                return open0(path, MAX_SEGMENT_SIZE);
+        }
+
+        static ContainerReader open0(Path path, int maxSegmentSize)
+                throws IOException {
+                FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+                try {
+                        return parse(fc, maxSegmentSize);
+                } catch (IOException | RuntimeException e) {
+                        fc.close();
+                        throw e;
+                }
+        }
+
+        private static ContainerReader parse(FileChannel fc, int maxSegmentSize)
+                throws IOException {
+                final long size = fc.size();
+                if (size < ContainerWriter.HEADER_SIZE
+                        + ContainerWriter.TRAILER_SIZE)
+                        throw new CorruptedDataException("File too short: "
+                                + size + " bytes");
+                ByteBuffer header = read(fc, 0, ContainerWriter.HEADER_SIZE);
+                if (header.getInt(0) != ContainerWriter.MAGIC)
+                        throw new CorruptedDataException(
+                                "Not a container (bad magic number)");
+                final int headerCrc = header
+                        .getInt(ContainerWriter.HEADER_SIZE - 4);
+                header.limit(ContainerWriter.HEADER_SIZE - 4);
+                if (CRC32C.checksum(header) != headerCrc)
+                        throw new CorruptedDataException(
+                                "Checksum mismatch in header");
+                final int version = header.getInt(4);
+                if (version != ContainerWriter.VERSION)
+                        throw new CorruptedDataException(
+                                "Unsupported version: " + version);
+                final int codecId = header.getInt(8);
+                if (!CodecRegistry.isRegistered(codecId))
+                        throw new CorruptedDataException("Unknown codec: "
+                                + codecId);
+                final int blockSize = header.getInt(12);
+                if (blockSize < 1)
+                        throw new CorruptedDataException("Bad block size: "
+                                + blockSize);
+                ByteBuffer trailer = read(fc, size
+                        - ContainerWriter.TRAILER_SIZE,
+                        ContainerWriter.TRAILER_SIZE);
+                if (trailer.getInt(12) != ContainerWriter.MAGIC)
+                        throw new CorruptedDataException(
+                                "Truncated container (bad trailer)");
+                final long footerOffset = trailer.getLong(0);
+                final long footerLength = size - ContainerWriter.TRAILER_SIZE
+                        - footerOffset;
+                if ((footerOffset < ContainerWriter.HEADER_SIZE)
+                        || (footerLength < 20)
+                        || (footerLength > Integer.MAX_VALUE))
+                        throw new CorruptedDataException("Bad footer offset: "
+                                + footerOffset);
+                ByteBuffer footer = read(fc, footerOffset, (int) footerLength);
+                if (CRC32C.checksum(footer) != trailer.getInt(8))
+                        throw new CorruptedDataException(
+                                "Checksum mismatch in footer");
+                final long count = footer.getLong();
+                final int blocks = footer.getInt();
+                if ((blocks < 0)
+                        || (footerLength != 12 + 8L * (blocks + 1) + 4L
+                                * blocks)
+                        || (count < 0)
+                        || ((count + blockSize - 1) / blockSize != blocks))
+                        throw new CorruptedDataException("Inconsistent footer");
+                long[] offsets = new long[blocks + 1];
+                for (int b = 0; b <= blocks; ++b) {
+                        offsets[b] = footer.getLong();
+                        final long previous = b == 0 ? ContainerWriter.HEADER_SIZE
+                                : offsets[b - 1];
+                        if ((offsets[b] < previous)
+                                || (offsets[b] - previous > Integer.MAX_VALUE)
+                                || ((offsets[b] - previous) % 4 != 0)
+                                || ((b == 0) && (offsets[b] != previous)))
+                                throw new CorruptedDataException(
+                                        "Bad offset for block " + b);
+                }
+                if (offsets[blocks] != footerOffset)
+                        throw new CorruptedDataException(
+                                "Bad offset for the end of the blocks");
+                int[] checksums = new int[blocks];
+                for (int b = 0; b < blocks; ++b)
+                        checksums[b] = footer.getInt();
+                return new ContainerReader(fc, version, codecId, blockSize,
+                        count, offsets, checksums, maxSegmentSize);
+        }
+
+        private static ByteBuffer read(FileChannel fc, long position, int length)
+                throws IOException {
+                ByteBuffer answer = ByteBuffer.allocate(length).order(
+                        ByteOrder.LITTLE_ENDIAN);
+                while (answer.hasRemaining())
+                        if (fc.read(answer, position + answer.position()) < 0)
+                                throw new EOFException();
+                answer.flip();
+                return answer;
+        }
+
+        /**
+         * @return number of integers
+         */
+        public long size() {
+                return count;
+        }
+
+        /**
+         * @return version of the format
+         */
+        public int getVersion() {
+                return version;
+        }
+
+        /**
+         * @return identifier of the codec (see CodecRegistry)
+         */
+        public int getCodecId() {
+                return codecId;
+        }
+
+        /**
+         * @return number of integers per block (the last block may be
+         *         shorter)
+         */
+        public int getBlockSize() {
+                return blockSize;
+        }
+
+        /**
+         * @return number of blocks
+         */
+        public int getBlockCount() {
+                return checksums.length;
+        }
+
+        /**
+         * @param block
+         *                index of the block
+         * @return number of integers in this block
+         */
+        public int getBlockLength(int block) {
+                return (int) Math.min(blockSize, count - (long) block
+                        * blockSize);
+        }
+
+        /**
+         * Decode one block, checking its checksum first if it has not been
+         * checked yet.
+         *
+         * @param block
+         *                index of the block
+         * @param out
+         *                where to write the integers
+         * @param outpos
+         *                where to start writing in out
+         * @return number of integers decoded
+         * @throws CorruptedDataException
+         *                 if the block is damaged
+         */
+        public int decodeBlock(int block, int[] out, int outpos) {
+                ByteBuffer bytes = blockBytes(block);
+                if (!verified.get(block))
+                        verifyBlock(block, bytes);
+                final int inlength = bytes.remaining() / 4;
+                if (compressed.length < inlength)
+                        compressed = new int[inlength];
+                bytes.asIntBuffer().get(compressed, 0, inlength);
+                final int length = getBlockLength(block);
+                IntWrapper inpos = new IntWrapper(0);
+                try {
+                        codec.headlessUncompress(compressed, inpos, inlength,
+                                out, new IntWrapper(outpos), length);
+                } catch (IndexOutOfBoundsException e) {
+                        throw new CorruptedDataException("Cannot decode block "
+                                + block);
+                }
+                if (inpos.get() != inlength)
+                        throw new CorruptedDataException("Cannot decode block "
+                                + block);
+                return length;
+        }
+
+        /**
+         * Check the checksums of all blocks.
+         *
+         * @throws CorruptedDataException
+         *                 if a block is damaged
+         */
+        public void verify() {
+                for (int b = 0; b < getBlockCount(); ++b)
+                        if (!verified.get(b))
+                                verifyBlock(b, blockBytes(b));
+        }
+
+        /**
+         * Uncompress all the integers.
+         *
+         * @return the integers
+         * @throws CorruptedDataException
+         *                 if a block is damaged
+         */
+        public int[] toArray() {
+                if (count > Integer.MAX_VALUE - 8)
+                        throw new UnsupportedOperationException(
+                                "Too many integers for an array: " + count);
+                int[] answer = new int[(int) count];
+                for (int b = 0; b < getBlockCount(); ++b)
+                        decodeBlock(b, answer, b * blockSize);
+                return answer;
+        }
+
+        private ByteBuffer blockBytes(int block) {
+                final int s = blockSegment[block];
+                ByteBuffer bytes = segments[s].duplicate().order(
+                        ByteOrder.LITTLE_ENDIAN);
+                bytes.limit((int) (offsets[block + 1] - segmentStart[s]));
+                bytes.position((int) (offsets[block] - segmentStart[s]));
+                return bytes;
+        }
+
+        private void verifyBlock(int block, ByteBuffer bytes) {
+                if (CRC32C.checksum(bytes) != checksums[block])
+                        throw new CorruptedDataException(
+                                "Checksum mismatch in block " + block);
+                verified.set(block);
+        }
+
+        @Override
+        public void close() throws IOException {
+                channel.close();
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
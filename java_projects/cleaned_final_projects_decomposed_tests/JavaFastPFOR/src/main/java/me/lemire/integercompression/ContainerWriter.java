@@ -0,0 +1,268 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Writes integers in a self-describing, checksummed container, to be read
+ * back with ContainerReader. Unlike the output of IntCompressor, the
+ * container records which codec and block size were used, and detects
+ * corruption.
+ *
+ * The integers are compressed in independent blocks of blockSize integers
+ * (the last block may be shorter). All values are little-endian. The layout
+ * is:
+ *
+ * <pre>
+ * header:  magic, version, codec id, block size, CRC32C of the header (5 ints)
+ * blocks:  the compressed blocks, one after the other
+ * footer:  number of integers (long), number of blocks (int),
+ *          byte offset of each block and of the end of the last block (longs),
+ *          CRC32C of each block (ints)
+ * trailer: byte offset of the footer (long), CRC32C of the footer (int), magic
+ * </pre>
+ *
+ * The index is in a footer so that the integers can be written in a single
+ * pass, with memory bounded by the block size and the index.
+ *
+ * <pre>
+ * ContainerWriter.writeFile(path, CodecRegistry.FASTPFOR, 65536, data);
+ * try (ContainerReader r = ContainerReader.open(path)) {
+ *         int[] back = r.toArray();
+ * }
+ * </pre>
+ *
+ * This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class ContainerWriter implements IntConsumer, Closeable {
+        /**
+         * First and last 4 bytes of a container ("JFPC").
+         */
+        public final static int MAGIC = 0x4A465043;
+
+        /**
+         * Version of the format written by this class.
+         */
+        public final static int VERSION = 1;
+
+        /**
+         * Default number of integers per block.
+         */
+        public final static int DEFAULT_BLOCK_SIZE = 65536;
+
+        final static int HEADER_SIZE = 20;
+
+        final static int TRAILER_SIZE = 16;
+
+        final int codecId;
+        final SkippableIntegerCODEC codec;
+        final WritableByteChannel channel;
+        final int[] block;
+        final int[] compressed;
+        final ByteBuffer bytes;
+        final CRC32C crc = new CRC32C();
+        int blockLength = 0;
+        long count = 0;
+        long position;
+        long[] offsets = new long[16];
+        int[] checksums = new int[16];
+        int blocks = 0;
+        boolean closed = false;
+
+        /**
+         * Constructor. The header is written immediately.
+         *
+         * @param codecId
+         *                identifier of the codec (see CodecRegistry)
+         * @param blockSize
+         *                number of integers per block
+         * @param channel
+         *                where the container is written
+         * @throws IOException
+         *                 if the header cannot be written
+         */
+        public ContainerWriter(int codecId, int blockSize,
+                WritableByteChannel channel) throws IOException {
+                if (blockSize < 1)
+                        throw new IllegalArgumentException(
+                                "Block size must be positive: " + blockSize);
+                this.codecId = codecId;
+                this.codec = CodecRegistry.newCodec(codecId);
+                this.channel = channel;
+                this.block = new int[blockSize];
+                this.compressed = new int[2 * blockSize + 1024];
+                this.bytes = ByteBuffer.allocate(4 * compressed.length).order(
+                        ByteOrder.LITTLE_ENDIAN);
+                bytes.putInt(MAGIC).putInt(VERSION).putInt(codecId)
+                        .putInt(blockSize);
+                bytes.flip();
+                final int headerCrc = CRC32C.checksum(bytes);
+                bytes.limit(HEADER_SIZE);
+                bytes.putInt(HEADER_SIZE - 4, headerCrc);
+                writeBytes();
+                position = HEADER_SIZE;
+        }
+
+        /**
+         * Write a whole array to a file.
+         *
+         * @param path
+         *                the file (replaced if it exists)
+         * @param codecId
+         *                identifier of the codec (see CodecRegistry)
+         * @param blockSize
+         *                number of integers per block
+         * @param data
+         *                the integers
+         * @throws IOException
+         *                 if the file cannot be written
+         */
+        public static void writeFile(Path path, int codecId, int blockSize,
+                int[] data) throws IOException {
+                FileChannel fc = FileChannel.open(path,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                try (ContainerWriter w = new ContainerWriter(codecId,
+                        blockSize, fc)) {
+                        w.write(data, 0, data.length);
+                }
+        }
+
+        /**
+         * Add one integer.
+         *
+         * @param value
+         *                the integer
+         * @throws UncheckedIOException
+         *                 if a full block cannot be written
+         */
+        @Override
+        public void accept(int value) {
+                block[blockLength++] = value;
+                if (blockLength == block.length) {
+                        try {
+                                writeBlock();
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                }
+        }
+
+        /**
+         * Add a range of integers.
+         *
+         * @param in
+         *                source array
+         * @param off
+         *                first integer to add
+         * @param len
+         *                number of integers to add
+         * @throws IOException
+         *                 if a block cannot be written
+         */
+        public void write(int[] in, int off, int len) throws IOException {
+                while (len > 0) {
+                        final int n = Math.min(len, block.length - blockLength);
+                        System.arraycopy(in, off, block, blockLength, n);
+                        blockLength += n;
+                        off += n;
+                        len -= n;
+                        if (blockLength == block.length)
+                                writeBlock();
+                }
+        }
+
+        /**
+         * @return number of integers added so far
+         */
+        public long getCount() {
+                return count + blockLength;
+        }
+
+        /**
+         * Write the pending integers, the footer and the trailer, then close
+         * the channel.
+         */
+        @Override
+        public void close() throws IOException {
+                if (closed)
+                        return;
+                if (blockLength > 0)
+                        writeBlock();
+                closed = true;
+                final long footerOffset = position;
+                ByteBuffer footer = ByteBuffer.allocate(
+                        12 + 8 * (blocks + 1) + 4 * blocks).order(
+                        ByteOrder.LITTLE_ENDIAN);
+                footer.putLong(count).putInt(blocks);
+                for (int b = 0; b < blocks; ++b)
+                        footer.putLong(offsets[b]);
+                footer.putLong(footerOffset);
+                for (int b = 0; b < blocks; ++b)
+                        footer.putInt(checksums[b]);
+                footer.flip();
+                final int footerCrc = CRC32C.checksum(footer);
+                while (footer.hasRemaining())
+                        channel.write(footer);
+                bytes.clear();
+                bytes.putLong(footerOffset).putInt(footerCrc).putInt(MAGIC);
+                bytes.flip();
+                writeBytes();
+                channel.close();
+        }
+
+        private void writeBlock() throws IOException {
+                if (closed)
+                        throw new IOException("Container closed");
+                IntWrapper outpos = new IntWrapper(0);
+                try {
+                        codec.headlessCompress(block, new IntWrapper(0),
+                                blockLength, compressed, outpos);
+                } catch (IndexOutOfBoundsException ioebe) {
+                        throw new UncompressibleInputException(
+                                "Your input is too poorly compressible "
+                                        + "with the current codec : " + codec);
+                }
+                bytes.clear();
+                bytes.asIntBuffer().put(compressed, 0, outpos.get());
+                bytes.limit(4 * outpos.get());
+                if (blocks == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, 2 * blocks);
+                        checksums = Arrays.copyOf(checksums, 2 * blocks);
+                }
+                offsets[blocks] = position;
+                checksums[blocks] = CRC32C.checksum(bytes);
+                ++blocks;
+                writeBytes();
+                position += 4 * outpos.get();
+                count += blockLength;
+                blockLength = 0;
+        }
+
+        private void writeBytes() throws IOException {
+                while (bytes.hasRemaining())
+                        channel.write(bytes);
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
@@ -0,0 +1,27 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+/**
+ * Thrown when compressed data fails validation (bad magic number, unknown
+ * version, checksum mismatch...).
+ *
+ * @author Daniel Lemire
+ */
+public class CorruptedDataException extends RuntimeException {
+
+	/**
+	 * Create new exception
+	 * @param string explanation for the exception
+	 */
+	public CorruptedDataException(String string) {
+		super(string);
+	}
+
+	private static final long serialVersionUID = 4377015356744815262L;
+
+}
@@ -15,12 +15,22 @@ package me.lemire.integercompression;
  *  <pre>IntegerCODEC ic = new Composition(new DeltaZigzagBinaryPacking(),
  *                      new DeltaZigzagVariableByte()).</pre>
  * 
+ * For multi-threaded applications, each thread should use its own
+ * DeltaZigzagBinaryPacking object.
+ * 
  * @author MURAOKA Taro http://github.com/koron
  */
 public final class DeltaZigzagBinaryPacking implements IntegerCODEC {
 
         private static final int BLOCK_LENGTH = 128;
 
+        // working area for compress and uncompress, reused across calls
+        private final int[] work = new int[BLOCK_LENGTH];
+        private final DeltaZigzagEncoding.Encoder encoder =
+                new DeltaZigzagEncoding.Encoder(0);
+        private final DeltaZigzagEncoding.Decoder decoder =
+                new DeltaZigzagEncoding.Decoder(0);
+
         @Override
         public void compress0(int[] inBuf, IntWrapper inPos, int inLen,
                               int[] outBuf, IntWrapper outPos) {
@@ -32,8 +42,8 @@ public final class DeltaZigzagBinaryPacking implements IntegerCODEC {
                 outBuf[outPos.get()] = inLen;
                 outPos.increment();
 
-                DeltaZigzagEncoding.Encoder ctx = new DeltaZigzagEncoding.Encoder(0);
-                int[] work = new int[BLOCK_LENGTH];
+                final DeltaZigzagEncoding.Encoder ctx = this.encoder;
+                ctx.setContextValue(0);
 
                 int op = outPos.get();
                 int ip = inPos.get();
@@ -66,8 +76,8 @@ public final class DeltaZigzagBinaryPacking implements IntegerCODEC {
                 final int outLen = inBuf[inPos.get()];
                 inPos.increment();
 
-                DeltaZigzagEncoding.Decoder ctx = new DeltaZigzagEncoding.Decoder(0);
-                int[] work = new int[BLOCK_LENGTH];
+                final DeltaZigzagEncoding.Decoder ctx = this.decoder;
+                ctx.setContextValue(0);
 
                 int ip = inPos.get();
                 int op = outPos.get();
@@ -8,6 +8,7 @@ package me.lemire.integercompression;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.Arrays;
 
 /**
@@ -34,11 +35,12 @@ import java.util.Arrays;
  * lists, you should first compute deltas, @see me.lemire.integercompression.differential.Delta#delta.
  * 
  * For multi-threaded applications, each thread should use its own FastPFOR
- * object.
+ * object, or share a ConcurrentFastPFOR object.
  *
  * @author Daniel Lemire
  */
-public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
+public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC,
+        SkippableIntBufferCODEC, SkippableRangeCODEC {
         final static int OVERHEAD_OF_EACH_EXCEPT = 8;
         /**
          *
@@ -57,6 +59,11 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
         final int[] dataPointers = new int[33];
         final int[] freqs = new int[33];
         final int[] bestbbestcexceptmaxb = new int[3];
+        final int[] blockBuffer = new int[BLOCK_SIZE];
+        // working area of the IntBuffer methods, one compressed page
+        int[] pageBuffer = new int[0];
+        CodecListener listener = null;
+        PageStatistics statistics;
 
 
         /**
@@ -148,6 +155,7 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
         private void encodePage(int[] in, IntWrapper inpos, int thissize,
                 int[] out, IntWrapper outpos) {
                 final int headerpos = outpos.get();
+                final long start = listener == null ? 0 : statistics.start();
                 outpos.increment();
                 int tmpoutpos = outpos.get();
 
@@ -159,6 +167,12 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
                 for (final int finalinpos = tmpinpos + thissize - BLOCK_SIZE; tmpinpos <= finalinpos; tmpinpos += BLOCK_SIZE) {
                     getBestBFromData(in, tmpinpos);
                         final int tmpbestb = bestbbestcexceptmaxb[0];
+                        if (listener != null)
+                                statistics.addBlock(tmpbestb,
+                                        bestbbestcexceptmaxb[1],
+                                        // maxbits and the positions
+                                        bestbbestcexceptmaxb[1] == 0 ? 0
+                                                : 1 + bestbbestcexceptmaxb[1]);
                         byteContainer.put((byte)bestbbestcexceptmaxb[0]);
                         byteContainer.put((byte)bestbbestcexceptmaxb[1]);
                         if (bestbbestcexceptmaxb[1] > 0) {
@@ -206,6 +220,7 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
                                 bitmap |= (1 << (k - 1));
                 }
                 out[tmpoutpos++] = bitmap;
+                final int exceptstart = tmpoutpos;
 
                 for (int k = 2; k <= 32; ++k) {
                         if (dataPointers[k] != 0) {
@@ -220,6 +235,11 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
                                 tmpoutpos -= overflow * k / 32;
                         }
                 }
+                if (listener != null) {
+                        statistics.end(thissize, tmpoutpos - headerpos,
+                                4 * (tmpoutpos - exceptstart), start);
+                        listener.pageEncoded(statistics);
+                }
                 outpos.set(tmpoutpos);
         }
 
@@ -245,8 +265,52 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
         private void decodePage(int[] in, IntWrapper inpos, int[] out,
                 IntWrapper outpos, int thissize) {
                 final int initpos = inpos.get();
-                final int wheremeta = in[inpos.get()];
-                inpos.increment();
+                final long start = listener == null ? 0 : System.nanoTime();
+                final int inexcept = readPageMetadata(in, initpos);
+                Arrays.fill(dataPointers, 0);
+                int tmpoutpos = outpos.get();
+                int tmpinpos = initpos + 1;
+
+                for (int run = 0, run_end = thissize / BLOCK_SIZE; run < run_end; ++run, tmpoutpos += BLOCK_SIZE) {
+                        final int b = byteContainer.get();
+                        final int cexcept = byteContainer.get() & 0xFF;
+                        for (int k = 0; k < BLOCK_SIZE; k += 32) {
+                                BitPacking.fastunpack(in, tmpinpos, out,
+                                        tmpoutpos + k, b);
+                                tmpinpos += b;
+                        }
+                        if (cexcept > 0) {
+                            final int maxbits = byteContainer.get();
+                            final int index = maxbits - b;
+                            if(index == 1) {
+                                for (int k = 0; k < cexcept; ++k) {
+                                    final int pos = byteContainer.get() &0xFF;
+                                    out[pos + tmpoutpos] |= 1 << b;
+                                }
+                            } else {
+                                for (int k = 0; k < cexcept; ++k) {
+                                    final int pos = byteContainer.get() &0xFF;
+                                    final int exceptvalue = dataTobePacked[index][dataPointers[index]++];
+                                    out[pos + tmpoutpos] |= exceptvalue << b;
+                                }
+                            }
+                        }
+                }
+                if (listener != null)
+                        listener.pageDecoded(statistics.getCodec(), thissize,
+                                inexcept - initpos, System.nanoTime() - start);
+                outpos.set(tmpoutpos);
+                inpos.set(inexcept);
+        }
+
+        /**
+         * Reads the exceptions and the block descriptions of the page
+         * starting at initpos into the working area.
+         *
+         * @return the end of the page
+         */
+        private int readPageMetadata(int[] in, int initpos) {
+                final int wheremeta = in[initpos];
                 int inexcept = initpos + wheremeta;
                 final int bytesize = in[inexcept++];
                 byteContainer.clear();
@@ -285,38 +349,212 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
                                 }
                         }
                 }
-                Arrays.fill(dataPointers, 0);
-                int tmpoutpos = outpos.get();
-                int tmpinpos = inpos.get();
+                return inexcept;
+        }
 
-                for (int run = 0, run_end = thissize / BLOCK_SIZE; run < run_end; ++run, tmpoutpos += BLOCK_SIZE) {
-                        final int b = byteContainer.get();
-                        final int cexcept = byteContainer.get() & 0xFF;
-                        for (int k = 0; k < BLOCK_SIZE; k += 32) {
-                                BitPacking.fastunpack(in, tmpinpos, out,
-                                        tmpoutpos + k, b);
-                                tmpinpos += b;
+        /**
+         * Uncompress the block starting at tmpinpos, whose description is
+         * next in byteContainer, as decodePage does (range decoding only:
+         * decodePage keeps its loop inline for speed).
+         *
+         * @return the end of the block
+         */
+        private int decodeBlock(int[] in, int tmpinpos, int[] out,
+                int tmpoutpos) {
+                final int b = byteContainer.get();
+                final int cexcept = byteContainer.get() & 0xFF;
+                for (int k = 0; k < BLOCK_SIZE; k += 32) {
+                        BitPacking.fastunpack(in, tmpinpos, out,
+                                tmpoutpos + k, b);
+                        tmpinpos += b;
+                }
+                if (cexcept > 0) {
+                    final int maxbits = byteContainer.get();
+                    final int index = maxbits - b;
+                    if(index == 1) {
+                        for (int k = 0; k < cexcept; ++k) {
+                            final int pos = byteContainer.get() &0xFF;
+                            out[pos + tmpoutpos] |= 1 << b;
                         }
-                        if (cexcept > 0) {
-                            final int maxbits = byteContainer.get();
-                            final int index = maxbits - b;
-                            if(index == 1) {
-                                for (int k = 0; k < cexcept; ++k) {
-                                    final int pos = byteContainer.get() &0xFF;
-                                    out[pos + tmpoutpos] |= 1 << b;
-                                }
-                            } else {
-                                for (int k = 0; k < cexcept; ++k) {
-                                    final int pos = byteContainer.get() &0xFF;
-                                    final int exceptvalue = dataTobePacked[index][dataPointers[index]++];
-                                    out[pos + tmpoutpos] |= exceptvalue << b;
-                                }
-                            }
+                    } else {
+                        for (int k = 0; k < cexcept; ++k) {
+                            final int pos = byteContainer.get() &0xFF;
+                            final int exceptvalue = dataTobePacked[index][dataPointers[index]++];
+                            out[pos + tmpoutpos] |= exceptvalue << b;
+                        }
+                    }
+                }
+                return tmpinpos;
+        }
+
+        /**
+         * Skips the block starting at tmpinpos, whose description is next
+         * in byteContainer.
+         *
+         * @return the end of the block
+         */
+        private int skipBlock(int tmpinpos) {
+                final int b = byteContainer.get();
+                final int cexcept = byteContainer.get() & 0xFF;
+                if (cexcept > 0) {
+                    final int index = byteContainer.get() - b;
+                    byteContainer.position(byteContainer.position() + cexcept);
+                    if (index > 1)
+                        dataPointers[index] += cexcept;
+                }
+                return tmpinpos + b * (BLOCK_SIZE / 32);
+        }
+
+        /**
+         * @return the end of the page starting at initpos
+         */
+        private static int skipPage(int[] in, int initpos) {
+                int inexcept = initpos + in[initpos];
+                final int bytesize = in[inexcept++];
+                inexcept += (bytesize + 3) / 4;
+                final int bitmap = in[inexcept++];
+                for (int k = 2; k <= 32; ++k) {
+                        if ((bitmap & (1 << (k - 1))) != 0) {
+                                int size = in[inexcept++];
+                                int roundedup = Util
+                                .greatestMultiple(size + 31, 32);
+                                inexcept += roundedup / 32 * k
+                                        - (roundedup - size) * k / 32;
+                        }
+                }
+                return inexcept;
+        }
+
+        @Override
+        public void headlessUncompressRange(int[] in, int inpos, int inlength,
+                int[] out, IntWrapper outpos, int num, int from, int to) {
+                final int count = Util.greatestMultiple(num, BLOCK_SIZE);
+                to = Math.min(to, count);
+                int pagestart = inpos;
+                for (int s = 0; s < to; s += pageSize) {
+                        final int thissize = Math.min(pageSize, count - s);
+                        if (s + thissize <= from)
+                                pagestart = skipPage(in, pagestart);
+                        else
+                                pagestart = decodePageRange(in, pagestart,
+                                        out, outpos, s, Math.max(from, s),
+                                        Math.min(to, s + thissize));
+                }
+        }
+
+        /**
+         * Uncompress the integers of index from to to of the page starting
+         * at initpos, whose first integer has index s.
+         *
+         * @return the end of the page
+         */
+        private int decodePageRange(int[] in, int initpos, int[] out,
+                IntWrapper outpos, int s, int from, int to) {
+                final int inexcept = readPageMetadata(in, initpos);
+                Arrays.fill(dataPointers, 0);
+                int tmpoutpos = outpos.get();
+                int tmpinpos = initpos + 1;
+                for (; s < to; s += BLOCK_SIZE) {
+                        if (s + BLOCK_SIZE <= from) {
+                                tmpinpos = skipBlock(tmpinpos);
+                        } else if (s >= from && s + BLOCK_SIZE <= to) {
+                                tmpinpos = decodeBlock(in, tmpinpos, out,
+                                        tmpoutpos);
+                                tmpoutpos += BLOCK_SIZE;
+                        } else {
+                                // partial block: through the working area
+                                tmpinpos = decodeBlock(in, tmpinpos,
+                                        blockBuffer, 0);
+                                final int start = Math.max(from, s);
+                                final int end = Math.min(to, s + BLOCK_SIZE);
+                                System.arraycopy(blockBuffer, start - s, out,
+                                        tmpoutpos, end - start);
+                                tmpoutpos += end - start;
                         }
                 }
                 outpos.set(tmpoutpos);
-                inpos.set(inexcept);
+                return inexcept;
+        }
+
+        @Override
+        public void headlessSkip(int[] in, IntWrapper inpos, int inlength,
+                IntWrapper outpos, int mynvalue) {
+                mynvalue = Util.greatestMultiple(mynvalue, BLOCK_SIZE);
+                int pagestart = inpos.get();
+                for (int s = 0; s < mynvalue; s += pageSize)
+                        pagestart = skipPage(in, pagestart);
+                inpos.set(pagestart);
+                outpos.add(mynvalue);
+        }
+
+        /**
+         * Compress data in blocks of BLOCK_SIZE integers to a buffer (if fewer
+         * than BLOCK_SIZE integers are provided, nothing is done). Each page
+         * is compressed as by headlessCompress to a working area, then copied
+         * to the buffer.
+         *
+         * @see SkippableIntBufferCODEC#headlessCompressToBuffer(int[], IntWrapper, int, IntBuffer)
+         */
+        @Override
+        public void headlessCompressToBuffer(int[] in, IntWrapper inpos,
+                int inlength, IntBuffer out) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                final int finalinpos = inpos.get() + inlength;
+                while (inpos.get() != finalinpos) {
+                        int thissize = Math.min(pageSize,
+                                finalinpos - inpos.get());
+                        pageBuffer = Util.ensureCapacity(pageBuffer,
+                                2 * thissize + 1024);
+                        IntWrapper length = IntWrapper.IntWrapper1();
+                        encodePage(in, inpos, thissize, pageBuffer, length);
+                        out.put(pageBuffer, 0, length.get());
+                }
+        }
+
+        /**
+         * Uncompress data in blocks of integers from a buffer. In this
+         * particular case, the inlength parameter is ignored: it is deduced
+         * from the compressed data. Each page is copied to a working area,
+         * then uncompressed as by headlessUncompress.
+         *
+         * @see SkippableIntBufferCODEC#headlessUncompressFromBuffer(IntBuffer, int, int[], IntWrapper, int)
+         */
+        @Override
+        public void headlessUncompressFromBuffer(IntBuffer in, int inlength,
+                int[] out, IntWrapper outpos, int mynvalue) {
+                mynvalue = Util.greatestMultiple(mynvalue, BLOCK_SIZE);
+                int finalout = outpos.get() + mynvalue;
+                while (outpos.get() != finalout) {
+                        int thissize = Math.min(pageSize,
+                                finalout - outpos.get());
+                        final int length = pageLength(in, in.position());
+                        pageBuffer = Util.ensureCapacity(pageBuffer, length);
+                        in.get(pageBuffer, 0, length);
+                        decodePage(pageBuffer, IntWrapper.IntWrapper1(), out,
+                                outpos, thissize);
+                }
+        }
+
+        /**
+         * @return the length of the page starting at initpos (see skipPage)
+         */
+        private static int pageLength(IntBuffer in, int initpos) {
+                int inexcept = initpos + in.get(initpos);
+                final int bytesize = in.get(inexcept++);
+                inexcept += (bytesize + 3) / 4;
+                final int bitmap = in.get(inexcept++);
+                for (int k = 2; k <= 32; ++k) {
+                        if ((bitmap & (1 << (k - 1))) != 0) {
+                                int size = in.get(inexcept++);
+                                int roundedup = Util
+                                .greatestMultiple(size + 31, 32);
+                                inexcept += roundedup / 32 * k
+                                        - (roundedup - size) * k / 32;
+                        }
+                }
+                return inexcept - initpos;
         }
+
         @Override
         public void compress0(int[] in, IntWrapper inpos, int inlength, int[] out,
                               IntWrapper outpos) {
@@ -337,6 +575,19 @@ public class FastPFOR implements IntegerCODEC,SkippableIntegerCODEC {
             inpos.increment();
             headlessUncompress(in, inpos, inlength, out, outpos, outlength);
         }
+        /**
+         * Report the statistics of each page to a listener (see CodecMetrics).
+         * Without a listener (the default), no statistics are collected.
+         *
+         * @param listener
+         *                the listener, or null to stop reporting
+         */
+        public void setListener(CodecListener listener) {
+                if ((listener != null) && (statistics == null))
+                        statistics = new PageStatistics(toString());
+                this.listener = listener;
+        }
+
         @Override
         public String toString() {
                 return this.getClass().getSimpleName();
@@ -30,7 +30,7 @@ public IntCompressor(int constructorId, SkippableIntegerCODEC c) {
         }
     else {
 
-        codec = new SkippableComposition(new BinaryPacking(),
+        codec = new SkippableRangeComposition(new BinaryPacking(),
                 new VariableByte());
         }
 }
@@ -78,4 +78,28 @@ public IntCompressor(int constructorId, SkippableIntegerCODEC c) {
         return decompressed;
     }
 
+    /**
+     * Uncompress the integers of index from (inclusive) to to (exclusive) of
+     * a compressed array, without uncompressing the others. The codec must
+     * be a SkippableRangeCODEC (as is the default codec).
+     * 
+     * @param compressed compressed array
+     * @param from index of the first integer
+     * @param to index after the last integer
+     * @return the to - from integers
+     */
+    public int[] uncompressRange(int[] compressed, int from, int to) {
+        if (!(codec instanceof SkippableRangeCODEC))
+            throw new UnsupportedOperationException(
+                    "Range decoding is not supported by " + codec);
+        if ((from < 0) || (from > to) || (to > compressed[0]))
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to
+                    + "), size: " + compressed[0]);
+        int[] decompressed = new int[to - from];
+        ((SkippableRangeCODEC) codec).headlessUncompressRange(compressed, 1,
+                compressed.length - 1, decompressed, new IntWrapper(0),
+                compressed[0], from, to);
+        return decompressed;
+    }
+
 }
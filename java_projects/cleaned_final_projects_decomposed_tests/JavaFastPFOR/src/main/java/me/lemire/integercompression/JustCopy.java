@@ -7,12 +7,14 @@
 
 package me.lemire.integercompression;
 
+import java.nio.IntBuffer;
 
 /**
  * @author Daniel Lemire
  * 
  */
-public final class JustCopy implements IntegerCODEC, SkippableIntegerCODEC {
+public final class JustCopy implements IntegerCODEC, SkippableIntegerCODEC,
+        SkippableIntBufferCODEC {
 
         @Override
         public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
@@ -48,4 +50,18 @@ public final class JustCopy implements IntegerCODEC, SkippableIntegerCODEC {
             headlessCompress(in,inpos,inlength,out,outpos);
         }
 
+        @Override
+        public void headlessCompressToBuffer(int[] in, IntWrapper inpos,
+                int inlength, IntBuffer out) {
+            out.put(in, inpos.get(), inlength);
+            inpos.add(inlength);
+        }
+
+        @Override
+        public void headlessUncompressFromBuffer(IntBuffer in, int inlength,
+                int[] out, IntWrapper outpos, int num) {
+            in.get(out, outpos.get(), num);
+            outpos.add(num);
+        }
+
 }
@@ -1,26 +1,34 @@
 package me.lemire.integercompression;
 
+import java.util.Arrays;
+
 import com.kamikaze.pfordelta.PForDelta;
 
 /**
- * IntegerCODEC wrapper for Kamikaze's PForDelta.
- * 
+ * IntegerCODEC wrapper for Kamikaze's PForDelta: the whole input, rounded
+ * down to a multiple of 128 integers, is compressed as a single PForDelta
+ * block.
+ *
  * Note: this class is only included for speed benchmarks.
- * It is not recommended. Use at your own risks.
- * 
+ * It is not recommended. Use at your own risks. The header of the block
+ * records at most 1023 exceptions, so that large inputs may not round-trip.
+ * KamikazeBlocks writes the same format one block of 128 integers at a time.
+ *
  * @author Matteo Catena
- * 
+ *
  */
 public class Kamikaze implements SkippableIntegerCODEC, IntegerCODEC {
 
     private int BLOCK_SIZE = 128;
 
     @Override
-    public void headlessCompress(int[] in, IntWrapper inpos, int inlength, int[] out,
-            IntWrapper outpos) {
+    public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos) {
         inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
         if (inlength > 0) {
-            int[] out2 = PForDelta.compressOneBlockOpt(in, inlength);
+            int[] out2 = PForDelta.compressOneBlockOpt(
+                    Arrays.copyOfRange(in, inpos.get(), inpos.get()
+                            + inlength), inlength);
             inpos.add(inlength);
             System.arraycopy(out2, 0, out, outpos.get(), out2.length);
             outpos.add(out2.length);
@@ -28,11 +36,16 @@ public class Kamikaze implements SkippableIntegerCODEC, IntegerCODEC {
     }
 
     @Override
-    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength, int[] out,
-            IntWrapper outpos, int num) {
+    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos, int num) {
         num = Util.greatestMultiple(num, BLOCK_SIZE);
         if (num > 0) {
-            int d = PForDelta.decompressOneBlock(out, in, num);
+            // PForDelta reads from the start of its input and clears all of
+            // its output when b = 0
+            int[] out2 = new int[num];
+            int d = PForDelta.decompressOneBlock(out2,
+                    Arrays.copyOfRange(in, inpos.get(), in.length), num);
+            System.arraycopy(out2, 0, out, outpos.get(), num);
             inpos.add(d / 32);
             outpos.add(num);
         }
@@ -51,7 +64,7 @@ public class Kamikaze implements SkippableIntegerCODEC, IntegerCODEC {
                 return;
         out[outpos.get()] = inlength;
         outpos.increment();
-        headlessCompress(in, inpos, inlength, out, outpos);        
+        headlessCompress(in, inpos, inlength, out, outpos);
     }
 
     @Override
@@ -64,4 +77,4 @@ public class Kamikaze implements SkippableIntegerCODEC, IntegerCODEC {
         headlessUncompress(in, inpos, inlength, out, outpos, outlength);
 
     }
-}
\ No newline at end of file
+}
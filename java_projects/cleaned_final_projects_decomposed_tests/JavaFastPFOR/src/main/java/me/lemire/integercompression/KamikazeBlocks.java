@@ -0,0 +1,264 @@
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * PForDelta in the block format of the Kamikaze library
+ * (com.kamikaze.pfordelta.PForDelta). The integers are compressed in blocks
+ * of 128 integers, and each block is laid out as the output of
+ * PForDelta.compressOneBlockOpt(block, 128):
+ *
+ * <pre>
+ * header:     (w &lt;&lt; 16) | (b &lt;&lt; 10) | e, where b is the bit width, e the number
+ *             of exceptions and w the length of the exceptions
+ * last value: the last integer of the block (not needed for decoding)
+ * slots:      the b lowest bits of the 128 integers (4 * b ints)
+ * exceptions: the positions, then the high bits, of the e exceptions (Simple16,
+ *             w ints)
+ * </pre>
+ *
+ * PForDelta ignores the bits 15 and above of the header: an index written by
+ * Kamikaze, one compressed array per block of 128 integers, is read by
+ * concatenating its blocks (w is then 0, and the length of the exceptions is
+ * found from the Simple16 selectors), and the blocks written by this class
+ * are read by PForDelta.decompressOneBlock. The slots are unpacked by
+ * BitPacking and the working area is reused from one block to the next, so
+ * that decoding is much faster than with PForDelta.decompressOneBlock.
+ *
+ * Apart from w, the blocks are identical to the ones of Kamikaze for the same
+ * input, except when the input has integers of 2^28 or more: Kamikaze then
+ * uses b = 4 (so that the high bits fit in Simple16) and mishandles integers
+ * of 2^31 or more, whereas this class picks the best b leaving at most 28 high
+ * bits and handles all 32-bit integers.
+ *
+ * Kamikaze instead compresses its whole input as a single PForDelta block.
+ * The blocks of LCPForDelta, the Lucene variant of the format, are read and
+ * written by KamikazeLC.
+ *
+ * For arrays containing a number of integers that is not divisible by 128,
+ * use it in conjunction with another CODEC:
+ *
+ * <pre>
+ * SkippableIntegerCODEC c = new SkippableComposition(new KamikazeBlocks(),
+ *         new VariableByte());
+ * </pre>
+ *
+ * This class is not thread-safe.
+ *
+ * @author Matteo Catena
+ *
+ */
+public class KamikazeBlocks implements IntegerCODEC, SkippableIntegerCODEC,
+        SkippableRangeCODEC {
+
+    /**
+     * Number of integers per block.
+     */
+    public final static int BLOCK_SIZE = 128;
+
+    // bit widths allowed by the format
+    private static final int[] POSSIBLE_B = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9,
+            10, 11, 12, 13, 16, 20, 28 };
+
+    // Working area for compress and uncompress.
+    private final int[] freqs = new int[33];
+    final int[] exceptbuffer = new int[2 * BLOCK_SIZE];
+    private final int[] blockBuffer = new int[BLOCK_SIZE];
+
+    @Override
+    public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos) {
+        inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+        int tmpoutpos = outpos.get();
+        final int finalinpos = inpos.get() + inlength;
+        for (int s = inpos.get(); s < finalinpos; s += BLOCK_SIZE)
+            tmpoutpos = encodeBlock(in, s, out, tmpoutpos);
+        inpos.add(inlength);
+        outpos.set(tmpoutpos);
+    }
+
+    /**
+     * Same choice as PForDelta.compressOneBlockOpt: the smallest b minimizing
+     * 128 b + 32 e, where e is the number of exceptions.
+     */
+    int bestB(int[] in, int pos) {
+        Arrays.fill(freqs, 0);
+        for (int k = pos; k < pos + BLOCK_SIZE; ++k)
+            freqs[Util.bits(in[k])]++;
+        // the high bits of the exceptions must fit in Simple16 (28 bits)
+        int maxb = 32;
+        while (maxb > 0 && freqs[maxb] == 0)
+            --maxb;
+        final int minb = Math.max(0, maxb - 28);
+        int bestb = 0;
+        int bestcost = Integer.MAX_VALUE;
+        for (int b : POSSIBLE_B) {
+            if (b < minb)
+                continue;
+            int exceptions = 0;
+            for (int k = b + 1; k <= 32; ++k)
+                exceptions += freqs[k];
+            final int cost = b * BLOCK_SIZE + 32 * exceptions;
+            if (cost < bestcost) {
+                bestcost = cost;
+                bestb = b;
+            }
+        }
+        return bestb;
+    }
+
+    /**
+     * Writes the positions of the exceptions of the block, then their high
+     * bits, to exceptbuffer.
+     *
+     * @return the number of exceptions
+     */
+    int exceptions(int[] in, int pos, int b) {
+        int e = 0;
+        for (int k = 0; k < BLOCK_SIZE; ++k)
+            if ((in[pos + k] >>> b) != 0)
+                exceptbuffer[e++] = k;
+        for (int k = 0; k < e; ++k)
+            exceptbuffer[e + k] = in[pos + exceptbuffer[k]] >>> b;
+        return e;
+    }
+
+    /**
+     * @return the end of the compressed block
+     */
+    int encodeBlock(int[] in, int pos, int[] out, int tmpoutpos) {
+        final int b = bestB(in, pos);
+        final int e = exceptions(in, pos, b);
+        final int header = tmpoutpos;
+        out[tmpoutpos++] = (b << 10) | e;
+        out[tmpoutpos++] = in[pos + BLOCK_SIZE - 1];
+        for (int k = 0; k < BLOCK_SIZE; k += 32) {
+            BitPacking.fastpack(in, pos + k, out, tmpoutpos, b);
+            tmpoutpos += b;
+        }
+        if (e > 0) {
+            final int w = S16.compress(exceptbuffer, 0, 2 * e, out, tmpoutpos);
+            out[header] |= w << 16;
+            tmpoutpos += w;
+        }
+        return tmpoutpos;
+    }
+
+    @Override
+    public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+            int[] out, IntWrapper outpos, int num) {
+        num = Util.greatestMultiple(num, BLOCK_SIZE);
+        int tmpinpos = inpos.get();
+        final int finalout = outpos.get() + num;
+        for (int s = outpos.get(); s < finalout; s += BLOCK_SIZE)
+            tmpinpos = decodeBlock(in, tmpinpos, out, s);
+        outpos.add(num);
+        inpos.set(tmpinpos);
+    }
+
+    /**
+     * @return the end of the block starting at tmpinpos
+     */
+    int decodeBlock(int[] in, int tmpinpos, int[] out, int tmpoutpos) {
+        final int e = in[tmpinpos] & 0x3FF;
+        final int b = (in[tmpinpos] >>> 10) & 0x1F;
+        tmpinpos += 2;
+        for (int k = 0; k < BLOCK_SIZE; k += 32) {
+            BitPacking.fastunpack(in, tmpinpos, out, tmpoutpos + k, b);
+            tmpinpos += b;
+        }
+        if (e > 0) {
+            tmpinpos = uncompressExceptions(in, tmpinpos, 0, 2 * e);
+            for (int k = 0; k < e; ++k)
+                out[tmpoutpos + exceptbuffer[k]] |= exceptbuffer[e + k] << b;
+        }
+        return tmpinpos;
+    }
+
+    /**
+     * Reads Simple16 words until n integers are decoded, to exceptbuffer from
+     * index off.
+     *
+     * @return the position after the last word
+     */
+    int uncompressExceptions(int[] in, int tmpinpos, int off, int n) {
+        for (int done = 0; done < n; ++tmpinpos)
+            done += S16.decompressblock(exceptbuffer, off + done, in,
+                    tmpinpos, n - done);
+        return tmpinpos;
+    }
+
+    int skipBlock(int[] in, int tmpinpos) {
+        final int e = in[tmpinpos] & 0x3FF;
+        final int b = (in[tmpinpos] >>> 10) & 0x1F;
+        final int w = in[tmpinpos] >>> 16;
+        tmpinpos += 2 + b * (BLOCK_SIZE / 32);
+        if (e == 0)
+            return tmpinpos;
+        // blocks written by Kamikaze do not record w
+        return w > 0 ? tmpinpos + w : S16.skip(in, tmpinpos, 2 * e);
+    }
+
+    @Override
+    public void headlessUncompressRange(int[] in, int inpos, int inlength,
+            int[] out, IntWrapper outpos, int num, int from, int to) {
+        to = Math.min(to, Util.greatestMultiple(num, BLOCK_SIZE));
+        int tmpoutpos = outpos.get();
+        int tmpinpos = inpos;
+        for (int s = 0; s < to; s += BLOCK_SIZE) {
+            if (s + BLOCK_SIZE <= from) {
+                tmpinpos = skipBlock(in, tmpinpos);
+            } else if (s >= from && s + BLOCK_SIZE <= to) {
+                tmpinpos = decodeBlock(in, tmpinpos, out, tmpoutpos);
+                tmpoutpos += BLOCK_SIZE;
+            } else {
+                // partial block: through the working area
+                tmpinpos = decodeBlock(in, tmpinpos, blockBuffer, 0);
+                final int start = Math.max(from, s);
+                final int end = Math.min(to, s + BLOCK_SIZE);
+                System.arraycopy(blockBuffer, start - s, out, tmpoutpos, end
+                        - start);
+                tmpoutpos += end - start;
+            }
+        }
+        outpos.set(tmpoutpos);
+    }
+
+    @Override
+    public void headlessSkip(int[] in, IntWrapper inpos, int inlength,
+            IntWrapper outpos, int num) {
+        num = Util.greatestMultiple(num, BLOCK_SIZE);
+        int tmpinpos = inpos.get();
+        for (int s = 0; s < num; s += BLOCK_SIZE)
+            tmpinpos = skipBlock(in, tmpinpos);
+        inpos.set(tmpinpos);
+        outpos.add(num);
+    }
+
+    @Override
+    public String toString() {
+        return "Kamikaze's PForDelta (blocks)";
+    }
+
+    @Override
+    public void compress0(int[] in, IntWrapper inpos, int inlength, int[] out,
+                          IntWrapper outpos) {
+        inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+        if (inlength == 0)
+                return;
+        out[outpos.get()] = inlength;
+        outpos.increment();
+        headlessCompress(in, inpos, inlength, out, outpos);
+    }
+
+    @Override
+    public void uncompress0(int[] in, IntWrapper inpos, int inlength, int[] out,
+                            IntWrapper outpos) {
+        if (inlength == 0)
+            return;
+        final int outlength = in[inpos.get()];
+        inpos.increment();
+        headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+
+    }
+}
@@ -0,0 +1,82 @@
+package me.lemire.integercompression;
+
+/**
+ * PForDelta in the block format of LCPForDelta, the variant of the Kamikaze
+ * library used with Lucene (com.kamikaze.pfordelta.LCPForDelta). The integers
+ * are compressed in blocks of 128 integers, and each block is laid out as the
+ * output of new LCPForDelta().compress(block, 128):
+ *
+ * <pre>
+ * header:     (b &lt;&lt; 26) | e, where b is the bit width and e the number of exceptions
+ * slots:      the b lowest bits of the 128 integers (4 * b ints)
+ * positions:  the positions of the e exceptions (Simple16)
+ * high bits:  the high bits of the e exceptions (Simple16)
+ * </pre>
+ *
+ * The bit width is chosen as in Kamikaze, and the blocks are decoded the same
+ * way: they can be read with LCPForDelta.decompressOneBlock, and the blocks of
+ * LCPForDelta are read by concatenating them.
+ *
+ * For arrays containing a number of integers that is not divisible by 128,
+ * use it in conjunction with another CODEC:
+ *
+ * <pre>
+ * SkippableIntegerCODEC c = new SkippableComposition(new KamikazeLC(),
+ *         new VariableByte());
+ * </pre>
+ *
+ * This class is not thread-safe.
+ *
+ */
+public class KamikazeLC extends KamikazeBlocks {
+
+    @Override
+    int encodeBlock(int[] in, int pos, int[] out, int tmpoutpos) {
+        final int b = bestB(in, pos);
+        final int e = exceptions(in, pos, b);
+        out[tmpoutpos++] = (b << 26) | e;
+        for (int k = 0; k < BLOCK_SIZE; k += 32) {
+            BitPacking.fastpack(in, pos + k, out, tmpoutpos, b);
+            tmpoutpos += b;
+        }
+        if (e > 0) {
+            tmpoutpos += S16.compress(exceptbuffer, 0, e, out, tmpoutpos);
+            tmpoutpos += S16.compress(exceptbuffer, e, e, out, tmpoutpos);
+        }
+        return tmpoutpos;
+    }
+
+    @Override
+    int decodeBlock(int[] in, int tmpinpos, int[] out, int tmpoutpos) {
+        final int e = in[tmpinpos] & 0x3FFFFFF;
+        final int b = in[tmpinpos] >>> 26;
+        tmpinpos += 1;
+        for (int k = 0; k < BLOCK_SIZE; k += 32) {
+            BitPacking.fastunpack(in, tmpinpos, out, tmpoutpos + k, b);
+            tmpinpos += b;
+        }
+        if (e > 0) {
+            tmpinpos = uncompressExceptions(in, tmpinpos, 0, e);
+            tmpinpos = uncompressExceptions(in, tmpinpos, e, e);
+            for (int k = 0; k < e; ++k)
+                out[tmpoutpos + exceptbuffer[k]] |= exceptbuffer[e + k] << b;
+        }
+        return tmpinpos;
+    }
+
+    @Override
+    int skipBlock(int[] in, int tmpinpos) {
+        final int e = in[tmpinpos] & 0x3FFFFFF;
+        final int b = in[tmpinpos] >>> 26;
+        tmpinpos += 1 + b * (BLOCK_SIZE / 32);
+        // the header has no room for the length of the exceptions
+        if (e > 0)
+            tmpinpos = S16.skip(in, S16.skip(in, tmpinpos, e), e);
+        return tmpinpos;
+    }
+
+    @Override
+    public String toString() {
+        return "Kamikaze's LCPForDelta";
+    }
+}
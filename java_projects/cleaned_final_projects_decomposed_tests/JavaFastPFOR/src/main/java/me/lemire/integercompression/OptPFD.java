@@ -6,6 +6,7 @@
  */
 package me.lemire.integercompression;
 
+import java.nio.IntBuffer;
 
 /**
  * OptPFD: fast patching scheme   by Yan et al.
@@ -32,10 +33,22 @@ package me.lemire.integercompression;
  * 
  * @author Daniel Lemire
  */
-public final class OptPFD implements IntegerCODEC,SkippableIntegerCODEC {
+public final class OptPFD implements IntegerCODEC,SkippableIntegerCODEC,
+        SkippableIntBufferCODEC, SkippableRangeCODEC {
         final static int BLOCK_SIZE = 128;
 
         int[] exceptbuffer = new int[2 * BLOCK_SIZE];
+
+        int[] exceptcompressed = new int[2 * BLOCK_SIZE];
+
+        int[] blockBuffer = new int[BLOCK_SIZE];
+
+        // working area of the IntBuffer methods
+        int[] pageBuffer = new int[0];
+
+        CodecListener listener = null;
+
+        PageStatistics statistics;
         
         /**
          * Constructor for the OptPFD CODEC.
@@ -100,6 +113,7 @@ public final class OptPFD implements IntegerCODEC,SkippableIntegerCODEC {
 
         private void encodePage(int[] in, IntWrapper inpos, int thissize,
                 int[] out, IntWrapper outpos) {
+                final long start = listener == null ? 0 : statistics.start();
                 int tmpoutpos = outpos.get();
                 int tmpinpos = inpos.get();
                 IntWrapper bestb = IntWrapper.IntWrapper1();
@@ -128,12 +142,20 @@ public final class OptPFD implements IntegerCODEC,SkippableIntegerCODEC {
                         }
                         out[remember] = tmpbestb | (nbrexcept << 8)
                                 | (exceptsize << 16);
+                        if (listener != null)
+                                statistics.addBlock(bits[tmpbestb], nbrexcept,
+                                        4 * exceptsize);
                         for (int k = 0; k < BLOCK_SIZE; k += 32) {
                                 BitPacking.fastpack(in, tmpinpos + k, out,
                                         tmpoutpos, bits[tmpbestb]);
                                 tmpoutpos += bits[tmpbestb];
                         }
                 }
+                if (listener != null) {
+                        statistics.end(tmpinpos - inpos.get(), tmpoutpos
+                                - outpos.get(), 0, start);
+                        listener.pageEncoded(statistics);
+                }
                 inpos.set(tmpinpos);
                 outpos.set(tmpoutpos);
         }
@@ -149,6 +171,7 @@ public final class OptPFD implements IntegerCODEC,SkippableIntegerCODEC {
 
         private void decodePage(int[] in, IntWrapper inpos, int[] out,
                 IntWrapper outpos, int thissize) {
+                final long start = listener == null ? 0 : System.nanoTime();
                 int tmpoutpos = outpos.get();
                 int tmpinpos = inpos.get();
 
@@ -169,9 +192,149 @@ public final class OptPFD implements IntegerCODEC,SkippableIntegerCODEC {
                                 out[tmpoutpos + exceptbuffer[k + cexcept]] |= (exceptbuffer[k] << bits[b]);
                         }
                 }
+                if (listener != null)
+                        listener.pageDecoded(statistics.getCodec(), thissize,
+                                tmpinpos - inpos.get(), System.nanoTime()
+                                        - start);
+                outpos.set(tmpoutpos);
+                inpos.set(tmpinpos);
+        }
+
+        /**
+         * Uncompress one block as decodePage does (range decoding only).
+         *
+         * @return the end of the block starting at tmpinpos
+         */
+        private int decodeBlock(int[] in, int tmpinpos, int[] out,
+                int tmpoutpos) {
+                final int b = in[tmpinpos] & 0xFF;
+                final int cexcept = (in[tmpinpos] >>> 8) & 0xFF;
+                final int exceptsize = (in[tmpinpos] >>> 16);
+                ++tmpinpos;
+                S16.uncompress(in, tmpinpos, exceptsize, exceptbuffer,
+                        0, 2 * cexcept);
+                tmpinpos += exceptsize;
+                for (int k = 0; k < BLOCK_SIZE; k += 32) {
+                        BitPacking.fastunpack(in, tmpinpos, out,
+                                tmpoutpos + k, bits[b]);
+                        tmpinpos += bits[b];
+                }
+                for (int k = 0; k < cexcept; ++k) {
+                        out[tmpoutpos + exceptbuffer[k + cexcept]] |= (exceptbuffer[k] << bits[b]);
+                }
+                return tmpinpos;
+        }
+
+        /**
+         * @return the end of the block starting at tmpinpos
+         */
+        private static int skipBlock(int[] in, int tmpinpos) {
+                return tmpinpos + blockLength(in[tmpinpos]);
+        }
+
+        /**
+         * @return the length of a block, given its first integer
+         */
+        private static int blockLength(int header) {
+                final int b = header & 0xFF;
+                final int exceptsize = header >>> 16;
+                return 1 + exceptsize + bits[b] * (BLOCK_SIZE / 32);
+        }
+
+        @Override
+        public void headlessUncompressRange(int[] in, int inpos, int inlength,
+                int[] out, IntWrapper outpos, int num, int from, int to) {
+                if (inlength == 0)
+                        return;
+                to = Math.min(to, Util.greatestMultiple(num, BLOCK_SIZE));
+                int tmpoutpos = outpos.get();
+                int tmpinpos = inpos;
+                for (int s = 0; s < to; s += BLOCK_SIZE) {
+                        if (s + BLOCK_SIZE <= from) {
+                                tmpinpos = skipBlock(in, tmpinpos);
+                        } else if (s >= from && s + BLOCK_SIZE <= to) {
+                                tmpinpos = decodeBlock(in, tmpinpos, out,
+                                        tmpoutpos);
+                                tmpoutpos += BLOCK_SIZE;
+                        } else {
+                                // partial block: through the working area
+                                tmpinpos = decodeBlock(in, tmpinpos,
+                                        blockBuffer, 0);
+                                final int start = Math.max(from, s);
+                                final int end = Math.min(to, s + BLOCK_SIZE);
+                                System.arraycopy(blockBuffer, start - s, out,
+                                        tmpoutpos, end - start);
+                                tmpoutpos += end - start;
+                        }
+                }
                 outpos.set(tmpoutpos);
+        }
+
+        @Override
+        public void headlessSkip(int[] in, IntWrapper inpos, int inlength,
+                IntWrapper outpos, int mynvalue) {
+                if (inlength == 0)
+                        return;
+                mynvalue = Util.greatestMultiple(mynvalue, BLOCK_SIZE);
+                int tmpinpos = inpos.get();
+                for (int s = 0; s < mynvalue; s += BLOCK_SIZE)
+                        tmpinpos = skipBlock(in, tmpinpos);
                 inpos.set(tmpinpos);
+                outpos.add(mynvalue);
         }
+        /**
+         * Compress to a buffer: the integers are compressed as by
+         * headlessCompress, FastPFOR.DEFAULT_PAGE_SIZE at a time, to a working
+         * area which is then copied to the buffer.
+         *
+         * @see SkippableIntBufferCODEC#headlessCompressToBuffer(int[], IntWrapper, int, IntBuffer)
+         */
+        @Override
+        public void headlessCompressToBuffer(int[] in, IntWrapper inpos,
+                int inlength, IntBuffer out) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                final int finalinpos = inpos.get() + inlength;
+                while (inpos.get() != finalinpos) {
+                        final int thissize = Math.min(
+                                FastPFOR.DEFAULT_PAGE_SIZE, finalinpos
+                                        - inpos.get());
+                        pageBuffer = Util.ensureCapacity(pageBuffer,
+                                2 * thissize + 1024);
+                        IntWrapper length = IntWrapper.IntWrapper1();
+                        encodePage(in, inpos, thissize, pageBuffer, length);
+                        out.put(pageBuffer, 0, length.get());
+                }
+        }
+
+        /**
+         * Uncompress from a buffer: the blocks are copied,
+         * FastPFOR.DEFAULT_PAGE_SIZE integers at a time, to a working area
+         * and uncompressed as by headlessUncompress.
+         *
+         * @see SkippableIntBufferCODEC#headlessUncompressFromBuffer(IntBuffer, int, int[], IntWrapper, int)
+         */
+        @Override
+        public void headlessUncompressFromBuffer(IntBuffer in, int inlength,
+                int[] out, IntWrapper outpos, int mynvalue) {
+                if (inlength == 0)
+                        return;
+                mynvalue = Util.greatestMultiple(mynvalue, BLOCK_SIZE);
+                final int finalout = outpos.get() + mynvalue;
+                while (outpos.get() != finalout) {
+                        final int thissize = Math.min(
+                                FastPFOR.DEFAULT_PAGE_SIZE, finalout
+                                        - outpos.get());
+                        int length = 0;
+                        for (int s = 0; s < thissize; s += BLOCK_SIZE)
+                                length += blockLength(in.get(in.position()
+                                        + length));
+                        pageBuffer = Util.ensureCapacity(pageBuffer, length);
+                        in.get(pageBuffer, 0, length);
+                        decodePage(pageBuffer, IntWrapper.IntWrapper1(), out,
+                                outpos, thissize);
+                }
+        }
+
         @Override
         public void compress0(int[] in, IntWrapper inpos, int inlength, int[] out,
                               IntWrapper outpos) {
@@ -192,6 +355,20 @@ public final class OptPFD implements IntegerCODEC,SkippableIntegerCODEC {
             inpos.increment();
             headlessUncompress(in, inpos, inlength, out, outpos, outlength);
         }
+        /**
+         * Report the statistics of each call to a listener (see CodecMetrics):
+         * all the integers of a call form a single page. Without a listener
+         * (the default), no statistics are collected.
+         *
+         * @param listener
+         *                the listener, or null to stop reporting
+         */
+        public void setListener(CodecListener listener) {
+                if ((listener != null) && (statistics == null))
+                        statistics = new PageStatistics(toString());
+                this.listener = listener;
+        }
+
         @Override
         public String toString() {
                 return this.getClass().getSimpleName();
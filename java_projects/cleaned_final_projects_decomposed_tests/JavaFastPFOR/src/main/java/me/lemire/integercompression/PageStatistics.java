@@ -0,0 +1,138 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of a compressed page, as reported to a CodecListener: the bit
+ * width chosen for each block, the exceptions (values that did not fit in
+ * the bit width of their block) and the size of the result.
+ *
+ * An instance is reused by its codec from one page to the next: copy what
+ * you need during the call to CodecListener.pageEncoded.
+ *
+ * @author Daniel Lemire
+ */
+public final class PageStatistics {
+        final String codec;
+        final int[] bitWidths = new int[33];
+        int blocks;
+        int exceptions;
+        int exceptionBytes;
+        int integers;
+        int compressedInts;
+        long nanos;
+
+        PageStatistics(String codec) {
+                this.codec = codec;
+        }
+
+        /**
+         * Clear the statistics for a new page.
+         *
+         * @return the current time (see System.nanoTime)
+         */
+        long start() {
+                Arrays.fill(bitWidths, 0);
+                blocks = 0;
+                exceptions = 0;
+                exceptionBytes = 0;
+                return System.nanoTime();
+        }
+
+        void addBlock(int bitWidth, int blockExceptions, int blockExceptionBytes) {
+                bitWidths[bitWidth]++;
+                blocks++;
+                exceptions += blockExceptions;
+                exceptionBytes += blockExceptionBytes;
+        }
+
+        void end(int pageIntegers, int pageCompressedInts,
+                int pageExceptionBytes, long startTime) {
+                nanos = System.nanoTime() - startTime;
+                integers = pageIntegers;
+                compressedInts = pageCompressedInts;
+                exceptionBytes += pageExceptionBytes;
+        }
+
+        /**
+         * @return name of the codec
+         */
+        public String getCodec() {
+                return codec;
+        }
+
+        /**
+         * @return number of integers in the page
+         */
+        public int getIntegers() {
+                return integers;
+        }
+
+        /**
+         * @return size of the compressed page in 32-bit integers
+         */
+        public int getCompressedInts() {
+                return compressedInts;
+        }
+
+        /**
+         * @return average number of bits per integer in the compressed page
+         */
+        public double getBitsPerInt() {
+                return integers == 0 ? 0 : 32.0 * compressedInts / integers;
+        }
+
+        /**
+         * @return number of blocks in the page
+         */
+        public int getBlocks() {
+                return blocks;
+        }
+
+        /**
+         * @param bitWidth
+         *                a bit width, from 0 to 32
+         * @return number of blocks packed with this bit width
+         */
+        public int getBlocksWithBitWidth(int bitWidth) {
+                return bitWidths[bitWidth];
+        }
+
+        /**
+         * @return number of exceptions in the page
+         */
+        public int getExceptions() {
+                return exceptions;
+        }
+
+        /**
+         * @return bytes used to store the exceptions (positions and high
+         *         bits)
+         */
+        public int getExceptionBytes() {
+                return exceptionBytes;
+        }
+
+        /**
+         * @return time spent compressing the page, in nanoseconds
+         */
+        public long getNanos() {
+                return nanos;
+        }
+
+        @Override
+        public String toString() {
+                return codec + ": " + integers + " integers, " + blocks
+                        + " blocks, " + exceptions + " exceptions ("
+                        + exceptionBytes + " bytes), "
+                        + String.format("%.2f", getBitsPerInt())
+                        + " bits/int";
+        }
+}
@@ -0,0 +1,425 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-threaded version of FastPFOR (or FastPFOR128) for large arrays.
+ *
+ * FastPFOR compresses pages of (by default) 65536 integers independently
+ * of one another. This class compresses and uncompresses these pages in
+ * parallel, in a ForkJoinPool. The compressed pages are preceded by a page
+ * directory: the number of pages followed by the compressed length of each
+ * page, so that the pages can also be located, and uncompressed, in
+ * parallel.
+ *
+ * When compressing, the threads take the pages in order, and each page is
+ * copied to the output as soon as all the earlier pages are there: only the
+ * pages completed ahead of an earlier one are held apart, so that the
+ * compressed data is not kept twice in memory.
+ *
+ * Once the page directory (its length is given by getDirectoryLength) is
+ * skipped, the data can be uncompressed by the serial codec with the same
+ * page size.
+ *
+ * <pre>
+ * IntegerCODEC ic = new Composition(ParallelFastPFOR.ParallelFastPFOR1(),
+ *         new VariableByte());
+ * </pre>
+ *
+ * An instance can be shared between threads. The instances of the serial
+ * codec (and their buffers) are kept in a pool owned by this instance,
+ * holding at most as many as the ForkJoinPool has threads: nothing is
+ * attached to the threads themselves, and they are released along with this
+ * instance.
+ *
+ * @author Daniel Lemire
+ */
+public class ParallelFastPFOR implements IntegerCODEC, SkippableIntegerCODEC {
+        final int blockSize;
+        final int pageSize;
+        final ForkJoinPool pool;
+        final ConcurrentLinkedQueue<PageWorker> workers = new ConcurrentLinkedQueue<PageWorker>();
+        final AtomicInteger idleWorkers = new AtomicInteger();
+
+        /**
+         * Construct a parallel CODEC.
+         *
+         * @param blockSize
+         *                FastPFOR.BLOCK_SIZE (256) to use FastPFOR or
+         *                FastPFOR128.BLOCK_SIZE (128) to use FastPFOR128
+         * @param pageSize
+         *                the desired page size (recommended value is
+         *                FastPFOR.DEFAULT_PAGE_SIZE), a multiple of blockSize
+         * @param pool
+         *                where the pages are processed
+         */
+        public ParallelFastPFOR(int blockSize, int pageSize, ForkJoinPool pool) {
+                if ((blockSize != FastPFOR.BLOCK_SIZE)
+                        && (blockSize != FastPFOR128.BLOCK_SIZE))
+                        throw new IllegalArgumentException(
+                                "Unsupported block size: " + blockSize);
+                if ((pageSize < blockSize) || (pageSize % blockSize != 0))
+                        throw new IllegalArgumentException(
+                                "The page size must be a positive multiple of "
+                                        + blockSize + ": " + pageSize);
+                this.blockSize = blockSize;
+                this.pageSize = pageSize;
+                this.pool = pool;
+        }
+
+        /**
+         * Construct a parallel FastPFOR CODEC using the common pool and the
+         * default page size.
+         *
+         * @return the new CODEC
+         */
+        public static ParallelFastPFOR ParallelFastPFOR1() {
+                return new ParallelFastPFOR(FastPFOR.BLOCK_SIZE,
+                        FastPFOR.DEFAULT_PAGE_SIZE, ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Create the serial codec used by a worker thread. It must accept
+         * pages of pageSize integers.
+         *
+         * @return a new instance of the serial codec
+         */
+        protected SkippableIntegerCODEC newPageCodec() {
+                if (blockSize == FastPFOR.BLOCK_SIZE)
+                        return new FastPFOR(pageSize);
+                return new FastPFOR128(pageSize);
+        }
+
+        /**
+         * A serial codec and its compression buffer, used by one task at a
+         * time.
+         */
+        static final class PageWorker {
+                final SkippableIntegerCODEC codec;
+                int[] buffer;
+
+                PageWorker(SkippableIntegerCODEC codec) {
+                        this.codec = codec;
+                }
+        }
+
+        private PageWorker borrowWorker() {
+                final PageWorker w = workers.poll();
+                if (w == null)
+                        return new PageWorker(newPageCodec());
+                idleWorkers.decrementAndGet();
+                return w;
+        }
+
+        private void returnWorker(PageWorker w) {
+                // keep no more workers than can run at the same time
+                if (idleWorkers.incrementAndGet() <= pool.getParallelism())
+                        workers.offer(w);
+                else
+                        idleWorkers.decrementAndGet();
+        }
+
+        private int[] buffer(PageWorker w) {
+                if (w.buffer == null)
+                        w.buffer = new int[2 * pageSize + 1024];
+                return w.buffer;
+        }
+
+        /**
+         * @return number of serial codecs kept for later calls, at most the
+         *         parallelism of the ForkJoinPool
+         */
+        int getIdleWorkerCount() {
+                return idleWorkers.get();
+        }
+
+        /**
+         * @param in
+         *                compressed data
+         * @param pos
+         *                where the compressed data starts
+         * @return number of integers to skip so that the remaining data can
+         *         be uncompressed by the serial codec
+         */
+        public static int getDirectoryLength(int[] in, int pos) {
+                return 1 + in[pos];
+        }
+
+        /**
+         * Compress data in blocks of BLOCK_SIZE integers (if fewer than
+         * BLOCK_SIZE integers are provided, nothing is done).
+         *
+         * @see IntegerCODEC#compress0(int[], IntWrapper, int, int[],
+         *      IntWrapper)
+         */
+        @Override
+        public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, blockSize);
+                if (inlength == 0)
+                        return;
+                final int pages = (inlength + pageSize - 1) / pageSize;
+                int tmpoutpos = outpos.get();
+                if ((pages == 1) || (pool.getParallelism() == 1)) {
+                        // nothing to gain from other threads: write the pages
+                        // in place, on the calling thread
+                        out[tmpoutpos++] = pages;
+                        final int directory = tmpoutpos;
+                        tmpoutpos += pages;
+                        IntWrapper pos = new IntWrapper(tmpoutpos);
+                        final PageWorker w = borrowWorker();
+                        try {
+                                for (int p = 0; p < pages; ++p) {
+                                        final int thissize = Math.min(pageSize,
+                                                inlength - p * pageSize);
+                                        w.codec.headlessCompress(in, inpos,
+                                                thissize, out, pos);
+                                        out[directory + p] = pos.get()
+                                                - tmpoutpos;
+                                        tmpoutpos = pos.get();
+                                }
+                        } finally {
+                                returnWorker(w);
+                        }
+                        outpos.set(tmpoutpos);
+                        return;
+                }
+                out[tmpoutpos] = pages;
+                final Placement placement = new Placement(out, tmpoutpos + 1,
+                        pages);
+                pool.invoke(new CompressTask(this, placement, in, inpos.get(),
+                        inlength, Math.min(pages, pool.getParallelism())));
+                inpos.add(inlength);
+                outpos.set(placement.outpos);
+        }
+
+        /**
+         * The output of a parallel compression: page p is copied after the
+         * page directory once pages 0 to p - 1 are, and its length is written
+         * to the directory.
+         */
+        static final class Placement {
+                final int[] out;
+                final int directory;
+                final int[][] pending;
+                // next page to compress
+                final AtomicInteger next = new AtomicInteger();
+                // next page to copy, and where
+                int placed = 0;
+                int outpos;
+
+                Placement(int[] out, int directory, int pages) {
+                        this.out = out;
+                        this.directory = directory;
+                        this.pending = new int[pages][];
+                        this.outpos = directory + pages;
+                }
+
+                /**
+                 * Copy a compressed page to the output if it is the next
+                 * one, followed by the pages completed ahead of it; keep a
+                 * copy of it otherwise.
+                 */
+                synchronized void place(int page, int[] buffer, int length) {
+                        if (page != placed) {
+                                pending[page] = Arrays.copyOf(buffer, length);
+                                return;
+                        }
+                        copy(buffer, length);
+                        while ((placed < pending.length)
+                                && (pending[placed] != null)) {
+                                final int[] c = pending[placed];
+                                pending[placed] = null;
+                                copy(c, c.length);
+                        }
+                }
+
+                private void copy(int[] buffer, int length) {
+                        System.arraycopy(buffer, 0, out, outpos, length);
+                        out[directory + placed] = length;
+                        outpos += length;
+                        placed++;
+                }
+        }
+
+        /**
+         * Compresses the pages of a Placement: the given number of tasks
+         * run in parallel, each taking the next page until none is left.
+         */
+        static final class CompressTask extends RecursiveAction {
+                private static final long serialVersionUID = 1L;
+                // tasks are never serialized
+                transient final ParallelFastPFOR codec;
+                transient final Placement placement;
+                final int[] data;
+                final int datapos;
+                final int datalength;
+                final int tasks;
+
+                CompressTask(ParallelFastPFOR codec, Placement placement,
+                        int[] data, int datapos, int datalength, int tasks) {
+                        this.codec = codec;
+                        this.placement = placement;
+                        this.data = data;
+                        this.datapos = datapos;
+                        this.datalength = datalength;
+                        this.tasks = tasks;
+                }
+
+                @Override
+                protected void compute() {
+                        if (tasks > 1) {
+                                final CompressTask[] all = new CompressTask[tasks];
+                                for (int t = 0; t < tasks; ++t)
+                                        all[t] = new CompressTask(codec,
+                                                placement, data, datapos,
+                                                datalength, 1);
+                                invokeAll(all);
+                                return;
+                        }
+                        final PageWorker w = codec.borrowWorker();
+                        try {
+                                final int[] buffer = codec.buffer(w);
+                                final int pages = placement.pending.length;
+                                int page;
+                                while ((page = placement.next.getAndIncrement()) < pages) {
+                                        final int start = page * codec.pageSize;
+                                        final int thissize = Math.min(
+                                                codec.pageSize, datalength
+                                                        - start);
+                                        IntWrapper outpos = new IntWrapper(0);
+                                        w.codec.headlessCompress(data,
+                                                new IntWrapper(datapos + start),
+                                                thissize, buffer, outpos);
+                                        placement.place(page, buffer,
+                                                outpos.get());
+                                }
+                        } finally {
+                                codec.returnWorker(w);
+                        }
+                }
+        }
+
+        /**
+         * Uncompress data in blocks of BLOCK_SIZE integers. In this particular
+         * case, the inlength parameter is ignored: it is deduced from the
+         * compressed data.
+         *
+         * @see IntegerCODEC#compress0(int[], IntWrapper, int, int[],
+         *      IntWrapper)
+         */
+        @Override
+        public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos, int num) {
+                num = Util.greatestMultiple(num, blockSize);
+                if (num == 0)
+                        return;
+                final int pages = (num + pageSize - 1) / pageSize;
+                if (in[inpos.get()] != pages)
+                        throw new IllegalArgumentException("Expected " + pages
+                                + " pages, found " + in[inpos.get()]);
+                // where each page starts in the input
+                final int[] pagepos = new int[pages + 1];
+                pagepos[0] = inpos.get() + 1 + pages;
+                for (int p = 0; p < pages; ++p)
+                        pagepos[p + 1] = pagepos[p] + in[inpos.get() + 1 + p];
+                pool.invoke(new PageTask(this, 0, pages, out, outpos.get(),
+                        num, in, pagepos));
+                inpos.set(pagepos[pages]);
+                outpos.add(num);
+        }
+
+        /**
+         * Uncompresses pages [from, to), splitting the range in two until a
+         * single page is left.
+         */
+        static final class PageTask extends RecursiveAction {
+                private static final long serialVersionUID = 1L;
+                // tasks are never serialized
+                transient final ParallelFastPFOR codec;
+                final int from;
+                final int to;
+                // uncompressed integers
+                final int[] data;
+                final int datapos;
+                final int datalength;
+                // the compressed data and the position of each page
+                final int[] in;
+                final int[] pagepos;
+
+                PageTask(ParallelFastPFOR codec, int from, int to, int[] data,
+                        int datapos, int datalength, int[] in, int[] pagepos) {
+                        this.codec = codec;
+                        this.from = from;
+                        this.to = to;
+                        this.data = data;
+                        this.datapos = datapos;
+                        this.datalength = datalength;
+                        this.in = in;
+                        this.pagepos = pagepos;
+                }
+
+                @Override
+                protected void compute() {
+                        if (to - from > 1) {
+                                final int middle = (from + to) >>> 1;
+                                invokeAll(new PageTask(codec, from, middle,
+                                        data, datapos, datalength, in, pagepos),
+                                        new PageTask(codec, middle, to, data,
+                                                datapos, datalength, in,
+                                                pagepos));
+                                return;
+                        }
+                        final int start = from * codec.pageSize;
+                        final int thissize = Math.min(codec.pageSize,
+                                datalength - start);
+                        final PageWorker w = codec.borrowWorker();
+                        try {
+                                w.codec.headlessUncompress(in, new IntWrapper(
+                                        pagepos[from]), pagepos[from + 1]
+                                        - pagepos[from], data, new IntWrapper(
+                                        datapos + start), thissize);
+                        } finally {
+                                codec.returnWorker(w);
+                        }
+                }
+        }
+
+        @Override
+        public void compress0(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, blockSize);
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void uncompress0(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public String toString() {
+                if (blockSize == FastPFOR128.BLOCK_SIZE)
+                        return getClass().getSimpleName() + "128";
+                return getClass().getSimpleName();
+        }
+}
@@ -148,6 +148,23 @@ public final class S16 {
 		return num;
 	}
 
+	/**
+	 * Skip over compressed integers, reading only the selectors
+	 * 
+	 * @param in
+	 *            the compressed input array
+	 * @param inOffset
+	 *            the offset of the input in the number of integers
+	 * @param n
+	 *            the number of elements to be skipped
+	 * @return the offset after the last word holding these elements
+	 */
+	public static final int skip(int[] in, int inOffset, int n) {
+		while (n > 0)
+			n -= S16_NUM[in[inOffset++] >>> S16_BITSSIZE];
+		return inOffset;
+	}
+
 	/**
 	 * Uncompressed data from an input array into an output array
 	 *
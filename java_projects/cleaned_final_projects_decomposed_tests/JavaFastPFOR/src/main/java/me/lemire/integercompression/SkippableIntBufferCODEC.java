@@ -0,0 +1,76 @@
+/**
+ * This is code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.nio.IntBuffer;
+
+/**
+ * Interface describing a CODEC that writes its compressed form to, and reads
+ * it back from, an {@link IntBuffer}. This is the buffer-based counterpart of
+ * SkippableIntegerCODEC: the compressed format is the same, so data compressed
+ * with headlessCompress can be decoded with headlessUncompressFromBuffer and
+ * vice versa.
+ *
+ * The buffer may be direct or memory-mapped: the compressed data is never
+ * copied to an int[] as a whole, but at most one page at a time, with a bulk
+ * transfer, so that the array routines can be used. To use a ByteBuffer, set
+ * its byte order to little endian and call asIntBuffer():
+ *
+ * <pre>
+ * IntBuffer ib = mapped.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+ * </pre>
+ *
+ * The buffer position plays the role of the IntWrapper cursor: reading or
+ * writing starts at the current position and the position is advanced past
+ * the consumed (or produced) data.
+ *
+ * @author Daniel Lemire
+ *
+ */
+public interface SkippableIntBufferCODEC {
+    /**
+     * Compress data from an array to a buffer.
+     *
+     * inpos is incremented by the number of integers read and the position
+     * of out is moved past the compressed data.
+     *
+     * @param in
+     *            input array
+     * @param inpos
+     *            location in the input array
+     * @param inlength
+     *            how many integers to compress
+     * @param out
+     *            output buffer, written from its current position
+     */
+    public void headlessCompressToBuffer(int[] in, IntWrapper inpos, int inlength,
+            IntBuffer out);
+
+    /**
+     * Uncompress data from a buffer to an array.
+     *
+     * The position of in is moved past the compressed data and outpos is
+     * incremented by the number of integers decoded.
+     *
+     * @param in
+     *            buffer containing data in compressed form, read from its
+     *            current position
+     * @param inlength
+     *            length of the compressed data (ignored by some schemes)
+     * @param out
+     *            array where to write the uncompressed output
+     * @param outpos
+     *            where to write the uncompressed output in out
+     * @param num
+     *            number of integers we want to decode, the actual number of
+     *            integers decoded can be less
+     */
+    public void headlessUncompressFromBuffer(IntBuffer in, int inlength, int[] out,
+            IntWrapper outpos, int num);
+
+}
@@ -0,0 +1,76 @@
+/**
+ * This is code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.nio.IntBuffer;
+
+/**
+ * Helper class to compose schemes working on buffers. The format is the
+ * one of SkippableComposition.
+ *
+ * <pre>
+ * SkippableIntBufferCODEC c = new SkippableIntBufferComposition(
+ *         FastPFOR.FastPFOR1(), new VariableByte());
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class SkippableIntBufferComposition implements SkippableIntBufferCODEC {
+    SkippableIntBufferCODEC F1, F2;
+
+    /**
+     * Compose a scheme from a first one (f1) and a second one (f2). The first
+     * one is called first and then the second one tries to compress whatever
+     * remains from the first run.
+     *
+     * By convention, the first scheme should be such that if, during decoding,
+     * a 32-bit zero is first encountered, then there is no output.
+     *
+     * @param f1
+     *            first codec
+     * @param f2
+     *            second codec
+     */
+    public SkippableIntBufferComposition(SkippableIntBufferCODEC f1,
+            SkippableIntBufferCODEC f2) {
+        F1 = f1;
+        F2 = f2;
+    }
+
+    @Override
+    public void headlessCompressToBuffer(int[] in, IntWrapper inpos,
+            int inlength, IntBuffer out) {
+        int init = inpos.get();
+        int outposInit = out.position();
+        F1.headlessCompressToBuffer(in, inpos, inlength, out);
+        if (out.position() == outposInit) {
+            out.put(0);
+        }
+        inlength -= inpos.get() - init;
+        F2.headlessCompressToBuffer(in, inpos, inlength, out);
+    }
+
+    @Override
+    public void headlessUncompressFromBuffer(IntBuffer in, int inlength,
+            int[] out, IntWrapper outpos, int num) {
+        int init = in.position();
+        int outposInit = outpos.get();
+        F1.headlessUncompressFromBuffer(in, inlength, out, outpos, num);
+        if (in.position() == init) {
+            in.position(init + 1);
+        }
+        inlength -= in.position() - init;
+        num -= outpos.get() - outposInit;
+        F2.headlessUncompressFromBuffer(in, inlength, out, outpos, num);
+    }
+
+    @Override
+    public String toString() {
+        return F1.toString() + "+" + F2.toString();
+    }
+
+}
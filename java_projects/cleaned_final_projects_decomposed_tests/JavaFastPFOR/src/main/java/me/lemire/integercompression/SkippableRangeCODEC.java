@@ -0,0 +1,82 @@
+/**
+ * This is code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+/**
+ * Interface describing a SkippableIntegerCODEC that can uncompress a range of
+ * the integers (for example, the first few hundred values of a long posting
+ * list) without uncompressing the rest, and without writing outside of the
+ * range in the output array. The compressed format is the one of
+ * headlessCompress.
+ *
+ * <pre>
+ * // the 100 first values of a list of n integers
+ * int[] top = new int[100];
+ * codec.headlessUncompressRange(compressed, 0, compressed.length, top,
+ *         new IntWrapper(0), n, 0, 100);
+ * </pre>
+ *
+ * Blocks before the range are skipped by reading their headers; only the
+ * blocks overlapping the range are uncompressed, and partial blocks go
+ * through a working area of one block.
+ *
+ * @author Daniel Lemire
+ *
+ */
+public interface SkippableRangeCODEC extends SkippableIntegerCODEC {
+    /**
+     * Uncompress the integers of index from (inclusive) to to (exclusive)
+     * among the num integers that were compressed.
+     *
+     * As with headlessUncompress, a codec working on blocks only stores the
+     * integers of whole blocks: the range is cut at the number of integers
+     * it actually stored. At most to - from integers are written, to
+     * out[outpos, outpos + to - from), and outpos is incremented by the
+     * number of integers written. Nothing is written if from is past the
+     * last stored integer.
+     *
+     * @param in
+     *            array containing data in compressed form
+     * @param inpos
+     *            where the compressed data starts (not modified)
+     * @param inlength
+     *            length of the compressed data (ignored by some schemes)
+     * @param out
+     *            array where to write the uncompressed integers
+     * @param outpos
+     *            where to write in out
+     * @param num
+     *            number of integers that were compressed
+     * @param from
+     *            index of the first integer to uncompress
+     * @param to
+     *            index after the last integer to uncompress
+     */
+    public void headlessUncompressRange(int[] in, int inpos, int inlength,
+            int[] out, IntWrapper outpos, int num, int from, int to);
+
+    /**
+     * Skip over compressed data without uncompressing it: inpos and outpos
+     * are modified as headlessUncompress would modify them, but nothing is
+     * written. This locates the data that follows (see
+     * SkippableRangeComposition).
+     *
+     * @param in
+     *            array containing data in compressed form
+     * @param inpos
+     *            where to start reading in the array
+     * @param inlength
+     *            length of the compressed data (ignored by some schemes)
+     * @param outpos
+     *            incremented by the number of integers skipped
+     * @param num
+     *            number of integers that were compressed
+     */
+    public void headlessSkip(int[] in, IntWrapper inpos, int inlength,
+            IntWrapper outpos, int num);
+}
@@ -0,0 +1,74 @@
+/**
+ * This is code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+/**
+ * Helper class to compose schemes supporting range decoding. The format is
+ * the one of SkippableComposition: a range that extends past the blocks of
+ * the first scheme is completed by the second one.
+ *
+ * <pre>
+ * SkippableRangeCODEC c = new SkippableRangeComposition(
+ *         FastPFOR.FastPFOR1(), new VariableByte());
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class SkippableRangeComposition extends SkippableComposition
+        implements SkippableRangeCODEC {
+    SkippableRangeCODEC R1, R2;
+
+    /**
+     * Compose a scheme from a first one (f1) and a second one (f2). The first
+     * one is called first and then the second one tries to compress whatever
+     * remains from the first run.
+     *
+     * @param f1
+     *            first codec
+     * @param f2
+     *            second codec
+     */
+    public SkippableRangeComposition(SkippableRangeCODEC f1,
+            SkippableRangeCODEC f2) {
+        super(f1, f2);
+        R1 = f1;
+        R2 = f2;
+    }
+
+    @Override
+    public void headlessUncompressRange(int[] in, int inpos, int inlength,
+            int[] out, IntWrapper outpos, int num, int from, int to) {
+        int outposInit = outpos.get();
+        R1.headlessUncompressRange(in, inpos, inlength, out, outpos, num,
+                from, to);
+        from += outpos.get() - outposInit;
+        if (from >= to)
+            return;
+        // the range goes past the first scheme: find where the second starts
+        IntWrapper pos = new IntWrapper(inpos);
+        IntWrapper count = new IntWrapper(0);
+        R1.headlessSkip(in, pos, inlength, count, num);
+        if (pos.get() == inpos)
+            pos.increment();
+        R2.headlessUncompressRange(in, pos.get(),
+                inlength - (pos.get() - inpos), out, outpos,
+                num - count.get(), from - count.get(), to - count.get());
+    }
+
+    @Override
+    public void headlessSkip(int[] in, IntWrapper inpos, int inlength,
+            IntWrapper outpos, int num) {
+        int init = inpos.get();
+        int outposInit = outpos.get();
+        R1.headlessSkip(in, inpos, inlength, outpos, num);
+        if (inpos.get() == init)
+            inpos.increment();
+        inlength -= inpos.get() - init;
+        num -= outpos.get() - outposInit;
+        R2.headlessSkip(in, inpos, inlength, outpos, num);
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Streaming counterpart of IntCompressor: integers are accepted one at a
+ * time (or in chunks) and written, compressed block by block, to a channel
+ * or a stream. The memory used is bounded by the block size, so there is no
+ * limit on the number of integers.
+ *
+ * The output is a sequence of frames, each made of (as big-endian 32-bit
+ * integers) the number of integers in the frame, the number of compressed
+ * integers, and the compressed integers. A frame with zero integers marks
+ * the end of the data. Use StreamingIntUncompressor to read it back.
+ *
+ * <pre>
+ * StreamingIntCompressor sc = new StreamingIntCompressor(
+ *         new SkippableComposition(new BinaryPacking(), new VariableByte()),
+ *         channel, StreamingIntCompressor.DEFAULT_BLOCK_SIZE);
+ * for (...)
+ *     sc.accept(x);
+ * sc.close();
+ * </pre>
+ *
+ * This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class StreamingIntCompressor implements IntConsumer, Closeable,
+        Flushable {
+        /**
+         * Default number of integers per frame.
+         */
+        public final static int DEFAULT_BLOCK_SIZE = 65536;
+
+        /**
+         * Largest number of integers per frame. StreamingIntUncompressor
+         * rejects frame headers above this bound (and above the matching
+         * compressed length) rather than allocating what they claim.
+         */
+        public final static int MAX_BLOCK_SIZE = 1 << 22;
+
+        final SkippableIntegerCODEC codec;
+        final WritableByteChannel channel;
+        final int[] block;
+        final int[] compressed;
+        final ByteBuffer bytes;
+        int blockLength = 0;
+        long count = 0;
+        boolean closed = false;
+
+        /**
+         * Constructor.
+         *
+         * @param codec
+         *                the underlying codec
+         * @param channel
+         *                where the compressed frames are written
+         * @param blockSize
+         *                number of integers per frame (at most), no larger
+         *                than MAX_BLOCK_SIZE
+         */
+        public StreamingIntCompressor(SkippableIntegerCODEC codec,
+                WritableByteChannel channel, int blockSize) {
+                if (blockSize < 1)
+                        throw new IllegalArgumentException(
+                                "Block size must be positive: " + blockSize);
+                if (blockSize > MAX_BLOCK_SIZE)
+                        throw new IllegalArgumentException(
+                                "Block size must be at most " + MAX_BLOCK_SIZE
+                                        + ": " + blockSize);
+                this.codec = codec;
+                this.channel = channel;
+                this.block = new int[blockSize];
+                this.compressed = new int[maxCompressedLength(blockSize)];
+                this.bytes = ByteBuffer.allocate(4 * (2 + compressed.length));
+        }
+
+        /**
+         * Constructor writing to an OutputStream, with the default codec
+         * (BinaryPacking + VariableByte) and block size.
+         *
+         * @param out
+         *                where the compressed frames are written
+         * @return the new compressor
+         */
+        public static StreamingIntCompressor StreamingIntCompressor1(
+                OutputStream out) {
+                return new StreamingIntCompressor(new SkippableComposition(
+                        new BinaryPacking(), new VariableByte()),
+                        Channels.newChannel(out), DEFAULT_BLOCK_SIZE);
+        }
+
+        /**
+         * Capacity, in integers, of the compressed form of a frame.
+         *
+         * @param blockSize
+         *                number of integers per frame (at most)
+         * @return the largest compressed length of a frame
+         */
+        static int maxCompressedLength(int blockSize) {
+                return 2 * blockSize + 1024;
+        }
+
+        /**
+         * Add one integer.
+         *
+         * @param value
+         *                the integer
+         * @throws UncheckedIOException
+         *                 if a full frame cannot be written
+         * @throws IllegalStateException
+         *                 if the compressor is closed
+         */
+        @Override
+        public void accept(int value) {
+                ensureOpen();
+                block[blockLength++] = value;
+                if (blockLength == block.length) {
+                        try {
+                                writeFrame();
+                        } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                        }
+                }
+        }
+
+        /**
+         * Add a range of integers.
+         *
+         * @param in
+         *                source array
+         * @param off
+         *                first integer to add
+         * @param len
+         *                number of integers to add
+         * @throws IOException
+         *                 if a frame cannot be written
+         * @throws IllegalStateException
+         *                 if the compressor is closed
+         */
+        public void write(int[] in, int off, int len) throws IOException {
+                ensureOpen();
+                while (len > 0) {
+                        final int n = Math.min(len, block.length - blockLength);
+                        System.arraycopy(in, off, block, blockLength, n);
+                        blockLength += n;
+                        off += n;
+                        len -= n;
+                        if (blockLength == block.length)
+                                writeFrame();
+                }
+        }
+
+        /**
+         * Add all the remaining integers of an iterator.
+         *
+         * @param source
+         *                the integers to add
+         * @throws IOException
+         *                 if a frame cannot be written
+         * @throws IllegalStateException
+         *                 if the compressor is closed
+         */
+        public void writeAll(PrimitiveIterator.OfInt source) throws IOException {
+                ensureOpen();
+                while (source.hasNext()) {
+                        block[blockLength++] = source.nextInt();
+                        if (blockLength == block.length)
+                                writeFrame();
+                }
+        }
+
+        /**
+         * @return number of integers added so far
+         */
+        public long getCount() {
+                return count + blockLength;
+        }
+
+        /**
+         * Write the pending integers (if any) as a frame. Calling it often
+         * hurts the compression ratio.
+         */
+        @Override
+        public void flush() throws IOException {
+                if (blockLength > 0)
+                        writeFrame();
+        }
+
+        /**
+         * Write the pending integers and the end marker, then close the
+         * channel.
+         */
+        @Override
+        public void close() throws IOException {
+                if (closed)
+                        return;
+                flush();
+                closed = true;
+                bytes.clear();
+                bytes.putInt(0).putInt(0);
+                bytes.flip();
+                writeBytes();
+                channel.close();
+        }
+
+        private void ensureOpen() {
+                if (closed)
+                        throw new IllegalStateException("Stream closed");
+        }
+
+        private void writeFrame() throws IOException {
+                if (closed)
+                        throw new IOException("Stream closed");
+                IntWrapper outpos = new IntWrapper(0);
+                try {
+                        codec.headlessCompress(block, new IntWrapper(0),
+                                blockLength, compressed, outpos);
+                } catch (IndexOutOfBoundsException ioebe) {
+                        throw new UncompressibleInputException(
+                                "Your input is too poorly compressible "
+                                        + "with the current codec : " + codec);
+                }
+                bytes.clear();
+                IntBuffer ib = bytes.asIntBuffer();
+                ib.put(blockLength).put(outpos.get());
+                ib.put(compressed, 0, outpos.get());
+                bytes.limit(4 * (2 + outpos.get()));
+                writeBytes();
+                count += blockLength;
+                blockLength = 0;
+        }
+
+        private void writeBytes() throws IOException {
+                while (bytes.hasRemaining())
+                        channel.write(bytes);
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
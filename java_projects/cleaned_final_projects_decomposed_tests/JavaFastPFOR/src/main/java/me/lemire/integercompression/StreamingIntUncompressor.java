@@ -0,0 +1,180 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Reads back, one frame at a time, the integers written by a
+ * StreamingIntCompressor using the same codec. Only one frame is kept in
+ * memory.
+ *
+ * <pre>
+ * StreamingIntUncompressor su = new StreamingIntUncompressor(
+ *         new SkippableComposition(new BinaryPacking(), new VariableByte()),
+ *         channel);
+ * while (su.hasNext())
+ *     System.out.println(su.nextInt());
+ * su.close();
+ * </pre>
+ *
+ * This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class StreamingIntUncompressor implements PrimitiveIterator.OfInt,
+        Closeable {
+        final SkippableIntegerCODEC codec;
+        final ReadableByteChannel channel;
+        final ByteBuffer header = ByteBuffer.allocate(8);
+        ByteBuffer bytes = ByteBuffer.allocate(0);
+        int[] compressed = new int[0];
+        int[] block = new int[0];
+        int blockLength = 0;
+        int blockPos = 0;
+        boolean finished = false;
+
+        /**
+         * Constructor.
+         *
+         * @param codec
+         *                the codec used to compress the data
+         * @param channel
+         *                where the compressed frames are read
+         */
+        public StreamingIntUncompressor(SkippableIntegerCODEC codec,
+                ReadableByteChannel channel) {
+                this.codec = codec;
+                this.channel = channel;
+        }
+
+        /**
+         * Constructor reading from an InputStream, with the default codec
+         * (BinaryPacking + VariableByte).
+         *
+         * @param in
+         *                where the compressed frames are read
+         * @return the new uncompressor
+         */
+        public static StreamingIntUncompressor StreamingIntUncompressor1(
+                InputStream in) {
+                return new StreamingIntUncompressor(new SkippableComposition(
+                        new BinaryPacking(), new VariableByte()),
+                        Channels.newChannel(in));
+        }
+
+        /**
+         * @throws UncheckedIOException
+         *                 if the next frame cannot be read
+         */
+        @Override
+        public boolean hasNext() {
+                if (blockPos < blockLength)
+                        return true;
+                try {
+                        return readFrame();
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+        @Override
+        public int nextInt() {
+                if (!hasNext())
+                        throw new NoSuchElementException();
+                return block[blockPos++];
+        }
+
+        /**
+         * Read up to len integers.
+         *
+         * @param out
+         *                destination array
+         * @param off
+         *                where to write the first integer
+         * @param len
+         *                maximal number of integers to read
+         * @return number of integers read, or -1 at the end of the data
+         * @throws IOException
+         *                 if a frame cannot be read
+         */
+        public int read(int[] out, int off, int len) throws IOException {
+                if (len == 0)
+                        return 0;
+                if ((blockPos == blockLength) && !readFrame())
+                        return -1;
+                final int n = Math.min(len, blockLength - blockPos);
+                System.arraycopy(block, blockPos, out, off, n);
+                blockPos += n;
+                return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+                channel.close();
+        }
+
+        private boolean readFrame() throws IOException {
+                if (finished)
+                        return false;
+                header.clear();
+                readFully(header);
+                header.flip();
+                final int num = header.getInt();
+                final int length = header.getInt();
+                if ((num < 0) || (length < 0)
+                        || (num > StreamingIntCompressor.MAX_BLOCK_SIZE)
+                        || (length > StreamingIntCompressor
+                                .maxCompressedLength(num)))
+                        throw new IOException("Corrupted frame header: num="
+                                + num + ", length=" + length);
+                if (num == 0) {
+                        finished = true;
+                        return false;
+                }
+                if (compressed.length < length) {
+                        compressed = new int[length];
+                        bytes = ByteBuffer.allocate(4 * length);
+                }
+                if (block.length < num)
+                        block = new int[num];
+                bytes.clear();
+                bytes.limit(4 * length);
+                readFully(bytes);
+                bytes.flip();
+                bytes.asIntBuffer().get(compressed, 0, length);
+                IntWrapper outpos = new IntWrapper(0);
+                codec.headlessUncompress(compressed, new IntWrapper(0), length,
+                        block, outpos, num);
+                if (outpos.get() != num)
+                        throw new IOException("Corrupted frame");
+                blockLength = num;
+                blockPos = 0;
+                return true;
+        }
+
+        private void readFully(ByteBuffer b) throws IOException {
+                while (b.hasRemaining())
+                        if (channel.read(b) < 0)
+                                throw new EOFException(
+                                        "Truncated stream: missing end marker");
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
@@ -207,4 +207,18 @@ public final class Util {
     public static int greatestMultiple(int value, int factor) {
         return value - value % factor;
     }
+
+    /**
+     * Working area of the IntBuffer methods (see SkippableIntBufferCODEC),
+     * into which the compressed data is copied with a single bulk transfer.
+     *
+     * @param buffer
+     *            the current working area
+     * @param size
+     *            how many integers it must hold
+     * @return buffer, or a larger array
+     */
+    static int[] ensureCapacity(int[] buffer, int size) {
+        return buffer.length >= size ? buffer : new int[size + 1024];
+    }
 }
@@ -19,7 +19,8 @@ import java.nio.IntBuffer;
  * 
  * @author Daniel Lemire
  */
-public class VariableByte implements IntegerCODEC, ByteIntegerCODEC, SkippableIntegerCODEC {
+public class VariableByte implements IntegerCODEC, ByteIntegerCODEC, SkippableIntegerCODEC,
+        SkippableIntBufferCODEC, SkippableRangeCODEC {
 
     private static byte extract7bits(int i, long val) {
         return (byte) ((val >> (7 * i)) & ((1 << 7) - 1));
@@ -208,6 +209,114 @@ public class VariableByte implements IntegerCODEC, ByteIntegerCODEC, SkippableIn
         inpos.set(p + (s!=0 ? 1 : 0));
     }
 
+    @Override
+    public void headlessUncompressRange(int[] in, int inpos, int inlength,
+            int[] out, IntWrapper outpos, int num, int from, int to) {
+        to = Math.min(to, num);
+        if (from >= to)
+            return;
+        // b is a position in bytes, starting from inpos
+        int b = skipBytes(in, inpos, 0, from);
+        int tmpoutpos = outpos.get();
+        for (int k = from, v = 0, shift = 0; k < to; ++b) {
+            final int c = in[inpos + (b >>> 2)] >>> ((b & 3) << 3);
+            v += ((c & 127) << shift);
+            if ((c & 128) == 128) {
+                out[tmpoutpos++] = v;
+                v = 0;
+                shift = 0;
+                ++k;
+            } else
+                shift += 7;
+        }
+        outpos.set(tmpoutpos);
+    }
+
+    @Override
+    public void headlessSkip(int[] in, IntWrapper inpos, int inlength,
+            IntWrapper outpos, int num) {
+        final int b = skipBytes(in, inpos.get(), 0, num);
+        inpos.add((b + 3) / 4);
+        outpos.add(num);
+    }
+
+    /**
+     * @return the position (in bytes from inpos) after count integers
+     *         starting at position b
+     */
+    private static int skipBytes(int[] in, int inpos, int b, int count) {
+        for (; count > 0; ++b)
+            if ((in[inpos + (b >>> 2)] & (128 << ((b & 3) << 3))) != 0)
+                --count;
+        return b;
+    }
+
+    @Override
+    public void headlessCompressToBuffer(int[] in, IntWrapper inpos, int inlength,
+            IntBuffer out) {
+        if (inlength == 0)
+            return;
+        // bytes are accumulated in a word and flushed once it is full, which
+        // is the layout obtained by viewing a little-endian byte stream as ints
+        int tmpoutpos = out.position();
+        int word = 0;
+        int shift = 0;
+        for (int k = inpos.get(); k < inpos.get() + inlength; ++k) {
+            long val = in[k] & 0xFFFFFFFFL; // To be consistent with
+                                            // unsigned integers in C/C++
+            while (val >= (1 << 7)) {
+                word |= ((int) val & 127) << shift;
+                shift += 8;
+                if (shift == 32) {
+                    out.put(tmpoutpos++, word);
+                    word = 0;
+                    shift = 0;
+                }
+                val >>>= 7;
+            }
+            word |= ((int) val | (1 << 7)) << shift;
+            shift += 8;
+            if (shift == 32) {
+                out.put(tmpoutpos++, word);
+                word = 0;
+                shift = 0;
+            }
+        }
+        if (shift != 0)
+            out.put(tmpoutpos++, word);
+        out.position(tmpoutpos);
+        inpos.add(inlength);
+    }
+
+    @Override
+    public void headlessUncompressFromBuffer(IntBuffer in, int inlength, int[] out,
+            IntWrapper outpos, int num) {
+        int s = 0;
+        int val = 0;
+        int p = in.position();
+        int tmpoutpos = outpos.get();
+        int finaloutpos = num + tmpoutpos;
+        for (int v = 0, shift = 0; tmpoutpos < finaloutpos;) {
+            val = in.get(p);
+            int c = val >>> s;
+            // Shift to next byte
+            s += 8;
+            // Shift to next integer if s==32
+            p += s>>5;
+            // cycle from 31 to 0
+            s = s & 31;
+            v += ((c & 127) << shift);
+            if ((c & 128) == 128) {
+                out[tmpoutpos++] = v;
+                v = 0;
+                shift = 0;
+            } else
+                shift += 7;
+        }
+        outpos.set(tmpoutpos);
+        in.position(p + (s!=0 ? 1 : 0));
+    }
+
     /**
      * Creates a new buffer of the requested size.
      *
@@ -0,0 +1,137 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ */
+package me.lemire.integercompression.benchmarktools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import me.lemire.integercompression.ConcurrentFastPFOR;
+import me.lemire.integercompression.FastPFOR;
+import me.lemire.integercompression.FastPFOR128;
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.IntegerCODEC;
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+/**
+ * Measures how the decoding throughput of a shared ConcurrentFastPFOR
+ * scales with the number of threads.
+ *
+ * For comparison, the same work is done with one FastPFOR instance per
+ * thread, which is the best one can hope for.
+ *
+ */
+public class BenchmarkConcurrent {
+        private static final int ARRAY_LENGTH = 1 << 16;
+        private static final int ARRAY_COUNT = 32;
+        private static final int REPEAT = 20;
+
+        /**
+         * Main method.
+         *
+         * @param args
+         *                optional: maximal number of threads (default: number
+         *                of available processors)
+         * @throws Exception
+         *                 if a worker thread fails
+         */
+        public static void main(String[] args) throws Exception {
+                int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                        : Runtime.getRuntime().availableProcessors();
+                ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+                int[][] data = new int[ARRAY_COUNT][];
+                for (int k = 0; k < ARRAY_COUNT; ++k) {
+                        data[k] = cdg.generateClustered(ARRAY_LENGTH, 1 << 26);
+                        // gaps
+                        for (int j = data[k].length - 1; j > 0; --j)
+                                data[k][j] -= data[k][j - 1];
+                }
+                for (int blockSize : new int[] { FastPFOR.BLOCK_SIZE,
+                        FastPFOR128.BLOCK_SIZE }) {
+                        ConcurrentFastPFOR shared = new ConcurrentFastPFOR(
+                                blockSize, maxThreads);
+                        int[][] compressed = compress(shared, data);
+                        System.out.println("# " + shared + " (" + maxThreads
+                                + " instances at most)");
+                        System.out.println("# threads, shared codec (MiS), "
+                                + "one codec per thread (MiS)");
+                        for (int t = 1; t <= maxThreads; t *= 2) {
+                                // warming up
+                                run(shared, blockSize, false, compressed, t);
+                                run(shared, blockSize, true, compressed, t);
+                                double sharedSpeed = run(shared, blockSize,
+                                        false, compressed, t);
+                                double privateSpeed = run(shared, blockSize,
+                                        true, compressed, t);
+                                System.out.println(String.format(
+                                        "%1$d\t%2$.0f\t%3$.0f", t,
+                                        sharedSpeed, privateSpeed));
+                                if (t < maxThreads && 2 * t > maxThreads)
+                                        t = maxThreads / 2;
+                        }
+                        System.out.println();
+                }
+        }
+
+        private static int[][] compress(IntegerCODEC c, int[][] data) {
+                int[][] compressed = new int[data.length][];
+                for (int k = 0; k < data.length; ++k) {
+                        int[] buffer = new int[data[k].length + 1024];
+                        IntWrapper outpos = IntWrapper.IntWrapper1();
+                        c.compress0(data[k], IntWrapper.IntWrapper1(),
+                                data[k].length, buffer, outpos);
+                        compressed[k] = Arrays.copyOf(buffer,
+                                outpos.get());
+                }
+                return compressed;
+        }
+
+        private static double run(final IntegerCODEC shared,
+                final int blockSize, final boolean perThread,
+                final int[][] compressed, int threads) throws Exception {
+                ExecutorService es = Executors.newFixedThreadPool(threads);
+                try {
+                        List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+                        for (int t = 0; t < threads; ++t)
+                                tasks.add(new Callable<Long>() {
+                                        @Override
+                                        public Long call() {
+                                                IntegerCODEC c = shared;
+                                                if (perThread)
+                                                        c = blockSize == FastPFOR.BLOCK_SIZE ? FastPFOR
+                                                                .FastPFOR1()
+                                                                : FastPFOR128
+                                                                        .FastPFOR1281();
+                                                return decode(c, compressed);
+                                        }
+                                });
+                        long bef = System.nanoTime();
+                        long total = 0;
+                        for (Future<Long> f : es.invokeAll(tasks))
+                                total += f.get();
+                        long aft = System.nanoTime();
+                        return total * 1000.0 / (aft - bef);
+                } finally {
+                        es.shutdown();
+                }
+        }
+
+        private static long decode(IntegerCODEC c, int[][] compressed) {
+                int[] out = new int[ARRAY_LENGTH];
+                long count = 0;
+                for (int r = 0; r < REPEAT; ++r)
+                        for (int[] comp : compressed) {
+                                IntWrapper outpos = IntWrapper.IntWrapper1();
+                                c.uncompress0(comp, IntWrapper.IntWrapper1(),
+                                        comp.length, out, outpos);
+                                count += outpos.get();
+                        }
+                return count;
+        }
+}
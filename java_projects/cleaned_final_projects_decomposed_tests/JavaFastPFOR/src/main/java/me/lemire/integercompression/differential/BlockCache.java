@@ -0,0 +1,165 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import me.lemire.integercompression.CodecRegistry;
+import me.lemire.integercompression.FastPFOR;
+import me.lemire.integercompression.FastPFOR128;
+import me.lemire.integercompression.SkippableComposition;
+import me.lemire.integercompression.SkippableIntegerCODEC;
+import me.lemire.integercompression.VariableByte;
+
+/**
+ * The last few blocks decoded by a thread, from any BlockIndexedArray, with
+ * least-recently-used replacement. Each thread has a single cache, shared by
+ * all the compressed collections, so that its size does not grow with the
+ * number of collections; the blocks are found by array identity and block
+ * index, and the arrays are only weakly referenced.
+ *
+ * The codec instances are also shared by all the collections read by a
+ * thread, one per codec and block size, so that a small collection does not
+ * cost a codec (FastPFOR with the default page size holds about 1 MB) per
+ * reading thread.
+ *
+ * @author Daniel Lemire
+ */
+final class BlockCache {
+        /**
+         * Cache of the calling thread.
+         */
+        private static final ThreadLocal<BlockCache> LOCAL = new ThreadLocal<BlockCache>() {
+                @Override
+                protected BlockCache initialValue() {
+                        return new BlockCache(CompressedIntArray.CACHE_ENTRIES);
+                }
+        };
+
+        /**
+         * Codecs of the calling thread, by codec identifier and block size.
+         */
+        private static final ThreadLocal<Map<Long, SkippableIntegerCODEC>> CODECS = new ThreadLocal<Map<Long, SkippableIntegerCODEC>>() {
+                @Override
+                protected Map<Long, SkippableIntegerCODEC> initialValue() {
+                        return new HashMap<Long, SkippableIntegerCODEC>();
+                }
+        };
+
+        final WeakReference<?>[] arrays;
+        final int[][] buffers;
+        final int[] blocks;
+        final long[] lastUse;
+        long clock = 0;
+
+        BlockCache(int entries) {
+                this.arrays = new WeakReference<?>[entries];
+                this.buffers = new int[entries][];
+                this.blocks = new int[entries];
+                Arrays.fill(blocks, -1);
+                this.lastUse = new long[entries];
+        }
+
+        /**
+         * @param array
+         *                the compressed integers
+         * @param codecId
+         *                identifier of their codec (see CodecRegistry)
+         * @param block
+         *                index of the block
+         * @return the decoded block (not to be modified), valid until the
+         *         calling thread decodes another block
+         */
+        static int[] get(BlockIndexedArray array, int codecId, int block) {
+                return LOCAL.get().get0(array, codecId, block);
+        }
+
+        /**
+         * Decode a block without caching it, with the codec of the calling
+         * thread.
+         *
+         * @return the number of integers decoded
+         */
+        static int decode(BlockIndexedArray array, int codecId, int block,
+                int[] out, int outpos) {
+                return array.decodeBlock0(block, out, outpos, codec(codecId,
+                        array.getBlockSize()));
+        }
+
+        /**
+         * @return the codec instance of the calling thread for this codec
+         *         and block size, created if needed
+         */
+        static SkippableIntegerCODEC codec(int codecId, int blockSize) {
+                final Map<Long, SkippableIntegerCODEC> codecs = CODECS.get();
+                final Long key = Long.valueOf(((long) codecId << 32)
+                        | blockSize);
+                SkippableIntegerCODEC c = codecs.get(key);
+                if (c == null) {
+                        c = newCodec(codecId, blockSize);
+                        codecs.put(key, c);
+                }
+                return c;
+        }
+
+        /**
+         * Create a codec for blocks of at most blockSize integers. FastPFOR
+         * and FastPFOR128 get the smallest page holding a block: as a block
+         * is compressed as a single page with any larger page size, the
+         * data is the same as with CodecRegistry.newCodec(codecId).
+         *
+         * @param codecId
+         *                identifier of the codec (see CodecRegistry)
+         * @param blockSize
+         *                number of integers per block
+         * @return a new instance of the codec
+         */
+        static SkippableIntegerCODEC newCodec(int codecId, int blockSize) {
+                switch (codecId) {
+                case CodecRegistry.FASTPFOR:
+                        return new SkippableComposition(new FastPFOR(
+                                pageSize(blockSize, FastPFOR.BLOCK_SIZE)),
+                                new VariableByte());
+                case CodecRegistry.FASTPFOR128:
+                        return new SkippableComposition(new FastPFOR128(
+                                pageSize(blockSize, FastPFOR128.BLOCK_SIZE)),
+                                new VariableByte());
+                default:
+                        return CodecRegistry.newCodec(codecId);
+                }
+        }
+
+        private static int pageSize(int blockSize, int codecBlockSize) {
+                final int rounded = (blockSize + codecBlockSize - 1)
+                        / codecBlockSize * codecBlockSize;
+                return Math.min(Math.max(rounded, codecBlockSize),
+                        FastPFOR.DEFAULT_PAGE_SIZE);
+        }
+
+        private int[] get0(BlockIndexedArray array, int codecId, int block) {
+                int victim = 0;
+                for (int k = 0; k < blocks.length; ++k) {
+                        if ((blocks[k] == block) && (arrays[k].get() == array)) {
+                                lastUse[k] = ++clock;
+                                return buffers[k];
+                        }
+                        if (lastUse[k] < lastUse[victim])
+                                victim = k;
+                }
+                if ((buffers[victim] == null)
+                        || (buffers[victim].length < array.getBlockSize()))
+                        buffers[victim] = new int[array.getBlockSize()];
+                decode(array, codecId, block, buffers[victim], 0);
+                arrays[victim] = new WeakReference<BlockIndexedArray>(array);
+                blocks[victim] = block;
+                lastUse[victim] = ++clock;
+                return buffers[victim];
+        }
+}
@@ -0,0 +1,463 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import java.util.Arrays;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.SkippableIntegerCODEC;
+
+/**
+ * An array of integers compressed in independent blocks, with an index
+ * giving the location of each block and, for sorted arrays, the largest
+ * value of each block. It supports random access (select) and, for sorted
+ * arrays, skipping to the first value greater or equal to a target
+ * (Cursor.advance) while decoding only the block that is needed.
+ *
+ * Sorted arrays are typically compressed with an integrated codec:
+ *
+ * <pre>
+ * BlockIndexedArray a = BlockIndexedArray.compress0(sortedData, 256,
+ *         new SkippableIntegratedComposition(new IntegratedBinaryPacking(),
+ *                 new IntegratedVariableByte()));
+ * BlockIndexedArray.Cursor c = a.cursor();
+ * if (c.advance(1000))
+ *     System.out.println(c.value() + " at index " + c.index());
+ * </pre>
+ *
+ * but any skippable codec can be used, with or without differential coding
+ * (e.g., FastPFOR or VariableByte, see compress1).
+ *
+ * The block size is the granularity of the index: smaller blocks mean less
+ * decoding per access but more overhead. It should be a multiple of the
+ * block size of the codec (e.g., 128 for IntegratedBinaryPacking, 256 for
+ * FastPFOR), otherwise the remainder of each block goes through the second
+ * scheme of the composition.
+ *
+ * Like the codecs, this class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public final class BlockIndexedArray {
+        final int size;
+        final int blockSize;
+        final boolean sorted;
+        final int[] compressed;
+        // compressed[offsets[b]] is the first word of block b; there is one
+        // more entry than there are blocks.
+        final int[] offsets;
+        // largest (i.e., last) value of each block; null if not sorted
+        final int[] blockMax;
+        final SkippableIntegratedIntegerCODEC integratedCodec;
+        final SkippableIntegerCODEC codec;
+
+        // cache for select
+        int[] selectBuffer;
+        int selectBlock = -1;
+
+        private BlockIndexedArray(int size, int blockSize, boolean sorted,
+                int[] compressed, int[] offsets, int[] blockMax,
+                SkippableIntegratedIntegerCODEC integratedCodec,
+                SkippableIntegerCODEC codec) {
+                this.size = size;
+                this.blockSize = blockSize;
+                this.sorted = sorted;
+                this.compressed = compressed;
+                this.offsets = offsets;
+                this.blockMax = blockMax;
+                this.integratedCodec = integratedCodec;
+                this.codec = codec;
+        }
+
+        /**
+         * Compress a sorted array using an integrated codec.
+         *
+         * @param data
+         *                sorted array (non-decreasing values)
+         * @param blockSize
+         *                number of integers per indexed block
+         * @param c
+         *                the integrated codec (e.g., IntegratedBinaryPacking
+         *                composed with IntegratedVariableByte)
+         * @return the compressed array
+         */
+        public static BlockIndexedArray compress0(int[] data, int blockSize,
+                SkippableIntegratedIntegerCODEC c) {
+                checkBlockSize(blockSize);
+                final int blocks = (data.length + blockSize - 1) / blockSize;
+                int[] offsets = new int[blocks + 1];
+                int[] blockMax = new int[blocks];
+                int[] out = new int[data.length + data.length / 8 + 1024];
+                IntWrapper inpos = new IntWrapper(0);
+                IntWrapper outpos = new IntWrapper(0);
+                IntWrapper initvalue = new IntWrapper(0);
+                for (int b = 0; b < blocks; ++b) {
+                        final int length = Math.min(blockSize, data.length
+                                - inpos.get());
+                        out = ensureCapacity(out, outpos.get(), length);
+                        offsets[b] = outpos.get();
+                        initvalue.set(b == 0 ? 0 : blockMax[b - 1]);
+                        c.headlessCompress(data, inpos, length, out, outpos,
+                                initvalue);
+                        blockMax[b] = data[inpos.get() - 1];
+                }
+                offsets[blocks] = outpos.get();
+                return new BlockIndexedArray(data.length, blockSize, true,
+                        Arrays.copyOf(out, outpos.get()), offsets, blockMax,
+                        c, null);
+        }
+
+        /**
+         * Compress an array using a regular codec.
+         *
+         * @param data
+         *                the array
+         * @param blockSize
+         *                number of integers per indexed block
+         * @param c
+         *                the codec (e.g., FastPFOR composed with
+         *                VariableByte)
+         * @param sorted
+         *                whether the array is sorted: if so, the differences
+         *                between successive values are compressed and advance
+         *                is supported
+         * @return the compressed array
+         */
+        public static BlockIndexedArray compress1(int[] data, int blockSize,
+                SkippableIntegerCODEC c, boolean sorted) {
+                checkBlockSize(blockSize);
+                final int blocks = (data.length + blockSize - 1) / blockSize;
+                int[] offsets = new int[blocks + 1];
+                int[] blockMax = sorted ? new int[blocks] : null;
+                int[] out = new int[data.length + data.length / 8 + 1024];
+                int[] deltas = sorted ? new int[blockSize] : null;
+                IntWrapper inpos = new IntWrapper(0);
+                IntWrapper outpos = new IntWrapper(0);
+                for (int b = 0; b < blocks; ++b) {
+                        final int start = inpos.get();
+                        final int length = Math.min(blockSize, data.length
+                                - start);
+                        out = ensureCapacity(out, outpos.get(), length);
+                        offsets[b] = outpos.get();
+                        if (sorted) {
+                                blockMax[b] = Delta.delta2(data, start, length,
+                                        b == 0 ? 0 : blockMax[b - 1], deltas);
+                                c.headlessCompress(deltas, new IntWrapper(0),
+                                        length, out, outpos);
+                                inpos.add(length);
+                        } else {
+                                c.headlessCompress(data, inpos, length, out,
+                                        outpos);
+                        }
+                }
+                offsets[blocks] = outpos.get();
+                return new BlockIndexedArray(data.length, blockSize, sorted,
+                        Arrays.copyOf(out, outpos.get()), offsets, blockMax,
+                        null, c);
+        }
+
+        /**
+         * The same array without a reference to the codec used to compress
+         * it, for holders that decode with their own instances (see
+         * decodeBlock0): a codec may hold much more memory than the data.
+         * Only decodeBlock0 may be used on the result.
+         *
+         * @return an array sharing the compressed data of this one
+         */
+        BlockIndexedArray withoutCodec() {
+                return new BlockIndexedArray(size, blockSize, sorted,
+                        compressed, offsets, blockMax, integratedCodec, null);
+        }
+
+        private static void checkBlockSize(int blockSize) {
+                if (blockSize <= 0)
+                        throw new IllegalArgumentException(
+                                "Block size must be positive: " + blockSize);
+        }
+
+        private static int[] ensureCapacity(int[] out, int outpos, int length) {
+                // generous bound: no codec expands a block by more than 2x,
+                // plus some headers
+                final int needed = outpos + 2 * length + 1024;
+                if (needed <= out.length)
+                        return out;
+                return Arrays.copyOf(out, Math.max(needed, 2 * out.length));
+        }
+
+        /**
+         * @return number of integers
+         */
+        public int size() {
+                return size;
+        }
+
+        /**
+         * @return number of integers per block (the last block may be
+         *         shorter)
+         */
+        public int getBlockSize() {
+                return blockSize;
+        }
+
+        /**
+         * @return number of blocks
+         */
+        public int getBlockCount() {
+                return offsets.length - 1;
+        }
+
+        /**
+         * @return whether the array is sorted (and supports advance)
+         */
+        public boolean isSorted() {
+                return sorted;
+        }
+
+        /**
+         * @return size of the compressed data and of the index, in 32-bit
+         *         words
+         */
+        public int getCompressedSizeInInts() {
+                return compressed.length + offsets.length
+                        + (blockMax == null ? 0 : blockMax.length);
+        }
+
+        /**
+         * @param block
+         *                index of the block
+         * @return number of integers in this block
+         */
+        public int getBlockLength(int block) {
+                return Math.min(blockSize, size - block * blockSize);
+        }
+
+        /**
+         * Largest value of a block (only for sorted arrays).
+         *
+         * @param block
+         *                index of the block
+         * @return the last value of this block
+         */
+        public int getBlockMax(int block) {
+                if (!sorted)
+                        throw new UnsupportedOperationException(
+                                "The array is not sorted");
+                return blockMax[block];
+        }
+
+        /**
+         * Decode one block.
+         *
+         * @param block
+         *                index of the block
+         * @param out
+         *                where to write the integers
+         * @param outpos
+         *                where to start writing in out
+         * @return number of integers decoded
+         */
+        public int decodeBlock(int block, int[] out, int outpos) {
+                return decodeBlock0(block, out, outpos, codec);
+        }
+
+        /**
+         * Decode one block with a given instance of the (regular) codec, so
+         * that several threads can decode concurrently, each with its own
+         * instance.
+         */
+        int decodeBlock0(int block, int[] out, int outpos,
+                SkippableIntegerCODEC c) {
+                final int length = getBlockLength(block);
+                final int init = (!sorted || block == 0) ? 0
+                        : blockMax[block - 1];
+                IntWrapper inpos = new IntWrapper(offsets[block]);
+                IntWrapper outpw = new IntWrapper(outpos);
+                final int inlength = offsets[block + 1] - offsets[block];
+                if (integratedCodec != null) {
+                        integratedCodec.headlessUncompress(compressed, inpos,
+                                inlength, out, outpw, length, new IntWrapper(
+                                        init));
+                } else {
+                        c.headlessUncompress(compressed, inpos, inlength,
+                                out, outpw, length);
+                        if (sorted)
+                                Delta.fastinverseDelta1(out, outpos, length,
+                                        init);
+                }
+                return length;
+        }
+
+        /**
+         * Random access. Successive calls within the same block decode it
+         * only once.
+         *
+         * @param k
+         *                index of the value
+         * @return the k-th value (starting at 0)
+         */
+        public int select(int k) {
+                if ((k < 0) || (k >= size))
+                        throw new IndexOutOfBoundsException("Index: " + k
+                                + ", size: " + size);
+                final int block = k / blockSize;
+                if (block != selectBlock) {
+                        if (selectBuffer == null)
+                                selectBuffer = new int[blockSize];
+                        decodeBlock(block, selectBuffer, 0);
+                        selectBlock = block;
+                }
+                return selectBuffer[k - block * blockSize];
+        }
+
+        /**
+         * Uncompress the whole array.
+         *
+         * @return the integers
+         */
+        public int[] toArray() {
+                int[] answer = new int[size];
+                for (int b = 0; b < getBlockCount(); ++b)
+                        decodeBlock(b, answer, b * blockSize);
+                return answer;
+        }
+
+        /**
+         * @return a new cursor positioned before the first value
+         */
+        public Cursor cursor() {
+                return new Cursor(this);
+        }
+
+        /**
+         * Forward iteration over a BlockIndexedArray. Each cursor has its own
+         * buffer of one block.
+         */
+        public static final class Cursor {
+                final BlockIndexedArray array;
+                final int[] buffer;
+                int block = -1;
+                int index = -1;
+
+                Cursor(BlockIndexedArray array) {
+                        this.array = array;
+                        this.buffer = new int[array.blockSize];
+                }
+
+                /**
+                 * @return the current index (-1 before the first call to next
+                 *         or advance, size() once exhausted)
+                 */
+                public int index() {
+                        return index;
+                }
+
+                /**
+                 * @return the value at the current index
+                 */
+                public int value() {
+                        return buffer[index - block * array.blockSize];
+                }
+
+                /**
+                 * Move to the next value.
+                 *
+                 * @return false if there is no more value
+                 */
+                public boolean next() {
+                        if (index + 1 >= array.size) {
+                                index = array.size;
+                                return false;
+                        }
+                        ++index;
+                        load(index / array.blockSize);
+                        return true;
+                }
+
+                /**
+                 * Move to the first value greater or equal to target, at or
+                 * after the current index. Blocks whose largest value is
+                 * smaller than target are skipped without being decoded.
+                 * Only for sorted arrays.
+                 *
+                 * @param target
+                 *                the value to reach
+                 * @return false if there is no such value
+                 */
+                public boolean advance(int target) {
+                        if (!array.sorted)
+                                throw new UnsupportedOperationException(
+                                        "The array is not sorted");
+                        if ((index >= array.size) || (array.size == 0)) {
+                                index = array.size;
+                                return false;
+                        }
+                        int from = Math.max(index, 0);
+                        int b = from / array.blockSize;
+                        if (array.blockMax[b] < target) {
+                                b = array.findBlock(b + 1, target);
+                                if (b == array.getBlockCount()) {
+                                        index = array.size;
+                                        return false;
+                                }
+                                from = b * array.blockSize;
+                        }
+                        load(b);
+                        final int base = b * array.blockSize;
+                        // the block max is >= target, so the search succeeds
+                        int lo = from - base;
+                        int hi = array.getBlockLength(b) - 1;
+                        while (lo < hi) {
+                                int mid = (lo + hi) >>> 1;
+                                if (buffer[mid] < target)
+                                        lo = mid + 1;
+                                else
+                                        hi = mid;
+                        }
+                        index = base + lo;
+                        return true;
+                }
+
+                private void load(int b) {
+                        if (b != block) {
+                                array.decodeBlock(b, buffer, 0);
+                                block = b;
+                        }
+                }
+        }
+
+        /**
+         * Galloping search over the block maxima.
+         *
+         * @param from
+         *                first block to consider
+         * @param target
+         *                the value to reach
+         * @return the first block at or after from whose max is greater or
+         *         equal to target, or getBlockCount() if there is none
+         */
+        int findBlock(int from, int target) {
+                final int blocks = getBlockCount();
+                int lo = from;
+                int step = 1;
+                int hi = from;
+                while ((hi < blocks) && (blockMax[hi] < target)) {
+                        lo = hi + 1;
+                        hi += step;
+                        step <<= 1;
+                }
+                if (hi > blocks)
+                        hi = blocks;
+                while (lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if (blockMax[mid] < target)
+                                lo = mid + 1;
+                        else
+                                hi = mid;
+                }
+                return lo;
+        }
+}
@@ -0,0 +1,348 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Intersections and unions of sorted sets (e.g., posting lists) stored as
+ * BlockIndexedArray objects, computed block by block without uncompressing
+ * the whole sets.
+ *
+ * Intersections only decode the blocks that may contain common values: the
+ * largest value of each block, kept by BlockIndexedArray, is used to skip
+ * blocks, and decoded blocks are intersected with a galloping search when
+ * their sizes differ a lot. Multi-way intersections start with the two
+ * smallest sets and then probe the other sets for each remaining candidate.
+ *
+ * <pre>
+ * BlockIndexedArray a = BlockIndexedArray.compress0(list1, 256, codec);
+ * BlockIndexedArray b = BlockIndexedArray.compress0(list2, 256, codec);
+ * int[] both = BlockSetOperations.intersect(a, b);
+ * </pre>
+ *
+ * The sets must have been compressed as sorted arrays and their values
+ * should be strictly increasing.
+ *
+ * @author Daniel Lemire
+ */
+public final class BlockSetOperations {
+        // above this ratio between the sizes of two blocks, we gallop
+        final static int GALLOPING_RATIO = 16;
+
+        private BlockSetOperations() {
+        }
+
+        /**
+         * Intersect sorted sets.
+         *
+         * @param sets
+         *                the sets (at least one)
+         * @return the values present in all sets, in increasing order
+         */
+        public static int[] intersect(BlockIndexedArray... sets) {
+                checkSorted(sets);
+                if (sets.length == 1)
+                        return sets[0].toArray();
+                BlockIndexedArray[] bysize = sets.clone();
+                Arrays.sort(bysize, new Comparator<BlockIndexedArray>() {
+                        @Override
+                        public int compare(BlockIndexedArray x,
+                                BlockIndexedArray y) {
+                                return Integer.compare(x.size(), y.size());
+                        }
+                });
+                if (bysize[0].size() == 0)
+                        return new int[0];
+                int[] answer = new int[bysize[0].size()];
+                int length = intersectBlocks(bysize[0], bysize[1], answer);
+                for (int k = 2; (k < bysize.length) && (length > 0); ++k)
+                        length = filter(answer, length, bysize[k].cursor());
+                return Arrays.copyOf(answer, length);
+        }
+
+        /**
+         * Intersect sorted sets and compress the result.
+         *
+         * @param blockSize
+         *                number of integers per indexed block of the result
+         * @param c
+         *                the integrated codec used for the result
+         * @param sets
+         *                the sets (at least one)
+         * @return the values present in all sets
+         */
+        public static BlockIndexedArray intersectCompressed(int blockSize,
+                SkippableIntegratedIntegerCODEC c, BlockIndexedArray... sets) {
+                return BlockIndexedArray.compress0(intersect(sets), blockSize,
+                        c);
+        }
+
+        /**
+         * Union of sorted sets.
+         *
+         * @param sets
+         *                the sets (at least one)
+         * @return the values present in at least one set, in increasing
+         *         order
+         */
+        public static int[] union(BlockIndexedArray... sets) {
+                checkSorted(sets);
+                if (sets.length == 1)
+                        return sets[0].toArray();
+                int total = 0;
+                for (BlockIndexedArray s : sets)
+                        total += s.size();
+                int[] answer = new int[total];
+                int[] buffer = new int[total];
+                int length = union(Reader.of(sets[0]), Reader.of(sets[1]),
+                        answer);
+                for (int k = 2; k < sets.length; ++k) {
+                        int[] tmp = buffer;
+                        buffer = answer;
+                        answer = tmp;
+                        length = union(new Reader(null, buffer, length),
+                                Reader.of(sets[k]), answer);
+                }
+                return Arrays.copyOf(answer, length);
+        }
+
+        /**
+         * Union of sorted sets, compressing the result.
+         *
+         * @param blockSize
+         *                number of integers per indexed block of the result
+         * @param c
+         *                the integrated codec used for the result
+         * @param sets
+         *                the sets (at least one)
+         * @return the values present in at least one set
+         */
+        public static BlockIndexedArray unionCompressed(int blockSize,
+                SkippableIntegratedIntegerCODEC c, BlockIndexedArray... sets) {
+                return BlockIndexedArray.compress0(union(sets), blockSize, c);
+        }
+
+        private static void checkSorted(BlockIndexedArray[] sets) {
+                if (sets.length == 0)
+                        throw new IllegalArgumentException("No set given");
+                for (BlockIndexedArray s : sets)
+                        if (!s.isSorted())
+                                throw new IllegalArgumentException(
+                                        "The sets must be sorted");
+        }
+
+        /**
+         * Intersect two sets, pairing only the blocks whose ranges overlap.
+         */
+        private static int intersectBlocks(BlockIndexedArray a,
+                BlockIndexedArray b, int[] out) {
+                final int na = a.getBlockCount();
+                final int nb = b.getBlockCount();
+                int[] bufa = new int[a.getBlockSize()];
+                int[] bufb = new int[b.getBlockSize()];
+                int loadeda = -1, loadedb = -1;
+                int lena = 0, lenb = 0;
+                int ia = 0, ib = 0;
+                int pos = 0;
+                while ((ia < na) && (ib < nb)) {
+                        if (loadeda != ia) {
+                                lena = a.decodeBlock(ia, bufa, 0);
+                                loadeda = ia;
+                        }
+                        if (b.blockMax[ib] < bufa[0]) {
+                                ib = b.findBlock(ib + 1, bufa[0]);
+                                continue;
+                        }
+                        if (loadedb != ib) {
+                                lenb = b.decodeBlock(ib, bufb, 0);
+                                loadedb = ib;
+                        }
+                        if (a.blockMax[ia] < bufb[0]) {
+                                ia = a.findBlock(ia + 1, bufb[0]);
+                                continue;
+                        }
+                        pos = intersect(bufa, lena, bufb, lenb, out, pos);
+                        final int maxa = a.blockMax[ia];
+                        final int maxb = b.blockMax[ib];
+                        if (maxa <= maxb)
+                                ++ia;
+                        if (maxb <= maxa)
+                                ++ib;
+                }
+                return pos;
+        }
+
+        /**
+         * Keep the candidates that are in the set of the cursor.
+         */
+        private static int filter(int[] candidates, int length,
+                BlockIndexedArray.Cursor c) {
+                int pos = 0;
+                for (int k = 0; k < length; ++k) {
+                        final int v = candidates[k];
+                        if (!c.advance(v))
+                                break;
+                        if (c.value() == v)
+                                candidates[pos++] = v;
+                }
+                return pos;
+        }
+
+        /**
+         * Intersect two sorted arrays.
+         *
+         * @return the new position in out
+         */
+        static int intersect(int[] a, int lena, int[] b, int lenb, int[] out,
+                int pos) {
+                if (lena > lenb * GALLOPING_RATIO)
+                        return gallop(b, lenb, a, lena, out, pos);
+                if (lenb > lena * GALLOPING_RATIO)
+                        return gallop(a, lena, b, lenb, out, pos);
+                int i = 0, j = 0;
+                while ((i < lena) && (j < lenb)) {
+                        if (a[i] < b[j]) {
+                                ++i;
+                        } else if (a[i] > b[j]) {
+                                ++j;
+                        } else {
+                                out[pos++] = a[i];
+                                ++i;
+                                ++j;
+                        }
+                }
+                return pos;
+        }
+
+        /**
+         * Look up each value of the small array in the large one, galloping
+         * forward from the last match.
+         */
+        private static int gallop(int[] small, int lensmall, int[] large,
+                int lenlarge, int[] out, int pos) {
+                int lo = 0;
+                for (int i = 0; (i < lensmall) && (lo < lenlarge); ++i) {
+                        final int target = small[i];
+                        if (large[lo] < target) {
+                                // find hi such that large[hi] >= target
+                                int step = 1;
+                                int hi = lo + 1;
+                                while ((hi < lenlarge) && (large[hi] < target)) {
+                                        lo = hi + 1;
+                                        step <<= 1;
+                                        hi = lo + step;
+                                }
+                                if (hi > lenlarge)
+                                        hi = lenlarge;
+                                while (lo < hi) {
+                                        int mid = (lo + hi) >>> 1;
+                                        if (large[mid] < target)
+                                                lo = mid + 1;
+                                        else
+                                                hi = mid;
+                                }
+                                if (lo == lenlarge)
+                                        break;
+                        }
+                        if (large[lo] == target) {
+                                out[pos++] = target;
+                                ++lo;
+                        }
+                }
+                return pos;
+        }
+
+        /**
+         * Merge two sets. Runs of values that do not interleave with the
+         * other set are copied in bulk.
+         */
+        private static int union(Reader a, Reader b, int[] out) {
+                int pos = 0;
+                while (true) {
+                        if (!a.ensure())
+                                return b.drain(out, pos);
+                        if (!b.ensure())
+                                return a.drain(out, pos);
+                        if (a.buffer[a.length - 1] < b.buffer[b.pos]) {
+                                pos = a.copyRest(out, pos);
+                                continue;
+                        }
+                        if (b.buffer[b.length - 1] < a.buffer[a.pos]) {
+                                pos = b.copyRest(out, pos);
+                                continue;
+                        }
+                        while ((a.pos < a.length) && (b.pos < b.length)) {
+                                final int va = a.buffer[a.pos];
+                                final int vb = b.buffer[b.pos];
+                                if (va < vb) {
+                                        out[pos++] = va;
+                                        ++a.pos;
+                                } else if (va > vb) {
+                                        out[pos++] = vb;
+                                        ++b.pos;
+                                } else {
+                                        out[pos++] = va;
+                                        ++a.pos;
+                                        ++b.pos;
+                                }
+                        }
+                }
+        }
+
+        /**
+         * Reads a set one block at a time. A plain array is a single block.
+         */
+        private static final class Reader {
+                final BlockIndexedArray array;
+                final int[] buffer;
+                int block;
+                int pos;
+                int length;
+
+                Reader(BlockIndexedArray array, int[] buffer, int length) {
+                        this.array = array;
+                        this.buffer = buffer;
+                        this.block = -1;
+                        this.length = length;
+                }
+
+                static Reader of(BlockIndexedArray array) {
+                        return new Reader(array, new int[array.getBlockSize()],
+                                0);
+                }
+
+                /**
+                 * @return false if there is no more value
+                 */
+                boolean ensure() {
+                        while (pos == length) {
+                                if ((array == null)
+                                        || (block + 1 >= array.getBlockCount()))
+                                        return false;
+                                ++block;
+                                length = array.decodeBlock(block, buffer, 0);
+                                pos = 0;
+                        }
+                        return true;
+                }
+
+                int copyRest(int[] out, int outpos) {
+                        System.arraycopy(buffer, pos, out, outpos, length - pos);
+                        outpos += length - pos;
+                        pos = length;
+                        return outpos;
+                }
+
+                int drain(int[] out, int outpos) {
+                        while (ensure())
+                                outpos = copyRest(out, outpos);
+                        return outpos;
+                }
+        }
+}
@@ -0,0 +1,194 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+import me.lemire.integercompression.CodecRegistry;
+
+/**
+ * An immutable array of integers that stays compressed in memory: random
+ * access (get) decodes a single block, and each thread keeps the last few
+ * decoded blocks, whatever the collection, so that nearby accesses do not
+ * decode again.
+ *
+ * <pre>
+ * CompressedIntArray a = CompressedIntArray.compress0(lookupTable);
+ * int x = a.get(123456);
+ * </pre>
+ *
+ * Unlike the codecs, this class is thread-safe: each thread uses its own
+ * cache and codec instance, shared with the other collections. For sorted
+ * values, CompressedSortedIntSet compresses better and supports contains.
+ *
+ * @author Daniel Lemire
+ */
+public final class CompressedIntArray {
+        /**
+         * Default number of integers per block.
+         */
+        public final static int DEFAULT_BLOCK_SIZE = 256;
+
+        /**
+         * Number of decoded blocks kept by each thread, for all the
+         * collections together.
+         */
+        public final static int CACHE_ENTRIES = 4;
+
+        final BlockIndexedArray array;
+        final int codecId;
+
+        private CompressedIntArray(BlockIndexedArray array, int codecId) {
+                this.array = array;
+                this.codecId = codecId;
+        }
+
+        /**
+         * Compress an array with FastPFOR and the default block size.
+         *
+         * @param data
+         *                the integers
+         * @return the compressed array
+         */
+        public static CompressedIntArray compress0(int[] data) {
+                return compress1(data, DEFAULT_BLOCK_SIZE,
+                        CodecRegistry.FASTPFOR);
+        }
+
+        /**
+         * Compress an array.
+         *
+         * @param data
+         *                the integers
+         * @param blockSize
+         *                number of integers per block: smaller blocks mean
+         *                faster random access, larger blocks better
+         *                compression
+         * @param codecId
+         *                identifier of the codec (see CodecRegistry)
+         * @return the compressed array
+         */
+        public static CompressedIntArray compress1(int[] data, int blockSize,
+                int codecId) {
+                return new CompressedIntArray(BlockIndexedArray.compress1(
+                        data, blockSize, BlockCache.newCodec(codecId,
+                                blockSize), false).withoutCodec(), codecId);
+        }
+
+        /**
+         * @return number of integers
+         */
+        public int size() {
+                return array.size();
+        }
+
+        /**
+         * @param index
+         *                index of the value (starting at 0)
+         * @return the value
+         */
+        public int get(int index) {
+                if ((index < 0) || (index >= array.size()))
+                        throw new IndexOutOfBoundsException("Index: " + index
+                                + ", size: " + array.size());
+                final int block = index / array.getBlockSize();
+                return BlockCache.get(array, codecId, block)[index - block
+                        * array.getBlockSize()];
+        }
+
+        /**
+         * @return an iterator over the values; it decodes each block once
+         */
+        public PrimitiveIterator.OfInt iterator() {
+                return new BlockIterator(this.array, this.codecId);
+        }
+
+        /**
+         * Apply an action to all values, in order.
+         *
+         * @param action
+         *                the action
+         */
+        public void forEach(IntConsumer action) {
+                forEachBlock(array, codecId, action);
+        }
+
+        /**
+         * @return the uncompressed values
+         */
+        public int[] toArray() {
+                int[] answer = new int[array.size()];
+                for (int b = 0; b < array.getBlockCount(); ++b)
+                        BlockCache.decode(array, codecId, b, answer, b
+                                * array.getBlockSize());
+                return answer;
+        }
+
+        /**
+         * @return size of the compressed data and of the index, in 32-bit
+         *         words
+         */
+        public int getCompressedSizeInInts() {
+                return array.getCompressedSizeInInts();
+        }
+
+        static void forEachBlock(BlockIndexedArray array, int codecId,
+                IntConsumer action) {
+                int[] buffer = new int[array.getBlockSize()];
+                for (int b = 0; b < array.getBlockCount(); ++b) {
+                        final int length = BlockCache.decode(array, codecId, b,
+                                buffer, 0);
+                        for (int k = 0; k < length; ++k)
+                                action.accept(buffer[k]);
+                }
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+
+        /**
+         * Iterates over the blocks with its own buffer, using the codec of
+         * the calling thread.
+         */
+        static final class BlockIterator implements PrimitiveIterator.OfInt {
+                final BlockIndexedArray array;
+                final int codecId;
+                final int[] buffer;
+                int block = -1;
+                int pos = 0;
+                int length = 0;
+
+                BlockIterator(BlockIndexedArray array, int codecId) {
+                        this.array = array;
+                        this.codecId = codecId;
+                        this.buffer = new int[array.getBlockSize()];
+                }
+
+                @Override
+                public boolean hasNext() {
+                        return (pos < length)
+                                || (block + 1 < array.getBlockCount());
+                }
+
+                @Override
+                public int nextInt() {
+                        if (pos == length) {
+                                if (block + 1 >= array.getBlockCount())
+                                        throw new NoSuchElementException();
+                                ++block;
+                                length = BlockCache.decode(array, codecId,
+                                        block, buffer, 0);
+                                pos = 0;
+                        }
+                        return buffer[pos++];
+                }
+        }
+}
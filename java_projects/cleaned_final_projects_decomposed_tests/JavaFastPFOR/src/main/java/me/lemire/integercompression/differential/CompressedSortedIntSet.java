@@ -0,0 +1,164 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+import me.lemire.integercompression.CodecRegistry;
+
+/**
+ * An immutable set of integers that stays compressed in memory. The values
+ * are sorted and the differences between successive values are compressed
+ * in blocks. Membership tests (contains, indexOf) find the block with the
+ * index of block maxima and decode only this block; each thread keeps the
+ * last few decoded blocks, whatever the collection.
+ *
+ * <pre>
+ * CompressedSortedIntSet s = CompressedSortedIntSet.compress0(sortedIds);
+ * if (s.contains(42)) ...
+ * int rank = s.indexOf(42);
+ * </pre>
+ *
+ * Unlike the codecs, this class is thread-safe: each thread uses its own
+ * cache and codec instance, shared with the other collections.
+ *
+ * @author Daniel Lemire
+ */
+public final class CompressedSortedIntSet {
+        final BlockIndexedArray array;
+        final int codecId;
+
+        private CompressedSortedIntSet(BlockIndexedArray array, int codecId) {
+                this.array = array;
+                this.codecId = codecId;
+        }
+
+        /**
+         * Compress a set with FastPFOR and the default block size.
+         *
+         * @param sorted
+         *                the values, in strictly increasing order
+         * @return the compressed set
+         */
+        public static CompressedSortedIntSet compress0(int[] sorted) {
+                return compress1(sorted, CompressedIntArray.DEFAULT_BLOCK_SIZE,
+                        CodecRegistry.FASTPFOR);
+        }
+
+        /**
+         * Compress a set.
+         *
+         * @param sorted
+         *                the values, in strictly increasing order
+         * @param blockSize
+         *                number of integers per block
+         * @param codecId
+         *                identifier of the codec (see CodecRegistry)
+         * @return the compressed set
+         */
+        public static CompressedSortedIntSet compress1(int[] sorted,
+                int blockSize, int codecId) {
+                for (int k = 1; k < sorted.length; ++k)
+                        if (sorted[k] <= sorted[k - 1])
+                                throw new IllegalArgumentException(
+                                        "Values must be strictly increasing, see index "
+                                                + k);
+                return new CompressedSortedIntSet(BlockIndexedArray.compress1(
+                        sorted, blockSize, BlockCache.newCodec(codecId,
+                                blockSize), true).withoutCodec(), codecId);
+        }
+
+        /**
+         * @return number of values
+         */
+        public int size() {
+                return array.size();
+        }
+
+        /**
+         * @param index
+         *                rank of the value (starting at 0)
+         * @return the value
+         */
+        public int get(int index) {
+                if ((index < 0) || (index >= array.size()))
+                        throw new IndexOutOfBoundsException("Index: " + index
+                                + ", size: " + array.size());
+                final int block = index / array.getBlockSize();
+                return BlockCache.get(array, codecId, block)[index - block
+                        * array.getBlockSize()];
+        }
+
+        /**
+         * @param value
+         *                the value to look up
+         * @return whether the set contains the value
+         */
+        public boolean contains(int value) {
+                return indexOf(value) >= 0;
+        }
+
+        /**
+         * @param value
+         *                the value to look up
+         * @return the rank of the value in the set, or -1 if it is absent
+         */
+        public int indexOf(int value) {
+                final int block = array.findBlock(0, value);
+                if (block == array.getBlockCount())
+                        return -1;
+                final int pos = Arrays.binarySearch(BlockCache.get(array,
+                        codecId, block), 0,
+                        array.getBlockLength(block), value);
+                return pos >= 0 ? block * array.getBlockSize() + pos : -1;
+        }
+
+        /**
+         * @return an iterator over the values, in increasing order; it
+         *         decodes each block once
+         */
+        public PrimitiveIterator.OfInt iterator() {
+                return new CompressedIntArray.BlockIterator(this.array,
+                        this.codecId);
+        }
+
+        /**
+         * Apply an action to all values, in increasing order.
+         *
+         * @param action
+         *                the action
+         */
+        public void forEach(IntConsumer action) {
+                CompressedIntArray.forEachBlock(array, codecId, action);
+        }
+
+        /**
+         * @return the uncompressed values
+         */
+        public int[] toArray() {
+                int[] answer = new int[array.size()];
+                for (int b = 0; b < array.getBlockCount(); ++b)
+                        BlockCache.decode(array, codecId, b, answer, b
+                                * array.getBlockSize());
+                return answer;
+        }
+
+        /**
+         * @return size of the compressed data and of the index, in 32-bit
+         *         words
+         */
+        public int getCompressedSizeInInts() {
+                return array.getCompressedSizeInInts();
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
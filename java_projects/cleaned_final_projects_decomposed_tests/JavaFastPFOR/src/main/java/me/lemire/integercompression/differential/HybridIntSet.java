@@ -0,0 +1,516 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+import me.lemire.integercompression.IntWrapper;
+
+/**
+ * An immutable set of integers stored in the format of HybridSetCODEC: each
+ * chunk of 2^16 values is a bitmap, packed deltas or runs, whichever is
+ * smaller. Membership tests on bitmaps and runs read the compressed data
+ * directly; packed chunks are decoded once per thread and kept until another
+ * packed chunk, of this set or of another one, is needed.
+ *
+ * <pre>
+ * HybridIntSet s = HybridIntSet.compress0(sortedIds);
+ * if (s.contains(42)) ...
+ * HybridIntSet both = HybridIntSet.and(s, t);
+ * int[] common = s.intersect(postingList); // a BlockIndexedArray
+ * </pre>
+ *
+ * Set operations work chunk by chunk: two bitmaps are combined word by word,
+ * and a bitmap is probed directly for the values of another container.
+ * Unlike the codecs, this class is thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public final class HybridIntSet {
+        final int[] data;
+        final int size;
+        // per chunk: high bits, position of the container, type, length in
+        // ints, and number of values before the chunk
+        final int[] keys;
+        final int[] positions;
+        final int[] types;
+        final int[] lengths;
+        final int[] ranks;
+        // largest number of values in a packed chunk
+        final int maxPacked;
+
+        // the last packed chunk decoded by a thread, shared by all the sets
+        private static final ThreadLocal<Decoded> DECODED = new ThreadLocal<Decoded>() {
+                @Override
+                protected Decoded initialValue() {
+                        return new Decoded();
+                }
+        };
+
+        static final class Decoded {
+                final IntegratedIntegerCODEC packer = new IntegratedComposition(
+                        new IntegratedBinaryPacking(),
+                        new IntegratedVariableByte());
+                // grows to the largest packed chunk decoded by the thread
+                int[] lows = new int[0];
+                WeakReference<HybridIntSet> set = new WeakReference<HybridIntSet>(
+                        null);
+                int chunk = -1;
+                int count;
+        }
+
+        private HybridIntSet(int[] data) {
+                this.data = data;
+                final int chunks = data.length == 0 ? 0 : data[0];
+                keys = new int[chunks];
+                positions = new int[chunks];
+                types = new int[chunks];
+                lengths = new int[chunks];
+                ranks = new int[chunks + 1];
+                int pos = 1;
+                int max = 0;
+                for (int c = 0; c < chunks; ++c) {
+                        keys[c] = data[pos] >> 16;
+                        ranks[c + 1] = ranks[c] + (data[pos] & 0xFFFF) + 1;
+                        types[c] = data[pos + 1] >>> 28;
+                        lengths[c] = data[pos + 1] & 0xFFFFFFF;
+                        positions[c] = pos + HybridSetCODEC.HEADER_INTS;
+                        pos = positions[c] + lengths[c];
+                        if (types[c] == HybridSetCODEC.PACKED)
+                                max = Math.max(max, ranks[c + 1] - ranks[c]);
+                }
+                size = ranks[chunks];
+                maxPacked = max;
+        }
+
+        /**
+         * Compress a set.
+         *
+         * @param sorted
+         *                the values, in strictly increasing order
+         * @return the compressed set
+         */
+        public static HybridIntSet compress0(int[] sorted) {
+                // a chunk never takes more than 3 ints per value
+                int[] buffer = new int[3 * sorted.length + 1024];
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                new HybridSetCODEC().compress0(sorted, IntWrapper.IntWrapper1(),
+                        sorted.length, buffer, outpos);
+                return new HybridIntSet(Arrays.copyOf(buffer, outpos.get()));
+        }
+
+        /**
+         * Use data compressed by HybridSetCODEC, without copying it.
+         *
+         * @param compressed
+         *                the output of HybridSetCODEC.compress0, starting at
+         *                index 0 (or an empty array for the empty set)
+         * @return the set
+         */
+        public static HybridIntSet wrap(int[] compressed) {
+                return new HybridIntSet(compressed);
+        }
+
+        /**
+         * @return the compressed data, in the format of HybridSetCODEC (not
+         *         a copy: do not modify it)
+         */
+        public int[] getCompressed() {
+                return data;
+        }
+
+        /**
+         * @return number of values
+         */
+        public int size() {
+                return size;
+        }
+
+        /**
+         * @return size of the compressed data, in 32-bit words
+         */
+        public int getCompressedSizeInInts() {
+                return data.length;
+        }
+
+        /**
+         * @return number of chunks (values sharing their 16 high bits)
+         */
+        public int getChunkCount() {
+                return keys.length;
+        }
+
+        /**
+         * @param chunk
+         *                index of the chunk
+         * @return its container type: HybridSetCODEC.BITMAP, PACKED or RUNS
+         */
+        public int getChunkType(int chunk) {
+                return types[chunk];
+        }
+
+        private int findChunk(int key) {
+                return Arrays.binarySearch(keys, key);
+        }
+
+        // the low bits of a packed chunk, decoded by this thread; valid until
+        // the thread decodes another packed chunk
+        private Decoded decode(int chunk) {
+                Decoded d = DECODED.get();
+                if ((d.chunk != chunk) || (d.set.get() != this)) {
+                        if (d.lows.length < maxPacked)
+                                d.lows = new int[maxPacked];
+                        d.count = HybridSetCODEC.decodeLows(d.packer, data,
+                                positions[chunk], types[chunk],
+                                lengths[chunk], d.lows, 0);
+                        d.set = new WeakReference<HybridIntSet>(this);
+                        d.chunk = chunk;
+                }
+                return d;
+        }
+
+        private boolean containsLow(int chunk, int low) {
+                if (types[chunk] == HybridSetCODEC.PACKED) {
+                        Decoded d = decode(chunk);
+                        return Arrays.binarySearch(d.lows, 0, d.count, low) >= 0;
+                }
+                return HybridSetCODEC.containsLow(data, positions[chunk],
+                        types[chunk], lengths[chunk], low);
+        }
+
+        /**
+         * @param value
+         *                the value to look up
+         * @return whether the set contains the value
+         */
+        public boolean contains(int value) {
+                final int chunk = findChunk(value >> 16);
+                return (chunk >= 0) && containsLow(chunk, value & 0xFFFF);
+        }
+
+        /**
+         * Write the values of a chunk.
+         *
+         * @return the number of values
+         */
+        private int decodeChunk(int chunk, int[] out, int outpos) {
+                final int n;
+                if (types[chunk] == HybridSetCODEC.PACKED) {
+                        Decoded d = decode(chunk);
+                        System.arraycopy(d.lows, 0, out, outpos, d.count);
+                        n = d.count;
+                } else
+                        n = HybridSetCODEC.decodeLows(null, data,
+                                positions[chunk], types[chunk],
+                                lengths[chunk], out, outpos);
+                final int base = keys[chunk] << 16;
+                for (int k = outpos; k < outpos + n; ++k)
+                        out[k] |= base;
+                return n;
+        }
+
+        /**
+         * @return the uncompressed values
+         */
+        public int[] toArray() {
+                int[] answer = new int[size];
+                for (int c = 0; c < keys.length; ++c)
+                        decodeChunk(c, answer, ranks[c]);
+                return answer;
+        }
+
+        /**
+         * Apply an action to all values, in increasing order.
+         *
+         * @param action
+         *                the action
+         */
+        public void forEach(IntConsumer action) {
+                int[] buffer = new int[HybridSetCODEC.CHUNK_SIZE];
+                for (int c = 0; c < keys.length; ++c) {
+                        final int n = decodeChunk(c, buffer, 0);
+                        for (int k = 0; k < n; ++k)
+                                action.accept(buffer[k]);
+                }
+        }
+
+        /**
+         * @return an iterator over the values, in increasing order; it
+         *         decodes each chunk once
+         */
+        public PrimitiveIterator.OfInt iterator() {
+                return new PrimitiveIterator.OfInt() {
+                        final int[] buffer = new int[HybridSetCODEC.CHUNK_SIZE];
+                        int chunk = -1;
+                        int count;
+                        int pos;
+
+                        @Override
+                        public boolean hasNext() {
+                                return (pos < count) || (chunk + 1 < keys.length);
+                        }
+
+                        @Override
+                        public int nextInt() {
+                                if (pos == count) {
+                                        if (chunk + 1 >= keys.length)
+                                                throw new NoSuchElementException();
+                                        count = decodeChunk(++chunk, buffer, 0);
+                                        pos = 0;
+                                }
+                                return buffer[pos++];
+                        }
+                };
+        }
+
+        /**
+         * Convert to a BlockIndexedArray, for BlockSetOperations.
+         *
+         * @param blockSize
+         *                number of integers per indexed block
+         * @param c
+         *                the integrated codec used to compress the blocks
+         * @return the values as a sorted BlockIndexedArray
+         */
+        public BlockIndexedArray toBlockIndexedArray(int blockSize,
+                SkippableIntegratedIntegerCODEC c) {
+                return BlockIndexedArray.compress0(toArray(), blockSize, c);
+        }
+
+        /**
+         * Intersect with a sorted BlockIndexedArray (e.g., a posting list).
+         * The blocks of the array that fall between the chunks of this set
+         * are not decoded.
+         *
+         * @param sorted
+         *                a sorted BlockIndexedArray
+         * @return the values present in both sets, in increasing order
+         */
+        public int[] intersect(BlockIndexedArray sorted) {
+                int[] answer = new int[Math.min(size, sorted.size())];
+                int length = 0;
+                BlockIndexedArray.Cursor cursor = sorted.cursor();
+                for (int c = 0; (c < keys.length) && cursor.advance(keys[c] << 16); ++c) {
+                        do {
+                                final int v = cursor.value();
+                                if ((v >> 16) != keys[c])
+                                        break;
+                                if (containsLow(c, v & 0xFFFF))
+                                        answer[length++] = v;
+                        } while (cursor.next());
+                }
+                return Arrays.copyOf(answer, length);
+        }
+
+        /**
+         * Union with a sorted BlockIndexedArray.
+         *
+         * @param sorted
+         *                a sorted BlockIndexedArray
+         * @return the values present in either set, in increasing order
+         */
+        public int[] union(BlockIndexedArray sorted) {
+                return merge(toArray(), sorted.toArray());
+        }
+
+        private static int[] merge(int[] a, int[] b) {
+                int[] answer = new int[a.length + b.length];
+                int i = 0, j = 0, length = 0;
+                while ((i < a.length) && (j < b.length)) {
+                        if (a[i] < b[j])
+                                answer[length++] = a[i++];
+                        else if (a[i] > b[j])
+                                answer[length++] = b[j++];
+                        else {
+                                answer[length++] = a[i++];
+                                ++j;
+                        }
+                }
+                while (i < a.length)
+                        answer[length++] = a[i++];
+                while (j < b.length)
+                        answer[length++] = b[j++];
+                return Arrays.copyOf(answer, length);
+        }
+
+        /**
+         * @param x
+         *                first set
+         * @param y
+         *                second set
+         * @return the values present in both sets
+         */
+        public static HybridIntSet and(HybridIntSet x, HybridIntSet y) {
+                return combine(x, y, AND);
+        }
+
+        /**
+         * @param x
+         *                first set
+         * @param y
+         *                second set
+         * @return the values present in either set
+         */
+        public static HybridIntSet or(HybridIntSet x, HybridIntSet y) {
+                return combine(x, y, OR);
+        }
+
+        /**
+         * @param x
+         *                first set
+         * @param y
+         *                second set
+         * @return the values of the first set absent from the second one
+         */
+        public static HybridIntSet andNot(HybridIntSet x, HybridIntSet y) {
+                return combine(x, y, ANDNOT);
+        }
+
+        final static int AND = 0;
+        final static int OR = 1;
+        final static int ANDNOT = 2;
+
+        private static HybridIntSet combine(HybridIntSet x, HybridIntSet y,
+                int op) {
+                int[] answer = new int[op == AND ? Math.min(x.size, y.size)
+                        : op == OR ? x.size + y.size : x.size];
+                int length = 0;
+                int[] bufferx = new int[HybridSetCODEC.CHUNK_SIZE];
+                int[] buffery = new int[HybridSetCODEC.CHUNK_SIZE];
+                int[] words = new int[HybridSetCODEC.BITMAP_INTS];
+                int i = 0, j = 0;
+                while ((i < x.keys.length) || (j < y.keys.length)) {
+                        final int kx = i < x.keys.length ? x.keys[i]
+                                : Integer.MAX_VALUE;
+                        final int ky = j < y.keys.length ? y.keys[j]
+                                : Integer.MAX_VALUE;
+                        if (kx < ky) {
+                                if (op != AND)
+                                        length += x.decodeChunk(i, answer,
+                                                length);
+                                ++i;
+                        } else if (ky < kx) {
+                                if (op == OR)
+                                        length += y.decodeChunk(j, answer,
+                                                length);
+                                ++j;
+                        } else {
+                                length += combineChunks(x, i, y, j, op,
+                                        answer, length, bufferx, buffery,
+                                        words);
+                                ++i;
+                                ++j;
+                        }
+                }
+                return compress0(Arrays.copyOf(answer, length));
+        }
+
+        /**
+         * Combine two chunks with the same high bits.
+         *
+         * @return the number of values written
+         */
+        private static int combineChunks(HybridIntSet x, int cx,
+                HybridIntSet y, int cy, int op, int[] out, int outpos,
+                int[] bufferx, int[] buffery, int[] words) {
+                final boolean bx = x.types[cx] == HybridSetCODEC.BITMAP;
+                final boolean by = y.types[cy] == HybridSetCODEC.BITMAP;
+                final int base = x.keys[cx] << 16;
+                int o = outpos;
+                if (bx && by) {
+                        // word by word
+                        final int px = x.positions[cx];
+                        final int py = y.positions[cy];
+                        for (int w = 0; w < HybridSetCODEC.BITMAP_INTS; ++w)
+                                words[w] = op == AND ? x.data[px + w]
+                                        & y.data[py + w]
+                                        : op == OR ? x.data[px + w]
+                                                | y.data[py + w]
+                                                : x.data[px + w]
+                                                        & ~y.data[py + w];
+                        final int n = HybridSetCODEC.decodeLows(null, words,
+                                0, HybridSetCODEC.BITMAP, 0, out, o);
+                        for (int k = o; k < o + n; ++k)
+                                out[k] |= base;
+                        return n;
+                }
+                if ((op == OR) && (bx || by)) {
+                        // set the bits of the other container
+                        final HybridIntSet bitmap = bx ? x : y;
+                        final int p = bx ? x.positions[cx] : y.positions[cy];
+                        System.arraycopy(bitmap.data, p, words, 0,
+                                HybridSetCODEC.BITMAP_INTS);
+                        final int n = bx ? y.decodeChunk(cy, buffery, 0) : x
+                                .decodeChunk(cx, buffery, 0);
+                        for (int k = 0; k < n; ++k)
+                                words[(buffery[k] & 0xFFFF) >>> 5] |= 1 << buffery[k];
+                        final int m = HybridSetCODEC.decodeLows(null, words,
+                                0, HybridSetCODEC.BITMAP, 0, out, o);
+                        for (int k = o; k < o + m; ++k)
+                                out[k] |= base;
+                        return m;
+                }
+                if ((op == AND) && (by || (y.types[cy] == HybridSetCODEC.RUNS))) {
+                        // probe y for the values of x
+                        final int n = x.decodeChunk(cx, bufferx, 0);
+                        for (int k = 0; k < n; ++k)
+                                if (y.containsLow(cy, bufferx[k] & 0xFFFF))
+                                        out[o++] = bufferx[k];
+                        return o - outpos;
+                }
+                if ((op == AND) && (bx || (x.types[cx] == HybridSetCODEC.RUNS))) {
+                        final int n = y.decodeChunk(cy, buffery, 0);
+                        for (int k = 0; k < n; ++k)
+                                if (x.containsLow(cx, buffery[k] & 0xFFFF))
+                                        out[o++] = buffery[k];
+                        return o - outpos;
+                }
+                if ((op == ANDNOT) && (y.types[cy] != HybridSetCODEC.PACKED)) {
+                        final int n = x.decodeChunk(cx, bufferx, 0);
+                        for (int k = 0; k < n; ++k)
+                                if (!y.containsLow(cy, bufferx[k] & 0xFFFF))
+                                        out[o++] = bufferx[k];
+                        return o - outpos;
+                }
+                // merge the sorted values
+                final int nx = x.decodeChunk(cx, bufferx, 0);
+                final int ny = y.decodeChunk(cy, buffery, 0);
+                int i = 0, j = 0;
+                while ((i < nx) && (j < ny)) {
+                        if (bufferx[i] < buffery[j]) {
+                                if (op != AND)
+                                        out[o++] = bufferx[i];
+                                ++i;
+                        } else if (bufferx[i] > buffery[j]) {
+                                if (op == OR)
+                                        out[o++] = buffery[j];
+                                ++j;
+                        } else {
+                                if (op != ANDNOT)
+                                        out[o++] = bufferx[i];
+                                ++i;
+                                ++j;
+                        }
+                }
+                if (op != AND)
+                        while (i < nx)
+                                out[o++] = bufferx[i++];
+                if (op == OR)
+                        while (j < ny)
+                                out[o++] = buffery[j++];
+                return o - outpos;
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
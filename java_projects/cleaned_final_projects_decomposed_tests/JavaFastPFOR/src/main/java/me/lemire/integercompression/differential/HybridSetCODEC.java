@@ -0,0 +1,225 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.differential;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.IntegerCODEC;
+
+/**
+ * A codec for sets of integers (strictly increasing arrays) that adapts to
+ * their density. The values are split in chunks sharing their 16 high bits,
+ * and each chunk is stored in the smallest of three containers:
+ *
+ * <pre>
+ * BITMAP: one bit per possible value (2048 ints), for dense chunks
+ * PACKED: the 16 low bits of the values, differentially coded with
+ *         IntegratedBinaryPacking (and IntegratedVariableByte for the tail)
+ * RUNS:   one int per run of consecutive values, for clustered chunks
+ * </pre>
+ *
+ * Packed deltas need more than 2048 ints when a chunk holds more than a few
+ * thousand values with irregular gaps, while the bitmap never does: dense
+ * sets (facets, filters) stay small.
+ *
+ * Each chunk starts with two header ints: (high bits &lt;&lt; 16) |
+ * (cardinality - 1), then (container type &lt;&lt; 28) | length of the
+ * container in ints. The chunks follow the number of chunks. See
+ * HybridIntSet for membership tests and set operations on this format
+ * without uncompressing it.
+ *
+ * Only for sorted arrays of distinct values (in signed order): the input is
+ * checked and an IllegalArgumentException is thrown otherwise. This class
+ * is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public final class HybridSetCODEC implements IntegerCODEC {
+        /**
+         * Container type: one bit per possible value.
+         */
+        public final static int BITMAP = 0;
+        /**
+         * Container type: differentially coded low bits.
+         */
+        public final static int PACKED = 1;
+        /**
+         * Container type: runs of consecutive values.
+         */
+        public final static int RUNS = 2;
+
+        final static int CHUNK_SIZE = 1 << 16;
+        final static int BITMAP_INTS = CHUNK_SIZE / 32;
+        final static int HEADER_INTS = 2;
+
+        final IntegratedIntegerCODEC packer = new IntegratedComposition(
+                new IntegratedBinaryPacking(), new IntegratedVariableByte());
+        // working area: the low bits of a chunk
+        private final int[] lows = new int[CHUNK_SIZE];
+
+        @Override
+        public void compress0(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int countpos = outpos.get();
+                int tmpoutpos = countpos + 1;
+                int chunks = 0;
+                final int finalinpos = inpos.get() + inlength;
+                for (int s = inpos.get(); s < finalinpos; ++chunks) {
+                        final int key = in[s] >> 16;
+                        int n = 0;
+                        int runs = 0;
+                        int k = s;
+                        for (; (k < finalinpos) && ((in[k] >> 16) == key); ++k) {
+                                if ((k > s) && (in[k] <= in[k - 1]))
+                                        throw new IllegalArgumentException(
+                                                "Values must be strictly increasing, see index "
+                                                        + k);
+                                lows[n] = in[k] & 0xFFFF;
+                                if ((n == 0) || (lows[n] != lows[n - 1] + 1))
+                                        ++runs;
+                                ++n;
+                        }
+                        if ((k < finalinpos) && (in[k] <= in[k - 1]))
+                                throw new IllegalArgumentException(
+                                        "Values must be strictly increasing, see index "
+                                                + k);
+                        tmpoutpos = encodeChunk(key, n, runs, out, tmpoutpos);
+                        s = k;
+                }
+                out[countpos] = chunks;
+                inpos.set(finalinpos);
+                outpos.set(tmpoutpos);
+        }
+
+        /**
+         * Store the n values of lows in the smallest container.
+         *
+         * @return the end of the chunk
+         */
+        private int encodeChunk(int key, int n, int runs, int[] out,
+                int tmpoutpos) {
+                final int content = tmpoutpos + HEADER_INTS;
+                // the packed container is written in place, and overwritten
+                // if another one is smaller
+                IntWrapper packedend = new IntWrapper(content);
+                packer.compress0(lows, IntWrapper.IntWrapper1(), n, out,
+                        packedend);
+                final int packed = packedend.get() - content;
+                int type, length;
+                if (BITMAP_INTS <= Math.min(runs, packed)) {
+                        type = BITMAP;
+                        length = BITMAP_INTS;
+                        for (int k = 0; k < BITMAP_INTS; ++k)
+                                out[content + k] = 0;
+                        for (int k = 0; k < n; ++k)
+                                out[content + (lows[k] >>> 5)] |= 1 << lows[k];
+                } else if (runs <= packed) {
+                        type = RUNS;
+                        length = runs;
+                        int r = content;
+                        int start = lows[0];
+                        for (int k = 1; k <= n; ++k)
+                                if ((k == n) || (lows[k] != lows[k - 1] + 1)) {
+                                        out[r++] = (start << 16)
+                                                | (lows[k - 1] - start);
+                                        if (k < n)
+                                                start = lows[k];
+                                }
+                } else {
+                        type = PACKED;
+                        length = packed;
+                }
+                out[tmpoutpos] = (key << 16) | (n - 1);
+                out[tmpoutpos + 1] = (type << 28) | length;
+                return content + length;
+        }
+
+        @Override
+        public void uncompress0(int[] in, IntWrapper inpos, int inlength,
+                int[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                int tmpinpos = inpos.get();
+                int tmpoutpos = outpos.get();
+                final int chunks = in[tmpinpos++];
+                for (int c = 0; c < chunks; ++c) {
+                        final int base = in[tmpinpos] & 0xFFFF0000;
+                        final int type = in[tmpinpos + 1] >>> 28;
+                        final int length = in[tmpinpos + 1] & 0xFFFFFFF;
+                        tmpinpos += HEADER_INTS;
+                        final int n = decodeLows(packer, in, tmpinpos, type,
+                                length, out, tmpoutpos);
+                        for (int k = tmpoutpos; k < tmpoutpos + n; ++k)
+                                out[k] |= base;
+                        tmpoutpos += n;
+                        tmpinpos += length;
+                }
+                inpos.set(tmpinpos);
+                outpos.set(tmpoutpos);
+        }
+
+        /**
+         * Write the low bits of the values of a container, in increasing
+         * order.
+         *
+         * @return the number of values
+         */
+        static int decodeLows(IntegratedIntegerCODEC packer, int[] in,
+                int pos, int type, int length, int[] out, int outpos) {
+                int o = outpos;
+                if (type == BITMAP) {
+                        for (int w = 0; w < BITMAP_INTS; ++w) {
+                                int word = in[pos + w];
+                                while (word != 0) {
+                                        out[o++] = (w << 5)
+                                                + Integer.numberOfTrailingZeros(word);
+                                        word &= word - 1;
+                                }
+                        }
+                } else if (type == RUNS) {
+                        for (int r = pos; r < pos + length; ++r) {
+                                final int start = in[r] >>> 16;
+                                final int end = start + (in[r] & 0xFFFF);
+                                for (int v = start; v <= end; ++v)
+                                        out[o++] = v;
+                        }
+                } else {
+                        IntWrapper outwrapper = new IntWrapper(outpos);
+                        packer.uncompress0(in, new IntWrapper(pos), length,
+                                out, outwrapper);
+                        o = outwrapper.get();
+                }
+                return o - outpos;
+        }
+
+        /**
+         * @return whether the bitmap or runs container at pos holds low
+         */
+        static boolean containsLow(int[] in, int pos, int type, int length,
+                int low) {
+                if (type == BITMAP)
+                        return ((in[pos + (low >>> 5)] >>> low) & 1) != 0;
+                // last run starting at or before low
+                int lo = 0;
+                int hi = length - 1;
+                while (lo < hi) {
+                        final int mid = (lo + hi + 1) >>> 1;
+                        if ((in[pos + mid] >>> 16) <= low)
+                                lo = mid;
+                        else
+                                hi = mid - 1;
+                }
+                final int start = in[pos + lo] >>> 16;
+                return (start <= low) && (low <= start + (in[pos + lo] & 0xFFFF));
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
@@ -51,6 +51,32 @@ public class IntegratedBinaryPacking implements IntegratedIntegerCODEC,
 
     static final int BLOCK_SIZE = 32;
 
+    private static final String VECTOR_CLASS = "me.lemire.integercompression.vector.VectorIntegratedBinaryPacking";
+
+    /**
+     * Creates the fastest available version of this codec: an instance of
+     * VectorIntegratedBinaryPacking if the Vector API (jdk.incubator.vector)
+     * is available and the processor has 256-bit vectors or better, and an
+     * instance of IntegratedBinaryPacking otherwise. Both use the same
+     * format.
+     * 
+     * @return a new codec
+     */
+    public static IntegratedBinaryPacking fastest() {
+        try {
+            Class<?> c = Class.forName(VECTOR_CLASS);
+            if (((Boolean) c.getMethod("isSupported").invoke(null))
+                    .booleanValue())
+                return (IntegratedBinaryPacking) c.getDeclaredConstructor()
+                        .newInstance();
+        } catch (ReflectiveOperationException e) {
+            // the vector package is not part of this build
+        } catch (LinkageError e) {
+            // the jdk.incubator.vector module is missing
+        }
+        return new IntegratedBinaryPacking();
+    }
+
     @Override
     public void compress0(int[] in, IntWrapper inpos, int inlength, int[] out,
                           IntWrapper outpos) {
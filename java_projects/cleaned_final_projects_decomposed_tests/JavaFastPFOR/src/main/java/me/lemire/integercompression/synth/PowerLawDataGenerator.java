@@ -0,0 +1,135 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.synth;
+
+/**
+ * This class will generate posting lists whose lengths follow a power law, as
+ * in an inverted index: a few terms appear in most documents (long, dense
+ * lists) and most terms appear in a handful of documents (short, sparse
+ * lists). The documents of each list are drawn uniformly.
+ * 
+ * @author Daniel Lemire
+ */
+public class PowerLawDataGenerator {
+
+        UniformDataGenerator unidg;
+
+        /**
+         * @param seed
+         *                random seed
+         */
+        public PowerLawDataGenerator(final int seed) {
+                this.unidg = new UniformDataGenerator(0, seed);
+        }
+
+        /**
+         * generates count lengths from 1 to maxLength, the length L having
+         * a probability proportional to 1 / L^alpha.
+         * 
+         * @param count
+         *                number of lengths to generate
+         * @param alpha
+         *                exponent of the power law (larger than 1, typically
+         *                around 1.5)
+         * @param maxLength
+         *                largest possible length
+         * @return array containing the lengths
+         */
+        public int[] generateLengths(int count, double alpha, int maxLength) {
+                if (alpha <= 1)
+                        throw new IllegalArgumentException("alpha must be larger than 1");
+                int[] ans = new int[count];
+                for (int k = 0; k < count; ++k)
+                        ans[k] = nextLength(alpha, maxLength);
+                return ans;
+        }
+
+        int nextLength(double alpha, int maxLength) {
+                // inverse of the continuous distribution
+                final double l = Math.pow(1 - this.unidg.rand.nextDouble(),
+                        -1 / (alpha - 1));
+                return (int) Math.min(maxLength, Math.floor(l));
+        }
+
+        /**
+         * generates count posting lists: lists of distinct sorted integers
+         * from 0 to universe, with power-law lengths.
+         * 
+         * @param count
+         *                number of lists to generate
+         * @param alpha
+         *                exponent of the power law (larger than 1)
+         * @param universe
+         *                bound on the value of integers (the number of
+         *                documents), also the largest possible length
+         * @return the lists
+         */
+        public int[][] generatePostingLists(int count, double alpha,
+                int universe) {
+                int[] lengths = generateLengths(count, alpha, universe);
+                int[][] ans = new int[count][];
+                for (int k = 0; k < count; ++k)
+                        ans[k] = this.unidg.generateUniform(lengths[k], universe);
+                return ans;
+        }
+
+        /**
+         * generates N distinct sorted integers by concatenating posting
+         * lists with power-law lengths, as they are stored one after the
+         * other in an inverted index. The k lists needed to reach N integers
+         * each get their own range of Max / k integers (or more, for a list
+         * longer than that), so the integers are smaller than N + Max. Once
+         * differentially coded, the gaps mix the small gaps of the long lists
+         * and the large gaps of the short ones.
+         * 
+         * @param N
+         *                number of integers to generate
+         * @param alpha
+         *                exponent of the power law (larger than 1)
+         * @param maxLength
+         *                largest possible length of a list
+         * @param Max
+         *                approximate bound on the value of integers
+         * @return array containing the integers
+         */
+        public int[] generateConcatenatedPostingLists(int N, double alpha,
+                int maxLength, int Max) {
+                if ((long) N + Max > Integer.MAX_VALUE)
+                        throw new IllegalArgumentException("not possible");
+                int[] lengths = new int[N];
+                int lists = 0;
+                for (int total = 0; total < N; total += lengths[lists++])
+                        lengths[lists] = Math.min(N - total,
+                                nextLength(alpha, maxLength));
+                final int range = Math.max(1, Max / lists);
+                int[] ans = new int[N];
+                int pos = 0;
+                int offset = 0;
+                for (int k = 0; k < lists; ++k) {
+                        final int universe = Math.max(lengths[k], range);
+                        for (int v : this.unidg.generateUniform(lengths[k],
+                                universe))
+                                ans[pos++] = offset + v;
+                        offset += universe;
+                }
+                return ans;
+        }
+
+        /**
+         * Little test program.
+         * 
+         * @param args
+         *                arguments are ignored
+         */
+        public static void main(final String[] args) {
+                int[] example = (new PowerLawDataGenerator(0)).generateLengths(
+                        20, 1.5, 1000);
+                for (int k = 0; k < example.length; ++k)
+                        System.out.println(example[k]);
+        }
+
+}
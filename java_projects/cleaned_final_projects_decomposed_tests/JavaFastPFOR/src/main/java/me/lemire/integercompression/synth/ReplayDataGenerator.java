@@ -0,0 +1,114 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ * 
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.synth;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class will generate sorted lists of integers by replaying the gaps of
+ * a real data set, so that codecs can be compared on production data. The
+ * file is in the default input format of BenchmarkCSV (one array per line,
+ * the integers separated by commas or semicolons), except that the integers
+ * are gaps (differences between successive values). They are read in order
+ * from the first line to the last.
+ * 
+ * @author Daniel Lemire
+ */
+public class ReplayDataGenerator {
+
+        final int[] gaps;
+        int position;
+
+        /**
+         * @param gaps
+         *                the gaps to replay, none of them negative
+         */
+        public ReplayDataGenerator(int[] gaps) {
+                if (gaps.length == 0)
+                        throw new IllegalArgumentException("no gap to replay");
+                for (int g : gaps)
+                        if (g < 0)
+                                throw new IllegalArgumentException(
+                                        "negative gap: " + g);
+                this.gaps = gaps;
+        }
+
+        /**
+         * Load the gaps of a file.
+         * 
+         * @param filename
+         *                file in the format of BenchmarkCSV (one array per
+         *                line)
+         * @return the gaps of all lines, one after the other
+         * @throws IOException
+         *                 when the file cannot be read
+         */
+        public static int[] load(String filename) throws IOException {
+                int[] answer = new int[1024];
+                int size = 0;
+                BufferedReader br = new BufferedReader(new FileReader(filename));
+                try {
+                        String s;
+                        while ((s = br.readLine()) != null) {
+                                for (String number : s.split("[,;]")) {
+                                        number = number.trim();
+                                        if (number.isEmpty())
+                                                continue;
+                                        if (size == answer.length)
+                                                answer = Arrays.copyOf(answer,
+                                                        2 * size);
+                                        answer[size++] = Integer.parseInt(number);
+                                }
+                        }
+                } finally {
+                        br.close();
+                }
+                return Arrays.copyOf(answer, size);
+        }
+
+        /**
+         * generates N sorted integers, starting at 0, with the next N - 1
+         * gaps of the data set. The gaps are used in turn, starting over
+         * from the first one when all of them have been used, so that
+         * successive arrays differ.
+         * 
+         * @param N
+         *                number of integers to generate
+         * @return array containing the integers
+         */
+        public int[] generateReplay(int N) {
+                int[] ans = new int[N];
+                for (int k = 1; k < N; ++k) {
+                        final long v = (long) ans[k - 1] + gaps[position];
+                        if (v > Integer.MAX_VALUE)
+                                throw new IllegalArgumentException(
+                                        "the gaps overflow 32-bit integers");
+                        ans[k] = (int) v;
+                        position = (position + 1) % gaps.length;
+                }
+                return ans;
+        }
+
+        /**
+         * Little test program.
+         * 
+         * @param args
+         *                a gap file
+         * @throws IOException
+         *                 when the file cannot be read
+         */
+        public static void main(final String[] args) throws IOException {
+                int[] example = (new ReplayDataGenerator(load(args[0])))
+                        .generateReplay(20);
+                for (int k = 0; k < example.length; ++k)
+                        System.out.println(example[k]);
+        }
+
+}
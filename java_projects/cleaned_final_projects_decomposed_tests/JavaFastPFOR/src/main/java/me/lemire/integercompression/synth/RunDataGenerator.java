@@ -0,0 +1,72 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.synth;
+
+import java.util.Random;
+
+/**
+ * This class will generate sorted lists of integers made of runs of
+ * consecutive integers separated by jumps, as row ids selected by a range
+ * predicate or the documents of a crawl-ordered site. Once differentially
+ * coded, most gaps are 1.
+ * 
+ * @author Daniel Lemire
+ */
+public class RunDataGenerator {
+
+        Random rand;
+
+        /**
+         * @param seed
+         *                random seed
+         */
+        public RunDataGenerator(final int seed) {
+                this.rand = new Random(seed);
+        }
+
+        /**
+         * generates N distinct sorted integers, starting at 0, in runs of
+         * consecutive integers. The run lengths are geometric with mean
+         * meanRunLength, and the jumps between two runs are uniform from 2 to
+         * maxJump.
+         * 
+         * @param N
+         *                number of integers to generate
+         * @param meanRunLength
+         *                average length of a run
+         * @param maxJump
+         *                largest gap between two runs (at least 2)
+         * @return array containing the integers
+         */
+        public int[] generateRuns(int N, int meanRunLength, int maxJump) {
+                if ((meanRunLength < 1) || (maxJump < 2))
+                        throw new IllegalArgumentException("not possible");
+                if ((long) N * maxJump > Integer.MAX_VALUE)
+                        throw new IllegalArgumentException("not possible");
+                final double p = 1.0 / meanRunLength;
+                int[] ans = new int[N];
+                for (int k = 1; k < N; ++k)
+                        ans[k] = ans[k - 1]
+                                + (this.rand.nextDouble() < p ? 2 + this.rand
+                                        .nextInt(maxJump - 1) : 1);
+                return ans;
+        }
+
+        /**
+         * Little test program.
+         * 
+         * @param args
+         *                arguments are ignored
+         */
+        public static void main(final String[] args) {
+                int[] example = (new RunDataGenerator(0)).generateRuns(20, 5,
+                        1000);
+                for (int k = 0; k < example.length; ++k)
+                        System.out.println(example[k]);
+        }
+
+}
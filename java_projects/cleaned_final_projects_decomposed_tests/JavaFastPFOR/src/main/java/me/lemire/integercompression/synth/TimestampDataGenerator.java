@@ -0,0 +1,74 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.synth;
+
+import java.util.Random;
+
+/**
+ * This class will generate increasing timestamps taken at a regular period
+ * with some jitter, as the time column of a metrics or event log. Once
+ * differentially coded, the gaps are all close to the period.
+ * 
+ * @author Daniel Lemire
+ */
+public class TimestampDataGenerator {
+
+        Random rand;
+
+        /**
+         * @param seed
+         *                random seed
+         */
+        public TimestampDataGenerator(final int seed) {
+                this.rand = new Random(seed);
+        }
+
+        /**
+         * generates N strictly increasing timestamps. Each gap is the period
+         * plus a uniform jitter from -jitter to jitter (but at least 1).
+         * 
+         * @param N
+         *                number of timestamps to generate
+         * @param start
+         *                first timestamp
+         * @param period
+         *                average gap between two timestamps
+         * @param jitter
+         *                largest deviation from the period
+         * @return array containing the timestamps
+         */
+        public int[] generateTimestamps(int N, int start, int period,
+                int jitter) {
+                if ((period < 1) || (jitter < 0))
+                        throw new IllegalArgumentException("not possible");
+                if (start + (long) N * (period + jitter) > Integer.MAX_VALUE)
+                        throw new IllegalArgumentException("not possible");
+                int[] ans = new int[N];
+                if (N == 0)
+                        return ans;
+                ans[0] = start;
+                for (int k = 1; k < N; ++k)
+                        ans[k] = ans[k - 1]
+                                + Math.max(1, period - jitter
+                                        + this.rand.nextInt(2 * jitter + 1));
+                return ans;
+        }
+
+        /**
+         * Little test program.
+         * 
+         * @param args
+         *                arguments are ignored
+         */
+        public static void main(final String[] args) {
+                int[] example = (new TimestampDataGenerator(0))
+                        .generateTimestamps(20, 1000000, 60, 5);
+                for (int k = 0; k < example.length; ++k)
+                        System.out.println(example[k]);
+        }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.synth;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class will generate sorted lists of integers whose successive gaps
+ * follow a Zipfian distribution: the gap k (from 1 to maxGap) has probability
+ * proportional to 1 / k^exponent. Most gaps are small, a few are large, as in
+ * the posting lists of frequent terms.
+ * 
+ * @author Daniel Lemire
+ */
+public class ZipfianDataGenerator {
+
+        Random rand;
+
+        // cumulative distribution of the last (exponent, maxGap) pair
+        double[] cdf = new double[0];
+        double cdfExponent;
+
+        /**
+         * @param seed
+         *                random seed
+         */
+        public ZipfianDataGenerator(final int seed) {
+                this.rand = new Random(seed);
+        }
+
+        int nextGap(double exponent, int maxGap) {
+                if ((cdf.length != maxGap) || (cdfExponent != exponent)) {
+                        cdf = new double[maxGap];
+                        cdfExponent = exponent;
+                        double sum = 0;
+                        for (int k = 0; k < maxGap; ++k)
+                                cdf[k] = sum += 1 / Math.pow(k + 1, exponent);
+                        for (int k = 0; k < maxGap; ++k)
+                                cdf[k] /= sum;
+                }
+                int i = Arrays.binarySearch(cdf, this.rand.nextDouble());
+                if (i < 0)
+                        i = -i - 1;
+                return Math.min(i, maxGap - 1) + 1;
+        }
+
+        /**
+         * generates N distinct sorted integers, starting at 0, with Zipfian
+         * gaps.
+         * 
+         * @param N
+         *                number of integers to generate
+         * @param exponent
+         *                exponent of the distribution (typically between 1
+         *                and 2: the larger, the smaller the gaps)
+         * @param maxGap
+         *                largest possible gap
+         * @return array containing the integers
+         */
+        public int[] generateZipfian(int N, double exponent, int maxGap) {
+                if (maxGap < 1)
+                        throw new IllegalArgumentException("maxGap must be positive");
+                if ((long) (N - 1) * maxGap > Integer.MAX_VALUE)
+                        throw new IllegalArgumentException("not possible");
+                int[] ans = new int[N];
+                for (int k = 1; k < N; ++k)
+                        ans[k] = ans[k - 1] + nextGap(exponent, maxGap);
+                return ans;
+        }
+
+        /**
+         * Little test program.
+         * 
+         * @param args
+         *                arguments are ignored
+         */
+        public static void main(final String[] args) {
+                int[] example = (new ZipfianDataGenerator(0)).generateZipfian(
+                        20, 1.2, 1000);
+                for (int k = 0; k < example.length; ++k)
+                        System.out.println(example[k]);
+        }
+
+}
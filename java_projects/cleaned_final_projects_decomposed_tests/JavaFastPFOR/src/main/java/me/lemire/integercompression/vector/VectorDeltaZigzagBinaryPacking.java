@@ -0,0 +1,206 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.vector;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.IntegerCODEC;
+import me.lemire.integercompression.SkippableIntegerCODEC;
+import me.lemire.integercompression.Util;
+
+/**
+ * BinaryPacking with Delta+Zigzag Encoding, for signed integers that are not
+ * sorted (counters, sensor readings...). The differences between successive
+ * integers are zigzag encoded ((d &lt;&lt; 1) ^ (d &gt;&gt; 31)) so that
+ * small negative differences use few bits, and then bit packed with
+ * VectorBitPacker. Both steps use the Vector API, 8 or 16 integers at a time.
+ *
+ * It encodes integers in blocks of 256 integers, each preceded by its bit
+ * width. The format differs from DeltaZigzagBinaryPacking (blocks of 128
+ * integers, scalar bit packing). For arrays containing an arbitrary number
+ * of integers, you should use it in conjunction with another CODEC:
+ *
+ * <pre>
+ * IntegerCODEC ic = new Composition(new VectorDeltaZigzagBinaryPacking(),
+ *                 new DeltaZigzagVariableByte())
+ * </pre>
+ *
+ * For multi-threaded applications, each thread should use its own
+ * VectorDeltaZigzagBinaryPacking object.
+ *
+ * @author Daniel Lemire
+ */
+public class VectorDeltaZigzagBinaryPacking
+    implements IntegerCODEC, SkippableIntegerCODEC {
+  // VectorBitPacker uses 512-bit vectors for even bit widths and 256-bit
+  // vectors for odd ones: the zigzag transform writes and reads the packed
+  // integers with the same shape, to avoid store-to-load forwarding stalls.
+  // Each shape has its own methods because the Vector API only compiles
+  // operations on a constant species to vector instructions.
+  private static final VectorSpecies<Integer> SPECIES_512 =
+      IntVector.SPECIES_512;
+  private static final VectorSpecies<Integer> SPECIES_256 =
+      IntVector.SPECIES_256;
+  private static final int VLEN_512 = 16;
+  private static final int VLEN_256 = 8;
+  public final static int BLOCK_SIZE = 256;
+  private final static int INTS_PER_BLOCK = BLOCK_SIZE >>> 5;
+
+  // working area for compression
+  private final int[] work = new int[BLOCK_SIZE];
+
+  @Override
+  public void compress0(int[] in, IntWrapper inpos, int inlength, int[] out,
+                        IntWrapper outpos) {
+    inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+    if (inlength == 0)
+      return;
+    out[outpos.get()] = inlength;
+    outpos.increment();
+    headlessCompress(in, inpos, inlength, out, outpos);
+  }
+
+  @Override
+  public void uncompress0(int[] in, IntWrapper inpos, int inlength, int[] out,
+                          IntWrapper outpos) {
+    if (inlength == 0)
+      return;
+    final int outlength = in[inpos.get()];
+    inpos.increment();
+    headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+  }
+
+  @Override
+  public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+                               int[] out, IntWrapper outpos) {
+    inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+    int tmpoutpos = outpos.get();
+    int context = 0;
+    final int end = inpos.get() + inlength;
+    for (int s = inpos.get(); s < end; s += BLOCK_SIZE) {
+      final int mbits = maxbits(context, in, s);
+      if ((mbits & 1) == 0)
+        encode512(context, in, s);
+      else
+        encode256(context, in, s);
+      out[tmpoutpos++] = mbits;
+      VectorBitPacker.fastpackNoMask(work, 0, out, tmpoutpos, mbits);
+      tmpoutpos += INTS_PER_BLOCK * mbits;
+      context = in[s + BLOCK_SIZE - 1];
+    }
+    inpos.add(inlength);
+    outpos.set(tmpoutpos);
+  }
+
+  /**
+   * @return the number of bits needed to store the zigzag encoded
+   * differences of 256 integers
+   */
+  private static int maxbits(int context, int[] in, int pos) {
+    // 256-bit vectors: measured faster than 512-bit ones here, whatever the
+    // shape of the next step. First vector: the previous value of lane 0 is
+    // the context
+    IntVector v = IntVector.fromArray(SPECIES_256, in, pos);
+    IntVector acc = zigzag(v.sub(v.unslice(1).withLane(0, context)));
+    for (int k = VLEN_256; k < BLOCK_SIZE; k += VLEN_256)
+      acc = acc.or(zigzag(IntVector.fromArray(SPECIES_256, in, pos + k)
+                              .sub(IntVector.fromArray(SPECIES_256, in,
+                                                       pos + k - 1))));
+    return Util.bits(acc.reduceLanes(VectorOperators.OR));
+  }
+
+  /**
+   * Writes the zigzag encoded differences of 256 integers to work.
+   */
+  private void encode512(int context, int[] in, int pos) {
+    IntVector v = IntVector.fromArray(SPECIES_512, in, pos);
+    zigzag(v.sub(v.unslice(1).withLane(0, context))).intoArray(work, 0);
+    for (int k = VLEN_512; k < BLOCK_SIZE; k += VLEN_512)
+      zigzag(IntVector.fromArray(SPECIES_512, in, pos + k)
+                 .sub(IntVector.fromArray(SPECIES_512, in, pos + k - 1)))
+          .intoArray(work, k);
+  }
+
+  private void encode256(int context, int[] in, int pos) {
+    IntVector v = IntVector.fromArray(SPECIES_256, in, pos);
+    zigzag(v.sub(v.unslice(1).withLane(0, context))).intoArray(work, 0);
+    for (int k = VLEN_256; k < BLOCK_SIZE; k += VLEN_256)
+      zigzag(IntVector.fromArray(SPECIES_256, in, pos + k)
+                 .sub(IntVector.fromArray(SPECIES_256, in, pos + k - 1)))
+          .intoArray(work, k);
+  }
+
+  private static IntVector zigzag(IntVector d) {
+    return d.lanewise(VectorOperators.LSHL, 1)
+        .lanewise(VectorOperators.XOR, d.lanewise(VectorOperators.ASHR, 31));
+  }
+
+  private static IntVector unzigzag(IntVector z) {
+    return z.lanewise(VectorOperators.LSHR, 1)
+        .lanewise(VectorOperators.XOR, z.and(1).neg());
+  }
+
+  @Override
+  public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+                                 int[] out, IntWrapper outpos, int num) {
+    final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+    int tmpinpos = inpos.get();
+    int context = 0;
+    final int end = outpos.get() + outlength;
+    for (int s = outpos.get(); s < end; s += BLOCK_SIZE) {
+      final int mbits = in[tmpinpos++];
+      VectorBitPacker.fastunpack(in, tmpinpos, out, s, mbits);
+      tmpinpos += INTS_PER_BLOCK * mbits;
+      context = (mbits & 1) == 0 ? decode512(context, out, s)
+                                 : decode256(context, out, s);
+    }
+    outpos.add(outlength);
+    inpos.set(tmpinpos);
+  }
+
+  /**
+   * In-place zigzag decoding and prefix sum of 256 integers, starting from
+   * the context.
+   *
+   * @return the last value
+   */
+  private static int decode512(int context, int[] data, int pos) {
+    int carry = context;
+    for (int k = 0; k < BLOCK_SIZE; k += VLEN_512) {
+      IntVector v = unzigzag(IntVector.fromArray(SPECIES_512, data, pos + k));
+      v = v.add(v.unslice(1));
+      v = v.add(v.unslice(2));
+      v = v.add(v.unslice(4));
+      v = v.add(v.unslice(8));
+      v = v.add(carry);
+      v.intoArray(data, pos + k);
+      carry = v.lane(VLEN_512 - 1);
+    }
+    return carry;
+  }
+
+  private static int decode256(int context, int[] data, int pos) {
+    int carry = context;
+    for (int k = 0; k < BLOCK_SIZE; k += VLEN_256) {
+      IntVector v = unzigzag(IntVector.fromArray(SPECIES_256, data, pos + k));
+      v = v.add(v.unslice(1));
+      v = v.add(v.unslice(2));
+      v = v.add(v.unslice(4));
+      v = v.add(carry);
+      v.intoArray(data, pos + k);
+      carry = v.lane(VLEN_256 - 1);
+    }
+    return carry;
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName();
+  }
+}
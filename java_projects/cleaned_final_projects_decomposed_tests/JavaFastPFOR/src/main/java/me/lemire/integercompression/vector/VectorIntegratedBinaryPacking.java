@@ -0,0 +1,157 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.vector;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import me.lemire.integercompression.BitPacking;
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.Util;
+import me.lemire.integercompression.differential.IntegratedBinaryPacking;
+
+/**
+ * Vectorized version of IntegratedBinaryPacking: the differential coding
+ * (on compression) and the prefix sum (on decompression) are computed with
+ * the Vector API, 8 or 16 integers at a time. The format is the same as
+ * IntegratedBinaryPacking, so data compressed with one can be uncompressed
+ * with the other.
+ *
+ * You should only use this scheme on sorted arrays. The Vector API is an
+ * incubating feature: IntegratedBinaryPacking.fastest() returns this codec
+ * when it is supported, and IntegratedBinaryPacking otherwise.
+ *
+ * <pre>
+ * IntegratedIntegerCODEC is =
+ * new IntegratedComposition(new VectorIntegratedBinaryPacking(),
+ * new IntegratedVariableByte())
+ * </pre>
+ *
+ * @author Daniel Lemire
+ */
+public class VectorIntegratedBinaryPacking extends IntegratedBinaryPacking {
+  private static final VectorSpecies<Integer> SPECIES =
+      IntVector.SPECIES_PREFERRED.length() >= 16 ? IntVector.SPECIES_512
+                                                 : IntVector.SPECIES_256;
+  private static final int VLEN = SPECIES.length();
+  private static final int BLOCK_SIZE = 32;
+
+  // working area for compression
+  private final int[] deltas = new int[BLOCK_SIZE];
+
+  /**
+   * @return whether the hardware has 256-bit (or wider) integer vectors,
+   * without which this class would be slower than IntegratedBinaryPacking
+   */
+  public static boolean isSupported() {
+    return IntVector.SPECIES_PREFERRED.vectorBitSize() >= 256;
+  }
+
+  @Override
+  public void headlessCompress(int[] in, IntWrapper inpos, int inlength,
+                               int[] out, IntWrapper outpos,
+                               IntWrapper initvalue) {
+    inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+    if (inlength == 0)
+      return;
+    int tmpoutpos = outpos.get();
+    int initoffset = initvalue.get();
+    initvalue.set(in[inpos.get() + inlength - 1]);
+    int s = inpos.get();
+    final int end = inpos.get() + inlength;
+    for (; s + BLOCK_SIZE * 4 - 1 < end; s += BLOCK_SIZE * 4) {
+      final int headerpos = tmpoutpos++;
+      int header = 0;
+      for (int k = 0; k < 4; ++k) {
+        final int mbits = delta(initoffset, in, s + k * BLOCK_SIZE);
+        header |= mbits << (24 - 8 * k);
+        BitPacking.fastpackwithoutmask(deltas, 0, out, tmpoutpos, mbits);
+        tmpoutpos += mbits;
+        initoffset = in[s + k * BLOCK_SIZE + BLOCK_SIZE - 1];
+      }
+      out[headerpos] = header;
+    }
+    for (; s < end; s += BLOCK_SIZE) {
+      final int mbits = delta(initoffset, in, s);
+      out[tmpoutpos++] = mbits;
+      BitPacking.fastpackwithoutmask(deltas, 0, out, tmpoutpos, mbits);
+      tmpoutpos += mbits;
+      initoffset = in[s + BLOCK_SIZE - 1];
+    }
+    inpos.add(inlength);
+    outpos.set(tmpoutpos);
+  }
+
+  /**
+   * Writes the differences of 32 integers to deltas.
+   *
+   * @return the number of bits needed to store the differences
+   */
+  private int delta(int initoffset, int[] in, int pos) {
+    // first vector: the previous value of lane 0 is initoffset
+    IntVector v = IntVector.fromArray(SPECIES, in, pos);
+    IntVector prev = v.unslice(1).withLane(0, initoffset);
+    IntVector d = v.sub(prev);
+    IntVector acc = d;
+    d.intoArray(deltas, 0);
+    for (int k = VLEN; k < BLOCK_SIZE; k += VLEN) {
+      d = IntVector.fromArray(SPECIES, in, pos + k)
+              .sub(IntVector.fromArray(SPECIES, in, pos + k - 1));
+      acc = acc.or(d);
+      d.intoArray(deltas, k);
+    }
+    return Util.bits(acc.reduceLanes(VectorOperators.OR));
+  }
+
+  @Override
+  public void headlessUncompress(int[] in, IntWrapper inpos, int inlength,
+                                 int[] out, IntWrapper outpos, int num,
+                                 IntWrapper initvalue) {
+    final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+    int tmpinpos = inpos.get();
+    int initoffset = initvalue.get();
+    int s = outpos.get();
+    final int end = outpos.get() + outlength;
+    for (; s + BLOCK_SIZE * 4 - 1 < end; s += BLOCK_SIZE * 4) {
+      final int header = in[tmpinpos++];
+      for (int k = 0; k < 4; ++k) {
+        final int mbits = (header >>> (24 - 8 * k)) & 0xFF;
+        BitPacking.fastunpack(in, tmpinpos, out, s + k * BLOCK_SIZE, mbits);
+        tmpinpos += mbits;
+        initoffset = prefixSum(initoffset, out, s + k * BLOCK_SIZE);
+      }
+    }
+    for (; s < end; s += BLOCK_SIZE) {
+      final int mbits = in[tmpinpos++];
+      BitPacking.fastunpack(in, tmpinpos, out, s, mbits);
+      tmpinpos += mbits;
+      initoffset = prefixSum(initoffset, out, s);
+    }
+    outpos.add(outlength);
+    initvalue.set(initoffset);
+    inpos.set(tmpinpos);
+  }
+
+  /**
+   * In-place prefix sum of 32 integers, starting from initoffset.
+   *
+   * @return the last value
+   */
+  private static int prefixSum(int initoffset, int[] data, int pos) {
+    int carry = initoffset;
+    for (int k = 0; k < BLOCK_SIZE; k += VLEN) {
+      IntVector v = IntVector.fromArray(SPECIES, data, pos + k);
+      // log2(VLEN) shift-and-add steps
+      for (int shift = 1; shift < VLEN; shift <<= 1)
+        v = v.add(v.unslice(shift));
+      v = v.add(carry);
+      v.intoArray(data, pos + k);
+      carry = v.lane(VLEN - 1);
+    }
+    return carry;
+  }
+}
@@ -0,0 +1,39 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.integercompression.vector;
+
+import java.util.concurrent.ForkJoinPool;
+import me.lemire.integercompression.ParallelFastPFOR;
+import me.lemire.integercompression.SkippableIntegerCODEC;
+
+/**
+ * Multi-threaded version of VectorFastPFOR: see ParallelFastPFOR. Once the
+ * page directory is skipped, the data can be uncompressed by VectorFastPFOR.
+ *
+ * @author Daniel Lemire
+ */
+public class VectorParallelFastPFOR extends ParallelFastPFOR {
+  /**
+   * Construct a parallel VectorFastPFOR CODEC.
+   *
+   * @param pool
+   *                where the pages are processed
+   */
+  public VectorParallelFastPFOR(ForkJoinPool pool) {
+    super(VectorFastPFOR.BLOCK_SIZE, VectorFastPFOR.DEFAULT_PAGE_SIZE, pool);
+  }
+
+  /**
+   * Construct a parallel VectorFastPFOR CODEC using the common pool.
+   */
+  public VectorParallelFastPFOR() { this(ForkJoinPool.commonPool()); }
+
+  @Override
+  protected SkippableIntegerCODEC newPageCodec() {
+    return new VectorFastPFOR();
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression;
+
+import java.util.Arrays;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.UncompressibleInputException;
+import me.lemire.longcompression.differential.LongXorBinaryPacking;
+
+/**
+ * Lossless compression of double and float arrays: the bits of the values
+ * (as given by Double.doubleToRawLongBits and Float.floatToRawIntBits) are
+ * compressed with a long codec, LongXorBinaryPacking by default. NaN
+ * payloads and negative zeros are preserved.
+ *
+ * <pre>
+ * FloatingPointCompressor fpc = FloatingPointCompressor.FloatingPointCompressor1();
+ * long[] compressed = fpc.compressDoubles(values);
+ * double[] recovered = fpc.uncompressDoubles(compressed);
+ * </pre>
+ *
+ * As with IntCompressor, the first long of the compressed data is the
+ * number of values. This class is not thread-safe.
+ *
+ * @author Daniel Lemire
+ */
+public class FloatingPointCompressor {
+        final SkippableLongCODEC codec;
+
+        /**
+         * Constructor.
+         *
+         * @param c
+         *                the underlying codec; it must accept arrays of any
+         *                length
+         */
+        public FloatingPointCompressor(SkippableLongCODEC c) {
+                codec = c;
+        }
+
+        /**
+         * Constructor using LongXorBinaryPacking.
+         *
+         * @return a new compressor
+         */
+        public static FloatingPointCompressor FloatingPointCompressor1() {
+                return new FloatingPointCompressor(new LongXorBinaryPacking());
+        }
+
+        /**
+         * Compress an array of doubles.
+         *
+         * @param input
+         *                the values
+         * @return the compressed data
+         */
+        public long[] compressDoubles(double[] input) {
+                long[] bits = new long[input.length];
+                for (int k = 0; k < input.length; ++k)
+                        bits[k] = Double.doubleToRawLongBits(input[k]);
+                return compress(bits);
+        }
+
+        /**
+         * Uncompress an array of doubles.
+         *
+         * @param compressed
+         *                the output of compressDoubles
+         * @return the values
+         */
+        public double[] uncompressDoubles(long[] compressed) {
+                long[] bits = uncompress(compressed);
+                double[] answer = new double[bits.length];
+                for (int k = 0; k < bits.length; ++k)
+                        answer[k] = Double.longBitsToDouble(bits[k]);
+                return answer;
+        }
+
+        /**
+         * Compress an array of floats.
+         *
+         * @param input
+         *                the values
+         * @return the compressed data
+         */
+        public long[] compressFloats(float[] input) {
+                long[] bits = new long[input.length];
+                for (int k = 0; k < input.length; ++k)
+                        bits[k] = Float.floatToRawIntBits(input[k]) & 0xFFFFFFFFL;
+                return compress(bits);
+        }
+
+        /**
+         * Uncompress an array of floats.
+         *
+         * @param compressed
+         *                the output of compressFloats
+         * @return the values
+         */
+        public float[] uncompressFloats(long[] compressed) {
+                long[] bits = uncompress(compressed);
+                float[] answer = new float[bits.length];
+                for (int k = 0; k < bits.length; ++k)
+                        answer[k] = Float.intBitsToFloat((int) bits[k]);
+                return answer;
+        }
+
+        private long[] compress(long[] input) {
+                // room for block headers and for the padding of the last block
+                long[] compressed = new long[input.length + input.length / 16
+                        + 1024];
+                compressed[0] = input.length;
+                IntWrapper outpos = new IntWrapper(1);
+                try {
+                        codec.headlessCompress(input, new IntWrapper(0),
+                                input.length, compressed, outpos);
+                } catch (IndexOutOfBoundsException ioebe) {
+                        throw new UncompressibleInputException(
+                                "Your input is too poorly compressible "
+                                        + "with the current codec : " + codec);
+                }
+                return Arrays.copyOf(compressed, outpos.get());
+        }
+
+        private long[] uncompress(long[] compressed) {
+                long[] decompressed = new long[(int) compressed[0]];
+                IntWrapper inpos = new IntWrapper(1);
+                codec.headlessUncompress(compressed, inpos, compressed.length
+                        - inpos.get(), decompressed, new IntWrapper(0),
+                        decompressed.length);
+                return decompressed;
+        }
+
+        @Override
+        public String toString() {
+                return getClass().getSimpleName();
+        }
+}
@@ -0,0 +1,133 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.Util;
+
+/**
+ * 64-bit version of BinaryPacking: longs are bit-packed in blocks of 64,
+ * each block using the bit width of its largest value. It encodes longs in
+ * blocks of 64 longs. For arrays containing an arbitrary number of longs, you
+ * should use it in conjunction with another CODEC:
+ *
+ * <pre>
+ * LongCODEC lc = new LongComposition(new LongBinaryPacking(),
+ *         new LongVariableByte());
+ * </pre>
+ *
+ * Note that this does not use differential coding: if you are working on
+ * sorted lists, use LongIntegratedBinaryPacking instead.
+ *
+ * @author Daniel Lemire
+ */
+public final class LongBinaryPacking implements LongCODEC, SkippableLongCODEC {
+        final static int BLOCK_SIZE = LongBitPacking.BLOCK_SIZE;
+
+        @Override
+        public void compress0(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                inlength = Util.greatestMultiple(inlength, BLOCK_SIZE);
+                int tmpoutpos = outpos.get();
+                int s = inpos.get();
+                final int end = inpos.get() + inlength;
+                for (; s + BLOCK_SIZE * 4 - 1 < end; s += BLOCK_SIZE * 4) {
+                        final int mbits1 = LongBitPacking.maxbits(in, s,
+                                BLOCK_SIZE);
+                        final int mbits2 = LongBitPacking.maxbits(in, s
+                                + BLOCK_SIZE, BLOCK_SIZE);
+                        final int mbits3 = LongBitPacking.maxbits(in, s + 2
+                                * BLOCK_SIZE, BLOCK_SIZE);
+                        final int mbits4 = LongBitPacking.maxbits(in, s + 3
+                                * BLOCK_SIZE, BLOCK_SIZE);
+                        out[tmpoutpos++] = (mbits1 << 24) | (mbits2 << 16)
+                                | (mbits3 << 8) | (mbits4);
+                        LongBitPacking.fastpackwithoutmask(in, s, out,
+                                tmpoutpos, mbits1);
+                        tmpoutpos += mbits1;
+                        LongBitPacking.fastpackwithoutmask(in, s + BLOCK_SIZE,
+                                out, tmpoutpos, mbits2);
+                        tmpoutpos += mbits2;
+                        LongBitPacking.fastpackwithoutmask(in, s + 2
+                                * BLOCK_SIZE, out, tmpoutpos, mbits3);
+                        tmpoutpos += mbits3;
+                        LongBitPacking.fastpackwithoutmask(in, s + 3
+                                * BLOCK_SIZE, out, tmpoutpos, mbits4);
+                        tmpoutpos += mbits4;
+                }
+                for (; s < end; s += BLOCK_SIZE) {
+                        final int mbits = LongBitPacking.maxbits(in, s,
+                                BLOCK_SIZE);
+                        out[tmpoutpos++] = mbits;
+                        LongBitPacking.fastpackwithoutmask(in, s, out,
+                                tmpoutpos, mbits);
+                        tmpoutpos += mbits;
+                }
+                inpos.add(inlength);
+                outpos.set(tmpoutpos);
+        }
+
+        @Override
+        public void uncompress1(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = (int) in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public void headlessUncompress(long[] in, IntWrapper inpos,
+                int inlength, long[] out, IntWrapper outpos, int num) {
+                final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+                int tmpinpos = inpos.get();
+                int s = outpos.get();
+                final int end = outpos.get() + outlength;
+                for (; s + BLOCK_SIZE * 4 - 1 < end; s += BLOCK_SIZE * 4) {
+                        final int header = (int) in[tmpinpos++];
+                        final int mbits1 = (header >>> 24);
+                        final int mbits2 = (header >>> 16) & 0xFF;
+                        final int mbits3 = (header >>> 8) & 0xFF;
+                        final int mbits4 = header & 0xFF;
+                        LongBitPacking.fastunpack(in, tmpinpos, out, s, mbits1);
+                        tmpinpos += mbits1;
+                        LongBitPacking.fastunpack(in, tmpinpos, out, s
+                                + BLOCK_SIZE, mbits2);
+                        tmpinpos += mbits2;
+                        LongBitPacking.fastunpack(in, tmpinpos, out, s + 2
+                                * BLOCK_SIZE, mbits3);
+                        tmpinpos += mbits3;
+                        LongBitPacking.fastunpack(in, tmpinpos, out, s + 3
+                                * BLOCK_SIZE, mbits4);
+                        tmpinpos += mbits4;
+                }
+                for (; s < end; s += BLOCK_SIZE) {
+                        final int mbits = (int) in[tmpinpos++];
+                        LongBitPacking.fastunpack(in, tmpinpos, out, s, mbits);
+                        tmpinpos += mbits;
+                }
+                outpos.add(outlength);
+                inpos.set(tmpinpos);
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
@@ -0,0 +1,257 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression;
+
+import java.util.Arrays;
+
+/**
+ * Bitpacking routines for 64-bit integers: 64 longs of at most bit bits
+ * each are packed into exactly bit longs.
+ *
+ * Unlike BitPacking, the routines are not unrolled for each bit width: the
+ * bit width is a loop invariant.
+ *
+ * @author Daniel Lemire
+ */
+public final class LongBitPacking {
+        /**
+         * Number of longs packed or unpacked by each call.
+         */
+        public final static int BLOCK_SIZE = 64;
+
+        private LongBitPacking() {
+        }
+
+        /**
+         * Pack 64 longs. The longs must fit in bit bits.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position in the source array
+         * @param out
+         *                output array
+         * @param outpos
+         *                position in the output array
+         * @param bit
+         *                number of bits to use per long
+         */
+        public static void fastpackwithoutmask(long[] in, int inpos,
+                long[] out, int outpos, int bit) {
+                if (bit == 0)
+                        return;
+                if (bit == 64) {
+                        System.arraycopy(in, inpos, out, outpos, BLOCK_SIZE);
+                        return;
+                }
+                long w = 0;
+                int shift = 0;
+                for (int k = inpos; k < inpos + BLOCK_SIZE; ++k) {
+                        final long v = in[k];
+                        w |= v << shift;
+                        shift += bit;
+                        if (shift >= 64) {
+                                out[outpos++] = w;
+                                shift -= 64;
+                                // the high bits of v that did not fit
+                                w = shift == 0 ? 0 : v >>> (bit - shift);
+                        }
+                }
+        }
+
+        /**
+         * Pack 64 longs, keeping only the lowest bit bits of each.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position in the source array
+         * @param out
+         *                output array
+         * @param outpos
+         *                position in the output array
+         * @param bit
+         *                number of bits to use per long
+         */
+        public static void fastpack(long[] in, int inpos, long[] out,
+                int outpos, int bit) {
+                if ((bit == 0) || (bit == 64)) {
+                        fastpackwithoutmask(in, inpos, out, outpos, bit);
+                        return;
+                }
+                final long mask = (1L << bit) - 1;
+                long w = 0;
+                int shift = 0;
+                for (int k = inpos; k < inpos + BLOCK_SIZE; ++k) {
+                        final long v = in[k] & mask;
+                        w |= v << shift;
+                        shift += bit;
+                        if (shift >= 64) {
+                                out[outpos++] = w;
+                                shift -= 64;
+                                w = shift == 0 ? 0 : v >>> (bit - shift);
+                        }
+                }
+        }
+
+        /**
+         * Unpack 64 longs.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position in the source array
+         * @param out
+         *                output array
+         * @param outpos
+         *                position in the output array
+         * @param bit
+         *                number of bits used per long
+         */
+        public static void fastunpack(long[] in, int inpos, long[] out,
+                int outpos, int bit) {
+                if (bit == 0) {
+                        Arrays.fill(out, outpos, outpos + BLOCK_SIZE, 0L);
+                        return;
+                }
+                if (bit == 64) {
+                        System.arraycopy(in, inpos, out, outpos, BLOCK_SIZE);
+                        return;
+                }
+                final long mask = (1L << bit) - 1;
+                long w = in[inpos++];
+                int shift = 0;
+                for (int k = outpos; k < outpos + BLOCK_SIZE; ++k) {
+                        final int next = shift + bit;
+                        if (next < 64) {
+                                out[k] = (w >>> shift) & mask;
+                                shift = next;
+                        } else if (next == 64) {
+                                out[k] = w >>> shift;
+                                shift = 0;
+                                if (k + 1 < outpos + BLOCK_SIZE)
+                                        w = in[inpos++];
+                        } else {
+                                // the value straddles two longs
+                                final long low = w >>> shift;
+                                w = in[inpos++];
+                                out[k] = (low | (w << (64 - shift))) & mask;
+                                shift = next - 64;
+                        }
+                }
+        }
+
+        /**
+         * Pack any number of longs. The longs must fit in bit bits.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position in the source array
+         * @param out
+         *                output array
+         * @param outpos
+         *                position in the output array
+         * @param bit
+         *                number of bits to use per long
+         * @param n
+         *                number of longs to pack
+         * @return number of longs written, (n * bit + 63) / 64
+         */
+        public static int packCount(long[] in, int inpos, long[] out,
+                int outpos, int bit, int n) {
+                final int initoutpos = outpos;
+                if (bit == 0)
+                        return 0;
+                if (bit == 64) {
+                        System.arraycopy(in, inpos, out, outpos, n);
+                        return n;
+                }
+                long w = 0;
+                int shift = 0;
+                for (int k = inpos; k < inpos + n; ++k) {
+                        final long v = in[k];
+                        w |= v << shift;
+                        shift += bit;
+                        if (shift >= 64) {
+                                out[outpos++] = w;
+                                shift -= 64;
+                                w = shift == 0 ? 0 : v >>> (bit - shift);
+                        }
+                }
+                if (shift > 0)
+                        out[outpos++] = w;
+                return outpos - initoutpos;
+        }
+
+        /**
+         * Unpack any number of longs packed by packCount.
+         *
+         * @param in
+         *                source array
+         * @param inpos
+         *                position in the source array
+         * @param out
+         *                output array
+         * @param outpos
+         *                position in the output array
+         * @param bit
+         *                number of bits used per long
+         * @param n
+         *                number of longs to unpack
+         * @return number of longs read, (n * bit + 63) / 64
+         */
+        public static int unpackCount(long[] in, int inpos, long[] out,
+                int outpos, int bit, int n) {
+                if (bit == 0) {
+                        Arrays.fill(out, outpos, outpos + n, 0L);
+                        return 0;
+                }
+                if (bit == 64) {
+                        System.arraycopy(in, inpos, out, outpos, n);
+                        return n;
+                }
+                final long mask = (1L << bit) - 1;
+                long bitpos = (long) inpos * 64;
+                for (int k = outpos; k < outpos + n; ++k) {
+                        final int word = (int) (bitpos >>> 6);
+                        final int shift = (int) (bitpos & 63);
+                        long v = in[word] >>> shift;
+                        if (shift + bit > 64)
+                                v |= in[word + 1] << (64 - shift);
+                        out[k] = v & mask;
+                        bitpos += bit;
+                }
+                return (int) (((long) n * bit + 63) / 64);
+        }
+
+        /**
+         * @param v
+         *                a long
+         * @return number of bits needed to store v (as an unsigned value)
+         */
+        public static int bits(long v) {
+                return 64 - Long.numberOfLeadingZeros(v);
+        }
+
+        /**
+         * @param in
+         *                source array
+         * @param pos
+         *                position of the first long
+         * @param length
+         *                number of longs
+         * @return number of bits needed to store the largest of the longs
+         *         (as unsigned values)
+         */
+        public static int maxbits(long[] in, int pos, int length) {
+                long accumulator = 0;
+                for (int k = pos; k < pos + length; ++k)
+                        accumulator |= in[k];
+                return bits(accumulator);
+        }
+}
@@ -0,0 +1,130 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression.differential;
+
+import java.util.Arrays;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.LongBitPacking;
+import me.lemire.longcompression.LongCODEC;
+import me.lemire.longcompression.SkippableLongCODEC;
+
+/**
+ * BinaryPacking over delta-of-delta differential, for timestamps: the
+ * differences between successive differences are zigzag-encoded and
+ * bit-packed in blocks of 64 longs. Timestamps taken at (nearly) regular
+ * intervals need only a few bits per value, or none at all.
+ *
+ * The first long is stored as is. Arrays of any length are supported: the
+ * last block is padded. The values need not be sorted.
+ *
+ * @author Daniel Lemire
+ */
+public final class LongDeltaOfDeltaBinaryPacking implements LongCODEC,
+        SkippableLongCODEC {
+        final static int BLOCK_SIZE = LongBitPacking.BLOCK_SIZE;
+
+        private final long[] work = new long[BLOCK_SIZE];
+
+        @Override
+        public void compress0(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                int ip = inpos.get();
+                int op = outpos.get();
+                final int end = ip + inlength;
+                long prev = in[ip++];
+                long prevdelta = 0;
+                out[op++] = prev;
+                while (ip < end) {
+                        // a header holds the bit widths of up to 8 blocks
+                        final int headerpos = op++;
+                        long header = 0;
+                        for (int k = 0; (k < 8) && (ip < end); ++k) {
+                                final int n = Math.min(BLOCK_SIZE, end - ip);
+                                long acc = 0;
+                                for (int j = 0; j < n; ++j) {
+                                        final long v = in[ip + j];
+                                        final long delta = v - prev;
+                                        final long dd = delta - prevdelta;
+                                        work[j] = (dd << 1) ^ (dd >> 63);
+                                        acc |= work[j];
+                                        prevdelta = delta;
+                                        prev = v;
+                                }
+                                if (n < BLOCK_SIZE)
+                                        Arrays.fill(work, n, BLOCK_SIZE, 0L);
+                                final int width = LongBitPacking.bits(acc);
+                                header |= ((long) width) << (56 - 8 * k);
+                                LongBitPacking.fastpackwithoutmask(work, 0, out,
+                                        op, width);
+                                op += width;
+                                ip += n;
+                        }
+                        out[headerpos] = header;
+                }
+                inpos.set(ip);
+                outpos.set(op);
+        }
+
+        @Override
+        public void uncompress1(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = (int) in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public void headlessUncompress(long[] in, IntWrapper inpos,
+                int inlength, long[] out, IntWrapper outpos, int num) {
+                if (num == 0)
+                        return;
+                int ip = inpos.get();
+                int op = outpos.get();
+                final int end = op + num;
+                long prev = in[ip++];
+                long prevdelta = 0;
+                out[op++] = prev;
+                while (op < end) {
+                        final long header = in[ip++];
+                        for (int k = 0; (k < 8) && (op < end); ++k) {
+                                final int n = Math.min(BLOCK_SIZE, end - op);
+                                final int width = (int) (header >>> (56 - 8 * k)) & 0xFF;
+                                LongBitPacking.fastunpack(in, ip, work, 0, width);
+                                ip += width;
+                                for (int j = 0; j < n; ++j) {
+                                        final long z = work[j];
+                                        prevdelta += (z >>> 1) ^ -(z & 1);
+                                        prev += prevdelta;
+                                        out[op + j] = prev;
+                                }
+                                op += n;
+                        }
+                }
+                inpos.set(ip);
+                outpos.set(op);
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
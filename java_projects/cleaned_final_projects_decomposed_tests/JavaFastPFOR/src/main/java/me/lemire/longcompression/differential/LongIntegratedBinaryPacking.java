@@ -0,0 +1,163 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression.differential;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.Util;
+import me.lemire.longcompression.IntegratedLongCODEC;
+import me.lemire.longcompression.LongBitPacking;
+import me.lemire.longcompression.LongVariableByte;
+import me.lemire.longcompression.SkippableLongCODEC;
+
+/**
+ * LongBinaryPacking with integrated differential coding: the differences
+ * between successive longs are bit-packed, in blocks of 64. The longs that
+ * do not fill a block are written with LongVariableByte (as differences too),
+ * so arrays of any length are supported.
+ *
+ * Each call starts the differences from 0.
+ *
+ * You should only use this scheme on sorted arrays, such as timestamps or
+ * document identifiers.
+ *
+ * @author Daniel Lemire
+ */
+public final class LongIntegratedBinaryPacking implements IntegratedLongCODEC,
+        SkippableLongCODEC {
+        final static int BLOCK_SIZE = LongBitPacking.BLOCK_SIZE;
+
+        // working area: differences of up to 4 blocks
+        private final long[] deltas = new long[4 * BLOCK_SIZE];
+
+        private final LongVariableByte tail = new LongVariableByte();
+
+        @Override
+        public void compress0(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                final int blocklength = Util.greatestMultiple(inlength,
+                        BLOCK_SIZE);
+                long initoffset = 0;
+                int tmpoutpos = outpos.get();
+                int s = inpos.get();
+                final int end = inpos.get() + blocklength;
+                for (; s + BLOCK_SIZE * 4 - 1 < end; s += BLOCK_SIZE * 4) {
+                        initoffset = delta(in, s, 4 * BLOCK_SIZE, initoffset);
+                        final int mbits1 = LongBitPacking.maxbits(deltas, 0,
+                                BLOCK_SIZE);
+                        final int mbits2 = LongBitPacking.maxbits(deltas,
+                                BLOCK_SIZE, BLOCK_SIZE);
+                        final int mbits3 = LongBitPacking.maxbits(deltas,
+                                2 * BLOCK_SIZE, BLOCK_SIZE);
+                        final int mbits4 = LongBitPacking.maxbits(deltas,
+                                3 * BLOCK_SIZE, BLOCK_SIZE);
+                        out[tmpoutpos++] = (mbits1 << 24) | (mbits2 << 16)
+                                | (mbits3 << 8) | (mbits4);
+                        LongBitPacking.fastpackwithoutmask(deltas, 0, out,
+                                tmpoutpos, mbits1);
+                        tmpoutpos += mbits1;
+                        LongBitPacking.fastpackwithoutmask(deltas, BLOCK_SIZE,
+                                out, tmpoutpos, mbits2);
+                        tmpoutpos += mbits2;
+                        LongBitPacking.fastpackwithoutmask(deltas,
+                                2 * BLOCK_SIZE, out, tmpoutpos, mbits3);
+                        tmpoutpos += mbits3;
+                        LongBitPacking.fastpackwithoutmask(deltas,
+                                3 * BLOCK_SIZE, out, tmpoutpos, mbits4);
+                        tmpoutpos += mbits4;
+                }
+                for (; s < end; s += BLOCK_SIZE) {
+                        initoffset = delta(in, s, BLOCK_SIZE, initoffset);
+                        final int mbits = LongBitPacking.maxbits(deltas, 0,
+                                BLOCK_SIZE);
+                        out[tmpoutpos++] = mbits;
+                        LongBitPacking.fastpackwithoutmask(deltas, 0, out,
+                                tmpoutpos, mbits);
+                        tmpoutpos += mbits;
+                }
+                outpos.set(tmpoutpos);
+                if (inlength > blocklength) {
+                        delta(in, end, inlength - blocklength, initoffset);
+                        tail.headlessCompress(deltas, new IntWrapper(0),
+                                inlength - blocklength, out, outpos);
+                }
+                inpos.add(inlength);
+        }
+
+        private long delta(long[] in, int pos, int length, long initoffset) {
+                deltas[0] = in[pos] - initoffset;
+                for (int k = 1; k < length; ++k)
+                        deltas[k] = in[pos + k] - in[pos + k - 1];
+                return in[pos + length - 1];
+        }
+
+        @Override
+        public void uncompress1(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = (int) in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public void headlessUncompress(long[] in, IntWrapper inpos,
+                int inlength, long[] out, IntWrapper outpos, int num) {
+                final int outlength = Util.greatestMultiple(num, BLOCK_SIZE);
+                long initoffset = 0;
+                int tmpinpos = inpos.get();
+                int s = outpos.get();
+                final int end = outpos.get() + outlength;
+                for (; s + BLOCK_SIZE * 4 - 1 < end; s += BLOCK_SIZE * 4) {
+                        final int header = (int) in[tmpinpos++];
+                        for (int k = 0; k < 4; ++k) {
+                                final int mbits = (header >>> (24 - 8 * k)) & 0xFF;
+                                LongBitPacking.fastunpack(in, tmpinpos, out, s
+                                        + k * BLOCK_SIZE, mbits);
+                                tmpinpos += mbits;
+                        }
+                        initoffset = prefixSum(out, s, 4 * BLOCK_SIZE,
+                                initoffset);
+                }
+                for (; s < end; s += BLOCK_SIZE) {
+                        final int mbits = (int) in[tmpinpos++];
+                        LongBitPacking.fastunpack(in, tmpinpos, out, s, mbits);
+                        tmpinpos += mbits;
+                        initoffset = prefixSum(out, s, BLOCK_SIZE, initoffset);
+                }
+                inpos.set(tmpinpos);
+                outpos.set(end);
+                if (num > outlength) {
+                        tail.headlessUncompress(in, inpos, inlength, out,
+                                outpos, num - outlength);
+                        prefixSum(out, end, num - outlength, initoffset);
+                }
+        }
+
+        private static long prefixSum(long[] data, int pos, int length,
+                long initoffset) {
+                data[pos] += initoffset;
+                for (int k = pos + 1; k < pos + length; ++k)
+                        data[k] += data[k - 1];
+                return data[pos + length - 1];
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
@@ -0,0 +1,109 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression.differential;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.integercompression.Util;
+import me.lemire.longcompression.IntegratedLongCODEC;
+import me.lemire.longcompression.LongFastPFOR;
+import me.lemire.longcompression.LongVariableByte;
+import me.lemire.longcompression.SkippableLongCODEC;
+
+/**
+ * LongFastPFOR with integrated differential coding: the differences between
+ * successive longs are computed one page at a time and compressed with
+ * LongFastPFOR. The longs that do not fill a block are written with
+ * LongVariableByte (as differences too), so arrays of any length are
+ * supported.
+ *
+ * Each call starts the differences from 0.
+ *
+ * You should only use this scheme on sorted arrays, such as timestamps or
+ * document identifiers. For multi-threaded applications, each thread should
+ * use its own LongIntegratedFastPFOR object.
+ *
+ * @author Daniel Lemire
+ */
+public final class LongIntegratedFastPFOR implements IntegratedLongCODEC,
+        SkippableLongCODEC {
+        private final LongFastPFOR fastpfor = LongFastPFOR.LongFastPFOR1();
+
+        private final LongVariableByte tail = new LongVariableByte();
+
+        // working area: differences of one page
+        private final long[] deltas = new long[LongFastPFOR.DEFAULT_PAGE_SIZE];
+
+        @Override
+        public void compress0(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                long initoffset = 0;
+                int s = inpos.get();
+                final int end = inpos.get() + inlength;
+                while (s < end) {
+                        final int thissize = Math.min(deltas.length, end - s);
+                        deltas[0] = in[s] - initoffset;
+                        for (int k = 1; k < thissize; ++k)
+                                deltas[k] = in[s + k] - in[s + k - 1];
+                        initoffset = in[s + thissize - 1];
+                        IntWrapper deltapos = new IntWrapper(0);
+                        fastpfor.headlessCompress(deltas, deltapos, thissize,
+                                out, outpos);
+                        if (deltapos.get() < thissize)
+                                tail.headlessCompress(deltas, deltapos,
+                                        thissize - deltapos.get(), out, outpos);
+                        s += thissize;
+                }
+                inpos.set(end);
+        }
+
+        @Override
+        public void uncompress1(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = (int) in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public void headlessUncompress(long[] in, IntWrapper inpos,
+                int inlength, long[] out, IntWrapper outpos, int num) {
+                long initoffset = 0;
+                final int end = outpos.get() + num;
+                while (outpos.get() < end) {
+                        final int s = outpos.get();
+                        final int thissize = Math.min(deltas.length, end - s);
+                        final int blocklength = Util.greatestMultiple(
+                                thissize, LongFastPFOR.BLOCK_SIZE);
+                        fastpfor.headlessUncompress(in, inpos, inlength, out,
+                                outpos, blocklength);
+                        if (blocklength < thissize)
+                                tail.headlessUncompress(in, inpos, inlength,
+                                        out, outpos, thissize - blocklength);
+                        out[s] += initoffset;
+                        for (int k = s + 1; k < s + thissize; ++k)
+                                out[k] += out[k - 1];
+                        initoffset = out[s + thissize - 1];
+                }
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
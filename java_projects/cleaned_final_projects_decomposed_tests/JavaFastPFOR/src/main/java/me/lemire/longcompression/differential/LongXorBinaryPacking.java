@@ -0,0 +1,173 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+package me.lemire.longcompression.differential;
+
+import java.util.Arrays;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.LongBitPacking;
+import me.lemire.longcompression.LongCODEC;
+import me.lemire.longcompression.SkippableLongCODEC;
+
+/**
+ * BinaryPacking over XOR differential, for longs, in the spirit of the
+ * Gorilla time-series format: each long is XORed with the previous one, and
+ * the XORs are bit-packed in blocks of 64. Within a block, the trailing zeros
+ * common to all XORs are dropped, and the leading zeros are dropped by using
+ * the bit width of the largest XOR. When most XORs are zero (repeated
+ * values), only a bitmap of the non-zero XORs and these XORs are stored.
+ *
+ * It is well suited to the bits of floating-point values that change slowly
+ * (see FloatingPointCompressor), since successive values then share their
+ * sign, exponent and high mantissa bits, and often have trailing zeros.
+ *
+ * The first long is stored as is. Arrays of any length are supported: the
+ * last block is padded.
+ *
+ * @author Daniel Lemire
+ */
+public final class LongXorBinaryPacking implements LongCODEC,
+        SkippableLongCODEC {
+        final static int BLOCK_SIZE = LongBitPacking.BLOCK_SIZE;
+
+        // flag, in the header of a block, of the sparse representation
+        final static int SPARSE = 0x8000;
+
+        private final long[] work = new long[BLOCK_SIZE];
+
+        @Override
+        public void compress0(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                out[outpos.get()] = inlength;
+                outpos.increment();
+                headlessCompress(in, inpos, inlength, out, outpos);
+        }
+
+        @Override
+        public void headlessCompress(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                int ip = inpos.get();
+                int op = outpos.get();
+                final int end = ip + inlength;
+                long prev = in[ip++];
+                out[op++] = prev;
+                while (ip < end) {
+                        // a header holds the trailing zeros and the bit width
+                        // of up to 4 blocks, 16 bits per block
+                        final int headerpos = op++;
+                        long header = 0;
+                        for (int k = 0; (k < 4) && (ip < end); ++k) {
+                                final int n = Math.min(BLOCK_SIZE, end - ip);
+                                long acc = 0;
+                                long nonzero = 0;
+                                for (int j = 0; j < n; ++j) {
+                                        final long v = in[ip + j];
+                                        work[j] = v ^ prev;
+                                        acc |= work[j];
+                                        if (work[j] != 0)
+                                                nonzero |= 1L << j;
+                                        prev = v;
+                                }
+                                final int tz = acc == 0 ? 0 : Long
+                                        .numberOfTrailingZeros(acc);
+                                final int width = LongBitPacking.bits(acc >>> tz);
+                                final int count = Long.bitCount(nonzero);
+                                int field = (tz << 8) | width;
+                                if (1 + (count * width + 63) / 64 < width) {
+                                        // sparse block: a bitmap of the
+                                        // non-zero XORs, then these XORs
+                                        field |= SPARSE;
+                                        out[op++] = nonzero;
+                                        int c = 0;
+                                        for (int j = 0; j < n; ++j)
+                                                if (work[j] != 0)
+                                                        work[c++] = work[j] >>> tz;
+                                        op += LongBitPacking.packCount(work, 0,
+                                                out, op, width, count);
+                                } else {
+                                        if (n < BLOCK_SIZE)
+                                                Arrays.fill(work, n,
+                                                        BLOCK_SIZE, 0L);
+                                        if (tz > 0)
+                                                for (int j = 0; j < n; ++j)
+                                                        work[j] >>>= tz;
+                                        LongBitPacking.fastpackwithoutmask(work,
+                                                0, out, op, width);
+                                        op += width;
+                                }
+                                header |= ((long) field) << (48 - 16 * k);
+                                ip += n;
+                        }
+                        out[headerpos] = header;
+                }
+                inpos.set(ip);
+                outpos.set(op);
+        }
+
+        @Override
+        public void uncompress1(long[] in, IntWrapper inpos, int inlength,
+                long[] out, IntWrapper outpos) {
+                if (inlength == 0)
+                        return;
+                final int outlength = (int) in[inpos.get()];
+                inpos.increment();
+                headlessUncompress(in, inpos, inlength, out, outpos, outlength);
+        }
+
+        @Override
+        public void headlessUncompress(long[] in, IntWrapper inpos,
+                int inlength, long[] out, IntWrapper outpos, int num) {
+                if (num == 0)
+                        return;
+                int ip = inpos.get();
+                int op = outpos.get();
+                final int end = op + num;
+                long prev = in[ip++];
+                out[op++] = prev;
+                while (op < end) {
+                        final long header = in[ip++];
+                        for (int k = 0; (k < 4) && (op < end); ++k) {
+                                final int n = Math.min(BLOCK_SIZE, end - op);
+                                final int field = (int) (header >>> (48 - 16 * k)) & 0xFFFF;
+                                final int tz = (field >>> 8) & 0x7F;
+                                final int width = field & 0xFF;
+                                if ((field & SPARSE) != 0) {
+                                        final long nonzero = in[ip++];
+                                        ip += LongBitPacking.unpackCount(in, ip,
+                                                work, 0, width,
+                                                Long.bitCount(nonzero));
+                                        int c = 0;
+                                        for (int j = 0; j < n; ++j) {
+                                                if ((nonzero & (1L << j)) != 0)
+                                                        prev ^= work[c++] << tz;
+                                                out[op + j] = prev;
+                                        }
+                                } else {
+                                        LongBitPacking.fastunpack(in, ip, work,
+                                                0, width);
+                                        ip += width;
+                                        for (int j = 0; j < n; ++j) {
+                                                prev ^= work[j] << tz;
+                                                out[op + j] = prev;
+                                        }
+                                }
+                                op += n;
+                        }
+                }
+                inpos.set(ip);
+                outpos.set(op);
+        }
+
+        @Override
+        public String toString() {
+                return this.getClass().getSimpleName();
+        }
+}
@@ -0,0 +1,118 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+import org.junit.Test;
+
+/**
+ * Tests for AdaptiveCODEC.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class AdaptiveCODECTest {
+
+    /**
+     * Gaps of clustered integers, with a stretch of random integers and
+     * sparse outliers.
+     */
+    private static int[] mixed(int N, long seed) {
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        Random r = new Random(seed);
+        int[] data = cdg.generateClustered(N, 1 << 27);
+        for (int k = N - 1; k > 0; --k)
+            data[k] -= data[k - 1];
+        for (int k = N / 2; k < N / 2 + N / 8; ++k)
+            data[k] = r.nextInt();
+        for (int k = 0; k < N; k += 97)
+            data[k] = r.nextInt(1 << 25);
+        return data;
+    }
+
+    private static int headlessSize(SkippableIntegerCODEC c, int[] data) {
+        int[] comp = new int[2 * data.length + 1024];
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        c.headlessCompress(data, IntWrapper.IntWrapper1(), data.length, comp,
+                outpos);
+        return outpos.get();
+    }
+
+    @Test
+    public void roundTripTest_test0_decomposed() {
+        for (int N : new int[] { 0, 1, 127, 128, 129, 2048, 2049, 5000, 100000 }) {
+            int[] data = mixed(N, N);
+            AdaptiveCODEC c = new AdaptiveCODEC();
+            int[] comp = new int[2 * N + 1024];
+            IntWrapper outpos = new IntWrapper(7);
+            c.compress0(data, IntWrapper.IntWrapper1(), N, comp, outpos);
+            int[] rev = new int[N + 2];
+            IntWrapper revpos = new IntWrapper(2);
+            IntWrapper inpos = new IntWrapper(7);
+            c.uncompress0(comp, inpos, outpos.get() - 7, rev, revpos);
+            if ((revpos.get() != N + 2) || (inpos.get() != outpos.get()))
+                throw new RuntimeException("bug " + N);
+            if (!Arrays.equals(Arrays.copyOfRange(rev, 2, N + 2), data))
+                throw new RuntimeException("bug " + N);
+        }
+    }
+
+    @Test
+    public void skippableTest_test0_decomposed() {
+        // several arrays one after the other
+        int[][] data = { mixed(1000, 1), new int[0], mixed(300, 2),
+                mixed(4096, 3) };
+        AdaptiveCODEC c = new AdaptiveCODEC();
+        int[] comp = new int[20000];
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        for (int[] d : data)
+            c.headlessCompress(d, IntWrapper.IntWrapper1(), d.length, comp,
+                    outpos);
+        IntWrapper inpos = IntWrapper.IntWrapper1();
+        for (int[] d : data) {
+            int[] rev = new int[d.length];
+            c.headlessUncompress(comp, inpos, outpos.get() - inpos.get(), rev,
+                    IntWrapper.IntWrapper1(), d.length);
+            if (!Arrays.equals(rev, d))
+                throw new RuntimeException("bug");
+        }
+        if (inpos.get() != outpos.get())
+            throw new RuntimeException("bug");
+    }
+
+    @Test
+    public void sizeTest_test0_decomposed() {
+        // the sizes of BinaryPacking, VariableByte and JustCopy are known
+        // exactly: we can only lose the tags
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        Random r = new Random(1234);
+        int[] uniform = new int[10000];
+        for (int k = 0; k < uniform.length; ++k)
+            uniform[k] = r.nextInt(1 << 10);
+        int[] small = new int[10000];
+        for (int k = 0; k < small.length; ++k)
+            small[k] = r.nextInt(8) == 0 ? 200 : 3;
+        int[][] sets = { mixed(10000, 5), uniform, small,
+                cdg.generateClustered(10000, Integer.MAX_VALUE) };
+        for (int[] data : sets) {
+            int adaptive = headlessSize(new AdaptiveCODEC(), data);
+            int best = Math.min(
+                    headlessSize(new SkippableComposition(new BinaryPacking(),
+                            new VariableByte()), data),
+                    Math.min(headlessSize(new VariableByte(), data),
+                            data.length));
+            int tags = (data.length + 2047) / 2048;
+            if (adaptive > best + tags)
+                throw new RuntimeException("bug " + adaptive + " " + best);
+        }
+    }
+}
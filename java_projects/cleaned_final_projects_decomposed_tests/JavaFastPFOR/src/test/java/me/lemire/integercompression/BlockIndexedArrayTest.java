@@ -0,0 +1,147 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import me.lemire.integercompression.differential.BlockIndexedArray;
+import me.lemire.integercompression.differential.IntegratedBinaryPacking;
+import me.lemire.integercompression.differential.IntegratedVariableByte;
+import me.lemire.integercompression.differential.SkippableIntegratedComposition;
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+import org.junit.Test;
+
+/**
+ * Tests for BlockIndexedArray.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class BlockIndexedArrayTest {
+
+    private static BlockIndexedArray[] sortedArrays(int[] data, int blockSize) {
+        return new BlockIndexedArray[] {
+                BlockIndexedArray.compress0(data, blockSize,
+                        new SkippableIntegratedComposition(
+                                new IntegratedBinaryPacking(),
+                                new IntegratedVariableByte())),
+                BlockIndexedArray.compress1(data, blockSize,
+                        new SkippableComposition(FastPFOR.FastPFOR1(),
+                                new VariableByte()), true),
+                BlockIndexedArray.compress1(data, blockSize,
+                        new VariableByte(), true) };
+    }
+
+    @Test
+    public void selectTest_test0_decomposed() {
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        for (int N : new int[] { 0, 1, 255, 256, 1000, 10000 }) {
+            int[] data = cdg.generateClustered(N, 1 << 20);
+            for (int blockSize : new int[] { 128, 256, 1000 }) {
+                for (BlockIndexedArray a : sortedArrays(data, blockSize)) {
+                    if (a.size() != N)
+                        throw new RuntimeException("bug");
+                    if (!Arrays.equals(a.toArray(), data))
+                        throw new RuntimeException("bug " + N + " "
+                                + blockSize);
+                    for (int k = 0; k < N; ++k)
+                        if (a.select(k) != data[k])
+                            throw new RuntimeException("bug " + N + " "
+                                    + blockSize + " " + k);
+                    // backward random access
+                    for (int k = N - 1; k >= 0; k -= 97)
+                        if (a.select(k) != data[k])
+                            throw new RuntimeException("bug " + N + " "
+                                    + blockSize + " " + k);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unsortedTest_test0_decomposed() {
+        Random r = new Random(123);
+        int[] data = new int[5000];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = r.nextInt(1 << r.nextInt(31));
+        BlockIndexedArray a = BlockIndexedArray.compress1(data, 512,
+                new SkippableComposition(FastPFOR.FastPFOR1(),
+                        new VariableByte()), false);
+        if (!Arrays.equals(a.toArray(), data))
+            throw new RuntimeException("bug");
+        for (int k = data.length - 1; k >= 0; --k)
+            if (a.select(k) != data[k])
+                throw new RuntimeException("bug " + k);
+        BlockIndexedArray.Cursor c = a.cursor();
+        for (int k = 0; k < data.length; ++k)
+            if (!c.next() || (c.value() != data[k]) || (c.index() != k))
+                throw new RuntimeException("bug " + k);
+        if (c.next())
+            throw new RuntimeException("bug");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void unsortedAdvanceTest_test0_decomposed() {
+        BlockIndexedArray.compress1(new int[] { 3, 1, 2 }, 128,
+                new VariableByte(), false).cursor().advance(2);
+    }
+
+    @Test
+    public void advanceTest_test0_decomposed() {
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        Random r = new Random(456);
+        int[] data = cdg.generateClustered(20000, 1 << 22);
+        for (BlockIndexedArray a : sortedArrays(data, 256)) {
+            // advance alone: compare with a binary search
+            for (int t = 0; t < 1000; ++t) {
+                int target = r.nextInt(1 << 22);
+                BlockIndexedArray.Cursor c = a.cursor();
+                int expected = Arrays.binarySearch(data, target);
+                if (expected < 0)
+                    expected = -expected - 1;
+                boolean found = c.advance(target);
+                if (found != (expected < data.length))
+                    throw new RuntimeException("bug " + target);
+                if (c.index() != expected)
+                    throw new RuntimeException("bug " + target);
+                if (found && (c.value() != data[expected]))
+                    throw new RuntimeException("bug " + target);
+            }
+            // increasing targets with the same cursor, mixed with next
+            BlockIndexedArray.Cursor c = a.cursor();
+            int target = 0;
+            while (true) {
+                target += r.nextInt(2000);
+                int from = Math.max(c.index(), 0);
+                if (!c.advance(target))
+                    break;
+                int i = c.index();
+                // first index at or after from with a value >= target
+                if ((c.value() != data[i]) || (data[i] < target)
+                        || ((i > from) && (data[i - 1] >= target)))
+                    throw new RuntimeException("bug " + target);
+                if (c.next() && (c.value() != data[i + 1]))
+                    throw new RuntimeException("bug");
+            }
+            if (c.index() != data.length)
+                throw new RuntimeException("bug");
+        }
+    }
+
+    @Test
+    public void emptyTest_test0_decomposed() {
+        for (BlockIndexedArray a : sortedArrays(new int[0], 128)) {
+            if (a.cursor().advance(0) || a.cursor().next())
+                throw new RuntimeException("bug");
+            if (a.getBlockCount() != 0)
+                throw new RuntimeException("bug");
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import me.lemire.integercompression.differential.BlockIndexedArray;
+import me.lemire.integercompression.differential.BlockSetOperations;
+import me.lemire.integercompression.differential.IntegratedBinaryPacking;
+import me.lemire.integercompression.differential.IntegratedVariableByte;
+import me.lemire.integercompression.differential.SkippableIntegratedComposition;
+import me.lemire.integercompression.differential.SkippableIntegratedIntegerCODEC;
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+import org.junit.Test;
+
+/**
+ * Tests for BlockSetOperations.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class BlockSetOperationsTest {
+
+    private static SkippableIntegratedIntegerCODEC codec() {
+        return new SkippableIntegratedComposition(
+                new IntegratedBinaryPacking(), new IntegratedVariableByte());
+    }
+
+    private static BlockIndexedArray compress(int[] data, int blockSize) {
+        return BlockIndexedArray.compress0(data, blockSize, codec());
+    }
+
+    private static int[] naiveIntersect(int[][] lists) {
+        TreeSet<Integer> answer = toSet(lists[0]);
+        for (int k = 1; k < lists.length; ++k)
+            answer.retainAll(toSet(lists[k]));
+        return toArray(answer);
+    }
+
+    private static int[] naiveUnion(int[][] lists) {
+        TreeSet<Integer> answer = new TreeSet<Integer>();
+        for (int[] l : lists)
+            answer.addAll(toSet(l));
+        return toArray(answer);
+    }
+
+    private static TreeSet<Integer> toSet(int[] data) {
+        TreeSet<Integer> s = new TreeSet<Integer>();
+        for (int v : data)
+            s.add(v);
+        return s;
+    }
+
+    private static int[] toArray(TreeSet<Integer> s) {
+        int[] answer = new int[s.size()];
+        int pos = 0;
+        for (int v : s)
+            answer[pos++] = v;
+        return answer;
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void intersectUnionTest_test0_decomposed() {
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        // very different densities, to exercise both merging and galloping
+        int[] sizes = { 0, 1, 100, 3000, 50000, 200000 };
+        for (int blockSize : new int[] { 128, 1000 }) {
+            for (int s1 : sizes) {
+                for (int s2 : sizes) {
+                    int[][] lists = { cdg.generateClustered(s1, 1 << 20),
+                            cdg.generateClustered(s2, 1 << 20),
+                            cdg.generateClustered(200000, 1 << 20) };
+                    BlockIndexedArray[] sets = { compress(lists[0], blockSize),
+                            compress(lists[1], blockSize),
+                            compress(lists[2], blockSize) };
+                    int[][] pair = { lists[0], lists[1] };
+                    if (!Arrays.equals(naiveIntersect(pair),
+                            BlockSetOperations.intersect(sets[0], sets[1])))
+                        throw new RuntimeException("bug intersect " + s1
+                                + " " + s2);
+                    if (!Arrays.equals(naiveIntersect(lists),
+                            BlockSetOperations.intersect(sets)))
+                        throw new RuntimeException("bug intersect3 " + s1
+                                + " " + s2);
+                    if (!Arrays.equals(naiveUnion(pair),
+                            BlockSetOperations.union(sets[0], sets[1])))
+                        throw new RuntimeException("bug union " + s1 + " "
+                                + s2);
+                    if (!Arrays.equals(naiveUnion(lists),
+                            BlockSetOperations.union(sets)))
+                        throw new RuntimeException("bug union3 " + s1 + " "
+                                + s2);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void compressedResultTest_test0_decomposed() {
+        int[] even = new int[10000];
+        int[] triple = new int[10000];
+        for (int k = 0; k < even.length; ++k) {
+            even[k] = 2 * k;
+            triple[k] = 3 * k;
+        }
+        BlockIndexedArray a = compress(even, 256);
+        BlockIndexedArray b = compress(triple, 256);
+        BlockIndexedArray both = BlockSetOperations.intersectCompressed(256,
+                codec(), a, b);
+        if (both.size() != (2 * 9999) / 6 + 1)
+            throw new RuntimeException("bug " + both.size());
+        for (int k = 0; k < both.size(); ++k)
+            if (both.select(k) != 6 * k)
+                throw new RuntimeException("bug " + k);
+        BlockIndexedArray either = BlockSetOperations.unionCompressed(256,
+                codec(), a, b);
+        if (!Arrays.equals(either.toArray(),
+                naiveUnion(new int[][] { even, triple })))
+            throw new RuntimeException("bug union");
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void unsortedTest_test0_decomposed() {
+        BlockIndexedArray unsorted = BlockIndexedArray.compress1(new int[] {
+                3, 1, 2 }, 128, new VariableByte(), false);
+        try {
+            BlockSetOperations.intersect(unsorted, unsorted);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new RuntimeException("bug");
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for the statistics reported to a CodecListener.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class CodecMetricsTest {
+
+    // 4-bit values, and one 20-bit exception every 100 integers
+    private static int[] data(int n) {
+        Random r = new Random(0);
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k)
+            data[k] = k % 100 == 0 ? (1 << 19) + k : r.nextInt(16);
+        return data;
+    }
+
+    private static int compress(SkippableIntegerCODEC c, int[] data,
+            int[] comp) {
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        c.headlessCompress(data, IntWrapper.IntWrapper1(), data.length, comp,
+                outpos);
+        return outpos.get();
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void metricsTest_test0_decomposed() {
+        final int n = 200 * 1024;
+        int[] data = data(n);
+        FastPFOR fastpfor = new FastPFOR(8192);
+        FastPFOR128 fastpfor128 = FastPFOR128.FastPFOR1281();
+        NewPFD newpfd = new NewPFD();
+        OptPFD optpfd = new OptPFD();
+        SkippableIntegerCODEC[] codecs = { fastpfor, fastpfor128, newpfd,
+                optpfd };
+        int[] blockSizes = { FastPFOR.BLOCK_SIZE, FastPFOR128.BLOCK_SIZE,
+                NewPFD.BLOCK_SIZE, OptPFD.BLOCK_SIZE };
+        for (int i = 0; i < codecs.length; ++i) {
+            CodecMetrics metrics = new CodecMetrics();
+            final ArrayList<String> names = new ArrayList<String>();
+            CodecListener log = new CodecListener() {
+                @Override
+                public void pageEncoded(PageStatistics page) {
+                    names.add(page.getCodec());
+                }
+
+                @Override
+                public void pageDecoded(String codec, int integers,
+                        int compressedInts, long nanos) {
+                }
+            };
+            int[] comp = new int[2 * n];
+            // not reported: no listener yet
+            compress(codecs[i], data, comp);
+            if (i == 0)
+                fastpfor.setListener(metrics);
+            else if (i == 1)
+                fastpfor128.setListener(metrics);
+            else if (i == 2)
+                newpfd.setListener(metrics);
+            else
+                optpfd.setListener(metrics);
+            final int length = compress(codecs[i], data, comp);
+            final int blocks = n / blockSizes[i];
+            long total = 0;
+            for (int b = 0; b <= 32; ++b)
+                total += metrics.getBlocksWithBitWidth(b);
+            if ((metrics.getIntegersEncoded() != n)
+                    || (metrics.getCompressedInts() != length)
+                    || (total != blocks)
+                    || (metrics.getBlocksWithBitWidth(4) < blocks / 2)
+                    || (metrics.getExceptions() < n / 100)
+                    || (metrics.getExceptionBytes() <= 0)
+                    || (metrics.getBitsPerInt() > 8)
+                    || (metrics.getEncodeNanos() <= 0))
+                throw new RuntimeException("bug " + codecs[i] + " "
+                        + metrics);
+            final int pageSize = i == 0 ? 8192
+                    : i == 1 ? FastPFOR128.DEFAULT_PAGE_SIZE : n;
+            if (metrics.getPagesEncoded() != (n + pageSize - 1) / pageSize)
+                throw new RuntimeException("bug " + codecs[i] + " "
+                        + metrics.getPagesEncoded());
+            int[] back = new int[n];
+            ((SkippableIntegerCODEC) codecs[i]).headlessUncompress(comp,
+                    IntWrapper.IntWrapper1(), length, back,
+                    IntWrapper.IntWrapper1(), n);
+            if (!Arrays.equals(data, back))
+                throw new RuntimeException("bug");
+            // the buffer versions report the same statistics
+            IntBuffer buffer = IntBuffer.allocate(2 * n);
+            ((SkippableIntBufferCODEC) codecs[i]).headlessCompressToBuffer(
+                    data, IntWrapper.IntWrapper1(), n, buffer);
+            buffer.flip();
+            ((SkippableIntBufferCODEC) codecs[i])
+                    .headlessUncompressFromBuffer(buffer, length, back,
+                            IntWrapper.IntWrapper1(), n);
+            if ((metrics.getIntegersEncoded() != 2 * n)
+                    || (metrics.getCompressedInts() != 2 * length)
+                    || (metrics.getIntegersDecoded() != 2 * n)
+                    || (metrics.getPagesDecoded() != metrics
+                            .getPagesEncoded()))
+                throw new RuntimeException("bug " + codecs[i] + " "
+                        + metrics);
+            // detached: nothing more is reported
+            if (i == 0) {
+                fastpfor.setListener(log);
+                compress(fastpfor, data, comp);
+                fastpfor.setListener(null);
+                compress(fastpfor, data, comp);
+                if ((names.size() != n / 8192)
+                        || !names.get(0).equals("FastPFOR"))
+                    throw new RuntimeException("bug " + names);
+            }
+            metrics.reset();
+            if (metrics.getIntegersEncoded() != 0)
+                throw new RuntimeException("bug");
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void concurrentTest_test0_decomposed() {
+        final int n = 100000;
+        int[] data = data(n);
+        CodecMetrics metrics = new CodecMetrics();
+        ConcurrentFastPFOR c = new ConcurrentFastPFOR(FastPFOR.BLOCK_SIZE, 2);
+        int[] comp = new int[2 * n];
+        compress(c, data, comp);
+        c.setListener(metrics);
+        final int length = compress(c, data, comp);
+        c.setListener(null);
+        compress(c, data, comp);
+        if ((metrics.getIntegersEncoded() != n / FastPFOR.BLOCK_SIZE
+                * FastPFOR.BLOCK_SIZE)
+                || (metrics.getCompressedInts() != length))
+            throw new RuntimeException("bug " + metrics);
+    }
+}
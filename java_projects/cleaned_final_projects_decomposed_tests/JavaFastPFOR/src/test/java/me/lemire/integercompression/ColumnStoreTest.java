@@ -0,0 +1,222 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import org.junit.Test;
+
+/**
+ * Tests for ColumnWriter and ColumnReader.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class ColumnStoreTest {
+
+    private static void deleteColumn(Path dir) throws IOException {
+        for (Path p : ColumnWriter.listSegments(dir))
+            Files.delete(p);
+        Files.delete(dir);
+    }
+
+    /**
+     * @throws IOException
+     *                 on failure
+     */
+    @Test
+    public void intColumnTest_test0_decomposed() throws IOException {
+        Random r = new Random(0);
+        for (int id = CodecRegistry.JUST_COPY; id <= CodecRegistry.ADAPTIVE; ++id) {
+            for (int n : new int[] { 0, 1, 1000, 70000 }) {
+                final int[] data = new int[n];
+                for (int k = 0; k < n; ++k)
+                    data[k] = r.nextInt() >>> 12;
+                Path dir = Files.createTempDirectory("column");
+                try {
+                    try (ColumnWriter w = ColumnWriter.intColumn(dir, id, 4096)) {
+                        w.appendInts(data, 0, n / 2);
+                        for (int k = n / 2; k < n; ++k)
+                            w.appendInt(data[k]);
+                    }
+                    try (ColumnReader reader = ColumnReader.open(dir)) {
+                        if ((reader.size() != n) || reader.isLongColumn()
+                                || (reader.getSegmentCount() != (n + 4095) / 4096))
+                            throw new RuntimeException("bug header " + id);
+                        if (!Arrays.equals(data, reader.toArray()))
+                            throw new RuntimeException("bug " + id + " " + n);
+                        final AtomicInteger pos = new AtomicInteger();
+                        reader.scan(new IntConsumer() {
+                            @Override
+                            public void accept(int value) {
+                                if (data[pos.getAndIncrement()] != value)
+                                    throw new RuntimeException("bug");
+                            }
+                        });
+                        if (pos.get() != n)
+                            throw new RuntimeException("bug " + pos.get());
+                    }
+                } finally {
+                    deleteColumn(dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws IOException
+     *                 on failure
+     */
+    @Test
+    public void longColumnTest_test0_decomposed() throws IOException {
+        Random r = new Random(1);
+        final long[] data = new long[20000];
+        long t = 1600000000000L;
+        for (int k = 0; k < data.length; ++k) {
+            t += r.nextInt(1000);
+            // timestamps, small signed values, and a few extremes
+            data[k] = k % 3 == 0 ? t : k % 3 == 1 ? r.nextInt(200) - 100
+                    : r.nextLong();
+        }
+        data[5] = Long.MIN_VALUE;
+        data[8] = Long.MAX_VALUE;
+        Path dir = Files.createTempDirectory("column");
+        try {
+            try (ColumnWriter w = ColumnWriter.longColumn(dir,
+                    CodecRegistry.FASTPFOR, 3000)) {
+                w.appendLongs(data, 0, 10000);
+                w.flush();
+                for (int k = 10000; k < data.length; ++k)
+                    w.appendLong(data[k]);
+                try {
+                    ColumnWriter.intColumn(dir, CodecRegistry.FASTPFOR, 3000);
+                    throw new RuntimeException("bug: type not checked");
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+            try (ColumnReader reader = ColumnReader.open(dir)) {
+                // a short segment after the flush
+                if (!reader.isLongColumn() || (reader.getSegmentCount() != 8)
+                        || (reader.getSegmentLength(3) != 1000)
+                        || (reader.getSegmentStart(4) != 10000))
+                    throw new RuntimeException("bug header");
+                if (!Arrays.equals(data, reader.toLongArray()))
+                    throw new RuntimeException("bug");
+                final AtomicInteger pos = new AtomicInteger();
+                reader.scanLongs(new LongConsumer() {
+                    @Override
+                    public void accept(long value) {
+                        if (data[pos.getAndIncrement()] != value)
+                            throw new RuntimeException("bug");
+                    }
+                });
+                try {
+                    reader.decodeSegment(0, new int[3000], 0);
+                    throw new RuntimeException("bug: type not checked");
+                } catch (IllegalStateException e) {
+                    // expected
+                }
+            }
+        } finally {
+            deleteColumn(dir);
+        }
+    }
+
+    /**
+     * @throws IOException
+     *                 on failure
+     */
+    @Test
+    public void appendTest_test0_decomposed() throws IOException {
+        int[] data = new int[10000];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = k * 7;
+        Path dir = Files.createTempDirectory("column");
+        try {
+            try (ColumnWriter w = ColumnWriter.intColumn(dir,
+                    CodecRegistry.BINARY_PACKING, 1024)) {
+                w.appendInts(data, 0, 5000);
+            }
+            try (ColumnReader before = ColumnReader.open(dir)) {
+                try (ColumnWriter w = ColumnWriter.intColumn(dir,
+                        CodecRegistry.SIMPLE16, 1024)) {
+                    w.appendInts(data, 5000, 5000);
+                }
+                // an open reader keeps its view of the column
+                if (before.size() != 5000)
+                    throw new RuntimeException("bug " + before.size());
+            }
+            try (ColumnReader after = ColumnReader.open(dir)) {
+                if (!Arrays.equals(data, after.toArray()))
+                    throw new RuntimeException("bug");
+            }
+        } finally {
+            deleteColumn(dir);
+        }
+    }
+
+    /**
+     * @throws IOException
+     *                 on failure
+     */
+    @Test
+    public void corruptionTest_test0_decomposed() throws IOException {
+        int[] data = new int[5000];
+        Random r = new Random(2);
+        for (int k = 0; k < data.length; ++k)
+            data[k] = r.nextInt(4096);
+        Path dir = Files.createTempDirectory("column");
+        try {
+            try (ColumnWriter w = ColumnWriter.intColumn(dir,
+                    CodecRegistry.FASTPFOR, 1024)) {
+                w.appendInts(data, 0, data.length);
+            }
+            Path[] files = ColumnWriter.listSegments(dir);
+            try (RandomAccessFile f = new RandomAccessFile(files[2].toFile(),
+                    "rw")) {
+                f.seek(100);
+                int b = f.read();
+                f.seek(100);
+                f.write(b ^ 0x10);
+            }
+            try (ColumnReader reader = ColumnReader.open(dir)) {
+                int[] out = new int[1024];
+                reader.decodeSegment(1, out, 0);
+                if (!Arrays.equals(out, Arrays.copyOfRange(data, 1024, 2048)))
+                    throw new RuntimeException("bug");
+                try {
+                    reader.decodeSegment(2, out, 0);
+                    throw new RuntimeException("bug: undetected");
+                } catch (CorruptedDataException e) {
+                    // expected
+                }
+            }
+            try (RandomAccessFile f = new RandomAccessFile(files[3].toFile(),
+                    "rw")) {
+                f.setLength(f.length() - 4);
+            }
+            try {
+                ColumnReader.open(dir).close();
+                throw new RuntimeException("bug: undetected truncation");
+            } catch (CorruptedDataException e) {
+                // expected
+            }
+        } finally {
+            deleteColumn(dir);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import me.lemire.integercompression.differential.CompressedIntArray;
+import me.lemire.integercompression.differential.CompressedSortedIntSet;
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+import org.junit.Test;
+
+/**
+ * Tests for CompressedIntArray and CompressedSortedIntSet.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class CompressedCollectionsTest {
+
+    private static int[] iterate(PrimitiveIterator.OfInt it, int size) {
+        int[] answer = new int[size];
+        int pos = 0;
+        while (it.hasNext())
+            answer[pos++] = it.nextInt();
+        if (pos != size)
+            throw new RuntimeException("bug " + pos);
+        return answer;
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void arrayTest_test0_decomposed() {
+        Random r = new Random(0);
+        for (int n : new int[] { 0, 1, 255, 256, 257, 100000 }) {
+            int[] data = new int[n];
+            for (int k = 0; k < n; ++k)
+                data[k] = r.nextInt(1 << 20);
+            for (int id : new int[] { CodecRegistry.FASTPFOR,
+                    CodecRegistry.BINARY_PACKING, CodecRegistry.VARIABLE_BYTE }) {
+                CompressedIntArray a = CompressedIntArray.compress1(data, 128,
+                        id);
+                if (a.size() != n)
+                    throw new RuntimeException("bug");
+                for (int k = 0; k < 1000 && n > 0; ++k) {
+                    int i = r.nextInt(n);
+                    if (a.get(i) != data[i])
+                        throw new RuntimeException("bug " + i);
+                }
+                if (!Arrays.equals(data, a.toArray()))
+                    throw new RuntimeException("bug");
+                if (!Arrays.equals(data, iterate(a.iterator(), n)))
+                    throw new RuntimeException("bug");
+                final int[] copy = new int[n];
+                final AtomicInteger pos = new AtomicInteger();
+                a.forEach(new IntConsumer() {
+                    @Override
+                    public void accept(int value) {
+                        copy[pos.getAndIncrement()] = value;
+                    }
+                });
+                if (!Arrays.equals(data, copy))
+                    throw new RuntimeException("bug");
+            }
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void sortedSetTest_test0_decomposed() {
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        int[] data = cdg.generateClustered(100000, 1 << 20);
+        CompressedSortedIntSet s = CompressedSortedIntSet.compress0(data);
+        if (!Arrays.equals(data, s.toArray()))
+            throw new RuntimeException("bug");
+        if (!Arrays.equals(data, iterate(s.iterator(), data.length)))
+            throw new RuntimeException("bug");
+        for (int k = 0; k < data.length; k += 37) {
+            if (s.indexOf(data[k]) != k || s.get(k) != data[k])
+                throw new RuntimeException("bug " + k);
+        }
+        Random r = new Random(1);
+        for (int k = 0; k < 10000; ++k) {
+            int x = r.nextInt(1 << 20);
+            if (s.contains(x) != (Arrays.binarySearch(data, x) >= 0))
+                throw new RuntimeException("bug " + x);
+        }
+        if (s.contains(-1) || s.contains(Integer.MAX_VALUE))
+            throw new RuntimeException("bug");
+        // the whole point: much smaller than an int[]
+        if (s.getCompressedSizeInInts() * 4 > data.length)
+            throw new RuntimeException("bug: poor compression "
+                    + s.getCompressedSizeInInts());
+        if (CompressedSortedIntSet.compress0(new int[0]).contains(0))
+            throw new RuntimeException("bug");
+        try {
+            CompressedSortedIntSet.compress0(new int[] { 1, 1 });
+            throw new RuntimeException("bug: accepted duplicates");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * @throws InterruptedException
+     *                 on failure
+     */
+    @Test
+    public void concurrentTest_test0_decomposed() throws InterruptedException {
+        final int[] data = new int[200000];
+        Random r = new Random(2);
+        for (int k = 0; k < data.length; ++k)
+            data[k] = r.nextInt(1000);
+        final CompressedIntArray a = CompressedIntArray.compress0(data);
+        final AtomicInteger errors = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random rt = new Random(seed);
+                    for (int k = 0; k < 100000; ++k) {
+                        int i = rt.nextInt(data.length);
+                        if (a.get(i) != data[i])
+                            errors.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        if (errors.get() != 0)
+            throw new RuntimeException("bug " + errors.get());
+    }
+
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int k = 0; k < 5; ++k) {
+            System.gc();
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Many small sets, each read once, must retain less heap than their
+     * values as an int[] (no codec held per set).
+     */
+    @Test
+    public void retainedMemoryTest_test0_decomposed() {
+        final int sets = 1000;
+        final int n = 10000;
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        CompressedSortedIntSet[] s = new CompressedSortedIntSet[sets];
+        final long before = usedMemory();
+        for (int k = 0; k < sets; ++k) {
+            int[] data = cdg.generateClustered(n, 1 << 16);
+            s[k] = CompressedSortedIntSet.compress0(data);
+            if (!s[k].contains(data[n / 2]))
+                throw new RuntimeException("bug");
+        }
+        final long retained = usedMemory() - before;
+        long compressed = 0;
+        for (CompressedSortedIntSet x : s)
+            compressed += 4L * x.getCompressedSizeInInts();
+        final long uncompressed = 4L * n * sets;
+        if (retained > uncompressed / 2)
+            throw new RuntimeException("bug: " + retained
+                    + " bytes retained for " + compressed
+                    + " bytes of compressed data, " + uncompressed
+                    + " bytes uncompressed");
+    }
+
+    /**
+     * Threads reading many sets each keep a few decoded blocks, not a few
+     * blocks per set.
+     *
+     * @throws InterruptedException
+     *                 on failure
+     */
+    @Test
+    public void threadFootprintTest_test0_decomposed()
+            throws InterruptedException {
+        final int sets = 1000;
+        final int n = 2000;
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        final CompressedSortedIntSet[] s = new CompressedSortedIntSet[sets];
+        final int[] probes = new int[sets];
+        for (int k = 0; k < sets; ++k) {
+            int[] data = cdg.generateClustered(n, 1 << 16);
+            s[k] = CompressedSortedIntSet.compress0(data);
+            probes[k] = data[n / 2];
+        }
+        final long before = usedMemory();
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(4);
+        final CountDownLatch measured = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int k = 0; k < sets; ++k)
+                        if (!s[k].contains(probes[k]))
+                            errors.incrementAndGet();
+                    done.countDown();
+                    // stay alive, with the thread-local state, until measured
+                    try {
+                        measured.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        done.await();
+        final long retained = usedMemory() - before;
+        measured.countDown();
+        for (Thread t : threads)
+            t.join();
+        if (errors.get() != 0)
+            throw new RuntimeException("bug " + errors.get());
+        // one decoded block per set and thread would be about 5 MB
+        if (retained > 2 * 1024 * 1024)
+            throw new RuntimeException("bug: " + retained
+                    + " bytes retained by " + threads.length + " threads");
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+import org.junit.Test;
+
+/**
+ * Checks that a ConcurrentFastPFOR can be shared between threads.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class ConcurrentFastPFORTest {
+
+    private static void check(final SkippableIntegerCODEC c, int threads)
+            throws Exception {
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        final int[][] data = new int[2 * threads][];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = cdg.generateClustered(10000 + 37 * k, 1 << 24);
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (int t = 0; t < data.length; ++t) {
+                final int[] d = data[t];
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int r = 0; r < 20; ++r) {
+                            int[] comp = new int[d.length + 1024];
+                            IntWrapper outpos = IntWrapper.IntWrapper1();
+                            c.headlessCompress(d, IntWrapper.IntWrapper1(),
+                                    d.length, comp, outpos);
+                            int[] rev = new int[d.length];
+                            IntWrapper revpos = IntWrapper.IntWrapper1();
+                            c.headlessUncompress(comp, IntWrapper.IntWrapper1(),
+                                    outpos.get(), rev, revpos, d.length);
+                            if (revpos.get() != d.length)
+                                throw new RuntimeException("bug " + c);
+                            for (int k = 0; k < d.length; ++k)
+                                if (rev[k] != d[k])
+                                    throw new RuntimeException("bug " + c);
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (Future<Void> f : es.invokeAll(tasks))
+                f.get();
+        } finally {
+            es.shutdown();
+        }
+    }
+
+    @Test
+    public void sharedFastPFORTest_test0_decomposed() throws Exception {
+        check(new SkippableComposition(
+                new ConcurrentFastPFOR(FastPFOR.BLOCK_SIZE, 2),
+                new VariableByte()), 8);
+    }
+
+    @Test
+    public void sharedFastPFOR128Test_test0_decomposed() throws Exception {
+        check(new SkippableComposition(
+                new ConcurrentFastPFOR(FastPFOR128.BLOCK_SIZE, 3),
+                new VariableByte()), 8);
+    }
+
+    @Test
+    public void sameFormatTest_test0_decomposed() {
+        int[] data = new ClusteredDataGenerator().generateClustered(65536 * 2,
+                1 << 20);
+        int[] comp1 = new int[data.length + 1024];
+        int[] comp2 = new int[data.length + 1024];
+        IntWrapper outpos1 = IntWrapper.IntWrapper1();
+        IntWrapper outpos2 = IntWrapper.IntWrapper1();
+        FastPFOR128.FastPFOR1281().compress0(data, IntWrapper.IntWrapper1(),
+                data.length, comp1, outpos1);
+        new ConcurrentFastPFOR(FastPFOR128.BLOCK_SIZE, 1).compress0(data,
+                IntWrapper.IntWrapper1(), data.length, comp2, outpos2);
+        if (outpos1.get() != outpos2.get())
+            throw new RuntimeException("bug");
+        for (int k = 0; k < outpos1.get(); ++k)
+            if (comp1[k] != comp2[k])
+                throw new RuntimeException("bug");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badBlockSizeTest_test0_decomposed() {
+        new ConcurrentFastPFOR(64, 1);
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+/**
+ * Tests for ContainerWriter and ContainerReader.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class ContainerTest {
+
+    private static int[] randomData(int n, int bits, long seed) {
+        Random r = new Random(seed);
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k)
+            data[k] = r.nextInt() >>> (32 - bits);
+        return data;
+    }
+
+    private static void flipBit(Path p, long byteOffset) throws IOException {
+        try (RandomAccessFile f = new RandomAccessFile(p.toFile(), "rw")) {
+            f.seek(byteOffset);
+            int b = f.read();
+            f.seek(byteOffset);
+            f.write(b ^ 0x10);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void crcTest_test0_decomposed() {
+        byte[] check = "123456789".getBytes(StandardCharsets.US_ASCII);
+        CRC32C c = new CRC32C();
+        c.update(check, 0, check.length);
+        if (c.getValue() != 0xE3069283L)
+            throw new RuntimeException("bug " + Long.toHexString(c.getValue()));
+        Random r = new Random(0);
+        for (int n = 0; n < 100; ++n) {
+            byte[] b = new byte[n];
+            r.nextBytes(b);
+            c.reset();
+            c.update(b, 0, n);
+            if ((int) c.getValue() != CRC32C.checksum(ByteBuffer.wrap(b)))
+                throw new RuntimeException("bug " + n);
+        }
+    }
+
+    /**
+     * @throws IOException
+     *                 on failure
+     */
+    @Test
+    public void roundTripTest_test0_decomposed() throws IOException {
+        Path p = Files.createTempFile("container", ".bin");
+        try {
+            for (int id = CodecRegistry.JUST_COPY; id <= CodecRegistry.ADAPTIVE; ++id) {
+                for (int n : new int[] { 0, 1, 1000, 70000 }) {
+                    int[] data = randomData(n, 20, id + n);
+                    ContainerWriter.writeFile(p, id, 4096, data);
+                    try (ContainerReader reader = ContainerReader.open(p)) {
+                        if ((reader.getCodecId() != id)
+                                || (reader.size() != n)
+                                || (reader.getBlockSize() != 4096))
+                            throw new RuntimeException("bug header " + id);
+                        if (!Arrays.equals(data, reader.toArray()))
+                            throw new RuntimeException("bug " + id + " " + n);
+                    }
+                }
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    /**
+     * @throws IOException
+     *                 on failure
+     */
+    @Test
+    public void segmentsTest_test0_decomposed() throws IOException {
+        Path p = Files.createTempFile("container", ".bin");
+        try {
+            int[] data = randomData(100000, 32, 1);
+            ContainerWriter.writeFile(p, CodecRegistry.JUST_COPY, 1000, data);
+            // each block is 4000 bytes: at most two blocks per segment
+            try (ContainerReader reader = ContainerReader.open0(p, 10000)) {
+                if (reader.segments.length != 50)
+                    throw new RuntimeException("bug "
+                            + reader.segments.length);
+                if (!Arrays.equals(data, reader.toArray()))
+                    throw new RuntimeException("bug");
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    /**
+     * @throws IOException
+     *                 on failure
+     */
+    @Test
+    public void corruptionTest_test0_decomposed() throws IOException {
+        Path p = Files.createTempFile("container", ".bin");
+        try {
+            int[] data = randomData(10000, 12, 2);
+            ContainerWriter.writeFile(p, CodecRegistry.FASTPFOR, 1024, data);
+            long blockStart;
+            try (ContainerReader reader = ContainerReader.open(p)) {
+                blockStart = reader.offsets[3];
+            }
+            flipBit(p, blockStart + 17);
+            try (ContainerReader reader = ContainerReader.open(p)) {
+                // the other blocks are still readable
+                int[] out = new int[1024];
+                reader.decodeBlock(2, out, 0);
+                if (!Arrays.equals(out, Arrays.copyOfRange(data, 2048, 3072)))
+                    throw new RuntimeException("bug");
+                try {
+                    reader.decodeBlock(3, out, 0);
+                    throw new RuntimeException("bug: undetected");
+                } catch (CorruptedDataException e) {
+                    // expected
+                }
+                try {
+                    reader.verify();
+                    throw new RuntimeException("bug: undetected");
+                } catch (CorruptedDataException e) {
+                    // expected
+                }
+            }
+            // damaged header, footer, or truncated file
+            long size = Files.size(p);
+            for (long offset : new long[] { 9, size - 20 }) {
+                ContainerWriter.writeFile(p, CodecRegistry.FASTPFOR, 1024,
+                        data);
+                flipBit(p, offset);
+                try {
+                    ContainerReader.open(p).close();
+                    throw new RuntimeException("bug: undetected " + offset);
+                } catch (CorruptedDataException e) {
+                    // expected
+                }
+            }
+            ContainerWriter.writeFile(p, CodecRegistry.FASTPFOR, 1024, data);
+            try (RandomAccessFile f = new RandomAccessFile(p.toFile(), "rw")) {
+                f.setLength(size - 1);
+            }
+            try {
+                ContainerReader.open(p).close();
+                throw new RuntimeException("bug: undetected truncation");
+            } catch (CorruptedDataException e) {
+                // expected
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    /**
+     * @throws IOException
+     *                 on failure
+     */
+    @Test
+    public void customCodecTest_test0_decomposed() throws IOException {
+        final int id = CodecRegistry.FIRST_CUSTOM_ID + 12345;
+        CodecRegistry.register(id, new Supplier<SkippableIntegerCODEC>() {
+            @Override
+            public SkippableIntegerCODEC get() {
+                return new SkippableComposition(FastPFOR128.FastPFOR1281(),
+                        new VariableByte());
+            }
+        });
+        Path p = Files.createTempFile("container", ".bin");
+        try {
+            int[] data = randomData(5000, 8, 3);
+            try (ContainerWriter w = new ContainerWriter(id, 512,
+                    Files.newByteChannel(p,
+                            java.nio.file.StandardOpenOption.WRITE))) {
+                for (int v : data)
+                    w.accept(v);
+            }
+            try (ContainerReader reader = ContainerReader.open(p)) {
+                reader.verify();
+                if (!Arrays.equals(data, reader.toArray()))
+                    throw new RuntimeException("bug");
+            }
+        } finally {
+            Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import me.lemire.integercompression.differential.BlockIndexedArray;
+import me.lemire.integercompression.differential.HybridIntSet;
+import me.lemire.integercompression.differential.HybridSetCODEC;
+import me.lemire.integercompression.differential.IntegratedBinaryPacking;
+import me.lemire.integercompression.differential.IntegratedVariableByte;
+import me.lemire.integercompression.differential.SkippableIntegratedComposition;
+
+import org.junit.Test;
+
+/**
+ * Tests for HybridSetCODEC and HybridIntSet.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class HybridIntSetTest {
+
+    // one chunk of each kind, and some negative values
+    private static int[] data(Random r) {
+        TreeSet<Integer> s = new TreeSet<Integer>();
+        // dense: bitmap
+        for (int k = 0; k < 20000; ++k)
+            s.add((1 << 16) + r.nextInt(1 << 16));
+        // sparse: packed
+        for (int k = 0; k < 500; ++k)
+            s.add((5 << 16) + r.nextInt(1 << 16));
+        // long runs
+        for (int k = 0; k < 5; ++k) {
+            final int start = (9 << 16) + r.nextInt(60000);
+            for (int j = 0; j < 1000; ++j)
+                s.add(start + j);
+        }
+        for (int k = 0; k < 300; ++k)
+            s.add(-1 - r.nextInt(1 << 20));
+        s.add(Integer.MAX_VALUE);
+        s.add(Integer.MIN_VALUE);
+        int[] answer = new int[s.size()];
+        int pos = 0;
+        for (int v : s)
+            answer[pos++] = v;
+        return answer;
+    }
+
+    private static int[] random(Random r, int n, int max) {
+        TreeSet<Integer> s = new TreeSet<Integer>();
+        while (s.size() < n)
+            s.add(r.nextInt(max));
+        int[] answer = new int[n];
+        int pos = 0;
+        for (int v : s)
+            answer[pos++] = v;
+        return answer;
+    }
+
+    private static int[] naive(int[] x, int[] y, int op) {
+        TreeSet<Integer> s = new TreeSet<Integer>();
+        for (int v : x)
+            s.add(v);
+        TreeSet<Integer> t = new TreeSet<Integer>();
+        for (int v : y)
+            t.add(v);
+        if (op == 0)
+            s.retainAll(t);
+        else if (op == 1)
+            s.addAll(t);
+        else
+            s.removeAll(t);
+        int[] answer = new int[s.size()];
+        int pos = 0;
+        for (int v : s)
+            answer[pos++] = v;
+        return answer;
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void codecTest_test0_decomposed() {
+        int[] data = data(new Random(1));
+        HybridSetCODEC c = new HybridSetCODEC();
+        int[] comp = new int[3 * data.length + 1024];
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        c.compress0(data, IntWrapper.IntWrapper1(), data.length, comp, outpos);
+        int[] back = new int[data.length];
+        IntWrapper inpos = IntWrapper.IntWrapper1();
+        IntWrapper backpos = IntWrapper.IntWrapper1();
+        c.uncompress0(comp, inpos, outpos.get(), back, backpos);
+        if (!Arrays.equals(data, back) || (inpos.get() != outpos.get())
+                || (backpos.get() != data.length))
+            throw new RuntimeException("bug");
+        try {
+            c.compress0(new int[] { 1, 3, 3 }, IntWrapper.IntWrapper1(), 3,
+                    comp, IntWrapper.IntWrapper1());
+            throw new RuntimeException("bug: unsorted input accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void containersTest_test0_decomposed() {
+        int[] data = data(new Random(2));
+        HybridIntSet s = HybridIntSet.compress0(data);
+        int[] types = new int[3];
+        for (int c = 0; c < s.getChunkCount(); ++c)
+            types[s.getChunkType(c)]++;
+        if ((types[HybridSetCODEC.BITMAP] != 1)
+                || (types[HybridSetCODEC.PACKED] == 0)
+                || (types[HybridSetCODEC.RUNS] == 0))
+            throw new RuntimeException("bug " + Arrays.toString(types));
+        // the dense chunk costs 8 KB instead of about 10 bits per value
+        if (s.getCompressedSizeInInts() > 2048 + 500 + 200 + 600)
+            throw new RuntimeException("bug " + s.getCompressedSizeInInts());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void membershipTest_test0_decomposed() {
+        int[] data = data(new Random(3));
+        HybridIntSet s = HybridIntSet.wrap(HybridIntSet.compress0(data)
+                .getCompressed());
+        if ((s.size() != data.length) || !Arrays.equals(data, s.toArray()))
+            throw new RuntimeException("bug");
+        for (int v : data)
+            if (!s.contains(v))
+                throw new RuntimeException("bug " + v);
+        Random r = new Random(4);
+        for (int k = 0; k < 100000; ++k) {
+            final int v = r.nextInt(12 << 16) - (1 << 20);
+            if (s.contains(v) != (Arrays.binarySearch(data, v) >= 0))
+                throw new RuntimeException("bug " + v);
+        }
+        PrimitiveIterator.OfInt i = s.iterator();
+        for (int v : data)
+            if (!i.hasNext() || (i.nextInt() != v))
+                throw new RuntimeException("bug");
+        if (i.hasNext())
+            throw new RuntimeException("bug");
+        final int[] sum = new int[1];
+        s.forEach(new java.util.function.IntConsumer() {
+            @Override
+            public void accept(int v) {
+                sum[0] += v;
+            }
+        });
+        int expected = 0;
+        for (int v : data)
+            expected += v;
+        if (sum[0] != expected)
+            throw new RuntimeException("bug");
+        HybridIntSet empty = HybridIntSet.compress0(new int[0]);
+        if ((empty.size() != 0) || empty.contains(0)
+                || empty.iterator().hasNext())
+            throw new RuntimeException("bug");
+    }
+
+    /**
+     * The decoded packed chunk of a thread is shared by all the sets.
+     */
+    @Test
+    public void sharedDecodedTest_test0_decomposed() {
+        Random r = new Random(7);
+        int[][] data = new int[100][];
+        HybridIntSet[] sets = new HybridIntSet[data.length];
+        for (int k = 0; k < data.length; ++k) {
+            // a single packed chunk, of different sizes
+            data[k] = random(r, 100 + 10 * k, 1 << 16);
+            sets[k] = HybridIntSet.compress0(data[k]);
+            if (sets[k].getChunkType(0) != HybridSetCODEC.PACKED)
+                throw new RuntimeException("bug");
+        }
+        for (int j = 0; j < 10000; ++j) {
+            final int k = r.nextInt(data.length);
+            final int v = r.nextInt(1 << 16);
+            if (sets[k].contains(v) != (Arrays.binarySearch(data[k], v) >= 0))
+                throw new RuntimeException("bug " + k + " " + v);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void setOperationsTest_test0_decomposed() {
+        Random r = new Random(5);
+        int[] x = data(r);
+        int[][] others = { data(r), random(r, 30000, 10 << 16),
+                random(r, 100, 10 << 16), new int[0] };
+        HybridIntSet hx = HybridIntSet.compress0(x);
+        for (int[] y : others) {
+            HybridIntSet hy = HybridIntSet.compress0(y);
+            if (!Arrays.equals(naive(x, y, 0), HybridIntSet.and(hx, hy)
+                    .toArray())
+                    || !Arrays.equals(naive(y, x, 0), HybridIntSet.and(hy,
+                            hx).toArray()))
+                throw new RuntimeException("bug and");
+            if (!Arrays.equals(naive(x, y, 1), HybridIntSet.or(hx, hy)
+                    .toArray())
+                    || !Arrays.equals(naive(y, x, 1), HybridIntSet.or(hy,
+                            hx).toArray()))
+                throw new RuntimeException("bug or");
+            if (!Arrays.equals(naive(x, y, 2), HybridIntSet.andNot(hx, hy)
+                    .toArray())
+                    || !Arrays.equals(naive(y, x, 2), HybridIntSet.andNot(
+                            hy, hx).toArray()))
+                throw new RuntimeException("bug andNot");
+            BlockIndexedArray b = BlockIndexedArray.compress0(y, 128,
+                    new SkippableIntegratedComposition(
+                            new IntegratedBinaryPacking(),
+                            new IntegratedVariableByte()));
+            if (!Arrays.equals(naive(x, y, 0), hx.intersect(b))
+                    || !Arrays.equals(naive(x, y, 1), hx.union(b)))
+                throw new RuntimeException("bug BlockIndexedArray");
+            if (!Arrays.equals(y, hy.toBlockIndexedArray(256,
+                    new SkippableIntegratedComposition(
+                            new IntegratedBinaryPacking(),
+                            new IntegratedVariableByte())).toArray()))
+                throw new RuntimeException("bug");
+        }
+    }
+}
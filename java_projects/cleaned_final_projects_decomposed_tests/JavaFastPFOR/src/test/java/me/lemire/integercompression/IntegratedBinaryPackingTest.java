@@ -0,0 +1,84 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import me.lemire.integercompression.differential.IntegratedBinaryPacking;
+import me.lemire.integercompression.differential.IntegratedComposition;
+import me.lemire.integercompression.differential.IntegratedIntegerCODEC;
+import me.lemire.integercompression.differential.IntegratedVariableByte;
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+import org.junit.Test;
+
+/**
+ * Checks that IntegratedBinaryPacking.fastest() (which may be vectorized)
+ * uses the same format as IntegratedBinaryPacking.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class IntegratedBinaryPackingTest {
+
+    @Test
+    public void fastestTest_test0_decomposed() {
+        IntegratedIntegerCODEC scalar = new IntegratedComposition(
+                new IntegratedBinaryPacking(), new IntegratedVariableByte());
+        IntegratedIntegerCODEC fastest = new IntegratedComposition(
+                IntegratedBinaryPacking.fastest(), new IntegratedVariableByte());
+        System.out.println("[IntegratedBinaryPackingTest] fastest = "
+                + fastest);
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        for (int N : new int[] { 0, 1, 31, 32, 127, 128, 129, 1000, 65536 }) {
+            for (int sparsity = 1; sparsity < 31 - 17; sparsity += 3) {
+                int[] data = cdg.generateClustered(N, (1 << 17) << sparsity);
+                int[] comp1 = new int[2 * N + 1024];
+                int[] comp2 = new int[2 * N + 1024];
+                IntWrapper outpos1 = new IntWrapper(3);
+                IntWrapper outpos2 = new IntWrapper(3);
+                scalar.compress0(data, IntWrapper.IntWrapper1(), N, comp1,
+                        outpos1);
+                fastest.compress0(data, IntWrapper.IntWrapper1(), N, comp2,
+                        outpos2);
+                if (outpos1.get() != outpos2.get())
+                    throw new RuntimeException("bug " + N);
+                for (int k = 0; k < outpos1.get(); ++k)
+                    if (comp1[k] != comp2[k])
+                        throw new RuntimeException("bug " + N + " " + k);
+                int[] rev = new int[N + 5];
+                IntWrapper revpos = new IntWrapper(5);
+                fastest.uncompress0(comp1, new IntWrapper(3),
+                        outpos1.get() - 3, rev, revpos);
+                if (revpos.get() != N + 5)
+                    throw new RuntimeException("bug " + N);
+                for (int k = 0; k < N; ++k)
+                    if (rev[k + 5] != data[k])
+                        throw new RuntimeException("bug " + N + " " + k);
+            }
+        }
+    }
+
+    @Test
+    public void fullRangeTest_test0_decomposed() {
+        // differences using all 32 bits
+        int[] data = new int[256];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = (k % 2 == 0) ? Integer.MIN_VALUE + k : Integer.MAX_VALUE
+                    - k;
+        IntegratedIntegerCODEC fastest = IntegratedBinaryPacking.fastest();
+        int[] comp = new int[2 * data.length + 1024];
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        fastest.compress0(data, IntWrapper.IntWrapper1(), data.length, comp,
+                outpos);
+        int[] rev = new int[data.length];
+        fastest.uncompress0(comp, IntWrapper.IntWrapper1(), outpos.get(), rev,
+                IntWrapper.IntWrapper1());
+        for (int k = 0; k < data.length; ++k)
+            if (rev[k] != data[k])
+                throw new RuntimeException("bug " + k);
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.kamikaze.pfordelta.LCPForDelta;
+import com.kamikaze.pfordelta.PForDelta;
+
+/**
+ * Checks that Kamikaze, KamikazeBlocks and KamikazeLC read and write the
+ * formats of the Kamikaze library.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class KamikazeTest {
+
+    // small values with a few exceptions, all below 2^28
+    private static int[] data(int n, int seed) {
+        Random r = new Random(seed);
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k)
+            data[k] = k % 37 == 0 ? r.nextInt(1 << 27) : r.nextInt(1 << (k
+                    / 128 % 14));
+        return data;
+    }
+
+    // the blocks of com.kamikaze.pfordelta.PForDelta, one after the other
+    private static int[] legacy(int[] data) {
+        int[] out = new int[2 * data.length + 1024];
+        int pos = 0;
+        for (int s = 0; s < data.length; s += KamikazeBlocks.BLOCK_SIZE) {
+            int[] block = PForDelta.compressOneBlockOpt(
+                    Arrays.copyOfRange(data, s, s + KamikazeBlocks.BLOCK_SIZE),
+                    KamikazeBlocks.BLOCK_SIZE);
+            System.arraycopy(block, 0, out, pos, block.length);
+            pos += block.length;
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void sameBlocksTest_test0_decomposed() {
+        final int n = 128 * 64;
+        int[] data = data(n, 1);
+        int[] expected = legacy(data);
+        int[] comp = new int[2 * n + 1024];
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        KamikazeBlocks codec = new KamikazeBlocks();
+        codec.headlessCompress(data, IntWrapper.IntWrapper1(), n, comp,
+                outpos);
+        comp = Arrays.copyOf(comp, outpos.get());
+        // the same blocks, with the length of the exceptions in the header
+        int[] block = new int[KamikazeBlocks.BLOCK_SIZE];
+        for (int pos = 0; pos < comp.length;) {
+            int end = codec.skipBlock(comp, pos);
+            int w = comp[pos] >>> 16;
+            if ((comp[pos] & 0x3FF) > 0 ? w == 0 || w > end - pos : w != 0)
+                throw new RuntimeException("bug: length of the exceptions");
+            PForDelta.decompressOneBlock(block,
+                    Arrays.copyOfRange(comp, pos, end),
+                    KamikazeBlocks.BLOCK_SIZE);
+            comp[pos] &= 0xFFFF;
+            pos = end;
+        }
+        if (!Arrays.equals(expected, comp))
+            throw new RuntimeException("bug: not the blocks of Kamikaze");
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void readLegacyTest_test0_decomposed() {
+        final int n = 128 * 64;
+        int[] data = data(n, 2);
+        int[] comp = legacy(data);
+        int[] back = new int[n];
+        IntWrapper inpos = IntWrapper.IntWrapper1();
+        KamikazeBlocks codec = new KamikazeBlocks();
+        codec.headlessUncompress(comp, inpos, comp.length, back,
+                IntWrapper.IntWrapper1(), n);
+        if (!Arrays.equals(data, back) || (inpos.get() != comp.length))
+            throw new RuntimeException("bug");
+        // skip the first half, read the rest
+        inpos = IntWrapper.IntWrapper1();
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        codec.headlessSkip(comp, inpos, comp.length, outpos, n / 2);
+        codec.headlessUncompress(comp, inpos, comp.length, back, outpos,
+                n / 2);
+        if (!Arrays.equals(data, back) || (inpos.get() != comp.length))
+            throw new RuntimeException("bug");
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void largeIntegersTest_test0_decomposed() {
+        Random r = new Random(3);
+        final int n = 128 * 16;
+        int[] data = new int[n];
+        for (int k = 0; k < n; ++k)
+            data[k] = k % 50 == 0 ? r.nextInt() | (1 << 31) : k % 7 == 0 ? r
+                    .nextInt() >>> (k % 5) : r.nextInt(256);
+        IntegerCODEC c = new Composition(new KamikazeBlocks(),
+                new VariableByte());
+        int[] comp = TestUtils.compress1(c, Arrays.copyOf(data, n - 5));
+        int[] back = TestUtils.uncompress0(c, comp, n - 5);
+        if (!Arrays.equals(Arrays.copyOf(data, n - 5), back))
+            throw new RuntimeException("bug " + c);
+    }
+
+    // the blocks of com.kamikaze.pfordelta.LCPForDelta, one after the other
+    private static int[] legacyLC(int[] data) {
+        int[] out = new int[2 * data.length + 1024];
+        int pos = 0;
+        for (int s = 0; s < data.length; s += KamikazeBlocks.BLOCK_SIZE) {
+            // the compressed block is only visible to subclasses
+            final int[][] block = new int[1][];
+            new LCPForDelta() {
+                @Override
+                public int compress(int[] inBlock, int blockSize) {
+                    int length = super.compress(inBlock, blockSize);
+                    block[0] = Arrays.copyOf(getCompBuffer(), length);
+                    return length;
+                }
+            }.compress(Arrays.copyOfRange(data, s, s + KamikazeBlocks.BLOCK_SIZE),
+                    KamikazeBlocks.BLOCK_SIZE);
+            System.arraycopy(block[0], 0, out, pos, block[0].length);
+            pos += block[0].length;
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void readLegacyLCTest_test0_decomposed() {
+        final int n = 128 * 64;
+        int[] data = data(n, 4);
+        int[] comp = legacyLC(data);
+        int[] back = new int[n];
+        IntWrapper inpos = IntWrapper.IntWrapper1();
+        KamikazeLC codec = new KamikazeLC();
+        codec.headlessUncompress(comp, inpos, comp.length, back,
+                IntWrapper.IntWrapper1(), n);
+        if (!Arrays.equals(data, back) || (inpos.get() != comp.length))
+            throw new RuntimeException("bug");
+        // skip the first half, read the rest
+        inpos = IntWrapper.IntWrapper1();
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        codec.headlessSkip(comp, inpos, comp.length, outpos, n / 2);
+        codec.headlessUncompress(comp, inpos, comp.length, back, outpos,
+                n / 2);
+        if (!Arrays.equals(data, back) || (inpos.get() != comp.length))
+            throw new RuntimeException("bug");
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void writeLCTest_test0_decomposed() {
+        final int n = 128 * 64;
+        int[] data = data(n, 5);
+        int[] comp = new int[2 * n + 1024];
+        IntWrapper outpos = IntWrapper.IntWrapper1();
+        new KamikazeLC().headlessCompress(data, IntWrapper.IntWrapper1(), n,
+                comp, outpos);
+        int[] expected = legacyLC(data);
+        if (outpos.get() != expected.length)
+            throw new RuntimeException("bug: not the size of LCPForDelta");
+        // each block decodes with LCPForDelta
+        IntWrapper inpos = IntWrapper.IntWrapper1();
+        KamikazeLC codec = new KamikazeLC();
+        int[] block = new int[KamikazeBlocks.BLOCK_SIZE];
+        for (int s = 0; s < n; s += KamikazeBlocks.BLOCK_SIZE) {
+            int start = inpos.get();
+            codec.headlessSkip(comp, inpos, outpos.get(),
+                    IntWrapper.IntWrapper1(), KamikazeBlocks.BLOCK_SIZE);
+            LCPForDelta.decompressOneBlock(block,
+                    Arrays.copyOfRange(comp, start, inpos.get()),
+                    KamikazeBlocks.BLOCK_SIZE);
+            if (!Arrays.equals(Arrays.copyOfRange(data, s, s
+                    + KamikazeBlocks.BLOCK_SIZE), block))
+                throw new RuntimeException("bug at " + s);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void singleBlockTest_test0_decomposed() {
+        final int n = 128 * 8;
+        int[] data = data(n, 6);
+        // after a few other integers
+        int[] single = PForDelta.compressOneBlockOpt(data, n);
+        int[] comp = new int[single.length + 3];
+        System.arraycopy(single, 0, comp, 3, single.length);
+        int[] back = new int[n + 2];
+        IntWrapper inpos = new IntWrapper(3);
+        IntWrapper outpos = new IntWrapper(2);
+        Kamikaze codec = new Kamikaze();
+        codec.headlessUncompress(comp, inpos, comp.length, back, outpos, n);
+        if (!Arrays.equals(data, Arrays.copyOfRange(back, 2, n + 2))
+                || (inpos.get() != comp.length) || (outpos.get() != n + 2))
+            throw new RuntimeException("bug");
+        // and written again the same way
+        int[] comp2 = new int[2 * n + 1024];
+        outpos = IntWrapper.IntWrapper1();
+        codec.headlessCompress(back, new IntWrapper(2), n, comp2,
+                outpos);
+        if (!Arrays.equals(single, Arrays.copyOf(comp2, outpos.get())))
+            throw new RuntimeException("bug");
+    }
+}
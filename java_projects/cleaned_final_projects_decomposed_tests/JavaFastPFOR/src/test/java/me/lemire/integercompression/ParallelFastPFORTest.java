@@ -0,0 +1,150 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+import org.junit.Test;
+
+/**
+ * Tests for ParallelFastPFOR.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class ParallelFastPFORTest {
+
+    private static int[] data(int N) {
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        int[] data = cdg.generateClustered(N, 1 << 28);
+        // exceptions make the pages of uneven sizes
+        for (int k = 0; k < N; k += 1001)
+            data[k] = Integer.MAX_VALUE - k;
+        return data;
+    }
+
+    @Test
+    public void roundTripTest_test0_decomposed() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int blockSize : new int[] { FastPFOR.BLOCK_SIZE,
+                    FastPFOR128.BLOCK_SIZE }) {
+                IntegerCODEC c = new Composition(new ParallelFastPFOR(
+                        blockSize, 4096, pool), new VariableByte());
+                for (int N : new int[] { 0, 1, 255, 256, 4096, 4097, 100000 }) {
+                    int[] data = data(N);
+                    int[] comp = new int[2 * N + 1024];
+                    IntWrapper outpos = new IntWrapper(1);
+                    c.compress0(data, IntWrapper.IntWrapper1(), N, comp,
+                            outpos);
+                    int[] rev = new int[N + 3];
+                    IntWrapper revpos = new IntWrapper(3);
+                    c.uncompress0(comp, new IntWrapper(1), outpos.get() - 1,
+                            rev, revpos);
+                    if (revpos.get() != N + 3)
+                        throw new RuntimeException("bug " + c + " " + N);
+                    if (!Arrays.equals(Arrays.copyOfRange(rev, 3, N + 3), data))
+                        throw new RuntimeException("bug " + c + " " + N);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void serialTest_test0_decomposed() {
+        // without the page directory, the serial codec can read the data
+        for (int threads : new int[] { 1, 3 })
+            serialTest(new ForkJoinPool(threads));
+    }
+
+    @Test
+    public void workerPoolTest_test0_decomposed() throws InterruptedException {
+        // the serial codecs are pooled, no more than the pool has threads
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            final ParallelFastPFOR codec = new ParallelFastPFOR(
+                    FastPFOR.BLOCK_SIZE, 4096, pool);
+            final int N = 40 * 4096;
+            final int[] data = data(N);
+            final AtomicInteger failures = new AtomicInteger();
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; ++t) {
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int r = 0; r < 5; ++r) {
+                            int[] comp = new int[2 * N + 1024];
+                            IntWrapper outpos = new IntWrapper(0);
+                            codec.headlessCompress(data, new IntWrapper(0), N,
+                                    comp, outpos);
+                            int[] rev = new int[N];
+                            codec.headlessUncompress(comp, new IntWrapper(0),
+                                    outpos.get(), rev, new IntWrapper(0), N);
+                            if (!Arrays.equals(rev, data))
+                                failures.incrementAndGet();
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread t : threads)
+                t.join();
+            if (failures.get() != 0)
+                throw new RuntimeException("bug");
+            if ((codec.getIdleWorkerCount() < 1)
+                    || (codec.getIdleWorkerCount() > 2))
+                throw new RuntimeException("bug: "
+                        + codec.getIdleWorkerCount() + " idle codecs");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void serialTest(ForkJoinPool pool) {
+        try {
+            for (int blockSize : new int[] { FastPFOR.BLOCK_SIZE,
+                    FastPFOR128.BLOCK_SIZE }) {
+                SkippableIntegerCODEC parallel = new ParallelFastPFOR(
+                        blockSize, FastPFOR.DEFAULT_PAGE_SIZE, pool);
+                SkippableIntegerCODEC serial = blockSize == FastPFOR.BLOCK_SIZE ? FastPFOR
+                        .FastPFOR1() : FastPFOR128.FastPFOR1281();
+                int N = 5 * FastPFOR.DEFAULT_PAGE_SIZE + 3 * blockSize;
+                int[] data = data(N);
+                int[] comp = new int[2 * N + 1024];
+                IntWrapper outpos = IntWrapper.IntWrapper1();
+                IntWrapper inpos = IntWrapper.IntWrapper1();
+                parallel.headlessCompress(data, inpos, N, comp, outpos);
+                if (inpos.get() != N)
+                    throw new RuntimeException("bug");
+                int[] rev = new int[N];
+                IntWrapper pos = new IntWrapper(
+                        ParallelFastPFOR.getDirectoryLength(comp, 0));
+                serial.headlessUncompress(comp, pos, outpos.get()
+                        - pos.get(), rev, IntWrapper.IntWrapper1(), N);
+                if (pos.get() != outpos.get())
+                    throw new RuntimeException("bug " + parallel);
+                if (!Arrays.equals(rev, data))
+                    throw new RuntimeException("bug " + parallel);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pageSizeTest_test0_decomposed() {
+        new ParallelFastPFOR(FastPFOR.BLOCK_SIZE, 1000,
+                ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that the buffer-based codecs agree with their int[] counterparts.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class SkippableIntBufferTest {
+    final SkippableIntegerCODEC[] codecs = {
+            new JustCopy(),
+            new VariableByte(),
+            new SkippableComposition(new BinaryPacking(), new VariableByte()),
+            new SkippableComposition(new NewPFD(), new VariableByte()),
+            new SkippableComposition(new OptPFD(), new VariableByte()),
+            new SkippableComposition(FastPFOR128.FastPFOR1281(), new VariableByte()),
+            new SkippableComposition(FastPFOR.FastPFOR1(), new VariableByte()) };
+
+    final SkippableIntBufferCODEC[] buffercodecs = {
+            new JustCopy(),
+            new VariableByte(),
+            new SkippableIntBufferComposition(new BinaryPacking(), new VariableByte()),
+            new SkippableIntBufferComposition(new NewPFD(), new VariableByte()),
+            new SkippableIntBufferComposition(new OptPFD(), new VariableByte()),
+            new SkippableIntBufferComposition(FastPFOR128.FastPFOR1281(), new VariableByte()),
+            new SkippableIntBufferComposition(FastPFOR.FastPFOR1(), new VariableByte()) };
+
+    private static int[] randomData(Random r, int N) {
+        int[] data = new int[N];
+        for (int k = 0; k < N; ++k) {
+            // mostly small values with a few exceptions
+            int b = r.nextInt(100) < 95 ? r.nextInt(12) : r.nextInt(33);
+            data[k] = b == 0 ? 0 : r.nextInt() >>> (32 - b);
+        }
+        return data;
+    }
+
+    private static IntBuffer directBuffer(int size) {
+        return ByteBuffer.allocateDirect(size * 4)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    @Test
+    public void sameFormatTest_test0_decomposed() {
+        Random r = new Random(1234);
+        for (int i = 0; i < codecs.length; ++i) {
+            SkippableIntegerCODEC c = codecs[i];
+            SkippableIntBufferCODEC bc = buffercodecs[i];
+            for (int N : new int[] { 0, 1, 31, 128, 255, 1000, 4096, 70000 }) {
+                int[] data = randomData(r, N);
+                int[] comp = new int[2 * N + 1024];
+                IntWrapper outPos = IntWrapper.IntWrapper1();
+                c.headlessCompress(data, IntWrapper.IntWrapper1(), N, comp,
+                        outPos);
+                IntBuffer buf = directBuffer(2 * N + 1024);
+                bc.headlessCompressToBuffer(data, IntWrapper.IntWrapper1(), N,
+                        buf);
+                if (buf.position() != outPos.get())
+                    throw new RuntimeException("bug " + c + " " + N);
+                // the array-based codec must read what the buffer codec wrote
+                int[] comp2 = new int[buf.position()];
+                for (int k = 0; k < comp2.length; ++k)
+                    comp2[k] = buf.get(k);
+                int[] rev = new int[N];
+                IntWrapper inPos = IntWrapper.IntWrapper1();
+                IntWrapper revPos = IntWrapper.IntWrapper1();
+                c.headlessUncompress(comp2, inPos, comp2.length, rev, revPos,
+                        N);
+                if (revPos.get() != N || inPos.get() != comp2.length)
+                    throw new RuntimeException("bug " + c + " " + N);
+                for (int k = 0; k < N; ++k)
+                    if (rev[k] != data[k])
+                        throw new RuntimeException("bug " + c + " " + N);
+            }
+        }
+    }
+
+    @Test
+    public void roundTripTest_test0_decomposed() {
+        Random r = new Random(5678);
+        for (int i = 0; i < codecs.length; ++i) {
+            SkippableIntegerCODEC c = codecs[i];
+            SkippableIntBufferCODEC bc = buffercodecs[i];
+            for (int N : new int[] { 0, 1, 31, 128, 255, 1000, 4096, 70000 }) {
+                int[] data = randomData(r, N);
+                int[] comp = new int[2 * N + 1024];
+                IntWrapper outPos = IntWrapper.IntWrapper1();
+                c.headlessCompress(data, IntWrapper.IntWrapper1(), N, comp,
+                        outPos);
+                // place the compressed data after a small header
+                int header = 3;
+                IntBuffer buf = directBuffer(outPos.get() + header);
+                for (int k = 0; k < outPos.get(); ++k)
+                    buf.put(header + k, comp[k]);
+                buf.position(header);
+                int[] rev = new int[N + 1];
+                IntWrapper revPos = new IntWrapper(1);
+                bc.headlessUncompressFromBuffer(buf, outPos.get(), rev, revPos,
+                        N);
+                if (revPos.get() != N + 1)
+                    throw new RuntimeException("bug " + c + " " + N);
+                if (buf.position() != header + outPos.get())
+                    throw new RuntimeException("bug " + c + " " + N);
+                for (int k = 0; k < N; ++k)
+                    if (rev[k + 1] != data[k])
+                        throw new RuntimeException("bug " + c + " " + N);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that range decoding returns the same integers as a full decoding,
+ * without writing outside of the range.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class SkippableRangeTest {
+    final static int SENTINEL = 0xDEADBEEF;
+
+    final SkippableRangeCODEC[] codecs = {
+            new VariableByte(),
+            new SkippableRangeComposition(new BinaryPacking(), new VariableByte()),
+            new SkippableRangeComposition(new NewPFD(), new VariableByte()),
+            new SkippableRangeComposition(new OptPFD(), new VariableByte()),
+            new SkippableRangeComposition(FastPFOR128.FastPFOR1281(), new VariableByte()),
+            new SkippableRangeComposition(FastPFOR.FastPFOR1(), new VariableByte()),
+            // small pages, to cross page boundaries
+            new SkippableRangeComposition(new FastPFOR(1024), new VariableByte()),
+            new SkippableRangeComposition(new ConcurrentFastPFOR(
+                    FastPFOR128.BLOCK_SIZE, 2), new VariableByte()),
+            new SkippableRangeComposition(new KamikazeBlocks(), new VariableByte()),
+            new SkippableRangeComposition(new KamikazeLC(), new VariableByte()) };
+
+    private static int[] randomData(Random r, int N) {
+        int[] data = new int[N];
+        for (int k = 0; k < N; ++k) {
+            // mostly small values with a few exceptions
+            int b = r.nextInt(100) < 95 ? r.nextInt(12) : r.nextInt(33);
+            data[k] = b == 0 ? 0 : r.nextInt() >>> (32 - b);
+        }
+        return data;
+    }
+
+    private static void checkRange(SkippableRangeCODEC c, int[] data,
+            int[] comp, int complength, int from, int to) {
+        // padding on both sides, to catch writes outside of the range
+        int[] out = new int[to - from + 64];
+        Arrays.fill(out, SENTINEL);
+        IntWrapper outPos = new IntWrapper(32);
+        c.headlessUncompressRange(comp, 0, complength, out, outPos,
+                data.length, from, to);
+        if (outPos.get() != 32 + to - from)
+            throw new RuntimeException("bug " + c + " " + data.length + " ["
+                    + from + ", " + to + ") " + outPos.get());
+        for (int k = 0; k < 32; ++k)
+            if (out[k] != SENTINEL || out[out.length - 1 - k] != SENTINEL)
+                throw new RuntimeException("bug: write out of bounds " + c);
+        for (int k = from; k < to; ++k)
+            if (out[32 + k - from] != data[k])
+                throw new RuntimeException("bug " + c + " " + data.length
+                        + " [" + from + ", " + to + ") at " + k);
+    }
+
+    @Test
+    public void rangeTest_test0_decomposed() {
+        Random r = new Random(1234);
+        for (SkippableRangeCODEC c : codecs) {
+            for (int N : new int[] { 0, 1, 31, 128, 255, 1000, 4096, 70000 }) {
+                int[] data = randomData(r, N);
+                int[] comp = new int[2 * N + 1024];
+                IntWrapper outPos = IntWrapper.IntWrapper1();
+                c.headlessCompress(data, IntWrapper.IntWrapper1(), N, comp,
+                        outPos);
+                final int complength = outPos.get();
+                checkRange(c, data, comp, complength, 0, N);
+                checkRange(c, data, comp, complength, 0, Math.min(N, 100));
+                checkRange(c, data, comp, complength, Math.max(0, N - 5), N);
+                checkRange(c, data, comp, complength, N / 2, N / 2);
+                for (int k = 0; k < 20; ++k) {
+                    int from = r.nextInt(N + 1);
+                    int to = from + r.nextInt(N - from + 1);
+                    checkRange(c, data, comp, complength, from, to);
+                }
+                // skipping ends where uncompressing ends
+                IntWrapper inPos = IntWrapper.IntWrapper1();
+                IntWrapper count = IntWrapper.IntWrapper1();
+                c.headlessSkip(comp, inPos, complength, count, N);
+                if (inPos.get() != complength || count.get() != N)
+                    throw new RuntimeException("bug " + c + " " + N);
+            }
+        }
+    }
+
+    @Test
+    public void intCompressorTest_test0_decomposed() {
+        IntCompressor ic = new IntCompressor(1, null);
+        int[] data = randomData(new Random(5), 100000);
+        int[] compressed = ic.compress(data);
+        if (!Arrays.equals(Arrays.copyOfRange(data, 0, 300),
+                ic.uncompressRange(compressed, 0, 300)))
+            throw new RuntimeException("bug");
+        if (!Arrays.equals(Arrays.copyOfRange(data, 99990, 100000),
+                ic.uncompressRange(compressed, 99990, 100000)))
+            throw new RuntimeException("bug");
+        try {
+            ic.uncompressRange(compressed, 0, 100001);
+            throw new RuntimeException("bug: accepted a bad range");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.integercompression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import me.lemire.integercompression.synth.ClusteredDataGenerator;
+
+import org.junit.Test;
+
+/**
+ * Tests for StreamingIntCompressor and StreamingIntUncompressor.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class StreamingIntCompressorTest {
+
+    private static SkippableIntegerCODEC[] codecs() {
+        return new SkippableIntegerCODEC[] {
+                new SkippableComposition(new BinaryPacking(),
+                        new VariableByte()),
+                new SkippableComposition(FastPFOR.FastPFOR1(),
+                        new VariableByte()),
+                new VariableByte(), new JustCopy() };
+    }
+
+    @Test
+    public void roundTripTest_test0_decomposed() throws IOException {
+        ClusteredDataGenerator cdg = new ClusteredDataGenerator();
+        for (int N : new int[] { 0, 1, 1000, 1024, 100000 }) {
+            int[] data = cdg.generateClustered(N, 1 << 24);
+            for (SkippableIntegerCODEC c : codecs()) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                StreamingIntCompressor sc = new StreamingIntCompressor(c,
+                        Channels.newChannel(bos), 1024);
+                // mix one-at-a-time and chunked writes
+                int half = N / 2;
+                for (int k = 0; k < half; ++k)
+                    sc.accept(data[k]);
+                sc.write(data, half, N - half);
+                if (sc.getCount() != N)
+                    throw new RuntimeException("bug");
+                sc.close();
+                byte[] bytes = bos.toByteArray();
+
+                StreamingIntUncompressor su = new StreamingIntUncompressor(c,
+                        Channels.newChannel(new ByteArrayInputStream(bytes)));
+                int[] rev = new int[N];
+                for (int k = 0; k < N; ++k) {
+                    if (!su.hasNext())
+                        throw new RuntimeException("bug " + c + " " + k);
+                    rev[k] = su.nextInt();
+                }
+                if (su.hasNext())
+                    throw new RuntimeException("bug " + c);
+                if (!Arrays.equals(rev, data))
+                    throw new RuntimeException("bug " + c + " " + N);
+
+                su = new StreamingIntUncompressor(c,
+                        Channels.newChannel(new ByteArrayInputStream(bytes)));
+                Arrays.fill(rev, 0);
+                int pos = 0;
+                for (int n; (n = su.read(rev, pos, 777)) >= 0;)
+                    pos += n;
+                if ((pos != N) || !Arrays.equals(rev, data))
+                    throw new RuntimeException("bug " + c + " " + N);
+            }
+        }
+    }
+
+    @Test
+    public void iteratorTest_test0_decomposed() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StreamingIntCompressor sc = StreamingIntCompressor
+                .StreamingIntCompressor1(bos);
+        // more integers than we would want to hold in memory
+        sc.writeAll(java.util.stream.IntStream.range(0, 3000000).iterator());
+        sc.close();
+        if (bos.size() >= 4 * 3000000)
+            throw new RuntimeException("bug " + bos.size());
+        StreamingIntUncompressor su = StreamingIntUncompressor
+                .StreamingIntUncompressor1(new ByteArrayInputStream(
+                        bos.toByteArray()));
+        int expected = 0;
+        while (su.hasNext())
+            if (su.nextInt() != expected++)
+                throw new RuntimeException("bug " + expected);
+        if (expected != 3000000)
+            throw new RuntimeException("bug");
+    }
+
+    @Test
+    public void truncatedTest_test0_decomposed() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StreamingIntCompressor sc = StreamingIntCompressor
+                .StreamingIntCompressor1(bos);
+        for (int k = 0; k < 100; ++k)
+            sc.accept(k);
+        sc.close();
+        byte[] bytes = Arrays.copyOf(bos.toByteArray(), bos.size() - 4);
+        StreamingIntUncompressor su = StreamingIntUncompressor
+                .StreamingIntUncompressor1(new ByteArrayInputStream(bytes));
+        for (int k = 0; k < 100; ++k)
+            if (su.nextInt() != k)
+                throw new RuntimeException("bug");
+        try {
+            su.hasNext();
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof EOFException)
+                return;
+        }
+        throw new RuntimeException("bug: truncation not detected");
+    }
+
+    @Test
+    public void corruptedHeaderTest_test0_decomposed() throws IOException {
+        int[][] headers = { { 1, Integer.MAX_VALUE }, { Integer.MAX_VALUE, 4 },
+                { StreamingIntCompressor.MAX_BLOCK_SIZE + 1, 4 }, { 10, -1 } };
+        for (int[] header : headers) {
+            ByteBuffer bytes = ByteBuffer.allocate(8);
+            bytes.putInt(header[0]).putInt(header[1]);
+            StreamingIntUncompressor su = StreamingIntUncompressor
+                    .StreamingIntUncompressor1(new ByteArrayInputStream(
+                            bytes.array()));
+            try {
+                su.hasNext();
+                throw new RuntimeException("bug: corrupted header accepted");
+            } catch (UncheckedIOException e) {
+                if (e.getCause() instanceof EOFException)
+                    throw new RuntimeException("bug: header not validated");
+            }
+        }
+    }
+
+    @Test
+    public void closedTest_test0_decomposed() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StreamingIntCompressor sc = StreamingIntCompressor
+                .StreamingIntCompressor1(bos);
+        sc.accept(1);
+        sc.close();
+        final int size = bos.size();
+        try {
+            sc.accept(2);
+            throw new RuntimeException("bug: accept after close");
+        } catch (IllegalStateException e) {
+        }
+        try {
+            sc.write(new int[] { 2 }, 0, 1);
+            throw new RuntimeException("bug: write after close");
+        } catch (IllegalStateException e) {
+        }
+        try {
+            sc.writeAll(java.util.stream.IntStream.range(0, 2).iterator());
+            throw new RuntimeException("bug: writeAll after close");
+        } catch (IllegalStateException e) {
+        }
+        sc.close();
+        if ((sc.getCount() != 1) || (bos.size() != size))
+            throw new RuntimeException("bug");
+    }
+}
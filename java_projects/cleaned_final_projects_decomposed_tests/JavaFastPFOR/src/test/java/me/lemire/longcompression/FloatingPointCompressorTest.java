@@ -0,0 +1,116 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.longcompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.differential.LongDeltaOfDeltaBinaryPacking;
+
+/**
+ * Tests for FloatingPointCompressor and LongDeltaOfDeltaBinaryPacking.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class FloatingPointCompressorTest {
+
+    /**
+     *
+     */
+    @Test
+    public void doublesTest_test0_decomposed() {
+        FloatingPointCompressor fpc = FloatingPointCompressor
+                .FloatingPointCompressor1();
+        Random r = new Random(0);
+        // a slowly varying sensor reading, with 2 decimal digits
+        double[] sensor = new double[100000];
+        double x = 20;
+        for (int k = 0; k < sensor.length; ++k) {
+            x += r.nextGaussian() * 0.01;
+            sensor[k] = Math.round(x * 100) / 100.0;
+        }
+        long[] compressed = fpc.compressDoubles(sensor);
+        if (!Arrays.equals(sensor, fpc.uncompressDoubles(compressed)))
+            throw new RuntimeException("bug");
+        if (compressed.length > sensor.length * 6 / 10)
+            throw new RuntimeException("bug: poor compression "
+                    + compressed.length);
+        // the same readings, each held for 10 samples
+        double[] held = new double[sensor.length];
+        for (int k = 0; k < held.length; ++k)
+            held[k] = sensor[k / 10 * 10];
+        compressed = fpc.compressDoubles(held);
+        if (!Arrays.equals(held, fpc.uncompressDoubles(compressed)))
+            throw new RuntimeException("bug");
+        if (compressed.length > held.length / 5)
+            throw new RuntimeException("bug: poor compression "
+                    + compressed.length);
+        double[] special = { 0.0, -0.0, Double.NaN,
+                Double.longBitsToDouble(0x7ff8000000000123L),
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, Double.MAX_VALUE, 1.5 };
+        for (int n = 0; n <= special.length; ++n) {
+            double[] data = Arrays.copyOf(special, n);
+            double[] back = fpc.uncompressDoubles(fpc.compressDoubles(data));
+            for (int k = 0; k < n; ++k)
+                if (Double.doubleToRawLongBits(data[k]) != Double
+                        .doubleToRawLongBits(back[k]))
+                    throw new RuntimeException("bug " + k);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void floatsTest_test0_decomposed() {
+        FloatingPointCompressor fpc = FloatingPointCompressor
+                .FloatingPointCompressor1();
+        Random r = new Random(1);
+        for (int n : new int[] { 0, 1, 64, 65, 1000 }) {
+            float[] data = new float[n];
+            for (int k = 0; k < n; ++k)
+                data[k] = k % 7 == 0 ? -r.nextFloat() : r.nextFloat() * 1000;
+            if (!Arrays.equals(data,
+                    fpc.uncompressFloats(fpc.compressFloats(data))))
+                throw new RuntimeException("bug " + n);
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void timestampsTest_test0_decomposed() {
+        Random r = new Random(2);
+        long[] data = new long[100000];
+        long t = System.currentTimeMillis();
+        for (int k = 0; k < data.length; ++k) {
+            // every second, with some jitter now and then
+            t += 1000 + (k % 100 == 0 ? r.nextInt(20) : 0);
+            data[k] = t;
+        }
+        LongDeltaOfDeltaBinaryPacking c = new LongDeltaOfDeltaBinaryPacking();
+        long[] compressed = new long[data.length + 1024];
+        IntWrapper outpos = new IntWrapper(0);
+        c.compress0(data, new IntWrapper(0), data.length, compressed, outpos);
+        long[] recovered = new long[data.length];
+        c.uncompress1(compressed, new IntWrapper(0), outpos.get(), recovered,
+                new IntWrapper(0));
+        if (!Arrays.equals(data, recovered))
+            throw new RuntimeException("bug");
+        // about 6 bits per timestamp at most
+        if (outpos.get() > data.length / 10)
+            throw new RuntimeException("bug: poor compression "
+                    + outpos.get());
+    }
+}
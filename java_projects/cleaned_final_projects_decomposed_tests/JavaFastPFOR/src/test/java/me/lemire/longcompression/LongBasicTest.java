@@ -18,6 +18,10 @@ import me.lemire.integercompression.FastPFOR;
 import me.lemire.integercompression.FastPFOR128;
 import me.lemire.integercompression.IntWrapper;
 import me.lemire.longcompression.differential.LongDelta;
+import me.lemire.longcompression.differential.LongDeltaOfDeltaBinaryPacking;
+import me.lemire.longcompression.differential.LongIntegratedBinaryPacking;
+import me.lemire.longcompression.differential.LongIntegratedFastPFOR;
+import me.lemire.longcompression.differential.LongXorBinaryPacking;
 
 /**
  * Just some basic sanity tests.
@@ -29,7 +33,13 @@ public class LongBasicTest {
     final LongCODEC[] codecs = {
             new LongJustCopy(),
             new LongVariableByte(),
-            LongAs2IntsCodec.LongAs2IntsCodec1()};
+            LongAs2IntsCodec.LongAs2IntsCodec1(),
+            new LongComposition(new LongBinaryPacking(), new LongVariableByte()),
+            new LongComposition(LongFastPFOR.LongFastPFOR1(), new LongVariableByte()),
+            new LongIntegratedBinaryPacking(),
+            new LongIntegratedFastPFOR(),
+            new LongXorBinaryPacking(),
+            new LongDeltaOfDeltaBinaryPacking()};
 
 	/**
      * This tests with a compressed array with various offset
@@ -0,0 +1,107 @@
+/**
+ * This code is released under the
+ * Apache License Version 2.0 http://www.apache.org/licenses/.
+ *
+ * (c) Daniel Lemire, http://lemire.me/en/
+ */
+
+package me.lemire.longcompression;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import me.lemire.integercompression.IntWrapper;
+import me.lemire.longcompression.differential.LongIntegratedBinaryPacking;
+import me.lemire.longcompression.differential.LongIntegratedFastPFOR;
+
+/**
+ * Tests for the native 64-bit codecs.
+ *
+ * @author Daniel Lemire
+ */
+@SuppressWarnings({ "static-method" })
+public class LongFastPFORTest {
+
+    private static int roundTrip(LongCODEC c, long[] data) {
+        long[] compressed = new long[data.length * 2 + 1024];
+        IntWrapper outpos = new IntWrapper(0);
+        c.compress0(data, new IntWrapper(0), data.length, compressed, outpos);
+        long[] recovered = new long[data.length];
+        c.uncompress1(compressed, new IntWrapper(0), outpos.get(), recovered,
+                new IntWrapper(0));
+        if (!Arrays.equals(data, recovered))
+            throw new RuntimeException("bug " + c);
+        return outpos.get();
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void bitPackingTest_test0_decomposed() {
+        Random r = new Random(0);
+        long[] data = new long[LongBitPacking.BLOCK_SIZE];
+        long[] packed = new long[64];
+        long[] unpacked = new long[LongBitPacking.BLOCK_SIZE];
+        for (int bit = 0; bit <= 64; ++bit) {
+            for (int k = 0; k < data.length; ++k)
+                data[k] = bit == 64 ? r.nextLong() : r.nextLong()
+                        & ((1L << bit) - 1);
+            data[0] = bit == 64 ? -1L : (1L << bit) - 1;
+            LongBitPacking.fastpack(data, 0, packed, 0, bit);
+            LongBitPacking.fastunpack(packed, 0, unpacked, 0, bit);
+            if (!Arrays.equals(data, unpacked))
+                throw new RuntimeException("bug " + bit);
+            for (int n : new int[] { 0, 1, 7, 63 }) {
+                Arrays.fill(unpacked, 0L);
+                int words = LongBitPacking.packCount(data, 0, packed, 0, bit, n);
+                if ((words != (n * bit + 63) / 64)
+                        || (LongBitPacking.unpackCount(packed, 0, unpacked, 0,
+                                bit, n) != words)
+                        || !Arrays.equals(Arrays.copyOf(data, n),
+                                Arrays.copyOf(unpacked, n)))
+                    throw new RuntimeException("bug " + bit + " " + n);
+            }
+        }
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void exceptionsTest_test0_decomposed() {
+        Random r = new Random(1);
+        long[] data = new long[100000];
+        for (int k = 0; k < data.length; ++k)
+            data[k] = r.nextInt(16);
+        for (int k = 0; k < data.length; k += 37)
+            data[k] = r.nextLong();
+        int pfor = roundTrip(new LongComposition(
+                LongFastPFOR.LongFastPFOR1(), new LongVariableByte()), data);
+        int packed = roundTrip(new LongComposition(new LongBinaryPacking(),
+                new LongVariableByte()), data);
+        // a few wide outliers must not widen every block
+        if (pfor * 4 > packed)
+            throw new RuntimeException("bug " + pfor + " " + packed);
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void timestampsTest_test0_decomposed() {
+        Random r = new Random(2);
+        for (int n : new int[] { 0, 1, 63, 64, 65, 255, 256, 257, 70000 }) {
+            long[] data = new long[n];
+            long t = 1600000000000000000L;
+            for (int k = 0; k < n; ++k) {
+                t += 1000 + r.nextInt(50);
+                data[k] = t;
+            }
+            roundTrip(new LongIntegratedBinaryPacking(), data);
+            roundTrip(new LongIntegratedFastPFOR(), data);
+        }
+    }
+}
@@ -14,6 +14,10 @@ import org.junit.Test;
 import me.lemire.integercompression.IntWrapper;
 import me.lemire.integercompression.TestUtils;
 import me.lemire.integercompression.VariableByte;
+import me.lemire.longcompression.differential.LongDeltaOfDeltaBinaryPacking;
+import me.lemire.longcompression.differential.LongIntegratedBinaryPacking;
+import me.lemire.longcompression.differential.LongIntegratedFastPFOR;
+import me.lemire.longcompression.differential.LongXorBinaryPacking;
 
 
 /**
@@ -25,7 +29,15 @@ import me.lemire.integercompression.VariableByte;
 public class SkippableLongBasicTest {
     final SkippableLongCODEC[] codecs = {
             new LongJustCopy(),
-            new LongVariableByte(), };
+            new LongVariableByte(),
+            new SkippableLongComposition(new LongBinaryPacking(),
+                    new LongVariableByte()),
+            new SkippableLongComposition(LongFastPFOR.LongFastPFOR1(),
+                    new LongVariableByte()),
+            new LongIntegratedBinaryPacking(),
+            new LongIntegratedFastPFOR(),
+            new LongXorBinaryPacking(),
+            new LongDeltaOfDeltaBinaryPacking(), };
 
     
     /**
@@ -20,6 +20,8 @@ import java.io.Closeable;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * A "keyed" pooling interface.
@@ -144,6 +146,39 @@ public interface KeyedObjectPool<K, V> extends Closeable {
      */
     V borrowObject(K key) throws Exception, NoSuchElementException, IllegalStateException;
 
+    /**
+     * Borrows an instance from this pool for the specified {@code key} on the given executor, so
+     * that the calling thread does not wait when the pool is exhausted. The returned future
+     * completes with the instance, as {@link #borrowObject(Object)} would return it, or
+     * exceptionally with the exception {@link #borrowObject(Object)} would throw.
+     *
+     * <p>The default implementation calls {@link #borrowObject(Object)} in a task of the executor:
+     * the executor thread, not the caller, waits for an instance. If the future is cancelled before
+     * the instance is borrowed, the instance is returned to the pool.
+     *
+     * @param key the key used to obtain the object
+     * @param executor the executor borrowing the instance
+     * @return a future completed with an instance from this pool.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejects the task
+     * @since 2.12.0
+     */
+    default CompletableFuture<V> borrowAsync(final K key, final Executor executor) {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        executor.execute(
+                () -> {
+                    try {
+                        final V obj = borrowObject(key);
+                        if (!future.complete(obj)) {
+                            // Cancelled while borrowing
+                            returnObject(key, obj);
+                        }
+                    } catch (final Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+        return future;
+    }
+
     /**
      * Clears the pool, removing all pooled instances (optional operation).
      *
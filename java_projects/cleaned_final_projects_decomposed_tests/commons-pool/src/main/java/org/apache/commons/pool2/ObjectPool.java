@@ -18,6 +18,8 @@ package org.apache.commons.pool2;
 
 import java.io.Closeable;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * A pooling simple interface.
@@ -104,6 +106,38 @@ public interface ObjectPool<T> extends Closeable {
      */
     T borrowObject() throws Exception, NoSuchElementException, IllegalStateException;
 
+    /**
+     * Borrows an instance from this pool on the given executor, so that the calling thread does not
+     * wait when the pool is exhausted. The returned future completes with the instance, as {@link
+     * #borrowObject()} would return it, or exceptionally with the exception {@link #borrowObject()}
+     * would throw.
+     *
+     * <p>The default implementation calls {@link #borrowObject()} in a task of the executor: the
+     * executor thread, not the caller, waits for an instance. If the future is cancelled before the
+     * instance is borrowed, the instance is returned to the pool.
+     *
+     * @param executor the executor borrowing the instance.
+     * @return a future completed with an instance from this pool.
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejects the task.
+     * @since 2.12.0
+     */
+    default CompletableFuture<T> borrowAsync(final Executor executor) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(
+                () -> {
+                    try {
+                        final T obj = borrowObject();
+                        if (!future.complete(obj)) {
+                            // Cancelled while borrowing
+                            returnObject(obj);
+                        }
+                    } catch (final Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+        return future;
+    }
+
     /**
      * Clears any objects sitting idle in the pool, releasing any associated resources (optional
      * operation). Idle objects cleared must be {@link
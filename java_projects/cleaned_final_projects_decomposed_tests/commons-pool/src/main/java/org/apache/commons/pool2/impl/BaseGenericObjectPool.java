@@ -34,7 +34,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimerTask;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -190,7 +192,7 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         private static final int NULL = -1;
         private final AtomicLong[] values;
         private final int size;
-        private int index;
+        private final AtomicInteger index = new AtomicInteger();
 
         /**
          * Constructs a StatsStore with the given cache size.
@@ -215,12 +217,8 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
          *
          * @param value new value to add to the cache.
          */
-        synchronized void add1(final long value) {
-            values[index].set(value);
-            index++;
-            if (index == size) {
-                index = 0;
-            }
+        void add1(final long value) {
+            values[index.getAndUpdate(i -> i + 1 == size ? 0 : i + 1)].set(value);
         }
 
         /**
@@ -228,8 +226,8 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
          *
          * @return the current values as a List.
          */
-        synchronized List<AtomicLong> getCurrentValues() {
-            return Arrays.stream(values, 0, index).collect(Collectors.toList());
+        List<AtomicLong> getCurrentValues() {
+            return Arrays.stream(values, 0, index.get()).collect(Collectors.toList());
         }
 
         /**
@@ -258,7 +256,7 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
             builder.append("], size=");
             builder.append(size);
             builder.append(", index=");
-            builder.append(index);
+            builder.append(index.get());
             builder.append("]");
             return builder.toString();
         }
@@ -270,6 +268,22 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      */
     public static final int MEAN_TIMING_STATS_CACHE_SIZE = 100;
 
+    /**
+     * The duration covered by the timing percentiles, such as {@link
+     * #getP99BorrowWaitTimeMicros()}.
+     *
+     * @since 2.12.0
+     */
+    public static final Duration TIMING_STATS_WINDOW = Duration.ofMinutes(1);
+
+    /**
+     * The number of slices of {@link #TIMING_STATS_WINDOW}: the oldest slice is dropped as a whole
+     * when the window slides.
+     *
+     * @since 2.12.0
+     */
+    public static final int TIMING_STATS_WINDOW_SLICES = 6;
+
     private static final String EVICTION_POLICY_TYPE_NAME = EvictionPolicy.class.getName();
     private static final Duration DEFAULT_REMOVE_ABANDONED_TIMEOUT =
             Duration.ofSeconds(Integer.MAX_VALUE);
@@ -277,10 +291,17 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     private volatile boolean blockWhenExhausted = BaseObjectPoolConfig.DEFAULT_BLOCK_WHEN_EXHAUSTED;
     private volatile Duration maxWaitDuration = BaseObjectPoolConfig.DEFAULT_MAX_WAIT;
     private volatile boolean lifo = BaseObjectPoolConfig.DEFAULT_LIFO;
+    private volatile boolean lockFreeIdleStore =
+            BaseObjectPoolConfig.DEFAULT_LOCK_FREE_IDLE_STORE;
     private volatile boolean testOnCreate = BaseObjectPoolConfig.DEFAULT_TEST_ON_CREATE;
     private volatile boolean testOnBorrow = BaseObjectPoolConfig.DEFAULT_TEST_ON_BORROW;
     private volatile boolean testOnReturn = BaseObjectPoolConfig.DEFAULT_TEST_ON_RETURN;
     private volatile boolean testWhileIdle = BaseObjectPoolConfig.DEFAULT_TEST_WHILE_IDLE;
+    private volatile Executor evictionValidationExecutor;
+    private volatile int evictionValidationConcurrency =
+            BaseObjectPoolConfig.DEFAULT_EVICTION_VALIDATION_CONCURRENCY;
+    private volatile int evictionValidationRate =
+            BaseObjectPoolConfig.DEFAULT_EVICTION_VALIDATION_RATE;
     private volatile Duration durationBetweenEvictionRuns =
             BaseObjectPoolConfig.DEFAULT_TIME_BETWEEN_EVICTION_RUNS;
     private volatile int numTestsPerEvictionRun =
@@ -318,6 +339,13 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     private final StatsStore idleTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
     private final StatsStore waitTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
 
+    private final SlidingWindowHistogram activeTimeHistogram =
+            new SlidingWindowHistogram(TIMING_STATS_WINDOW, TIMING_STATS_WINDOW_SLICES);
+    private final SlidingWindowHistogram idleTimeHistogram =
+            new SlidingWindowHistogram(TIMING_STATS_WINDOW, TIMING_STATS_WINDOW_SLICES);
+    private final SlidingWindowHistogram waitTimeHistogram =
+            new SlidingWindowHistogram(TIMING_STATS_WINDOW, TIMING_STATS_WINDOW_SLICES);
+
     private final AtomicReference<Duration> maxBorrowWaitDuration =
             new AtomicReference<>(Duration.ZERO);
 
@@ -362,6 +390,60 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      */
     public abstract void close();
 
+    /**
+     * Creates an empty store for idle objects, of the type selected by {@link
+     * #getLockFreeIdleStore()}.
+     *
+     * @param <E> the type of elements held in the store
+     * @param fairness true means threads waiting on the store should be served as if waiting in a
+     *     FIFO request queue
+     * @return a new idle object store
+     * @since 2.12.0
+     */
+    final <E> IdleObjectStore<E> createIdleObjectStore(final boolean fairness) {
+        if (lockFreeIdleStore) {
+            return new ConcurrentIdleObjectStore<>(fairness);
+        }
+        return new LinkedBlockingDeque<>(0, Integer.MAX_VALUE, fairness, null);
+    }
+
+    /**
+     * Creates the validator running the idle object validations of one eviction run, with the
+     * current {@link #getEvictionValidationExecutor() executor}, {@link
+     * #getEvictionValidationConcurrency() concurrency} and {@link #getEvictionValidationRate()
+     * rate}. The exceptions thrown by the validations are {@link #swallowException swallowed}.
+     *
+     * @return a new eviction validator
+     * @since 2.12.0
+     */
+    final EvictionValidator createEvictionValidator() {
+        return new EvictionValidator(
+                evictionValidationExecutor,
+                evictionValidationConcurrency,
+                evictionValidationRate,
+                this::swallowException);
+    }
+
+    /**
+     * Runs the idle object validations of one eviction run through a new {@link
+     * #createEvictionValidator() EvictionValidator}: each validation is submitted as soon as the
+     * iterator returns it, so the iterator may select the objects to test and start their eviction
+     * test lazily. Returns once all the validations are finished.
+     *
+     * @param validations the validations of the run
+     * @throws InterruptedException if the evictor thread is interrupted while waiting; the
+     *     remaining validations are not run
+     * @since 2.12.0
+     */
+    final void runEvictionValidations(final Iterator<EvictionValidator.Validation> validations)
+            throws InterruptedException {
+        final EvictionValidator validator = createEvictionValidator();
+        while (validations.hasNext()) {
+            validator.submit(validations.next());
+        }
+        validator.await();
+    }
+
     /**
      * Creates a list of pooled objects to remove based on their state.
      *
@@ -379,18 +461,59 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
                 .values()
                 .forEach(
                         pooledObject -> {
-                            synchronized (pooledObject) {
-                                if (pooledObject.getState() == PooledObjectState.ALLOCATED
-                                        && pooledObject.getLastUsedInstant().compareTo(timeout)
-                                                <= 0) {
-                                    pooledObject.markAbandoned();
-                                    remove.add(pooledObject);
-                                }
+                            if (markAbandonedIfUnused(pooledObject, timeout)) {
+                                remove.add(pooledObject);
                             }
                         });
         return remove;
     }
 
+    /**
+     * Marks an object {@link PooledObjectState#ABANDONED ABANDONED} if it is allocated and was last
+     * used at or before the given instant. The state of a {@link DefaultPooledObject} is changed
+     * with a compare-and-set; other implementations are checked and marked under their monitor.
+     *
+     * @param pooledObject the object to check
+     * @param timeout the latest last use instant of an abandoned object
+     * @return true if the object was marked abandoned
+     */
+    static boolean markAbandonedIfUnused(
+            final PooledObject<?> pooledObject, final Instant timeout) {
+        if (pooledObject instanceof DefaultPooledObject) {
+            return pooledObject.getState() == PooledObjectState.ALLOCATED
+                    && pooledObject.getLastUsedInstant().compareTo(timeout) <= 0
+                    && ((DefaultPooledObject<?>) pooledObject).markAbandonedIfAllocated();
+        }
+        synchronized (pooledObject) {
+            if (pooledObject.getState() == PooledObjectState.ALLOCATED
+                    && pooledObject.getLastUsedInstant().compareTo(timeout) <= 0) {
+                pooledObject.markAbandoned();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Marks an object {@link PooledObjectState#RETURNING RETURNING} if it is allocated, in the same
+     * way as {@link #markAbandonedIfUnused(PooledObject, Instant)}.
+     *
+     * @param pooledObject the object to mark
+     * @return true if the object was allocated
+     */
+    private static boolean markReturningIfAllocated(final PooledObject<?> pooledObject) {
+        if (pooledObject instanceof DefaultPooledObject) {
+            return ((DefaultPooledObject<?>) pooledObject).markReturningIfAllocated();
+        }
+        synchronized (pooledObject) {
+            if (pooledObject.getState() != PooledObjectState.ALLOCATED) {
+                return false;
+            }
+            pooledObject.markReturning();
+            return true;
+        }
+    }
+
     /**
      * Tries to ensure that the configured minimum number of idle instances are available in the
      * pool.
@@ -405,6 +528,11 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      * visited (and removed if invalid); otherwise only objects that have been idle for more than
      * {@code minEvicableIdleTimeMillis} are removed.
      *
+     * <p>Validations are run with {@link #runEvictionValidations}, so that they run on the {@link
+     * #getEvictionValidationExecutor() executor} when one is set, up to {@link
+     * #getEvictionValidationConcurrency() concurrency} at a time and at most {@link
+     * #getEvictionValidationRate() rate} per second; the run returns once they are all finished.
+     *
      * @throws Exception when there is a problem evicting idle objects.
      */
     public abstract void evict() throws Exception;
@@ -535,6 +663,41 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         return evictorShutdownTimeoutDuration.toMillis();
     }
 
+    /**
+     * Gets the maximum number of idle objects validated at the same time during an eviction run.
+     * It has no effect unless an {@link #getEvictionValidationExecutor() executor} is set. The
+     * default, 1, validates idle objects one at a time.
+     *
+     * @return the maximum number of concurrent idle object validations
+     * @see #setEvictionValidationConcurrency
+     * @since 2.12.0
+     */
+    public final int getEvictionValidationConcurrency() {
+        return evictionValidationConcurrency;
+    }
+
+    /**
+     * Gets the executor running the idle object validations of eviction runs.
+     *
+     * @return the executor, or null if idle objects are validated on the evictor thread
+     * @see #setEvictionValidationExecutor
+     * @since 2.12.0
+     */
+    public final Executor getEvictionValidationExecutor() {
+        return evictionValidationExecutor;
+    }
+
+    /**
+     * Gets the maximum number of idle objects validated per second during an eviction run.
+     *
+     * @return the maximum number of idle object validations per second, 0 for no cap
+     * @see #setEvictionValidationRate
+     * @since 2.12.0
+     */
+    public final int getEvictionValidationRate() {
+        return evictionValidationRate;
+    }
+
     /**
      * Gets whether or not the pool serves threads waiting to borrow objects fairly. True means that
      * waiting threads are served as if waiting in a FIFO queue.
@@ -562,6 +725,18 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         return lifo;
     }
 
+    /**
+     * Gets whether idle objects are kept in a store that does not lock ({@link
+     * ConcurrentIdleObjectStore}) rather than in a {@link LinkedBlockingDeque}.
+     *
+     * @return {@code true} if the idle object stores created by this pool do not lock
+     * @see #setLockFreeIdleStore
+     * @since 2.12.0
+     */
+    public final boolean getLockFreeIdleStore() {
+        return lockFreeIdleStore;
+    }
+
     /**
      * Gets whether this pool identifies and logs any abandoned objects.
      *
@@ -658,6 +833,138 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         return idleTimes.getMean();
     }
 
+    /**
+     * The median time objects have been checked out from the pool, among the objects returned
+     * during the last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP50ActiveTimeMicros() {
+        return activeTimeHistogram.getPercentile0(50);
+    }
+
+    /**
+     * The 99th percentile of the time objects have been checked out from the pool, among the
+     * objects returned during the last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP99ActiveTimeMicros() {
+        return activeTimeHistogram.getPercentile0(99);
+    }
+
+    /**
+     * The 99.9th percentile of the time objects have been checked out from the pool, among the
+     * objects returned during the last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP999ActiveTimeMicros() {
+        return activeTimeHistogram.getPercentile0(99.9);
+    }
+
+    /**
+     * The maximum time objects have been checked out from the pool, among the objects returned
+     * during the last {@link #TIMING_STATS_WINDOW}.
+     *
+     * @return the maximum in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getWindowMaxActiveTimeMicros() {
+        return activeTimeHistogram.getMax0();
+    }
+
+    /**
+     * The median time threads have waited to borrow an object, among the objects borrowed during
+     * the last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP50BorrowWaitTimeMicros() {
+        return waitTimeHistogram.getPercentile0(50);
+    }
+
+    /**
+     * The 99th percentile of the time threads have waited to borrow an object, among the objects
+     * borrowed during the last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP99BorrowWaitTimeMicros() {
+        return waitTimeHistogram.getPercentile0(99);
+    }
+
+    /**
+     * The 99.9th percentile of the time threads have waited to borrow an object, among the objects
+     * borrowed during the last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP999BorrowWaitTimeMicros() {
+        return waitTimeHistogram.getPercentile0(99.9);
+    }
+
+    /**
+     * The maximum time threads have waited to borrow an object, among the objects borrowed during
+     * the last {@link #TIMING_STATS_WINDOW}.
+     *
+     * @return the maximum in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getWindowMaxBorrowWaitTimeMicros() {
+        return waitTimeHistogram.getMax0();
+    }
+
+    /**
+     * The median time objects have been idle in the pool, among the objects borrowed during the
+     * last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP50IdleTimeMicros() {
+        return idleTimeHistogram.getPercentile0(50);
+    }
+
+    /**
+     * The 99th percentile of the time objects have been idle in the pool, among the objects
+     * borrowed during the last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP99IdleTimeMicros() {
+        return idleTimeHistogram.getPercentile0(99);
+    }
+
+    /**
+     * The 99.9th percentile of the time objects have been idle in the pool, among the objects
+     * borrowed during the last {@link #TIMING_STATS_WINDOW}, within about 6%.
+     *
+     * @return the percentile in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getP999IdleTimeMicros() {
+        return idleTimeHistogram.getPercentile0(99.9);
+    }
+
+    /**
+     * The maximum time objects have been idle in the pool, among the objects borrowed during the
+     * last {@link #TIMING_STATS_WINDOW}.
+     *
+     * @return the maximum in microseconds, 0 if there is no sample in the window
+     * @since 2.12.0
+     */
+    public final long getWindowMaxIdleTimeMicros() {
+        return idleTimeHistogram.getMax0();
+    }
+
     /**
      * Gets whether to include statistics in exception messages.
      *
@@ -1030,12 +1337,10 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      * @param pooledObject instance to return to the keyed pool
      */
     protected void markReturningState(final PooledObject<T> pooledObject) {
-        synchronized (pooledObject) {
-            if (pooledObject.getState() != PooledObjectState.ALLOCATED) {
-                throw new IllegalStateException(
-                        "Object has already been returned to this pool or is invalid");
-            }
-            pooledObject.markReturning(); // Keep from being marked abandoned
+        // Keep from being marked abandoned
+        if (!markReturningIfAllocated(pooledObject)) {
+            throw new IllegalStateException(
+                    "Object has already been returned to this pool or is invalid");
         }
     }
 
@@ -1050,6 +1355,42 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         this.abandonedConfig = AbandonedConfig.copy(abandonedConfig);
     }
 
+    /**
+     * Sets the base pool configuration: the attributes shared by {@link GenericObjectPool} and
+     * {@link GenericKeyedObjectPool}. The {@code lockFreeIdleStore} attribute applies to the idle
+     * object stores {@link #createIdleObjectStore(boolean) created} afterwards, so pools call this
+     * method before they create theirs.
+     *
+     * @param config the new configuration
+     * @see BaseObjectPoolConfig
+     * @since 2.12.0
+     */
+    protected void setConfig(final BaseObjectPoolConfig<T> config) {
+        setLifo(config.getLifo());
+        setLockFreeIdleStore(config.getLockFreeIdleStore());
+        setMaxWait(config.getMaxWaitDuration());
+        setBlockWhenExhausted(config.getBlockWhenExhausted());
+        setTestOnCreate(config.getTestOnCreate());
+        setTestOnBorrow(config.getTestOnBorrow());
+        setTestOnReturn(config.getTestOnReturn());
+        setTestWhileIdle(config.getTestWhileIdle());
+        setEvictionValidationExecutor(config.getEvictionValidationExecutor());
+        setEvictionValidationConcurrency(config.getEvictionValidationConcurrency());
+        setEvictionValidationRate(config.getEvictionValidationRate());
+        setNumTestsPerEvictionRun(config.getNumTestsPerEvictionRun());
+        setMinEvictableIdle(config.getMinEvictableIdleDuration());
+        setSoftMinEvictableIdle(config.getSoftMinEvictableIdleDuration());
+        final EvictionPolicy<T> policy = config.getEvictionPolicy();
+        if (policy == null) {
+            // Use the class name (pre-2.6.0 compatible)
+            setEvictionPolicyClassName0(config.getEvictionPolicyClassName());
+        } else {
+            // Otherwise, use the class (2.6.0 feature)
+            setEvictionPolicy0(policy);
+        }
+        setEvictorShutdownTimeout(config.getEvictorShutdownTimeoutDuration());
+    }
+
     /**
      * Sets whether to block when the {@code borrowObject()} method is invoked when the pool is
      * exhausted (the maximum number of "active" objects has been reached).
@@ -1184,6 +1525,52 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         setEvictorShutdownTimeout(Duration.ofMillis(evictorShutdownTimeoutMillis));
     }
 
+    /**
+     * Sets the maximum number of idle objects validated at the same time during an eviction run.
+     * When that many validations are running, the evictor waits for one to finish before it
+     * submits the next, which caps the load the evictor puts on the factory. Values lower than 1
+     * count as 1. It has no effect unless an {@link #setEvictionValidationExecutor executor} is
+     * set.
+     *
+     * @param evictionValidationConcurrency the maximum number of concurrent idle object
+     *     validations
+     * @see #getEvictionValidationConcurrency
+     * @since 2.12.0
+     */
+    public final void setEvictionValidationConcurrency(final int evictionValidationConcurrency) {
+        this.evictionValidationConcurrency = evictionValidationConcurrency;
+    }
+
+    /**
+     * Sets the executor running the idle object validations of eviction runs. When it is set, the
+     * evictor thread only selects the objects to test and submits their validation, up to {@link
+     * #setEvictionValidationConcurrency concurrency} at a time, so a run does not take the sum of
+     * the validation times when {@code validateObject()} is slow, for instance a network
+     * round-trip. The executor is not shut down when the pool is closed.
+     *
+     * @param evictionValidationExecutor the executor, or null to validate idle objects on the
+     *     evictor thread
+     * @see #getEvictionValidationExecutor
+     * @see #setEvictionValidationConcurrency
+     * @since 2.12.0
+     */
+    public final void setEvictionValidationExecutor(final Executor evictionValidationExecutor) {
+        this.evictionValidationExecutor = evictionValidationExecutor;
+    }
+
+    /**
+     * Sets the maximum number of idle objects validated per second during an eviction run, with or
+     * without an {@link #setEvictionValidationExecutor executor}: the evictor waits before it
+     * submits a validation that would exceed the rate. Values lower than 1 set no cap.
+     *
+     * @param evictionValidationRate the maximum number of idle object validations per second
+     * @see #getEvictionValidationRate
+     * @since 2.12.0
+     */
+    public final void setEvictionValidationRate(final int evictionValidationRate) {
+        this.evictionValidationRate = evictionValidationRate;
+    }
+
     /**
      * Sets whether the pool has LIFO (last in, first out) behavior with respect to idle objects -
      * always returning the most recently used object from the pool, or as a FIFO (first in, first
@@ -1197,6 +1584,21 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         this.lifo = lifo;
     }
 
+    /**
+     * Sets whether idle objects are kept in a store that does not lock ({@link
+     * ConcurrentIdleObjectStore}) rather than in a {@link LinkedBlockingDeque}. Only the stores
+     * created afterwards are affected.
+     *
+     * @param lockFreeIdleStore {@code true} if the idle object stores created by this pool should
+     *     not lock
+     * @see #getLockFreeIdleStore()
+     * @see #createIdleObjectStore(boolean)
+     * @since 2.12.0
+     */
+    public final void setLockFreeIdleStore(final boolean lockFreeIdleStore) {
+        this.lockFreeIdleStore = lockFreeIdleStore;
+    }
+
     /**
      * Sets the cap on the number of objects that can be allocated by the pool (checked out to
      * clients, or idle awaiting checkout) at a given time. Use a negative value for no limit.
@@ -1526,6 +1928,8 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(maxWaitDuration);
         builder.append(", lifo=");
         builder.append(lifo);
+        builder.append(", lockFreeIdleStore=");
+        builder.append(lockFreeIdleStore);
         builder.append(", fairness=");
         builder.append(", testOnCreate=");
         builder.append(testOnCreate);
@@ -1535,6 +1939,12 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(testOnReturn);
         builder.append(", testWhileIdle=");
         builder.append(testWhileIdle);
+        builder.append(", evictionValidationExecutor=");
+        builder.append(evictionValidationExecutor);
+        builder.append(", evictionValidationConcurrency=");
+        builder.append(evictionValidationConcurrency);
+        builder.append(", evictionValidationRate=");
+        builder.append(evictionValidationRate);
         builder.append(", durationBetweenEvictionRuns=");
         builder.append(durationBetweenEvictionRuns);
         builder.append(", numTestsPerEvictionRun=");
@@ -1576,6 +1986,12 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(idleTimes);
         builder.append(", waitTimes=");
         builder.append(waitTimes);
+        builder.append(", activeTimeHistogram=");
+        builder.append(activeTimeHistogram);
+        builder.append(", idleTimeHistogram=");
+        builder.append(idleTimeHistogram);
+        builder.append(", waitTimeHistogram=");
+        builder.append(waitTimeHistogram);
         builder.append(", maxBorrowWaitDuration=");
         builder.append(maxBorrowWaitDuration);
         builder.append(", swallowedExceptionListener=");
@@ -1590,8 +2006,11 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      */
     final void updateStatsBorrow(final PooledObject<T> p, final Duration waitDuration) {
         borrowedCount.incrementAndGet();
-        idleTimes.add0(p.getIdleDuration());
+        final Duration idleDuration = p.getIdleDuration();
+        idleTimes.add0(idleDuration);
+        idleTimeHistogram.add0(idleDuration);
         waitTimes.add0(waitDuration);
+        waitTimeHistogram.add0(waitDuration);
 
         Duration currentMaxDuration;
         do {
@@ -1611,5 +2030,6 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     final void updateStatsReturn(final Duration activeTime) {
         returnedCount.incrementAndGet();
         activeTimes.add0(activeTime);
+        activeTimeHistogram.add0(activeTime);
     }
 }
@@ -19,6 +19,7 @@ package org.apache.commons.pool2.impl;
 import org.apache.commons.pool2.BaseObject;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 /**
  * Provides the implementation for the common attributes shared by the sub-classes. New instances of
@@ -47,6 +48,15 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
      */
     public static final boolean DEFAULT_FAIRNESS = false;
 
+    /**
+     * The default value for the {@code lockFreeIdleStore} configuration attribute.
+     *
+     * @see GenericObjectPool#getLockFreeIdleStore()
+     * @see GenericKeyedObjectPool#getLockFreeIdleStore()
+     * @since 2.12.0
+     */
+    public static final boolean DEFAULT_LOCK_FREE_IDLE_STORE = false;
+
     /**
      * The default value for the {@code maxWait} configuration attribute.
      *
@@ -187,6 +197,24 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
      */
     public static final boolean DEFAULT_TEST_WHILE_IDLE = false;
 
+    /**
+     * The default value for the {@code evictionValidationConcurrency} configuration attribute.
+     *
+     * @see GenericObjectPool#getEvictionValidationConcurrency()
+     * @see GenericKeyedObjectPool#getEvictionValidationConcurrency()
+     * @since 2.12.0
+     */
+    public static final int DEFAULT_EVICTION_VALIDATION_CONCURRENCY = 1;
+
+    /**
+     * The default value for the {@code evictionValidationRate} configuration attribute: no cap.
+     *
+     * @see GenericObjectPool#getEvictionValidationRate()
+     * @see GenericKeyedObjectPool#getEvictionValidationRate()
+     * @since 2.12.0
+     */
+    public static final int DEFAULT_EVICTION_VALIDATION_RATE = 0;
+
     /**
      * The default value for the {@code timeBetweenEvictionRuns} configuration attribute.
      *
@@ -248,6 +276,8 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
 
     private boolean fairness = DEFAULT_FAIRNESS;
 
+    private boolean lockFreeIdleStore = DEFAULT_LOCK_FREE_IDLE_STORE;
+
     private Duration maxWaitDuration = DEFAULT_MAX_WAIT;
 
     private Duration minEvictableIdleDuration = DEFAULT_MIN_EVICTABLE_IDLE_TIME;
@@ -270,6 +300,12 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
 
     private boolean testWhileIdle = DEFAULT_TEST_WHILE_IDLE;
 
+    private Executor evictionValidationExecutor;
+
+    private int evictionValidationConcurrency = DEFAULT_EVICTION_VALIDATION_CONCURRENCY;
+
+    private int evictionValidationRate = DEFAULT_EVICTION_VALIDATION_RATE;
+
     private Duration durationBetweenEvictionRuns = DEFAULT_TIME_BETWEEN_EVICTION_RUNS;
 
     private boolean blockWhenExhausted = DEFAULT_BLOCK_WHEN_EXHAUSTED;
@@ -372,6 +408,19 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         return fairness;
     }
 
+    /**
+     * Gets the value for the {@code lockFreeIdleStore} configuration attribute for pools created
+     * with this configuration instance.
+     *
+     * @return The current setting of {@code lockFreeIdleStore} for this configuration instance
+     * @see GenericObjectPool#getLockFreeIdleStore()
+     * @see GenericKeyedObjectPool#getLockFreeIdleStore()
+     * @since 2.12.0
+     */
+    public boolean getLockFreeIdleStore() {
+        return lockFreeIdleStore;
+    }
+
     /**
      * Gets the value of the flag that determines if JMX will be enabled for pools created with this
      * configuration instance.
@@ -590,6 +639,48 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         return testWhileIdle;
     }
 
+    /**
+     * Gets the value for the {@code evictionValidationConcurrency} configuration attribute for
+     * pools created with this configuration instance.
+     *
+     * @return The current setting of {@code evictionValidationConcurrency} for this configuration
+     *     instance
+     * @see GenericObjectPool#getEvictionValidationConcurrency()
+     * @see GenericKeyedObjectPool#getEvictionValidationConcurrency()
+     * @since 2.12.0
+     */
+    public int getEvictionValidationConcurrency() {
+        return evictionValidationConcurrency;
+    }
+
+    /**
+     * Gets the value for the {@code evictionValidationExecutor} configuration attribute for pools
+     * created with this configuration instance.
+     *
+     * @return The current setting of {@code evictionValidationExecutor} for this configuration
+     *     instance
+     * @see GenericObjectPool#getEvictionValidationExecutor()
+     * @see GenericKeyedObjectPool#getEvictionValidationExecutor()
+     * @since 2.12.0
+     */
+    public Executor getEvictionValidationExecutor() {
+        return evictionValidationExecutor;
+    }
+
+    /**
+     * Gets the value for the {@code evictionValidationRate} configuration attribute for pools
+     * created with this configuration instance.
+     *
+     * @return The current setting of {@code evictionValidationRate} for this configuration
+     *     instance
+     * @see GenericObjectPool#getEvictionValidationRate()
+     * @see GenericKeyedObjectPool#getEvictionValidationRate()
+     * @since 2.12.0
+     */
+    public int getEvictionValidationRate() {
+        return evictionValidationRate;
+    }
+
     /**
      * Gets the value for the {@code timeBetweenEvictionRuns} configuration attribute for pools
      * created with this configuration instance.
@@ -734,6 +825,21 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.fairness = fairness;
     }
 
+    /**
+     * Sets the value for the {@code lockFreeIdleStore} configuration attribute for pools created
+     * with this configuration instance. When {@code true}, idle objects are kept in a store that
+     * does not lock, and that hands returned objects directly to waiting borrowers.
+     *
+     * @param lockFreeIdleStore The new setting of {@code lockFreeIdleStore} for this configuration
+     *     instance
+     * @see GenericObjectPool#getLockFreeIdleStore()
+     * @see GenericKeyedObjectPool#getLockFreeIdleStore()
+     * @since 2.12.0
+     */
+    public void setLockFreeIdleStore(final boolean lockFreeIdleStore) {
+        this.lockFreeIdleStore = lockFreeIdleStore;
+    }
+
     /**
      * Sets the value of the flag that determines if JMX will be enabled for pools created with this
      * configuration instance.
@@ -928,6 +1034,55 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         this.testWhileIdle = testWhileIdle;
     }
 
+    /**
+     * Sets the value for the {@code evictionValidationConcurrency} configuration attribute for
+     * pools created with this configuration instance. It caps the number of idle objects the
+     * evictor validates at the same time on the {@code evictionValidationExecutor}; it has no
+     * effect without one. The default, 1, validates idle objects one at a time.
+     *
+     * @param evictionValidationConcurrency The new setting of {@code
+     *     evictionValidationConcurrency} for this configuration instance
+     * @see GenericObjectPool#getEvictionValidationConcurrency()
+     * @see GenericKeyedObjectPool#getEvictionValidationConcurrency()
+     * @since 2.12.0
+     */
+    public void setEvictionValidationConcurrency(final int evictionValidationConcurrency) {
+        this.evictionValidationConcurrency = evictionValidationConcurrency;
+    }
+
+    /**
+     * Sets the value for the {@code evictionValidationExecutor} configuration attribute for pools
+     * created with this configuration instance. When it is set, the idle object validations of an
+     * eviction run are executed by this executor, up to {@code evictionValidationConcurrency} at a
+     * time, and the evictor thread only coordinates them. The executor is not shut down by the
+     * pools.
+     *
+     * @param evictionValidationExecutor The new setting of {@code evictionValidationExecutor} for
+     *     this configuration instance, null to validate on the evictor thread
+     * @see GenericObjectPool#getEvictionValidationExecutor()
+     * @see GenericKeyedObjectPool#getEvictionValidationExecutor()
+     * @since 2.12.0
+     */
+    public void setEvictionValidationExecutor(final Executor evictionValidationExecutor) {
+        this.evictionValidationExecutor = evictionValidationExecutor;
+    }
+
+    /**
+     * Sets the value for the {@code evictionValidationRate} configuration attribute for pools
+     * created with this configuration instance. It caps the number of idle objects the evictor
+     * validates per second, with or without an {@code evictionValidationExecutor}. The default,
+     * 0, sets no cap.
+     *
+     * @param evictionValidationRate The new setting of {@code evictionValidationRate} for this
+     *     configuration instance
+     * @see GenericObjectPool#getEvictionValidationRate()
+     * @see GenericKeyedObjectPool#getEvictionValidationRate()
+     * @since 2.12.0
+     */
+    public void setEvictionValidationRate(final int evictionValidationRate) {
+        this.evictionValidationRate = evictionValidationRate;
+    }
+
     /**
      * Sets the value for the {@code timeBetweenEvictionRuns} configuration attribute for pools
      * created with this configuration instance.
@@ -964,6 +1119,8 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         builder.append(lifo);
         builder.append(", fairness=");
         builder.append(fairness);
+        builder.append(", lockFreeIdleStore=");
+        builder.append(lockFreeIdleStore);
         builder.append(", maxWaitDuration=");
         builder.append(maxWaitDuration);
         builder.append(", minEvictableIdleTime=");
@@ -982,6 +1139,12 @@ public abstract class BaseObjectPoolConfig<T> extends BaseObject implements Clon
         builder.append(testOnReturn);
         builder.append(", testWhileIdle=");
         builder.append(testWhileIdle);
+        builder.append(", evictionValidationExecutor=");
+        builder.append(evictionValidationExecutor);
+        builder.append(", evictionValidationConcurrency=");
+        builder.append(evictionValidationConcurrency);
+        builder.append(", evictionValidationRate=");
+        builder.append(evictionValidationRate);
         builder.append(", timeBetweenEvictionRuns=");
         builder.append(durationBetweenEvictionRuns);
         builder.append(", blockWhenExhausted=");
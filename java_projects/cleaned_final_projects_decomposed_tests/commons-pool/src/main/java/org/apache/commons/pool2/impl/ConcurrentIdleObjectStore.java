@@ -0,0 +1,574 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.time.Duration;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An unbounded {@link IdleObjectStore} that does not lock: borrowers and returners only contend on
+ * compare-and-set operations, where {@link LinkedBlockingDeque} serializes them on a single lock.
+ *
+ * <p>Elements are held in nodes of a shared {@link ConcurrentLinkedDeque}. A node is claimed by
+ * clearing its element with a compare-and-set, so a node may be seen by several threads but its
+ * element is taken by one only.
+ *
+ * <p>Unless fairness is requested, each thread also keeps a short list of the nodes it added
+ * recently, and {@link #pollFirst()} claims those first: a thread that returns an object and
+ * borrows again shortly after gets the same object back, without going through the head of the
+ * shared deque. This does not preserve the FIFO order of {@code lifo=false} pools.
+ *
+ * <p>An element added while threads wait in {@link #takeFirst()} or {@link #pollFirst1(Duration)}
+ * is handed directly to the thread that has waited longest.
+ *
+ * <p>{@link #size()} is exact when the store is quiescent, and an estimate otherwise. Iterators are
+ * weakly consistent.
+ *
+ * <p>This class is intended to be thread-safe.
+ *
+ * @param <E> the type of elements held in this store
+ * @since 2.12.0
+ */
+class ConcurrentIdleObjectStore<E> extends AbstractQueue<E> implements IdleObjectStore<E> {
+
+    /*
+     * A node is linked in the shared deque before it is published in the affinity list of its
+     * thread. A node claimed at an end of the shared deque is unlinked by the poll that claims it.
+     * A node claimed elsewhere, through an affinity list or an iterator, stays linked: polls drop
+     * it when it reaches an end, and once claimed nodes outnumber the elements, the thread that
+     * claims the next one sweeps them all, which keeps claims O(1) amortized.
+     *
+     * Affinity lists drop their claimed nodes whenever their thread adds a node, so they hold at
+     * most AFFINITY_SIZE nodes, none of them for an element that has left the store.
+     *
+     * Waiters register in a FIFO queue, then poll once more before parking. Adders link their
+     * node, then look for waiters. Both sides publish before they look, so a waiter cannot park
+     * while an element it missed stays in the store.
+     */
+
+    /** An element, until a thread claims it. */
+    private static final class Node<E> extends AtomicReference<E> {
+
+        private static final long serialVersionUID = 1L;
+
+        Node(final E item) {
+            super(item);
+        }
+
+        /**
+         * Takes the element of this node.
+         *
+         * @return the element, or {@code null} if another thread took it first
+         */
+        E claim() {
+            final E item = get();
+            return item != null && compareAndSet(item, null) ? item : null;
+        }
+    }
+
+    /** A thread waiting for an element: its state is null, CANCELLED or the element. */
+    private static final class Waiter<E> extends AtomicReference<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        final Thread thread = Thread.currentThread();
+
+        boolean cancel() {
+            return compareAndSet(null, CANCELLED);
+        }
+
+        boolean isWaiting() {
+            return get() == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        E item() {
+            return (E) get();
+        }
+
+        boolean offer(final E item) {
+            if (compareAndSet(null, item)) {
+                LockSupport.unpark(thread);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /** Weakly consistent iterator over the elements of a sequence of nodes. */
+    private final class Itr implements Iterator<E> {
+
+        private final Iterator<Node<E>> nodes;
+        private Node<E> nextNode;
+        private E nextItem;
+        private Node<E> lastNode;
+
+        Itr(final Iterator<Node<E>> nodes) {
+            this.nodes = nodes;
+            advance();
+        }
+
+        private void advance() {
+            nextNode = null;
+            nextItem = null;
+            while (nodes.hasNext()) {
+                final Node<E> node = nodes.next();
+                final E item = node.get();
+                if (item != null) {
+                    nextNode = node;
+                    nextItem = item;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public E next() {
+            if (nextNode == null) {
+                throw new NoSuchElementException();
+            }
+            final E item = nextItem;
+            lastNode = nextNode;
+            advance();
+            return item;
+        }
+
+        @Override
+        public void remove() {
+            final Node<E> node = lastNode;
+            if (node == null) {
+                throw new IllegalStateException();
+            }
+            lastNode = null;
+            if (node.claim() != null) {
+                count.decrementAndGet();
+                claimedLinked();
+            }
+        }
+    }
+
+    private static final Object CANCELLED = new Object();
+
+    /** Maximum number of nodes in the affinity list of a thread. */
+    private static final int AFFINITY_SIZE = 8;
+
+    /** Number of claimed nodes left in the shared deque that never triggers a sweep. */
+    private static final int MIN_SWEEP = 64;
+
+    final ConcurrentLinkedDeque<Node<E>> shared = new ConcurrentLinkedDeque<>();
+
+    private final ConcurrentLinkedQueue<Waiter<E>> waiters = new ConcurrentLinkedQueue<>();
+
+    /** Number of unclaimed nodes. */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /** Number of claimed nodes left in the shared deque since the last sweep, an upper bound. */
+    private final AtomicInteger claimedLinked = new AtomicInteger();
+
+    /** Nodes recently added by each thread, most recent last; null if fair. */
+    private final ThreadLocal<ArrayDeque<Node<E>>> affinity;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param fairness true means elements are always taken from the head of the store, without
+     *     favoring those the calling thread added
+     */
+    ConcurrentIdleObjectStore(final boolean fairness) {
+        affinity = fairness ? null : ThreadLocal.withInitial(ArrayDeque::new);
+    }
+
+    @Override
+    public void addFirst(final E e) {
+        link(e, true);
+    }
+
+    @Override
+    public void addLast(final E e) {
+        link(e, false);
+    }
+
+    /**
+     * Waits for an element, unless one is available.
+     *
+     * @param nanos how long to wait, negative to wait forever
+     * @return the element, or {@code null} if the time elapsed
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    private E awaitFirst(final long nanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        E item = pollFirst();
+        if (item != null || nanos == 0) {
+            return item;
+        }
+        final Waiter<E> waiter = new Waiter<>();
+        waiters.add(waiter);
+        // An element may have been added before the waiter was visible
+        item = pollFirst();
+        if (item != null) {
+            if (waiter.cancel()) {
+                waiters.remove(waiter);
+                return item;
+            }
+            // Another element was handed over meanwhile
+            addFirst(item);
+            return waiter.item();
+        }
+        final long deadline = System.nanoTime() + nanos;
+        while (waiter.isWaiting()) {
+            if (Thread.interrupted()) {
+                if (waiter.cancel()) {
+                    waiters.remove(waiter);
+                    throw new InterruptedException();
+                }
+                // Interrupted after the hand-over: keep the element and the interrupt status
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (nanos < 0) {
+                LockSupport.park(this);
+            } else {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    if (waiter.cancel()) {
+                        waiters.remove(waiter);
+                        return null;
+                    }
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+        }
+        return waiter.item();
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new Itr(shared.descendingIterator());
+    }
+
+    @Override
+    public E getFirst() {
+        final E x = peekFirst();
+        if (x == null) {
+            throw new NoSuchElementException();
+        }
+        return x;
+    }
+
+    @Override
+    public E getLast() {
+        final E x = peekLast();
+        if (x == null) {
+            throw new NoSuchElementException();
+        }
+        return x;
+    }
+
+    @Override
+    public int getTakeQueueLength() {
+        int n = 0;
+        for (final Waiter<E> waiter : waiters) {
+            if (waiter.isWaiting()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Gives an element to the thread that has waited longest.
+     *
+     * @param e the element
+     * @return false if no thread waits
+     */
+    private boolean handOff(final E e) {
+        Waiter<E> waiter;
+        while ((waiter = waiters.poll()) != null) {
+            if (waiter.offer(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasTakeWaiters() {
+        for (final Waiter<E> waiter : waiters) {
+            if (waiter.isWaiting()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void interuptTakeWaiters() {
+        for (final Waiter<E> waiter : waiters) {
+            if (waiter.isWaiting()) {
+                waiter.thread.interrupt();
+            }
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(shared.iterator());
+    }
+
+    /**
+     * Adds an element, or hands it to a waiting thread.
+     *
+     * @param e the element
+     * @param first whether to add it at the head or at the tail of the store
+     */
+    private void link(final E e, final boolean first) {
+        Objects.requireNonNull(e, "e");
+        if (handOff(e)) {
+            return;
+        }
+        final Node<E> node = new Node<>(e);
+        count.incrementAndGet();
+        if (first) {
+            shared.addFirst(node);
+        } else {
+            shared.addLast(node);
+        }
+        if (affinity != null) {
+            final ArrayDeque<Node<E>> recent = affinity.get();
+            recent.removeIf(n -> n.get() == null);
+            if (recent.size() == AFFINITY_SIZE) {
+                recent.pollFirst();
+            }
+            recent.addLast(node);
+        }
+        // A thread may have started waiting after handOff looked
+        while (!waiters.isEmpty()) {
+            final E item = unlinkFirst();
+            if (item == null) {
+                return;
+            }
+            if (!handOff(item)) {
+                count.incrementAndGet();
+                shared.addFirst(new Node<>(item));
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(final E e) {
+        return offerLast(e);
+    }
+
+    @Override
+    public boolean offerFirst(final E e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(final E e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public E peekFirst() {
+        for (final Node<E> node : shared) {
+            final E item = node.get();
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E peekLast() {
+        final Iterator<Node<E>> it = shared.descendingIterator();
+        while (it.hasNext()) {
+            final E item = it.next().get();
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E pollFirst() {
+        if (affinity != null) {
+            final ArrayDeque<Node<E>> recent = affinity.get();
+            Node<E> node;
+            while ((node = recent.pollLast()) != null) {
+                final E item = node.claim();
+                if (item != null) {
+                    count.decrementAndGet();
+                    claimedLinked();
+                    return item;
+                }
+            }
+        }
+        return unlinkFirst();
+    }
+
+    @Override
+    public E pollFirst1(final Duration timeout) throws InterruptedException {
+        return awaitFirst(Math.max(0, timeout.toNanos()));
+    }
+
+    @Override
+    public E pollLast() {
+        Node<E> node;
+        while ((node = shared.pollLast()) != null) {
+            final E item = node.claim();
+            if (item != null) {
+                count.decrementAndGet();
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public void push(final E e) {
+        addFirst(e);
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    @Override
+    public E removeFirst() {
+        final E x = pollFirst();
+        if (x == null) {
+            throw new NoSuchElementException();
+        }
+        return x;
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(final Object o) {
+        return removeOccurrence(o, shared.iterator());
+    }
+
+    @Override
+    public E removeLast() {
+        final E x = pollLast();
+        if (x == null) {
+            throw new NoSuchElementException();
+        }
+        return x;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(final Object o) {
+        return removeOccurrence(o, shared.descendingIterator());
+    }
+
+    private boolean removeOccurrence(final Object o, final Iterator<Node<E>> nodes) {
+        if (o == null) {
+            return false;
+        }
+        while (nodes.hasNext()) {
+            final Node<E> node = nodes.next();
+            final E item = node.get();
+            if (item != null && o.equals(item) && node.compareAndSet(item, null)) {
+                count.decrementAndGet();
+                nodes.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public E takeFirst() throws InterruptedException {
+        return awaitFirst(-1);
+    }
+
+    /**
+     * Records that a node was claimed without being unlinked, and sweeps the claimed nodes from the
+     * shared deque when they outnumber the elements.
+     */
+    private void claimedLinked() {
+        if (claimedLinked.incrementAndGet() > Math.max(MIN_SWEEP, count.get())) {
+            claimedLinked.set(0);
+            final Iterator<Node<E>> nodes = shared.iterator();
+            while (nodes.hasNext()) {
+                if (nodes.next().get() == null) {
+                    nodes.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims the first element of the shared deque, dropping the claimed nodes on the way.
+     *
+     * @return the element, or {@code null} if the store is empty
+     */
+    private E unlinkFirst() {
+        Node<E> node;
+        while ((node = shared.pollFirst()) != null) {
+            final E item = node.claim();
+            if (item != null) {
+                count.decrementAndGet();
+                return item;
+            }
+        }
+        return null;
+    }
+}
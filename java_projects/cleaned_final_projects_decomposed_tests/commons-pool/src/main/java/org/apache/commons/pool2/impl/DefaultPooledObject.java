@@ -24,26 +24,32 @@ import java.io.PrintWriter;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This wrapper is used to track the additional information, such as state, for the pooled objects.
  *
- * <p>This class is intended to be thread-safe.
+ * <p>This class is intended to be thread-safe. State transitions are made with compare-and-set
+ * operations rather than under the monitor of the instance, so that borrowing and returning do not
+ * block, and do not pin virtual threads to their carrier. The pools call {@link
+ * #markReturningIfAllocated()} and {@link #markAbandonedIfAllocated()} on instances of this class,
+ * and synchronize on other {@link PooledObject} implementations instead.
  *
  * @param <T> the type of object in the pool
  * @since 2.0
  */
-public class DefaultPooledObject<T> {
+public class DefaultPooledObject<T> implements PooledObject<T> {
 
     private final T object;
-    private PooledObjectState state =
-            PooledObjectState.IDLE; // @GuardedBy("this") to ensure transitions are valid
-    private final Clock systemClock = Clock.systemUTC();
-    private final Instant createInstant = now();
-
-    private volatile Instant lastBorrowInstant = createInstant;
-    private volatile Instant lastUseInstant = createInstant;
-    private volatile Instant lastReturnInstant = createInstant;
+    private final AtomicReference<PooledObjectState> state =
+            new AtomicReference<>(PooledObjectState.IDLE);
+    private final Clock systemClock;
+    private final Instant createInstant;
+
+    private volatile Instant lastBorrowInstant;
+    private volatile Instant lastUseInstant;
+    private volatile Instant lastReturnInstant;
     private volatile boolean logAbandoned;
     private volatile CallStack borrowedBy = NoOpCallStack.INSTANCE;
     private volatile CallStack usedBy = NoOpCallStack.INSTANCE;
@@ -56,7 +62,23 @@ public class DefaultPooledObject<T> {
      * @param object The object to wrap
      */
     public DefaultPooledObject(final T object) {
+        this(object, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a new instance that wraps the provided object and reads the time from the given
+     * clock.
+     *
+     * @param object The object to wrap
+     * @param clock The clock giving the creation, borrow, use and return instants
+     */
+    DefaultPooledObject(final T object, final Clock clock) {
         this.object = object;
+        this.systemClock = clock;
+        this.createInstant = now();
+        this.lastBorrowInstant = createInstant;
+        this.lastUseInstant = createInstant;
+        this.lastReturnInstant = createInstant;
     }
 
     /**
@@ -64,23 +86,29 @@ public class DefaultPooledObject<T> {
      *
      * @return {@code true} if the original state was {@link PooledObjectState#IDLE IDLE}
      */
-    public synchronized boolean allocate() {
-        if (state == PooledObjectState.IDLE) {
-            state = PooledObjectState.ALLOCATED;
-            lastBorrowInstant = now();
-            lastUseInstant = lastBorrowInstant;
-            borrowedCount++;
-            if (logAbandoned) {
-                borrowedBy.fillInStackTrace();
+    @Override
+    public boolean allocate() {
+        if (state.get() == PooledObjectState.IDLE) {
+            // The abandoned object check reads the last use instant after seeing the object
+            // ALLOCATED: set it before the compare-and-set makes the object ALLOCATED. If another
+            // thread changes the state first, the later instant only delays that check.
+            final Instant borrowInstant = now();
+            lastUseInstant = borrowInstant;
+            if (state.compareAndSet(PooledObjectState.IDLE, PooledObjectState.ALLOCATED)) {
+                // Only the borrower updates these fields until the object is deallocated
+                lastBorrowInstant = borrowInstant;
+                borrowedCount++;
+                if (logAbandoned) {
+                    borrowedBy.fillInStackTrace();
+                }
+                return true;
             }
-            return true;
-        }
-        if (state == PooledObjectState.EVICTION) {
-            state = PooledObjectState.EVICTION_RETURN_TO_HEAD;
         }
+        state.compareAndSet(PooledObjectState.EVICTION, PooledObjectState.EVICTION_RETURN_TO_HEAD);
         return false;
     }
 
+    @Override
     public int compareTo(final PooledObject<T> other) {
         final int compareTo = getLastReturnInstant().compareTo(other.getLastReturnInstant());
         if (compareTo == 0) {
@@ -97,9 +125,10 @@ public class DefaultPooledObject<T> {
      * @return {@code true} if the state was {@link PooledObjectState#ALLOCATED ALLOCATED} or {@link
      *     PooledObjectState#RETURNING RETURNING}.
      */
-    public synchronized boolean deallocate() {
-        if (state == PooledObjectState.ALLOCATED || state == PooledObjectState.RETURNING) {
-            state = PooledObjectState.IDLE;
+    @Override
+    public boolean deallocate() {
+        if (state.compareAndSet(PooledObjectState.ALLOCATED, PooledObjectState.IDLE)
+                || state.compareAndSet(PooledObjectState.RETURNING, PooledObjectState.IDLE)) {
             lastReturnInstant = now();
             borrowedBy.clear();
             return true;
@@ -108,49 +137,88 @@ public class DefaultPooledObject<T> {
         return false;
     }
 
+    /**
+     * Called to inform the object that the eviction test has ended.
+     *
+     * @param idleQueue The queue of idle objects to which the object should be returned
+     * @return Currently not used
+     */
+    @Override
+    public boolean endEvictionTest(final Deque<PooledObject<T>> idleQueue) {
+        if (state.compareAndSet(PooledObjectState.EVICTION, PooledObjectState.IDLE)) {
+            return true;
+        }
+        if (state.compareAndSet(
+                PooledObjectState.EVICTION_RETURN_TO_HEAD, PooledObjectState.IDLE)) {
+            idleQueue.offerFirst(this);
+        }
+        return false;
+    }
+
+    @Override
+    @Deprecated
+    public long getActiveTimeMillis() {
+        return getActiveDuration().toMillis();
+    }
+
     /**
      * Gets the number of times this object has been borrowed.
      *
      * @return The number of times this object has been borrowed.
      * @since 2.1
      */
+    @Override
     public long getBorrowedCount() {
         return borrowedCount;
     }
 
+    @Override
     public Instant getCreateInstant() {
         return createInstant;
     }
 
+    @Override
+    @Deprecated
     public long getCreateTime() {
         return createInstant.toEpochMilli();
     }
 
+    @Override
     public Duration getIdleDuration() {
         final Duration elapsed = Duration.between(lastReturnInstant, now());
         return elapsed.isNegative() ? Duration.ZERO : elapsed;
     }
 
+    @Override
+    @Deprecated
     public Duration getIdleTime() {
         return getIdleDuration();
     }
 
+    @Override
+    @Deprecated
     public long getIdleTimeMillis() {
         return getIdleDuration().toMillis();
     }
 
+    @Override
     public Instant getLastBorrowInstant() {
         return lastBorrowInstant;
     }
 
+    @Override
+    @Deprecated
     public long getLastBorrowTime() {
         return lastBorrowInstant.toEpochMilli();
     }
 
+    @Override
     public Instant getLastReturnInstant() {
         return lastReturnInstant;
     }
 
+    @Override
+    @Deprecated
     public long getLastReturnTime() {
         return lastReturnInstant.toEpochMilli();
     }
@@ -163,6 +231,7 @@ public class DefaultPooledObject<T> {
      *
      * @return the last Instant this object was used.
      */
+    @Override
     public Instant getLastUsedInstant() {
         if (object instanceof TrackedUse) {
             return PoolImplUtils.max(((TrackedUse) object).getLastUsedInstant(), lastUseInstant);
@@ -178,10 +247,13 @@ public class DefaultPooledObject<T> {
      *
      * @return the last time this object was used
      */
+    @Override
+    @Deprecated
     public long getLastUsedTime() {
         return getLastUsedInstant().toEpochMilli();
     }
 
+    @Override
     public T getObject() {
         return object;
     }
@@ -191,23 +263,49 @@ public class DefaultPooledObject<T> {
      *
      * @return state
      */
-    public synchronized PooledObjectState getState() {
-        return state;
+    @Override
+    public PooledObjectState getState() {
+        return state.get();
     }
 
     /** Sets the state to {@link PooledObjectState#INVALID INVALID}. */
-    public synchronized void invalidate() {
-        state = PooledObjectState.INVALID;
+    @Override
+    public void invalidate() {
+        state.set(PooledObjectState.INVALID);
     }
 
     /** Marks the pooled object as {@link PooledObjectState#ABANDONED ABANDONED}. */
-    public synchronized void markAbandoned() {
-        state = PooledObjectState.ABANDONED;
+    @Override
+    public void markAbandoned() {
+        state.set(PooledObjectState.ABANDONED);
+    }
+
+    /**
+     * Marks the pooled object as {@link PooledObjectState#ABANDONED ABANDONED} if it is {@link
+     * PooledObjectState#ALLOCATED ALLOCATED}.
+     *
+     * @return {@code true} if the object was {@link PooledObjectState#ALLOCATED ALLOCATED}
+     * @since 2.12.0
+     */
+    public boolean markAbandonedIfAllocated() {
+        return state.compareAndSet(PooledObjectState.ALLOCATED, PooledObjectState.ABANDONED);
     }
 
     /** Marks the pooled object as {@link PooledObjectState#RETURNING RETURNING}. */
-    public synchronized void markReturning() {
-        state = PooledObjectState.RETURNING;
+    @Override
+    public void markReturning() {
+        state.set(PooledObjectState.RETURNING);
+    }
+
+    /**
+     * Marks the pooled object as {@link PooledObjectState#RETURNING RETURNING} if it is {@link
+     * PooledObjectState#ALLOCATED ALLOCATED}.
+     *
+     * @return {@code true} if the object was {@link PooledObjectState#ALLOCATED ALLOCATED}
+     * @since 2.12.0
+     */
+    public boolean markReturningIfAllocated() {
+        return state.compareAndSet(PooledObjectState.ALLOCATED, PooledObjectState.RETURNING);
     }
 
     /**
@@ -219,6 +317,7 @@ public class DefaultPooledObject<T> {
         return systemClock.instant();
     }
 
+    @Override
     public void printStackTrace(final PrintWriter writer) {
         boolean written = borrowedBy.printStackTrace(writer);
         written |= usedBy.printStackTrace(writer);
@@ -227,6 +326,7 @@ public class DefaultPooledObject<T> {
         }
     }
 
+    @Override
     public void setLogAbandoned(final boolean logAbandoned) {
         this.logAbandoned = logAbandoned;
     }
@@ -240,25 +340,22 @@ public class DefaultPooledObject<T> {
      * @param requireFullStackTrace the new configuration setting for abandoned object logging
      * @since 2.5
      */
-    public synchronized boolean startEvictionTest() {
-        if (state == PooledObjectState.IDLE) {
-            state = PooledObjectState.EVICTION;
-            return true;
-        }
-        return false;
+    @Override
+    public boolean startEvictionTest() {
+        return state.compareAndSet(PooledObjectState.IDLE, PooledObjectState.EVICTION);
     }
 
+    @Override
     public String toString() {
         final StringBuilder result = new StringBuilder();
         result.append("Object: ");
         result.append(object.toString());
         result.append(", State: ");
-        synchronized (this) {
-            result.append(state.toString());
-        }
+        result.append(getState().toString());
         return result.toString();
     }
 
+    @Override
     public void use() {
         lastUseInstant = now();
         usedBy.fillInStackTrace();
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs the idle object validations of an eviction run, at most {@code concurrency} at a time and
+ * at most {@code rate} per second.
+ *
+ * <p>The evictor thread only coordinates: for each idle object to validate it calls {@code
+ * startEvictionTest}, then {@link #submit submits} a task that validates the object, ends the
+ * eviction test and destroys the object if it is invalid. When all objects of the run have been
+ * visited, the evictor {@link #await awaits} the tasks still running before it ensures the minimum
+ * number of idle objects. Objects under test are in the {@code EVICTION} state, so they are not
+ * borrowed or visited again while their validation runs.
+ *
+ * <p>{@link #submit} blocks while {@code concurrency} validations are running, and until the
+ * previous submission is at least {@code 1 / rate} seconds old, which caps the load the
+ * validations put on the factory. With an executor, validations run on the executor, even with a
+ * concurrency of 1; without one they run one after another on the evictor thread. A validation
+ * the executor rejects also runs on the evictor thread. An exception thrown by a validation is
+ * passed to the exception handler, wherever the validation runs.
+ *
+ * <p>The executor belongs to the caller: it is not shut down when the pool is closed.
+ *
+ * <p>This class is intended to be thread-safe. The class is intended for internal use only.
+ *
+ * @since 2.12.0
+ */
+final class EvictionValidator {
+
+    /**
+     * The validation of one idle object.
+     */
+    interface Validation {
+
+        /**
+         * Validates an idle object, destroys it if it is invalid and ends its eviction test.
+         *
+         * @throws Exception if the object cannot be validated or destroyed
+         */
+        void run() throws Exception;
+    }
+
+    private final Executor executor;
+
+    private final int concurrency;
+
+    /** Minimum interval between two submissions, 0 for no rate cap. */
+    private final long intervalNanos;
+
+    private final Consumer<Exception> exceptionHandler;
+
+    /** One permit per validation that may run at the same time. */
+    private final Semaphore permits;
+
+    /** Earliest {@link System#nanoTime()} of the next submission. */
+    private long nextSubmitNanos; // @GuardedBy("this")
+
+    /**
+     * Constructs a validator for one eviction run.
+     *
+     * @param executor the executor running the validations, null to run them on the calling thread
+     * @param concurrency maximum number of validations running at the same time
+     * @param rate maximum number of validations submitted per second, 0 or less for no cap
+     * @param exceptionHandler receives the exceptions thrown by the validations
+     */
+    EvictionValidator(
+            final Executor executor,
+            final int concurrency,
+            final int rate,
+            final Consumer<Exception> exceptionHandler) {
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        this.exceptionHandler = exceptionHandler;
+        this.permits = new Semaphore(this.concurrency);
+        this.nextSubmitNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits until all submitted validations are finished.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    void await() throws InterruptedException {
+        permits.acquire(concurrency);
+        permits.release(concurrency);
+    }
+
+    /**
+     * Gets the maximum number of validations running at the same time.
+     *
+     * @return the concurrency, at least 1
+     */
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Gets the number of validations submitted and not finished yet.
+     *
+     * @return the number of running validations
+     */
+    int getNumActive() {
+        return concurrency - permits.availablePermits();
+    }
+
+    /**
+     * Tests whether validations run on the calling thread.
+     *
+     * @return true if there is no executor
+     */
+    boolean isSerial() {
+        return executor == null;
+    }
+
+    /**
+     * Runs a validation, waiting first for a running validation to finish if {@code concurrency}
+     * are running, and for the rate cap. An exception thrown by the validation is passed to the
+     * exception handler.
+     *
+     * @param validation the validation
+     * @throws InterruptedException if the calling thread is interrupted while waiting; the
+     *     validation is not run
+     */
+    void submit(final Validation validation) throws InterruptedException {
+        throttle();
+        if (isSerial()) {
+            run(validation);
+            return;
+        }
+        permits.acquire();
+        try {
+            executor.execute(
+                    () -> {
+                        try {
+                            run(validation);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+        } catch (final RejectedExecutionException e) {
+            try {
+                run(validation);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void run(final Validation validation) {
+        try {
+            validation.run();
+        } catch (final Exception e) {
+            exceptionHandler.accept(e);
+        }
+    }
+
+    /**
+     * Waits until the rate cap allows the next submission.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    private synchronized void throttle() throws InterruptedException {
+        if (intervalNanos == 0) {
+            return;
+        }
+        final long delay = nextSubmitNanos - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+            nextSubmitNanos += intervalNanos;
+        } else {
+            // No credit for idle time: a run does not start with a burst
+            nextSubmitNanos = System.nanoTime() + intervalNanos;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("EvictionValidator [executor=");
+        builder.append(executor);
+        builder.append(", concurrency=");
+        builder.append(concurrency);
+        builder.append(", intervalNanos=");
+        builder.append(intervalNanos);
+        builder.append(", numActive=");
+        builder.append(getNumActive());
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -82,6 +82,22 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getDestroyedCount();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getEvictionValidationConcurrency()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getEvictionValidationConcurrency()}
+     * @since 2.12.0
+     */
+    int getEvictionValidationConcurrency();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getEvictionValidationRate()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getEvictionValidationRate()}
+     * @since 2.12.0
+     */
+    int getEvictionValidationRate();
+
     /**
      * See {@link GenericKeyedObjectPool#getFairness()}
      *
@@ -96,6 +112,14 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     boolean getLifo();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getLockFreeIdleStore()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getLockFreeIdleStore()}
+     * @since 2.12.0
+     */
+    boolean getLockFreeIdleStore();
+
     /**
      * See {@link GenericKeyedObjectPool#getLogAbandoned()}
      *
@@ -162,6 +186,102 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      */
     long getMeanIdleTimeMillis();
 
+    /**
+     * See {@link GenericKeyedObjectPool#getP50ActiveTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP50ActiveTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP50ActiveTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getP99ActiveTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP99ActiveTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP99ActiveTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getP999ActiveTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP999ActiveTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP999ActiveTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getWindowMaxActiveTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getWindowMaxActiveTimeMicros()}
+     * @since 2.12.0
+     */
+    long getWindowMaxActiveTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getP50BorrowWaitTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP50BorrowWaitTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP50BorrowWaitTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getP99BorrowWaitTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP99BorrowWaitTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP99BorrowWaitTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getP999BorrowWaitTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP999BorrowWaitTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP999BorrowWaitTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getWindowMaxBorrowWaitTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getWindowMaxBorrowWaitTimeMicros()}
+     * @since 2.12.0
+     */
+    long getWindowMaxBorrowWaitTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getP50IdleTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP50IdleTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP50IdleTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getP99IdleTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP99IdleTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP99IdleTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getP999IdleTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getP999IdleTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP999IdleTimeMicros();
+
+    /**
+     * See {@link GenericKeyedObjectPool#getWindowMaxIdleTimeMicros()}
+     *
+     * @return See {@link GenericKeyedObjectPool#getWindowMaxIdleTimeMicros()}
+     * @since 2.12.0
+     */
+    long getWindowMaxIdleTimeMicros();
+
     /**
      * See {@link GenericKeyedObjectPool#getMinEvictableIdleDuration()}
      *
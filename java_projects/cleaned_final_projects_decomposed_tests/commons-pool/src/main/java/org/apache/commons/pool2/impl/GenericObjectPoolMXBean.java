@@ -80,6 +80,22 @@ public interface GenericObjectPoolMXBean {
      */
     long getDestroyedCount();
 
+    /**
+     * See {@link GenericObjectPool#getEvictionValidationConcurrency()}
+     *
+     * @return See {@link GenericObjectPool#getEvictionValidationConcurrency()}
+     * @since 2.12.0
+     */
+    int getEvictionValidationConcurrency();
+
+    /**
+     * See {@link GenericObjectPool#getEvictionValidationRate()}
+     *
+     * @return See {@link GenericObjectPool#getEvictionValidationRate()}
+     * @since 2.12.0
+     */
+    int getEvictionValidationRate();
+
     /**
      * See {@link GenericObjectPool#getFactoryType()}
      *
@@ -101,6 +117,14 @@ public interface GenericObjectPoolMXBean {
      */
     boolean getLifo();
 
+    /**
+     * See {@link GenericObjectPool#getLockFreeIdleStore()}
+     *
+     * @return See {@link GenericObjectPool#getLockFreeIdleStore()}
+     * @since 2.12.0
+     */
+    boolean getLockFreeIdleStore();
+
     /**
      * See {@link GenericObjectPool#getLogAbandoned()}
      *
@@ -157,6 +181,102 @@ public interface GenericObjectPoolMXBean {
      */
     long getMeanIdleTimeMillis();
 
+    /**
+     * See {@link GenericObjectPool#getP50ActiveTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP50ActiveTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP50ActiveTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getP99ActiveTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP99ActiveTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP99ActiveTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getP999ActiveTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP999ActiveTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP999ActiveTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getWindowMaxActiveTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getWindowMaxActiveTimeMicros()}
+     * @since 2.12.0
+     */
+    long getWindowMaxActiveTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getP50BorrowWaitTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP50BorrowWaitTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP50BorrowWaitTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getP99BorrowWaitTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP99BorrowWaitTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP99BorrowWaitTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getP999BorrowWaitTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP999BorrowWaitTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP999BorrowWaitTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getWindowMaxBorrowWaitTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getWindowMaxBorrowWaitTimeMicros()}
+     * @since 2.12.0
+     */
+    long getWindowMaxBorrowWaitTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getP50IdleTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP50IdleTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP50IdleTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getP99IdleTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP99IdleTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP99IdleTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getP999IdleTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getP999IdleTimeMicros()}
+     * @since 2.12.0
+     */
+    long getP999IdleTimeMicros();
+
+    /**
+     * See {@link GenericObjectPool#getWindowMaxIdleTimeMicros()}
+     *
+     * @return See {@link GenericObjectPool#getWindowMaxIdleTimeMicros()}
+     * @since 2.12.0
+     */
+    long getWindowMaxIdleTimeMicros();
+
     /**
      * See {@link GenericObjectPool#getMinEvictableIdleDuration()}
      *
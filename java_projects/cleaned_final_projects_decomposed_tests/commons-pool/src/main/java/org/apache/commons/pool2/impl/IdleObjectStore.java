@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.time.Duration;
+import java.util.Deque;
+
+/**
+ * The store of idle objects of a pool: a deque to which returned objects are added, first or last
+ * depending on {@code lifo}, and from which borrowers take the first object, waiting for one to be
+ * returned if needed.
+ *
+ * <p>Two implementations are available, selected with {@link
+ * BaseObjectPoolConfig#setLockFreeIdleStore(boolean)}: {@link LinkedBlockingDeque}, guarded by a
+ * single lock, and {@link ConcurrentIdleObjectStore}, which does not lock.
+ *
+ * <p>Implementations must be thread-safe and must not accept {@code null} elements. The class is
+ * intended for internal use only.
+ *
+ * @param <E> the type of elements held in this store
+ * @since 2.12.0
+ */
+interface IdleObjectStore<E> extends Deque<E> {
+
+    /**
+     * Returns the number of threads waiting to take an element from this store. The value is only
+     * an estimate, since threads may stop waiting while it is computed.
+     *
+     * @return the number of threads waiting in {@link #takeFirst()} or {@link #pollFirst1(Duration)}
+     */
+    int getTakeQueueLength();
+
+    /**
+     * Returns true if there are threads waiting to take an element from this store.
+     *
+     * @return true if at least one thread waits in {@link #takeFirst()} or {@link
+     *     #pollFirst1(Duration)}
+     */
+    boolean hasTakeWaiters();
+
+    /**
+     * Interrupts the threads currently waiting to take an element from this store, used when the
+     * pool is closed.
+     */
+    void interuptTakeWaiters();
+
+    /**
+     * Unlinks the first element of this store, waiting up to the specified time for one to be added
+     * if the store is empty.
+     *
+     * @param timeout length of time to wait
+     * @return the unlinked element, or {@code null} if the timeout elapsed
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    E pollFirst1(Duration timeout) throws InterruptedException;
+
+    /**
+     * Unlinks the first element of this store, waiting until one is added if the store is empty.
+     *
+     * @return the unlinked element
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    E takeFirst() throws InterruptedException;
+}
@@ -20,7 +20,6 @@ import java.io.Serializable;
 import java.time.Duration;
 import java.util.AbstractQueue;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -50,7 +49,8 @@ import java.util.concurrent.locks.Condition;
  *     <p>Note: This was copied from Apache Harmony and modified to suit the needs of Commons Pool.
  * @since 2.0
  */
-class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Deque<E>, Serializable {
+class LinkedBlockingDeque<E> extends AbstractQueue<E>
+        implements IdleObjectStore<E>, Serializable {
 
     /*
      * Implemented as a simple doubly-linked list protected by a
@@ -527,6 +527,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Deque<E>, Seria
      *
      * @return number of threads waiting on this deque's notEmpty condition.
      */
+    @Override
     public int getTakeQueueLength() {
         lock.lock();
         try {
@@ -542,6 +543,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Deque<E>, Seria
      *
      * @return true if there is at least one thread waiting on this deque's notEmpty condition.
      */
+    @Override
     public boolean hasTakeWaiters() {
         lock.lock();
         try {
@@ -555,6 +557,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Deque<E>, Seria
      * Interrupts the threads currently waiting to take an object from the pool. See disclaimer on
      * accuracy in {@link java.util.concurrent.locks.ReentrantLock#getWaitingThreads(Condition)}.
      */
+    @Override
     public void interuptTakeWaiters() {
         lock.lock();
         try {
@@ -871,7 +874,8 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Deque<E>, Seria
      * @return the unlinked element
      * @throws InterruptedException if the current thread is interrupted
      */
-    E pollFirst1(final Duration timeout) throws InterruptedException {
+    @Override
+    public E pollFirst1(final Duration timeout) throws InterruptedException {
         long nanos = timeout.toNanos();
         lock.lockInterruptibly();
         try {
@@ -1190,6 +1194,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Deque<E>, Seria
      * @return the unlinked element
      * @throws InterruptedException if the current thread is interrupted
      */
+    @Override
     public E takeFirst() throws InterruptedException {
         lock.lock();
         try {
@@ -58,7 +58,7 @@ public class PooledSoftReference<T> extends DefaultPooledObject<T> {
      *
      * @return underlying SoftReference
      */
-    public synchronized SoftReference<T> getReference() {
+    public SoftReference<T> getReference() {
         return reference;
     }
 
@@ -72,7 +72,7 @@ public class PooledSoftReference<T> extends DefaultPooledObject<T> {
      *
      * @param reference new reference
      */
-    public synchronized void setReference(final SoftReference<T> reference) {
+    public void setReference(final SoftReference<T> reference) {
         this.reference = reference;
     }
 
@@ -83,9 +83,7 @@ public class PooledSoftReference<T> extends DefaultPooledObject<T> {
         result.append("Referenced Object: ");
         result.append(getObject().toString());
         result.append(", State: ");
-        synchronized (this) {
-            result.append(getState().toString());
-        }
+        result.append(getState().toString());
         return result.toString();
     }
 }
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A histogram of durations over a sliding time window, reporting percentiles and the maximum.
+ *
+ * <p>Durations are recorded in microseconds in log-linear buckets: 16 buckets of equal width per
+ * power of two, so a reported percentile is within about 6% of the exact value. Durations above
+ * 2<sup>36</sup> microseconds (about 19 hours) share the last bucket.
+ *
+ * <p>The window is divided in slices, each with its own buckets, so the statistics cover between
+ * {@code slices - 1} and {@code slices} periods of {@code window / slices}. The first value of a
+ * new period replaces the slice it reuses with an empty one, so at most one slice is allocated per
+ * period and the memory used is bounded.
+ *
+ * <p>Recording is lock-free: it updates a few atomic counters, and a new slice is installed with a
+ * compare-and-set. A value recorded in a slice while it is being replaced is lost with the
+ * expired period it belongs to; readers skip the slices of expired periods.
+ *
+ * <p>This class is intended to be thread-safe. The class is intended for internal use only.
+ *
+ * @since 2.12.0
+ */
+final class SlidingWindowHistogram {
+
+    /** Number of linear buckets per power of two, as a power of two. */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Highest power of two with its own buckets. */
+    private static final int MAX_EXPONENT = 35;
+
+    /** Number of buckets of a slice. */
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /**
+     * Gets the bucket of a value.
+     *
+     * @param value a value, in microseconds
+     * @return the index of its bucket
+     */
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Gets the highest value of a bucket.
+     *
+     * @param bucket the index of a bucket
+     * @return the highest value, in microseconds, that falls in the bucket
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * The values recorded in one period.
+     */
+    private static final class Slice {
+
+        /** Period number of the values. */
+        final long period;
+
+        /** Counts of the buckets. */
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        /** Maximum value recorded. */
+        final AtomicLong max = new AtomicLong();
+
+        Slice(final long period) {
+            this.period = period;
+        }
+    }
+
+    private final long sliceNanos;
+
+    private final int slices;
+
+    /** The slice of each period modulo {@code slices}, null until first used. */
+    private final AtomicReferenceArray<Slice> window;
+
+    /**
+     * Constructs an empty histogram.
+     *
+     * @param window the duration covered by the statistics
+     * @param slices number of slices of the window, at least 2
+     */
+    SlidingWindowHistogram(final Duration window, final int slices) {
+        if (slices < 2) {
+            throw new IllegalArgumentException("slices must be at least 2: " + slices);
+        }
+        this.slices = slices;
+        this.sliceNanos = Math.max(1, window.toNanos() / slices);
+        this.window = new AtomicReferenceArray<>(slices);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param value the duration, negative durations count as zero
+     */
+    void add0(final Duration value) {
+        add1(value.isNegative() ? 0 : value.toNanos() / 1000, System.nanoTime());
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param micros the value, in microseconds
+     * @param nanoTime the current value of {@link System#nanoTime()}
+     */
+    void add1(final long micros, final long nanoTime) {
+        final long period = Math.floorDiv(nanoTime, sliceNanos);
+        final int index = (int) Math.floorMod(period, (long) slices);
+        Slice slice = window.get(index);
+        while (slice == null || slice.period != period) {
+            if (slice != null && slice.period > period) {
+                // Too late, the slice already holds a later period
+                return;
+            }
+            final Slice fresh = new Slice(period);
+            // On failure another thread installed a slice, maybe for this period
+            slice = window.compareAndSet(index, slice, fresh) ? fresh : window.get(index);
+        }
+        slice.counts.incrementAndGet(bucketOf(micros));
+        slice.max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Gets the number of values recorded in the window.
+     *
+     * @param nanoTime the current value of {@link System#nanoTime()}
+     * @return the number of values
+     */
+    long getCount(final long nanoTime) {
+        final long period = Math.floorDiv(nanoTime, sliceNanos);
+        long count = 0;
+        for (int index = 0; index < slices; index++) {
+            final Slice slice = current(index, period);
+            if (slice != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    count += slice.counts.get(i);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the largest value recorded in the window.
+     *
+     * @return the largest value in microseconds, 0 if no value was recorded
+     */
+    long getMax0() {
+        return getMax1(System.nanoTime());
+    }
+
+    /**
+     * Gets the largest value recorded in the window.
+     *
+     * @param nanoTime the current value of {@link System#nanoTime()}
+     * @return the largest value in microseconds, 0 if no value was recorded
+     */
+    long getMax1(final long nanoTime) {
+        final long period = Math.floorDiv(nanoTime, sliceNanos);
+        long max = 0;
+        for (int index = 0; index < slices; index++) {
+            final Slice slice = current(index, period);
+            if (slice != null) {
+                max = Math.max(max, slice.max.get());
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets a percentile of the values recorded in the window.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the percentile in microseconds, 0 if no value was recorded
+     */
+    long getPercentile0(final double percentile) {
+        return getPercentile1(percentile, System.nanoTime());
+    }
+
+    /**
+     * Gets a percentile of the values recorded in the window: the highest value of the bucket
+     * holding the value of that rank, or the maximum if it is lower.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @param nanoTime the current value of {@link System#nanoTime()}
+     * @return the percentile in microseconds, 0 if no value was recorded
+     */
+    long getPercentile1(final double percentile, final long nanoTime) {
+        final long period = Math.floorDiv(nanoTime, sliceNanos);
+        final long[] merged = new long[BUCKETS];
+        long count = 0;
+        long max = 0;
+        for (int index = 0; index < slices; index++) {
+            final Slice slice = current(index, period);
+            if (slice != null) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    final long n = slice.counts.get(i);
+                    merged[i] += n;
+                    count += n;
+                }
+                max = Math.max(max, slice.max.get());
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long rank =
+                Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += merged[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets a slice if it holds a period of the window.
+     *
+     * @param index the index of the slice
+     * @param period the current period
+     * @return the slice, or null if it is unused or expired
+     */
+    private Slice current(final int index, final long period) {
+        final Slice slice = window.get(index);
+        if (slice == null || slice.period > period || slice.period <= period - slices) {
+            return null;
+        }
+        return slice;
+    }
+
+    @Override
+    public String toString() {
+        final long now = System.nanoTime();
+        final StringBuilder builder = new StringBuilder();
+        builder.append("SlidingWindowHistogram [count=");
+        builder.append(getCount(now));
+        builder.append(", p50=");
+        builder.append(getPercentile1(50, now));
+        builder.append(", p99=");
+        builder.append(getPercentile1(99, now));
+        builder.append(", p999=");
+        builder.append(getPercentile1(99.9, now));
+        builder.append(", max=");
+        builder.append(getMax1(now));
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -17,12 +17,22 @@
 package org.apache.commons.pool2;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 /** */
 public class TestBaseObjectPool extends TestObjectPool {
     private static class TestObjectPool extends BaseObjectPool<Object> {
@@ -1483,4 +1493,63 @@ public class TestBaseObjectPool extends TestObjectPool {
             assertThrows(UnsupportedOperationException.class, pool::addObject);
         }
     }
+
+    @Test
+    public void testBorrowAsync_test0_decomposed() throws Exception {
+        try (final ObjectPool<Object> pool = new TestObjectPool()) {
+            final CompletableFuture<Object> future = pool.borrowAsync(Runnable::run);
+            assertTrue(future.isDone());
+            assertNull(future.get());
+        }
+        try (final ObjectPool<Object> pool =
+                new TestObjectPool() {
+                    @Override
+                    public Object borrowObject() {
+                        throw new NoSuchElementException("exhausted");
+                    }
+                }) {
+            final ExecutionException e =
+                    assertThrows(
+                            ExecutionException.class, () -> pool.borrowAsync(Runnable::run).get());
+            assertTrue(e.getCause() instanceof NoSuchElementException);
+        }
+    }
+
+    @Test
+    public void testBorrowAsync_test1_decomposed() throws Exception {
+        final AtomicReference<Thread> borrower = new AtomicReference<>();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (final ObjectPool<Object> pool =
+                new TestObjectPool() {
+                    @Override
+                    public Object borrowObject() {
+                        borrower.set(Thread.currentThread());
+                        return "obj";
+                    }
+                }) {
+            assertEquals("obj", pool.borrowAsync(executor).get());
+            assertNotSame(Thread.currentThread(), borrower.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBorrowAsync_test2_decomposed() throws Exception {
+        final AtomicInteger returned = new AtomicInteger();
+        final AtomicReference<Runnable> task = new AtomicReference<>();
+        try (final ObjectPool<Object> pool =
+                new TestObjectPool() {
+                    @Override
+                    public void returnObject(final Object obj) {
+                        returned.incrementAndGet();
+                    }
+                }) {
+            final CompletableFuture<Object> future = pool.borrowAsync(task::set);
+            future.cancel(false);
+            // The instance borrowed for a cancelled future goes back to the pool
+            task.get().run();
+            assertEquals(1, returned.get());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests for {@link BaseGenericObjectPool}. */
+public class TestBaseGenericObjectPool {
+
+    /** A pool with nothing but the base class. */
+    private static final class BasePool extends BaseGenericObjectPool<String> {
+
+        @Override
+        public void close() {}
+
+        @Override
+        void ensureMinIdle() {}
+
+        @Override
+        public void evict() {}
+
+        @Override
+        public int getNumIdle() {
+            return 0;
+        }
+    }
+
+    @Test
+    public void testSetConfig_test0_decomposed() {
+        final BasePool pool = new BasePool();
+        assertTrue(pool.createIdleObjectStore(false) instanceof LinkedBlockingDeque);
+        final GenericObjectPoolConfig<String> config = new GenericObjectPoolConfig<>();
+        config.setLockFreeIdleStore(true);
+        config.setLifo(false);
+        config.setEvictionValidationConcurrency(4);
+        config.setEvictionValidationRate(100);
+        pool.setConfig(config);
+        assertTrue(pool.getLockFreeIdleStore());
+        assertTrue(pool.createIdleObjectStore(false) instanceof ConcurrentIdleObjectStore);
+        assertFalse(pool.getLifo());
+        assertEquals(4, pool.getEvictionValidationConcurrency());
+        assertEquals(100, pool.getEvictionValidationRate());
+    }
+}
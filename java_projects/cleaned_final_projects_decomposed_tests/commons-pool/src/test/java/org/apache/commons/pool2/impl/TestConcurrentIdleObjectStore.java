@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Tests for {@link ConcurrentIdleObjectStore}. */
+public class TestConcurrentIdleObjectStore {
+
+    private static final Duration TIMEOUT_50_MILLIS = Duration.ofMillis(50);
+    private static final Integer ONE = Integer.valueOf(1);
+    private static final Integer TWO = Integer.valueOf(2);
+    private static final Integer THREE = Integer.valueOf(3);
+
+    private static void awaitWaiters(final IdleObjectStore<?> store, final int n)
+            throws InterruptedException {
+        while (store.getTakeQueueLength() != n) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testDequeOperations_test0_decomposed() {
+        final ConcurrentIdleObjectStore<Integer> store = new ConcurrentIdleObjectStore<>(true);
+        assertNull(store.pollFirst());
+        assertNull(store.peekLast());
+        assertThrows(NoSuchElementException.class, store::removeFirst);
+        assertThrows(NoSuchElementException.class, store::getLast);
+        assertThrows(NullPointerException.class, () -> store.addFirst(null));
+        assertTrue(store.offerLast(TWO));
+        assertTrue(store.offerFirst(ONE));
+        store.addLast(THREE);
+        assertEquals(3, store.size());
+        assertEquals(ONE, store.peekFirst());
+        assertEquals(THREE, store.getLast());
+        assertEquals(THREE, store.pollLast());
+        assertEquals(ONE, store.pollFirst());
+        assertEquals(TWO, store.pop());
+        assertTrue(store.isEmpty());
+    }
+
+    @Test
+    public void testRemoveOccurrence_test0_decomposed() {
+        final ConcurrentIdleObjectStore<Integer> store = new ConcurrentIdleObjectStore<>(true);
+        store.addLast(ONE);
+        store.addLast(TWO);
+        store.addLast(ONE);
+        store.addLast(THREE);
+        assertTrue(store.removeLastOccurrence(ONE));
+        assertTrue(store.removeFirstOccurrence(THREE));
+        assertFalse(store.remove(THREE));
+        assertFalse(store.removeFirstOccurrence(null));
+        assertEquals(2, store.size());
+        final Iterator<Integer> it = store.descendingIterator();
+        assertEquals(TWO, it.next());
+        it.remove();
+        assertThrows(IllegalStateException.class, it::remove);
+        assertEquals(ONE, it.next());
+        assertFalse(it.hasNext());
+        assertEquals(1, store.size());
+        assertTrue(store.contains(ONE));
+        store.clear();
+        assertTrue(store.isEmpty());
+        assertFalse(store.iterator().hasNext());
+    }
+
+    @Test
+    public void testAffinity_test0_decomposed() throws InterruptedException {
+        final ConcurrentIdleObjectStore<Integer> store = new ConcurrentIdleObjectStore<>(false);
+        store.addLast(ONE);
+        store.addLast(TWO);
+        // The calling thread gets back what it added last, others get the head
+        assertEquals(TWO, store.pollFirst());
+        store.addLast(TWO);
+        final AtomicReference<Integer> other = new AtomicReference<>();
+        final Thread thread = new Thread(() -> other.set(store.pollFirst()));
+        thread.start();
+        thread.join();
+        assertEquals(ONE, other.get());
+        assertEquals(TWO, store.pollFirst());
+        assertNull(store.pollFirst());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testAffinity_test1_decomposed() {
+        final ConcurrentIdleObjectStore<Integer> store = new ConcurrentIdleObjectStore<>(true);
+        store.addLast(ONE);
+        store.addLast(TWO);
+        assertEquals(ONE, store.pollFirst());
+    }
+
+    @Test
+    public void testClaimedNodes_test0_decomposed() throws InterruptedException {
+        final ConcurrentIdleObjectStore<Integer> store = new ConcurrentIdleObjectStore<>(false);
+        // Added by another thread, so never claimed through the affinity list of this one
+        final Thread thread = new Thread(() -> store.addLast(ONE));
+        thread.start();
+        thread.join();
+        for (int i = 0; i < 10000; i++) {
+            if (i % 2 == 0) {
+                store.addFirst(TWO);
+            } else {
+                store.addLast(TWO);
+            }
+            assertEquals(TWO, store.pollFirst());
+        }
+        // The nodes claimed through the affinity list are swept, not left in the shared deque
+        assertTrue(store.shared.size() < 100, Integer.toString(store.shared.size()));
+        assertEquals(1, store.size());
+        assertEquals(ONE, store.pollFirst());
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testHandOff_test0_decomposed() throws InterruptedException {
+        final ConcurrentIdleObjectStore<Integer> store = new ConcurrentIdleObjectStore<>(false);
+        final List<Integer> taken = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final Thread thread =
+                    new Thread(
+                            () -> {
+                                try {
+                                    final Integer x = store.takeFirst();
+                                    synchronized (taken) {
+                                        taken.add(x);
+                                    }
+                                } catch (final InterruptedException e) {
+                                    // Fails the test below
+                                }
+                            });
+            thread.start();
+            threads.add(thread);
+            awaitWaiters(store, i + 1);
+        }
+        assertTrue(store.hasTakeWaiters());
+        store.addFirst(ONE);
+        store.addLast(TWO);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(2, taken.size());
+        assertTrue(taken.contains(ONE) && taken.contains(TWO));
+        assertTrue(store.isEmpty());
+        assertFalse(store.hasTakeWaiters());
+    }
+
+    @Test
+    public void testPollFirstWithTimeout_test0_decomposed() throws InterruptedException {
+        final ConcurrentIdleObjectStore<Integer> store = new ConcurrentIdleObjectStore<>(false);
+        assertNull(store.pollFirst1(TIMEOUT_50_MILLIS));
+        assertNull(store.pollFirst1(Duration.ZERO));
+        assertEquals(0, store.getTakeQueueLength());
+        store.addLast(ONE);
+        assertEquals(ONE, store.pollFirst1(TIMEOUT_50_MILLIS));
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testInterruptTakeWaiters_test0_decomposed() throws InterruptedException {
+        final ConcurrentIdleObjectStore<Integer> store = new ConcurrentIdleObjectStore<>(false);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final Thread thread =
+                new Thread(
+                        () -> {
+                            try {
+                                store.takeFirst();
+                            } catch (final InterruptedException e) {
+                                interrupted.set(true);
+                            }
+                        });
+        thread.start();
+        awaitWaiters(store, 1);
+        store.interuptTakeWaiters();
+        thread.join();
+        assertTrue(interrupted.get());
+        assertFalse(store.hasTakeWaiters());
+        // A later element is not lost to the cancelled waiter
+        store.addLast(ONE);
+        assertEquals(ONE, store.pollFirst());
+    }
+
+    @Test
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void testConcurrentBorrowReturn_test0_decomposed() throws InterruptedException {
+        for (final boolean fairness : new boolean[] {false, true}) {
+            final ConcurrentIdleObjectStore<Integer> store =
+                    new ConcurrentIdleObjectStore<>(fairness);
+            final int objects = 4;
+            final AtomicBoolean[] inUse = new AtomicBoolean[objects];
+            for (int i = 0; i < objects; i++) {
+                inUse[i] = new AtomicBoolean();
+                store.addLast(Integer.valueOf(i));
+            }
+            final AtomicReference<String> failure = new AtomicReference<>();
+            final List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final boolean lifo = t % 2 == 0;
+                final Thread thread =
+                        new Thread(
+                                () -> {
+                                    try {
+                                        for (int i = 0; i < 20000; i++) {
+                                            final Integer x = store.pollFirst1(Duration.ofSeconds(10));
+                                            if (x == null) {
+                                                failure.set("timed out");
+                                                return;
+                                            }
+                                            if (!inUse[x].compareAndSet(false, true)) {
+                                                failure.set("borrowed twice: " + x);
+                                                return;
+                                            }
+                                            inUse[x].set(false);
+                                            if (lifo) {
+                                                store.addFirst(x);
+                                            } else {
+                                                store.addLast(x);
+                                            }
+                                        }
+                                    } catch (final InterruptedException e) {
+                                        failure.set(e.toString());
+                                    }
+                                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+            assertNull(failure.get());
+            assertEquals(objects, store.size());
+            final List<Integer> left = new ArrayList<>();
+            Integer x;
+            while ((x = store.pollLast()) != null) {
+                left.add(x);
+            }
+            assertEquals(objects, left.size());
+            for (int i = 0; i < objects; i++) {
+                assertTrue(left.contains(Integer.valueOf(i)));
+            }
+        }
+    }
+}
@@ -16,16 +16,26 @@
  */
 package org.apache.commons.pool2.impl;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.commons.pool2.PooledObjectState;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /** Tests {@link DefaultPooledObject}. */
 public class TestDefaultPooledObject {
@@ -394,4 +404,119 @@ public class TestDefaultPooledObject {
                 negativeIdleTimeReturned.get(),
                 "DefaultPooledObject.getIdleTimeMillis() returned a negative value");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testStateTransitions_test0_decomposed() {
+        final DefaultPooledObject<Object> dpo = new DefaultPooledObject<>(new Object());
+        assertEquals(PooledObjectState.IDLE, dpo.getState());
+        assertFalse(dpo.markReturningIfAllocated());
+        assertTrue(dpo.startEvictionTest());
+        assertFalse(dpo.allocate());
+        assertEquals(PooledObjectState.EVICTION_RETURN_TO_HEAD, dpo.getState());
+        assertFalse(dpo.deallocate());
+    }
+
+    @Test
+    public void testStateTransitions_test1_decomposed() {
+        final DefaultPooledObject<Object> dpo = new DefaultPooledObject<>(new Object());
+        assertTrue(dpo.allocate());
+        assertFalse(dpo.allocate());
+        assertFalse(dpo.startEvictionTest());
+        assertEquals(1, dpo.getBorrowedCount());
+        assertTrue(dpo.markReturningIfAllocated());
+        assertFalse(dpo.markAbandonedIfAllocated());
+        assertEquals(PooledObjectState.RETURNING, dpo.getState());
+        assertTrue(dpo.deallocate());
+        assertEquals(PooledObjectState.IDLE, dpo.getState());
+        assertTrue(dpo.allocate());
+        assertTrue(dpo.markAbandonedIfAllocated());
+        assertFalse(dpo.markReturningIfAllocated());
+        dpo.invalidate();
+        assertEquals(PooledObjectState.INVALID, dpo.getState());
+        assertFalse(dpo.allocate());
+    }
+
+    @Test
+    public void testConcurrentAllocate_test0_decomposed() throws Exception {
+        final DefaultPooledObject<Object> dpo = new DefaultPooledObject<>(new Object());
+        final AtomicInteger owners = new AtomicInteger();
+        final AtomicBoolean sharedAllocation = new AtomicBoolean(false);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(
+                    executor.submit(
+                            () -> {
+                                for (int i = 0; i < 10000; i++) {
+                                    if (dpo.allocate()) {
+                                        if (owners.incrementAndGet() != 1) {
+                                            sharedAllocation.set(true);
+                                        }
+                                        owners.decrementAndGet();
+                                        dpo.deallocate();
+                                    }
+                                }
+                            }));
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertFalse(sharedAllocation.get(), "Object allocated to two threads at once");
+        assertEquals(PooledObjectState.IDLE, dpo.getState());
+    }
+
+    /** A clock set by the test, running a task once the next time it is read. */
+    private static final class HookClock extends Clock {
+
+        private final AtomicReference<Instant> instant;
+
+        private final AtomicReference<Runnable> hook = new AtomicReference<>();
+
+        HookClock(final Instant instant) {
+            this.instant = new AtomicReference<>(instant);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Instant instant() {
+            final Runnable task = hook.getAndSet(null);
+            if (task != null) {
+                task.run();
+            }
+            return instant.get();
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void testAbandonedCheckDuringAllocate_test0_decomposed() {
+        final Instant created = Instant.now().minusSeconds(60);
+        final HookClock clock = new HookClock(created);
+        final DefaultPooledObject<Object> dpo = new DefaultPooledObject<>(new Object(), clock);
+        clock.instant.set(created.plusSeconds(60));
+        // The abandoned object check runs while allocate reads the clock: it must not see the
+        // object ALLOCATED with the last use instant of its creation, 60s ago
+        final Instant timeout = created.plusSeconds(30);
+        final AtomicBoolean abandoned = new AtomicBoolean();
+        clock.hook.set(
+                () -> abandoned.set(BaseGenericObjectPool.markAbandonedIfUnused(dpo, timeout)));
+        assertTrue(dpo.allocate());
+        assertFalse(abandoned.get());
+        assertEquals(PooledObjectState.ALLOCATED, dpo.getState());
+        assertEquals(created.plusSeconds(60), dpo.getLastUsedInstant());
+        assertFalse(BaseGenericObjectPool.markAbandonedIfUnused(dpo, timeout));
+        // Once the object is unused past the timeout, the check marks it abandoned
+        clock.instant.set(created.plusSeconds(120));
+        assertTrue(BaseGenericObjectPool.markAbandonedIfUnused(dpo, created.plusSeconds(90)));
+        assertEquals(PooledObjectState.ABANDONED, dpo.getState());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Tests for {@link EvictionValidator}. */
+public class TestEvictionValidator {
+
+    @Test
+    public void testSerial_test0_decomposed() throws InterruptedException {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        EvictionValidator validator = new EvictionValidator(null, 4, 0, e -> {});
+        assertTrue(validator.isSerial());
+        validator.submit(() -> thread.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), thread.get());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // An executor is used even with a concurrency of 1
+            validator = new EvictionValidator(executor, 0, 0, e -> {});
+            assertFalse(validator.isSerial());
+            assertEquals(1, validator.getConcurrency());
+            thread.set(null);
+            validator.submit(() -> thread.set(Thread.currentThread()));
+            validator.await();
+            assertNotSame(Thread.currentThread(), thread.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testConcurrencyLimit_test0_decomposed() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final EvictionValidator validator = new EvictionValidator(executor, 3, 0, e -> {});
+            assertFalse(validator.isSerial());
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final AtomicInteger done = new AtomicInteger();
+            for (int i = 0; i < 30; i++) {
+                validator.submit(
+                        () -> {
+                            final int n = running.incrementAndGet();
+                            maxRunning.accumulateAndGet(n, Math::max);
+                            try {
+                                Thread.sleep(5);
+                            } catch (final InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            running.decrementAndGet();
+                            done.incrementAndGet();
+                        });
+                assertTrue(validator.getNumActive() <= 3);
+            }
+            validator.await();
+            assertEquals(30, done.get());
+            assertTrue(maxRunning.get() <= 3, Integer.toString(maxRunning.get()));
+            assertEquals(0, validator.getNumActive());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testParallel_test0_decomposed() throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final EvictionValidator validator = new EvictionValidator(executor, 2, 0, e -> {});
+            // Both validations must run at the same time to get past the latch
+            final CountDownLatch latch = new CountDownLatch(2);
+            final AtomicInteger done = new AtomicInteger();
+            for (int i = 0; i < 2; i++) {
+                validator.submit(
+                        () -> {
+                            latch.countDown();
+                            try {
+                                if (latch.await(5, TimeUnit.SECONDS)) {
+                                    done.incrementAndGet();
+                                }
+                            } catch (final InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+            }
+            validator.await();
+            assertEquals(2, done.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejected_test0_decomposed() throws InterruptedException {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final EvictionValidator validator =
+                new EvictionValidator(
+                        command -> {
+                            throw new RejectedExecutionException();
+                        },
+                        2,
+                        0,
+                        e -> {});
+        validator.submit(() -> thread.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), thread.get());
+        assertEquals(0, validator.getNumActive());
+        validator.await();
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testExceptions_test0_decomposed() throws InterruptedException {
+        final List<Exception> swallowed = new CopyOnWriteArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final EvictionValidator validator =
+                    new EvictionValidator(executor, 2, 0, swallowed::add);
+            for (int i = 0; i < 4; i++) {
+                final int n = i;
+                validator.submit(
+                        () -> {
+                            throw new Exception(Integer.toString(n));
+                        });
+            }
+            validator.await();
+            assertEquals(4, swallowed.size());
+            validator.submit(
+                    () -> {
+                        throw new IllegalStateException();
+                    });
+            validator.await();
+            assertTrue(swallowed.get(4) instanceof IllegalStateException);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void testRate_test0_decomposed() throws InterruptedException {
+        final AtomicInteger done = new AtomicInteger();
+        final EvictionValidator validator = new EvictionValidator(null, 1, 50, e -> {});
+        final long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            validator.submit(done::incrementAndGet);
+        }
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(11, done.get());
+        // 10 intervals of 20 ms
+        assertTrue(elapsed >= 190, Long.toString(elapsed));
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Tests for {@link SlidingWindowHistogram}. */
+public class TestSlidingWindowHistogram {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testBuckets_test0_decomposed() {
+        int previous = -1;
+        for (long value = 0; value < 1L << 40; value = value < 64 ? value + 1 : value * 9 / 8) {
+            final int bucket = SlidingWindowHistogram.bucketOf(value);
+            assertTrue(bucket >= previous && bucket < SlidingWindowHistogram.BUCKETS);
+            assertTrue(SlidingWindowHistogram.highestValueOf(bucket) >= value);
+            if (value < 1L << 36) {
+                // Relative error of a bucket
+                assertTrue(SlidingWindowHistogram.highestValueOf(bucket) - value <= value / 16);
+            }
+            previous = bucket;
+        }
+        assertEquals(0, SlidingWindowHistogram.bucketOf(-5));
+        assertEquals(
+                SlidingWindowHistogram.BUCKETS - 1, SlidingWindowHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles_test0_decomposed() {
+        final SlidingWindowHistogram histogram =
+                new SlidingWindowHistogram(Duration.ofSeconds(60), 6);
+        final long now = 1000 * SECOND;
+        assertEquals(0, histogram.getPercentile1(99, now));
+        assertEquals(0, histogram.getMax1(now));
+        for (long value = 1; value <= 10000; value++) {
+            histogram.add1(value, now);
+        }
+        assertEquals(10000, histogram.getCount(now));
+        assertEquals(10000, histogram.getMax1(now));
+        final long p50 = histogram.getPercentile1(50, now);
+        final long p99 = histogram.getPercentile1(99, now);
+        final long p999 = histogram.getPercentile1(99.9, now);
+        assertTrue(p50 >= 5000 && p50 <= 5000 * 17 / 16, Long.toString(p50));
+        assertTrue(p99 >= 9900 && p99 <= 10000, Long.toString(p99));
+        assertTrue(p999 >= 9990 && p999 <= 10000, Long.toString(p999));
+        assertEquals(1, histogram.getPercentile1(0, now));
+        assertEquals(10000, histogram.getPercentile1(100, now));
+    }
+
+    @Test
+    public void testTail_test0_decomposed() {
+        final SlidingWindowHistogram histogram =
+                new SlidingWindowHistogram(Duration.ofSeconds(60), 6);
+        final long now = 1000 * SECOND;
+        for (int i = 0; i < 9980; i++) {
+            histogram.add1(100, now);
+        }
+        for (int i = 0; i < 20; i++) {
+            histogram.add1(3_000_000, now);
+        }
+        // A mean would be about 6 ms, the percentiles show the spike (100 is in bucket [96, 103])
+        assertEquals(103, histogram.getPercentile1(50, now));
+        assertEquals(103, histogram.getPercentile1(99, now));
+        assertTrue(histogram.getPercentile1(99.9, now) >= 3_000_000);
+        assertEquals(3_000_000, histogram.getMax1(now));
+    }
+
+    @Test
+    public void testWindow_test0_decomposed() {
+        final SlidingWindowHistogram histogram =
+                new SlidingWindowHistogram(Duration.ofSeconds(60), 6);
+        final long start = 1000 * SECOND;
+        histogram.add1(5000, start);
+        histogram.add1(10, start + 30 * SECOND);
+        assertEquals(2, histogram.getCount(start + 30 * SECOND));
+        assertEquals(5000, histogram.getMax1(start + 55 * SECOND));
+        // The first slice has left the window
+        assertEquals(1, histogram.getCount(start + 65 * SECOND));
+        assertEquals(10, histogram.getMax1(start + 65 * SECOND));
+        // Its slot is reused for a later period
+        histogram.add1(20, start + 60 * SECOND);
+        assertEquals(20, histogram.getMax1(start + 65 * SECOND));
+        assertEquals(2, histogram.getCount(start + 65 * SECOND));
+        // Late values for a reused slot are dropped
+        histogram.add1(7000, start);
+        assertEquals(20, histogram.getMax1(start + 65 * SECOND));
+        assertEquals(0, histogram.getCount(start + 200 * SECOND));
+    }
+
+    @Test
+    public void testWindow_test1_decomposed() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new SlidingWindowHistogram(Duration.ofSeconds(60), 1));
+        final SlidingWindowHistogram histogram =
+                new SlidingWindowHistogram(Duration.ofSeconds(60), 6);
+        histogram.add0(Duration.ofMillis(3));
+        histogram.add0(Duration.ofMillis(-3));
+        assertEquals(3000, histogram.getMax0());
+        assertEquals(0, histogram.getPercentile0(50));
+    }
+
+    @Test
+    public void testConcurrentAdd_test0_decomposed() throws InterruptedException {
+        final SlidingWindowHistogram histogram =
+                new SlidingWindowHistogram(Duration.ofSeconds(60), 6);
+        final long now = 1000 * SECOND;
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final Thread thread =
+                    new Thread(
+                            () -> {
+                                for (int i = 1; i <= 10000; i++) {
+                                    histogram.add1(i, now);
+                                }
+                            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80000, histogram.getCount(now));
+        assertEquals(10000, histogram.getMax1(now));
+    }
+
+    @Test
+    public void testConcurrentAdd_test1_decomposed() throws InterruptedException {
+        final SlidingWindowHistogram histogram =
+                new SlidingWindowHistogram(Duration.ofSeconds(60), 6);
+        final long now = 1000 * SECOND;
+        // The slice of now holds the values of the previous window: the threads race to clear it
+        for (int i = 0; i < 1000; i++) {
+            histogram.add1(50000, now - 60 * SECOND);
+        }
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final Thread thread =
+                    new Thread(
+                            () -> {
+                                for (int i = 1; i <= 10000; i++) {
+                                    histogram.add1(i, now);
+                                }
+                            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80000, histogram.getCount(now));
+        assertEquals(10000, histogram.getMax1(now));
+    }
+}